@@ -0,0 +1,163 @@
+package pe.gob.munipaucarpata.archivocentral.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Tiempo de arranque de la API en distintas variantes (jar normal, perfil
+ * "rapido" con AOT y CDS, imagen nativa). Por cada repetición y variante
+ * lanza el proceso y mide desde el lanzamiento:
+ *
+ * <ul>
+ * <li>{@code msListo}: hasta el log "Started Application" (el tiempo que
+ * informa Spring va en {@code msSegunSpring});</li>
+ * <li>{@code msPrimeraRespuesta}: hasta la primera respuesta 200 de
+ * {@code url}, consultada cada 10 ms.</li>
+ * </ul>
+ *
+ * Las variantes se alternan en cada repetición para repartir el ruido de
+ * la máquina. Imprime una línea CSV por medición y, al final, las medianas.
+ *
+ * <p>
+ * Uso (desde la raíz del proyecto, con PostgreSQL en marcha):
+ * {@code ArranqueBenchmark url repeticiones "nombre=comando" ...}, ej.
+ * </p>
+ *
+ * <pre>
+ * ArranqueBenchmark http://localhost:8080/api/expedientes?size=1 5 \
+ *   "jar=java -jar target/archivo-central-api-0.0.1-SNAPSHOT.jar" \
+ *   "rapido=java -XX:SharedArchiveFile=target/rapido/archivo.jsa -Dspring.aot.enabled=true
+ *           -Dspring.profiles.active=rapido -jar target/rapido/archivo-central-api-0.0.1-SNAPSHOT.jar" \
+ *   "nativo=target/archivo-central-api --spring.profiles.active=rapido"
+ * </pre>
+ */
+public final class ArranqueBenchmark {
+
+    private static final Pattern STARTED = Pattern.compile("Started \\w+ in ([0-9.]+) seconds");
+
+    private static final Duration ESPERA_MAXIMA = Duration.ofMinutes(2);
+
+    /** System.nanoTime() puede ser negativo: "sin marca" no puede ser 0. */
+    private static final long SIN_MARCA = Long.MIN_VALUE;
+
+    private ArranqueBenchmark() {
+    }
+
+    record Medicion(double msListo, double msPrimeraRespuesta, double msSegunSpring) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Uso: ArranqueBenchmark url repeticiones \"nombre=comando\" ...");
+            System.exit(2);
+        }
+        var url = URI.create(args[0]);
+        int repeticiones = Integer.parseInt(args[1]);
+        var variantes = new LinkedHashMap<String, List<String>>();
+        for (var variante : Arrays.copyOfRange(args, 2, args.length)) {
+            int igual = variante.indexOf('=');
+            variantes.put(variante.substring(0, igual), List.of(variante.substring(igual + 1).trim().split("\\s+")));
+        }
+
+        var cliente = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(500)).build();
+        var mediciones = new LinkedHashMap<String, List<Medicion>>();
+        System.out.println("variante,repeticion,msListo,msPrimeraRespuesta,msSegunSpring");
+        for (int r = 1; r <= repeticiones; r++) {
+            for (var variante : variantes.entrySet()) {
+                var m = medir(variante.getValue(), url, cliente);
+                mediciones.computeIfAbsent(variante.getKey(), k -> new ArrayList<>()).add(m);
+                System.out.printf("%s,%d,%.0f,%.0f,%.0f%n",
+                        variante.getKey(), r, m.msListo(), m.msPrimeraRespuesta(), m.msSegunSpring());
+            }
+        }
+
+        System.err.println("variante,medianaMsListo,medianaMsPrimeraRespuesta");
+        for (Map.Entry<String, List<Medicion>> e : mediciones.entrySet()) {
+            System.err.printf("%s,%.0f,%.0f%n", e.getKey(),
+                    mediana(e.getValue().stream().mapToDouble(Medicion::msListo).toArray()),
+                    mediana(e.getValue().stream().mapToDouble(Medicion::msPrimeraRespuesta).toArray()));
+        }
+    }
+
+    private static Medicion medir(List<String> comando, URI url, HttpClient cliente) throws Exception {
+        var listo = new AtomicLong(SIN_MARCA);
+        var segunSpring = new AtomicLong(-1);
+        long inicio = System.nanoTime();
+        var proceso = new ProcessBuilder(comando).redirectErrorStream(true).start();
+        try {
+            var lector = new Thread(() -> leerLog(proceso, listo, segunSpring), "arranque-log");
+            lector.setDaemon(true);
+            lector.start();
+
+            var request = HttpRequest.newBuilder(url).timeout(Duration.ofSeconds(1)).GET().build();
+            long limite = inicio + ESPERA_MAXIMA.toNanos();
+            while (true) {
+                if (!proceso.isAlive()) {
+                    throw new IllegalStateException("El proceso terminó (código " + proceso.exitValue() + "): " + comando);
+                }
+                if (System.nanoTime() > limite) {
+                    throw new IllegalStateException("Sin respuesta 200 en " + ESPERA_MAXIMA + ": " + comando);
+                }
+                try {
+                    if (cliente.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        break;
+                    }
+                } catch (IOException ex) {
+                    // Aún no escucha
+                }
+                Thread.sleep(10);
+            }
+            long primera = System.nanoTime();
+            // El log de "Started" suele llegar antes; si no, se le da un segundo
+            for (int i = 0; i < 100 && listo.get() == SIN_MARCA; i++) {
+                Thread.sleep(10);
+            }
+            return new Medicion(
+                    listo.get() != SIN_MARCA ? (listo.get() - inicio) / 1e6 : Double.NaN,
+                    (primera - inicio) / 1e6,
+                    segunSpring.get() >= 0 ? segunSpring.get() : Double.NaN);
+        } finally {
+            proceso.destroy();
+            if (!proceso.waitFor(15, TimeUnit.SECONDS)) {
+                proceso.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    /** Lee la salida del proceso (para que no se bloquee) y detecta el "Started". */
+    private static void leerLog(Process proceso, AtomicLong listo, AtomicLong segunSpring) {
+        try (var lector = new BufferedReader(new InputStreamReader(proceso.getInputStream(), StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                var m = STARTED.matcher(linea);
+                if (listo.get() == SIN_MARCA && m.find()) {
+                    listo.set(System.nanoTime());
+                    segunSpring.set(Math.round(Double.parseDouble(m.group(1)) * 1000));
+                }
+            }
+        } catch (IOException ex) {
+            // El proceso terminó
+        }
+    }
+
+    private static double mediana(double[] valores) {
+        Arrays.sort(valores);
+        int n = valores.length;
+        return n % 2 == 1 ? valores[n / 2] : (valores[n / 2 - 1] + valores[n / 2]) / 2;
+    }
+}
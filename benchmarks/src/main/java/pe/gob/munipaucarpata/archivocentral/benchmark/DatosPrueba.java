@@ -0,0 +1,96 @@
+package pe.gob.munipaucarpata.archivocentral.benchmark;
+
+import pe.gob.munipaucarpata.archivocentral.expediente.ExpedienteEntity;
+import pe.gob.munipaucarpata.archivocentral.expediente.TipoDocumento;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.CreateExpedienteRequest;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.UpdateExpedienteRequest;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Datos deterministas y realistas para los benchmarks: nombres y
+ * dependencias de la MDP, con espacios y minúsculas que el mapeo debe
+ * normalizar, y asuntos de longitud configurable.
+ */
+final class DatosPrueba {
+
+    private static final String[] APELLIDOS = {
+            "quispe", "mamani", "huamaní", "condori", "ccama", "flores",
+            "choque", "apaza", "ticona", "puma", "núñez", "gutiérrez" };
+
+    private static final String[] NOMBRES = {
+            "juan carlos", "rosa elvira", "edgar antonio", "maría", "luis",
+            "carmen", "josé", "percy", "nelly", "wilber", "yolanda" };
+
+    private static final String[] DEPENDENCIAS = {
+            "gerencia municipal - mdp",
+            "sub gerencia de catastro y habilitaciones urbanas - mdp",
+            "gerencia de desarrollo social - mdp",
+            "gerencia de infraestructura y desarrollo urbano - mdp" };
+
+    private static final String FRASE = "SOLICITUD DE LICENCIA DE CONSTRUCCIÓN DEL PREDIO UBICADO EN "
+            + "AV. KENNEDY MZ. F LOTE 12, URBANIZACIÓN LAS FLORES, PAUCARPATA. ";
+
+    private DatosPrueba() {
+    }
+
+    static CreateExpedienteRequest crearRequest(int id, int largoAsunto, SplittableRandom random) {
+        return new CreateExpedienteRequest(
+                id,
+                1990 + random.nextInt(35),
+                LocalDate.of(2000, 1, 1).plusDays(random.nextInt(9000)),
+                TipoDocumento.values()[random.nextInt(TipoDocumento.values().length)],
+                "  oficio n° %03d-2024-mdp/gm ".formatted(random.nextInt(1000)),
+                "  " + nombre(random) + " ",
+                "%08d".formatted(random.nextInt(100_000_000)),
+                asunto(largoAsunto) + "  ",
+                " " + DEPENDENCIAS[random.nextInt(DEPENDENCIAS.length)] + " ",
+                1 + random.nextInt(80),
+                " caja n° %d / fólder azul ".formatted(random.nextInt(60)),
+                random.nextBoolean() ? null : " Documento recibido con cargo de recepción. ");
+    }
+
+    static UpdateExpedienteRequest actualizarRequest(CreateExpedienteRequest r) {
+        return new UpdateExpedienteRequest(
+                r.fechaRegistro(), r.tipoDocumento(), r.nroDocumento(), r.nombreSolicitante(),
+                r.dni(), r.asunto(), r.dirigidoA(), r.folios(), r.archivadoCon(), r.observaciones());
+    }
+
+    /**
+     * Página de respuestas como las que devuelve la API (con fechas de
+     * auditoría completas).
+     */
+    static List<ExpedienteResponse> respuestas(int cantidad, int largoAsunto, long semilla) {
+        var random = new SplittableRandom(semilla);
+        var lista = new ArrayList<ExpedienteResponse>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            var e = ExpedienteEntity.crear(crearRequest(i, largoAsunto, random));
+            var ahora = Instant.parse("2024-05-20T15:30:00Z").plusSeconds(i);
+            lista.add(new ExpedienteResponse(
+                    e.getId(), e.getAnio(), e.getFechaRegistro(), e.getTipoDocumento(), e.getNroDocumento(),
+                    e.getNombreSolicitante(), e.getDni(), e.getAsunto(), e.getDirigidoA(), e.getFolios(),
+                    e.getArchivadoCon(), e.getObservaciones(), ahora, ahora, 0));
+        }
+        return lista;
+    }
+
+    private static String nombre(SplittableRandom random) {
+        return APELLIDOS[random.nextInt(APELLIDOS.length)] + " "
+                + APELLIDOS[random.nextInt(APELLIDOS.length)] + " "
+                + NOMBRES[random.nextInt(NOMBRES.length)];
+    }
+
+    private static String asunto(int largo) {
+        var sb = new StringBuilder(largo + FRASE.length());
+        while (sb.length() < largo) {
+            sb.append(FRASE);
+        }
+        sb.setLength(largo);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,47 @@
+package pe.gob.munipaucarpata.archivocentral.benchmark;
+
+import pe.gob.munipaucarpata.archivocentral.expediente.NumerosRegistrados;
+
+import java.util.SplittableRandom;
+
+/**
+ * Numeraciones de prueba para {@link NumerosRegistrados}, repartidas en 35
+ * años por bloques consecutivos de N°.
+ */
+public enum DistribucionNumeros {
+
+    /** Numeración correlativa con 1% de N° faltantes al azar (el caso real). */
+    CONSECUTIVA(0.99),
+
+    /** 1 de cada 10 N° registrados: peor caso para la compresión por rangos. */
+    DISPERSA(0.10);
+
+    private static final int ANIOS = 35;
+
+    private final double densidad;
+
+    DistribucionNumeros(double densidad) {
+        this.densidad = densidad;
+    }
+
+    /**
+     * Último N° del espacio de numeración para {@code cantidad} registros.
+     */
+    public int maximo(int cantidad) {
+        return (int) Math.ceil(cantidad / densidad);
+    }
+
+    public NumerosRegistrados generar(int cantidad, long semilla) {
+        var random = new SplittableRandom(semilla);
+        var numeros = new NumerosRegistrados();
+        int maximo = maximo(cantidad);
+        int porAnio = maximo / ANIOS + 1;
+        for (int id = 1; id <= maximo; id++) {
+            if (random.nextDouble() < densidad) {
+                numeros.agregar(id, 1990 + id / porAnio);
+            }
+        }
+        numeros.optimizar();
+        return numeros;
+    }
+}
@@ -0,0 +1,48 @@
+package pe.gob.munipaucarpata.archivocentral.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tiempo de codificación de {@code Page<ExpedienteResponse>} en JSON, CBOR
+ * y Smile, sin comprimir y con gzip. Los bytes de cada combinación los
+ * imprime {@link TamanioFormatos}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Benchmark)
+public class FormatoBinarioBenchmark {
+
+    @Param({ "JSON", "CBOR", "SMILE" })
+    FormatoRespuesta formato;
+
+    @Param({ "20", "1000" })
+    int tamanioPagina;
+
+    private Page<ExpedienteResponse> pagina;
+
+    @Setup
+    public void preparar() {
+        var contenido = DatosPrueba.respuestas(tamanioPagina, 200, 42);
+        pagina = new PageImpl<>(contenido, PageRequest.of(3, tamanioPagina, Sort.by("id")), 250_000);
+    }
+
+    @Benchmark
+    public byte[] codificar() throws Exception {
+        return formato.codificar(pagina);
+    }
+
+    @Benchmark
+    public byte[] codificarGzip() throws Exception {
+        return formato.codificarGzip(pagina);
+    }
+}
@@ -0,0 +1,49 @@
+package pe.gob.munipaucarpata.archivocentral.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.TimeZone;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Formatos de respuesta de la API con la misma configuración de Jackson:
+ * JSON con fechas ISO-8601 (spring.jackson.*) y CBOR / Smile con fechas
+ * numéricas (FormatosBinariosConfig).
+ */
+public enum FormatoRespuesta {
+    JSON(new ObjectMapper(), false),
+    CBOR(new ObjectMapper(new CBORFactory()), true),
+    SMILE(new ObjectMapper(new SmileFactory()), true);
+
+    private final ObjectMapper mapper;
+
+    FormatoRespuesta(ObjectMapper base, boolean fechasNumericas) {
+        this.mapper = base
+                .registerModule(new JavaTimeModule())
+                .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, fechasNumericas)
+                .disable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .setTimeZone(TimeZone.getTimeZone("America/Lima"));
+    }
+
+    byte[] codificar(Object valor) throws IOException {
+        return mapper.writeValueAsBytes(valor);
+    }
+
+    /**
+     * Codifica y comprime con gzip al nivel por defecto (el que usa Tomcat
+     * con server.compression.enabled).
+     */
+    byte[] codificarGzip(Object valor) throws IOException {
+        var salida = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(salida)) {
+            mapper.writeValue(gzip, valor);
+        }
+        return salida.toByteArray();
+    }
+}
@@ -0,0 +1,66 @@
+package pe.gob.munipaucarpata.archivocentral.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pe.gob.munipaucarpata.archivocentral.expediente.ExpedienteEntity;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.CreateExpedienteRequest;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.UpdateExpedienteRequest;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapeo por petición: {@link ExpedienteEntity#crear},
+ * {@link ExpedienteEntity#actualizar} (trim/toUpperCase de cada campo) y
+ * {@link ExpedienteResponse#from}.
+ *
+ * Ejecutar con {@code -prof gc} para ver la tasa de asignación (B/op).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Thread)
+public class MapeoBenchmark {
+
+    /** Largo del asunto: típico (200) y expediente extenso (8000). */
+    @Param({ "200", "8000" })
+    int largoAsunto;
+
+    private CreateExpedienteRequest crear;
+    private UpdateExpedienteRequest actualizar;
+    private ExpedienteEntity entidad;
+
+    @Setup
+    public void preparar() {
+        crear = DatosPrueba.crearRequest(4521, largoAsunto, new SplittableRandom(42));
+        actualizar = DatosPrueba.actualizarRequest(crear);
+        entidad = ExpedienteEntity.crear(crear);
+    }
+
+    @Benchmark
+    public ExpedienteEntity crearEntidad() {
+        return ExpedienteEntity.crear(crear);
+    }
+
+    @Benchmark
+    public ExpedienteEntity actualizarEntidad() {
+        entidad.actualizar(actualizar);
+        return entidad;
+    }
+
+    @Benchmark
+    public ExpedienteResponse entidadARespuesta() {
+        return ExpedienteResponse.from(entidad);
+    }
+
+    /**
+     * Camino completo de POST /api/expedientes sin BD: request → entidad → respuesta.
+     */
+    @Benchmark
+    public void registrarSinBd(Blackhole bh) {
+        bh.consume(ExpedienteResponse.from(ExpedienteEntity.crear(crear)));
+    }
+}
@@ -0,0 +1,32 @@
+package pe.gob.munipaucarpata.archivocentral.benchmark;
+
+/**
+ * Imprime en CSV la memoria del índice de N° registrados (total + por año)
+ * para 1, 5 y 10 millones de expedientes, junto a la de las alternativas:
+ * un BitSet hasta el N° máximo y un HashSet&lt;Integer&gt; (estimado en
+ * 48 bytes por elemento: Integer + nodo + tabla, JVM de 64 bits con
+ * compressed oops). Acompaña los tiempos de {@link NumerosRegistradosBenchmark}.
+ */
+public final class MemoriaNumeros {
+
+    private static final long BYTES_POR_ELEMENTO_HASHSET = 48;
+
+    private MemoriaNumeros() {
+    }
+
+    public static void main(String[] args) {
+        System.out.println("distribucion,cantidad,bytesIndice,bytesBitSet,bytesHashSetEstimado,msCarga");
+        for (var distribucion : DistribucionNumeros.values()) {
+            for (int cantidad : new int[] { 1_000_000, 5_000_000, 10_000_000 }) {
+                long inicio = System.nanoTime();
+                var numeros = distribucion.generar(cantidad, 42);
+                long msCarga = (System.nanoTime() - inicio) / 1_000_000;
+                System.out.printf("%s,%d,%d,%d,%d,%d%n",
+                        distribucion, numeros.cantidad(), numeros.bytes(),
+                        distribucion.maximo(cantidad) / 8 + 1,
+                        numeros.cantidad() * BYTES_POR_ELEMENTO_HASHSET,
+                        msCarga);
+            }
+        }
+    }
+}
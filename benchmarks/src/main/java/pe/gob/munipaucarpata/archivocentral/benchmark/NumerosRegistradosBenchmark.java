@@ -0,0 +1,73 @@
+package pe.gob.munipaucarpata.archivocentral.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pe.gob.munipaucarpata.archivocentral.expediente.NumerosRegistrados;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.RangoNumeros;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de las consultas del índice de N° registrados con 10 millones de
+ * expedientes: verificación de duplicado, reporte de huecos en una ventana
+ * de 100 000 N° y siguiente N° libre. La memoria la imprime
+ * {@link MemoriaNumeros}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Benchmark)
+public class NumerosRegistradosBenchmark {
+
+    private static final int VENTANA_HUECOS = 100_000;
+    private static final int CONSULTAS = 4096;
+
+    @Param({ "CONSECUTIVA", "DISPERSA" })
+    DistribucionNumeros distribucion;
+
+    @Param({ "10000000" })
+    int cantidad;
+
+    private NumerosRegistrados numeros;
+    private int[] consultas;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        numeros = distribucion.generar(cantidad, 42);
+        var random = new SplittableRandom(7);
+        int maximo = distribucion.maximo(cantidad);
+        consultas = new int[CONSULTAS];
+        for (int i = 0; i < CONSULTAS; i++) {
+            consultas[i] = 1 + random.nextInt(maximo - VENTANA_HUECOS);
+        }
+    }
+
+    private int siguienteConsulta() {
+        siguiente = (siguiente + 1) & (CONSULTAS - 1);
+        return consultas[siguiente];
+    }
+
+    /** Verificación previa de duplicado en registrar. */
+    @Benchmark
+    public boolean contiene() {
+        return numeros.contiene(siguienteConsulta());
+    }
+
+    @Benchmark
+    public int siguienteLibre() {
+        return numeros.siguienteLibre(siguienteConsulta());
+    }
+
+    @Benchmark
+    public void huecos(Blackhole bh) {
+        int desde = siguienteConsulta();
+        List<RangoNumeros> rangos = numeros.huecos(desde, desde + VENTANA_HUECOS - 1, Integer.MAX_VALUE);
+        bh.consume(rangos);
+        bh.consume(numeros.registrados(desde, desde + VENTANA_HUECOS - 1));
+    }
+}
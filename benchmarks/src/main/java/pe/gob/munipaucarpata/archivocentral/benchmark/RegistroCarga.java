@@ -0,0 +1,99 @@
+package pe.gob.munipaucarpata.archivocentral.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import pe.gob.munipaucarpata.archivocentral.expediente.TipoDocumento;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.CreateExpedienteRequest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Prueba de carga de POST /api/expedientes contra una instancia en marcha:
+ * {@code concurrencia} clientes registran {@code total} expedientes con N°
+ * consecutivos desde {@code desde}. Imprime una línea CSV con registros/s
+ * y percentiles de latencia.
+ *
+ * <p>
+ * Para comparar el registro individual con el agrupado, se ejecuta dos
+ * veces con rangos de N° distintos: una con la API normal y otra con
+ * {@code --archivo.registro.agrupado.habilitado=true}.
+ * </p>
+ *
+ * Uso: {@code RegistroCarga [url] [desde] [total] [concurrencia]}
+ */
+public final class RegistroCarga {
+
+    private RegistroCarga() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        var url = URI.create(args.length > 0 ? args[0] : "http://localhost:8080/api/expedientes");
+        int desde = args.length > 1 ? Integer.parseInt(args[1]) : 9_000_000;
+        int total = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        int concurrencia = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+
+        var mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        var tipos = TipoDocumento.values();
+        var cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        var siguiente = new AtomicInteger();
+        var latencias = new AtomicLongArray(total);
+        var creados = new AtomicInteger();
+        var rechazados = new AtomicInteger();
+
+        long inicio = System.nanoTime();
+        try (var hilos = Executors.newFixedThreadPool(concurrencia)) {
+            for (int c = 0; c < concurrencia; c++) {
+                hilos.submit(() -> {
+                    for (int i; (i = siguiente.getAndIncrement()) < total;) {
+                        int id = desde + i;
+                        var cuerpo = mapper.writeValueAsBytes(new CreateExpedienteRequest(
+                                id, 2024, LocalDate.of(2024, 1, 1).plusDays(i % 365),
+                                tipos[i % tipos.length], "DOC-" + id,
+                                "SOLICITANTE DE CARGA " + (i % 1000),
+                                "%08d".formatted(10_000_000 + i % 90_000_000),
+                                "Registro de prueba de carga", "MESA DE PARTES",
+                                1 + i % 50, null, null));
+                        var request = HttpRequest.newBuilder(url)
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofByteArray(cuerpo))
+                                .build();
+                        long t0 = System.nanoTime();
+                        var response = cliente.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencias.set(i, System.nanoTime() - t0);
+                        (response.statusCode() == 201 ? creados : rechazados).incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        long[] ordenadas = new long[total];
+        for (int i = 0; i < total; i++) {
+            ordenadas[i] = latencias.get(i);
+        }
+        Arrays.sort(ordenadas);
+
+        System.out.println("concurrencia,total,creados,rechazados,registrosPorSegundo,p50Ms,p95Ms,p99Ms,maxMs");
+        System.out.printf("%d,%d,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f%n",
+                concurrencia, total, creados.get(), rechazados.get(), creados.get() / segundos,
+                percentil(ordenadas, 0.50), percentil(ordenadas, 0.95),
+                percentil(ordenadas, 0.99), ordenadas[total - 1] / 1e6);
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        return ordenadas[(int) Math.min(ordenadas.length - 1, Math.ceil(p * ordenadas.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,63 @@
+package pe.gob.munipaucarpata.archivocentral.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteResponse;
+
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización JSON de {@code Page<ExpedienteResponse>} con la misma
+ * configuración de Jackson que la API (fechas ISO-8601, zona
+ * America/Lima), para páginas de 20, 100 y 1000 registros.
+ *
+ * Ejecutar con {@code -prof gc} para ver la tasa de asignación (B/op).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Benchmark)
+public class SerializacionBenchmark {
+
+    @Param({ "20", "100", "1000" })
+    int tamanioPagina;
+
+    @Param({ "200", "8000" })
+    int largoAsunto;
+
+    private ObjectMapper objectMapper;
+    private Page<ExpedienteResponse> pagina;
+    private ExpedienteResponse individual;
+
+    @Setup
+    public void preparar() {
+        // Equivalente a spring.jackson.* de application.properties
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .setTimeZone(TimeZone.getTimeZone("America/Lima"));
+
+        var contenido = DatosPrueba.respuestas(tamanioPagina, largoAsunto, 42);
+        pagina = new PageImpl<>(contenido, PageRequest.of(3, tamanioPagina, Sort.by("id")), 250_000);
+        individual = contenido.get(0);
+    }
+
+    @Benchmark
+    public byte[] serializarPagina() throws Exception {
+        return objectMapper.writeValueAsBytes(pagina);
+    }
+
+    @Benchmark
+    public byte[] serializarIndividual() throws Exception {
+        return objectMapper.writeValueAsBytes(individual);
+    }
+}
@@ -0,0 +1,34 @@
+package pe.gob.munipaucarpata.archivocentral.benchmark;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Imprime en CSV los bytes por página de cada formato, sin comprimir y con
+ * gzip, para acompañar los tiempos de {@link FormatoBinarioBenchmark}.
+ * Los datos son deterministas: la salida se puede comparar entre commits.
+ */
+public final class TamanioFormatos {
+
+    private TamanioFormatos() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("tamanioPagina,largoAsunto,formato,bytes,bytesGzip,relacionVsJson");
+        for (int tamanioPagina : new int[] { 20, 100, 1000 }) {
+            for (int largoAsunto : new int[] { 200, 8000 }) {
+                var contenido = DatosPrueba.respuestas(tamanioPagina, largoAsunto, 42);
+                var pagina = new PageImpl<>(contenido, PageRequest.of(3, tamanioPagina, Sort.by("id")), 250_000);
+
+                double bytesJson = FormatoRespuesta.JSON.codificar(pagina).length;
+                for (var formato : FormatoRespuesta.values()) {
+                    int bytes = formato.codificar(pagina).length;
+                    int bytesGzip = formato.codificarGzip(pagina).length;
+                    System.out.printf("%d,%d,%s,%d,%d,%.3f%n",
+                            tamanioPagina, largoAsunto, formato, bytes, bytesGzip, bytes / bytesJson);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package pe.gob.munipaucarpata.archivocentral.benchmark.carga;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Argumentos {@code --clave=valor} (o {@code clave=valor}) de los programas
+ * de carga, con valores por defecto. Una clave sola equivale a
+ * {@code clave=true}.
+ */
+final class Argumentos {
+
+    private final Map<String, String> valores = new HashMap<>();
+
+    Argumentos(String[] args) {
+        for (var arg : args) {
+            var sinGuiones = arg.startsWith("--") ? arg.substring(2) : arg;
+            int igual = sinGuiones.indexOf('=');
+            if (igual < 0) {
+                valores.put(sinGuiones, "true");
+            } else {
+                valores.put(sinGuiones.substring(0, igual), sinGuiones.substring(igual + 1));
+            }
+        }
+    }
+
+    String texto(String clave, String porDefecto) {
+        return valores.getOrDefault(clave, porDefecto);
+    }
+
+    int entero(String clave, int porDefecto) {
+        var valor = valores.get(clave);
+        return valor != null ? Integer.parseInt(valor.replace("_", "")) : porDefecto;
+    }
+
+    long largo(String clave, long porDefecto) {
+        var valor = valores.get(clave);
+        return valor != null ? Long.parseLong(valor.replace("_", "")) : porDefecto;
+    }
+
+    boolean bandera(String clave) {
+        return Boolean.parseBoolean(valores.getOrDefault(clave, "false"));
+    }
+
+    /** Duraciones como 30s, 5m o 1h. */
+    Duration duracion(String clave, Duration porDefecto) {
+        var valor = valores.get(clave);
+        return valor != null ? Duration.parse("PT" + valor.toUpperCase()) : porDefecto;
+    }
+}
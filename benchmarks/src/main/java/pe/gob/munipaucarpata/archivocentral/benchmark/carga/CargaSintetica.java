@@ -0,0 +1,301 @@
+package pe.gob.munipaucarpata.archivocentral.benchmark.carga;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.CreateExpedienteRequest;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Carga masiva de {@link ExpedientesSinteticos} en archivo.expedientes con
+ * COPY, en paralelo por tramos de N° (un COPY y una conexión por tramo).
+ *
+ * <p>
+ * Con {@code --recrear-indices} quita los índices secundarios antes de
+ * cargar y los vuelve a crear al final (mucho más rápido que mantenerlos
+ * fila por fila desde 10M filas); la clave primaria y la tabla de
+ * unicidad de la tabla particionada se mantienen. Al terminar reconstruye
+ * archivo.resumen_expedientes (como 05_estadisticas.sql) y ejecuta ANALYZE.
+ * </p>
+ *
+ * <p>
+ * Con {@code --salida=archivo.tsv} no se conecta: escribe las filas en
+ * formato COPY de texto, para cargarlas con {@code \copy} de psql.
+ * </p>
+ *
+ * Imprime una línea CSV con filas, tiempos y filas/s. La API en marcha debe
+ * reiniciarse después de cargar (índice de N° y caché).
+ */
+public final class CargaSintetica {
+
+    private static final String COLUMNAS = "id, anio, fecha_registro, tipo_documento, nro_documento, "
+            + "nombre_solicitante, dni, asunto, dirigido_a, folios, archivado_con, observaciones, "
+            + "created_at, updated_at";
+
+    private static final String SQL_COPY = "COPY archivo.expedientes (" + COLUMNAS + ") FROM STDIN";
+
+    // Índices que no respaldan una restricción (PK / unicidad)
+    private static final String SQL_INDICES = """
+            SELECT i.indexrelid::regclass::text, pg_get_indexdef(i.indexrelid)
+            FROM pg_index i
+            WHERE i.indrelid = 'archivo.expedientes'::regclass
+              AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = i.indexrelid)
+            """;
+
+    private static final String SQL_RESUMEN = """
+            INSERT INTO archivo.resumen_expedientes (anio, tipo_documento, dirigido_a, cantidad, folios)
+            SELECT anio, tipo_documento, dirigido_a, COUNT(*), SUM(folios)
+            FROM archivo.expedientes
+            GROUP BY anio, tipo_documento, dirigido_a
+            """;
+
+    /** Filas por COPY (una transacción cada una). */
+    private static final int FILAS_POR_TRAMO = 250_000;
+
+    /** Bytes acumulados antes de enviar al servidor. */
+    private static final int BUFFER = 1 << 20;
+
+    private CargaSintetica() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        var a = new Argumentos(args);
+        var generador = new ExpedientesSinteticos(
+                a.largo("filas", 1_000_000), a.entero("desde", 1), a.largo("semilla", 42));
+
+        var salida = a.texto("salida", null);
+        if (salida != null) {
+            long inicio = System.nanoTime();
+            try (var writer = Files.newBufferedWriter(Path.of(salida), StandardCharsets.UTF_8)) {
+                escribir(generador, 0, generador.filas(), writer);
+            }
+            imprimir(generador.filas(), 1, System.nanoTime() - inicio, 0);
+            return;
+        }
+
+        var url = a.texto("url", "jdbc:postgresql://localhost:5432/archivo_central_mdp");
+        var usuario = a.texto("usuario", "postgres");
+        var clave = a.texto("clave", "postgres");
+        int hilos = a.entero("hilos", Runtime.getRuntime().availableProcessors());
+
+        try (var conexion = DriverManager.getConnection(url, usuario, clave);
+                var st = conexion.createStatement()) {
+            if (a.bandera("vaciar")) {
+                st.execute("TRUNCATE archivo.expedientes, archivo.resumen_expedientes");
+                // Tabla de unicidad de la tabla particionada (06_particionado_anio.sql)
+                st.execute("DO $$ BEGIN IF to_regclass('archivo.expedientes_ids') IS NOT NULL THEN "
+                        + "TRUNCATE archivo.expedientes_ids; END IF; END $$");
+            }
+
+            var indices = new ArrayList<String>();
+            if (a.bandera("recrear-indices")) {
+                try (var rs = st.executeQuery(SQL_INDICES)) {
+                    var nombres = new ArrayList<String>();
+                    while (rs.next()) {
+                        nombres.add(rs.getString(1));
+                        // En la tabla particionada la definición es "ON ONLY": sin
+                        // quitarlo, el índice se crearía solo en la tabla padre
+                        indices.add(rs.getString(2).replace(" ON ONLY ", " ON "));
+                    }
+                    for (var nombre : nombres) {
+                        st.execute("DROP INDEX " + nombre);
+                    }
+                }
+            }
+
+            long inicio = System.nanoTime();
+            cargar(generador, hilos, () -> DriverManager.getConnection(url, usuario, clave));
+            long nanosCarga = System.nanoTime() - inicio;
+
+            for (var definicion : indices) {
+                System.err.println("Creando: " + definicion);
+                st.execute(definicion);
+            }
+            st.execute("TRUNCATE archivo.resumen_expedientes");
+            st.execute(SQL_RESUMEN);
+            st.execute("ANALYZE archivo.expedientes");
+            st.execute("ANALYZE archivo.resumen_expedientes");
+
+            imprimir(generador.filas(), hilos, nanosCarga, System.nanoTime() - inicio - nanosCarga);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Carga
+    // -------------------------------------------------------------------------
+
+    private static void cargar(ExpedientesSinteticos generador, int hilos, Conexiones conexiones)
+            throws InterruptedException, ExecutionException {
+        long filas = generador.filas();
+        var cargadas = new AtomicLong();
+        List<Future<?>> tramos = new ArrayList<>();
+        try (var executor = Executors.newFixedThreadPool(hilos)) {
+            for (long desde = 0; desde < filas; desde += FILAS_POR_TRAMO) {
+                long inicio = desde;
+                long fin = Math.min(filas, desde + FILAS_POR_TRAMO);
+                tramos.add(executor.submit(() -> {
+                    try (var conexion = conexiones.abrir()) {
+                        var copia = conexion.unwrap(PGConnection.class).getCopyAPI().copyIn(SQL_COPY);
+                        try {
+                            escribir(generador, inicio, fin, new EscritorCopia(copia));
+                            copia.endCopy();
+                        } finally {
+                            if (copia.isActive()) {
+                                copia.cancelCopy();
+                            }
+                        }
+                    }
+                    long total = cargadas.addAndGet(fin - inicio);
+                    System.err.printf("%d de %d filas%n", total, filas);
+                    return null;
+                }));
+            }
+            // Falla apenas falle un tramo, sin esperar los pendientes
+            try {
+                for (var tramo : tramos) {
+                    tramo.get();
+                }
+            } catch (ExecutionException ex) {
+                executor.shutdownNow();
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Filas [desde, hasta) en formato COPY de texto.
+     */
+    private static void escribir(ExpedientesSinteticos generador, long desde, long hasta, Writer writer)
+            throws IOException {
+        var sb = new StringBuilder(8192);
+        for (long n = desde; n < hasta; n++) {
+            linea(sb, generador.fila(n), n);
+            if (sb.length() > 8000) {
+                writer.append(sb);
+                sb.setLength(0);
+            }
+        }
+        writer.append(sb);
+        writer.flush();
+    }
+
+    private static void linea(StringBuilder sb, CreateExpedienteRequest e, long n) {
+        sb.append(e.id()).append('\t')
+                .append(e.anio()).append('\t')
+                .append(e.fechaRegistro()).append('\t')
+                .append(e.tipoDocumento().name()).append('\t');
+        campo(sb, e.nroDocumento());
+        campo(sb, e.nombreSolicitante());
+        campo(sb, e.dni());
+        campo(sb, e.asunto());
+        campo(sb, e.dirigidoA());
+        sb.append(e.folios()).append('\t');
+        campo(sb, e.archivadoCon());
+        campo(sb, e.observaciones());
+        // Registrado en horario de oficina del día de registro (hora de Lima)
+        int segundo = 8 * 3600 + (int) ((n * 7919) % (9 * 3600));
+        int inicio = sb.length();
+        sb.append(e.fechaRegistro()).append(' ');
+        dosDigitos(sb, segundo / 3600).append(':');
+        dosDigitos(sb, segundo / 60 % 60).append(':');
+        dosDigitos(sb, segundo % 60).append("-05");
+        var marca = sb.substring(inicio);
+        sb.append('\t').append(marca).append('\n');
+    }
+
+    private static void campo(StringBuilder sb, String valor) {
+        if (valor == null) {
+            sb.append("\\N\t");
+            return;
+        }
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case '\t' -> sb.append("\\t");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                default -> sb.append(c);
+            }
+        }
+        sb.append('\t');
+    }
+
+    private static StringBuilder dosDigitos(StringBuilder sb, int valor) {
+        return sb.append((char) ('0' + valor / 10)).append((char) ('0' + valor % 10));
+    }
+
+    private static void imprimir(long filas, int hilos, long nanosCarga, long nanosIndices) {
+        System.out.println("filas,hilos,segundosCarga,filasPorSegundo,segundosIndicesYResumen");
+        System.out.printf("%d,%d,%.1f,%.0f,%.1f%n",
+                filas, hilos, nanosCarga / 1e9, filas / (nanosCarga / 1e9), nanosIndices / 1e9);
+    }
+
+    @FunctionalInterface
+    private interface Conexiones {
+        Connection abrir() throws SQLException;
+    }
+
+    /**
+     * Writer sobre un COPY en curso: codifica en UTF-8 y envía de a
+     * {@link #BUFFER} bytes.
+     */
+    private static final class EscritorCopia extends Writer {
+
+        private final CopyIn copia;
+        private final StringBuilder pendiente = new StringBuilder(BUFFER);
+
+        EscritorCopia(CopyIn copia) {
+            this.copia = copia;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            pendiente.append(cbuf, off, len);
+            if (pendiente.length() >= BUFFER) {
+                flush();
+            }
+        }
+
+        @Override
+        public Writer append(CharSequence csq) throws IOException {
+            pendiente.append(csq);
+            if (pendiente.length() >= BUFFER) {
+                flush();
+            }
+            return this;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (pendiente.isEmpty()) {
+                return;
+            }
+            var bytes = pendiente.toString().getBytes(StandardCharsets.UTF_8);
+            pendiente.setLength(0);
+            try {
+                copia.writeToCopy(bytes, 0, bytes.length);
+            } catch (SQLException ex) {
+                throw new IOException(ex);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package pe.gob.munipaucarpata.archivocentral.benchmark.carga;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Reproduce una mezcla configurable de endpoints de ExpedienteController
+ * contra una instancia local cargada con {@link CargaSintetica} (mismos
+ * {@code --filas}, {@code --desde} y {@code --semilla}).
+ *
+ * <p>
+ * Lazo cerrado: {@code --concurrencia} clientes envían la siguiente
+ * petición al recibir la respuesta anterior. Lo que ocurre durante
+ * {@code --calentamiento} no se mide. El resultado (peticiones/s y
+ * percentiles de latencia por endpoint, más los parámetros de la
+ * ejecución) se escribe en JSON en {@code --salida} para compararlo entre
+ * commits con {@link CompararCargas}.
+ * </p>
+ *
+ * Ejemplo:
+ * {@code --filas=5000000 --duracion=2m --concurrencia=32 --etiqueta=$(git rev-parse --short HEAD)
+ * --mezcla=obtener:40,anio:20,buscar-dni:20,registrar:20 --salida=carga.json}
+ */
+public final class CargaTrabajo {
+
+    static final String MEZCLA_POR_DEFECTO = "obtener:35,lote:5,anio:12,buscar-dni:10,buscar-nombre:8,"
+            + "cursor:8,texto:5,similares:4,estadisticas:4,huecos:1,cambios:2,registrar:4,corregir:2";
+
+    private CargaTrabajo() {
+    }
+
+    /** Resultado de una ejecución (formato de {@code --salida}). */
+    public record Resultado(
+            String etiqueta,
+            Instant inicio,
+            String url,
+            long filas,
+            long semilla,
+            int concurrencia,
+            double segundosMedidos,
+            Map<String, Integer> mezcla,
+            List<ResultadoOperacion> operaciones,
+            ResultadoOperacion total) {
+    }
+
+    /**
+     * Medición de una operación. {@code estados}: respuestas por código
+     * HTTP ("error" si no hubo respuesta).
+     */
+    public record ResultadoOperacion(
+            String operacion,
+            long peticiones,
+            long errores,
+            Map<String, Long> estados,
+            double porSegundo,
+            double p50Ms,
+            double p90Ms,
+            double p99Ms,
+            double p999Ms,
+            double maxMs) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        var a = new Argumentos(args);
+        var url = a.texto("url", "http://localhost:8080/api/expedientes");
+        long semilla = a.largo("semilla", 42);
+        var datos = new ExpedientesSinteticos(a.largo("filas", 1_000_000), a.entero("desde", 1), semilla);
+        int concurrencia = a.entero("concurrencia", 32);
+        var calentamiento = a.duracion("calentamiento", Duration.ofSeconds(10));
+        var duracion = a.duracion("duracion", Duration.ofSeconds(60));
+        var mezcla = mezcla(a.texto("mezcla", MEZCLA_POR_DEFECTO));
+
+        var mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        var cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        // Los registros nuevos empiezan en el N° que sugiere la API
+        var sugerido = cliente.send(HttpRequest.newBuilder(URI.create(url + "/numero-libre")).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (sugerido.statusCode() != 200) {
+            throw new IllegalStateException("GET /numero-libre respondió " + sugerido.statusCode()
+                    + "; ¿la API terminó de cargar el índice de N°?");
+        }
+        int primerNuevo = mapper.readTree(sugerido.body()).get("numero").asInt();
+        var contexto = new Operacion.Contexto(url, datos, mapper, new AtomicInteger(primerNuevo));
+
+        var elegir = selector(mezcla);
+        long medirDesde = System.nanoTime() + calentamiento.toNanos();
+        long fin = medirDesde + duracion.toNanos();
+        var inicio = Instant.now();
+
+        List<Future<Map<Operacion, Mediciones>>> clientes = new ArrayList<>();
+        try (var hilos = Executors.newFixedThreadPool(concurrencia)) {
+            for (int i = 0; i < concurrencia; i++) {
+                var random = new SplittableRandom(semilla * 31 + i);
+                clientes.add(hilos.submit(() -> {
+                    var mediciones = new EnumMap<Operacion, Mediciones>(Operacion.class);
+                    long ahora;
+                    while ((ahora = System.nanoTime()) < fin) {
+                        var op = elegir.apply(random);
+                        var request = op.peticion(contexto, random);
+                        String estado;
+                        try {
+                            var response = cliente.send(request, HttpResponse.BodyHandlers.discarding());
+                            estado = Integer.toString(response.statusCode());
+                        } catch (IOException ex) {
+                            estado = "error";
+                        }
+                        long t = System.nanoTime();
+                        if (ahora >= medirDesde && t <= fin) {
+                            mediciones.computeIfAbsent(op, o -> new Mediciones()).agregar(t - ahora, estado);
+                        }
+                    }
+                    return mediciones;
+                }));
+            }
+        }
+
+        double segundos = duracion.toNanos() / 1e9;
+        var porOperacion = new EnumMap<Operacion, Mediciones>(Operacion.class);
+        var total = new Mediciones();
+        for (var f : clientes) {
+            f.get().forEach((op, m) -> {
+                porOperacion.computeIfAbsent(op, o -> new Mediciones()).sumar(m);
+                total.sumar(m);
+            });
+        }
+        var operaciones = porOperacion.entrySet().stream()
+                .map(e -> e.getValue().resultado(e.getKey().clave(), segundos))
+                .toList();
+        var resultado = new Resultado(
+                a.texto("etiqueta", "sin-etiqueta"), inicio, url, datos.filas(), semilla, concurrencia,
+                segundos, mezclaClaves(mezcla), operaciones, total.resultado("total", segundos));
+
+        var salida = a.texto("salida", null);
+        var escritor = mapper.writerWithDefaultPrettyPrinter();
+        if (salida != null) {
+            escritor.writeValue(Path.of(salida).toFile(), resultado);
+        } else {
+            System.out.println(escritor.writeValueAsString(resultado));
+        }
+        // Resumen legible
+        System.err.println("operacion,peticiones,errores,porSegundo,p50Ms,p99Ms");
+        for (var r : operaciones) {
+            System.err.printf("%s,%d,%d,%.1f,%.2f,%.2f%n",
+                    r.operacion(), r.peticiones(), r.errores(), r.porSegundo(), r.p50Ms(), r.p99Ms());
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Mezcla
+    // -------------------------------------------------------------------------
+
+    /** "obtener:40,anio:20" → pesos por operación. */
+    static Map<Operacion, Integer> mezcla(String texto) {
+        var pesos = new EnumMap<Operacion, Integer>(Operacion.class);
+        for (var parte : texto.split(",")) {
+            var clavePeso = parte.strip().split(":");
+            int peso = Integer.parseInt(clavePeso[1]);
+            if (peso > 0) {
+                pesos.put(Operacion.deClave(clavePeso[0]), peso);
+            }
+        }
+        if (pesos.isEmpty()) {
+            throw new IllegalArgumentException("La mezcla no tiene operaciones: " + texto);
+        }
+        return pesos;
+    }
+
+    private static Map<String, Integer> mezclaClaves(Map<Operacion, Integer> mezcla) {
+        var claves = new LinkedHashMap<String, Integer>();
+        mezcla.forEach((op, peso) -> claves.put(op.clave(), peso));
+        return claves;
+    }
+
+    private static Function<SplittableRandom, Operacion> selector(Map<Operacion, Integer> mezcla) {
+        var ops = mezcla.keySet().toArray(Operacion[]::new);
+        int[] acumulados = new int[ops.length];
+        int suma = 0;
+        for (int i = 0; i < ops.length; i++) {
+            suma += mezcla.get(ops[i]);
+            acumulados[i] = suma;
+        }
+        int total = suma;
+        return r -> {
+            int i = Arrays.binarySearch(acumulados, r.nextInt(total) + 1);
+            return ops[i >= 0 ? i : -i - 1];
+        };
+    }
+
+    // -------------------------------------------------------------------------
+    // Mediciones
+    // -------------------------------------------------------------------------
+
+    /** Latencias (ns) y códigos de respuesta de un cliente, sin sincronización. */
+    private static final class Mediciones {
+
+        private long[] latencias = new long[1024];
+        private int cantidad;
+        private final Map<String, Long> estados = new TreeMap<>();
+
+        void agregar(long nanos, String estado) {
+            if (cantidad == latencias.length) {
+                latencias = Arrays.copyOf(latencias, cantidad * 2);
+            }
+            latencias[cantidad++] = nanos;
+            estados.merge(estado, 1L, Long::sum);
+        }
+
+        void sumar(Mediciones otra) {
+            if (cantidad + otra.cantidad > latencias.length) {
+                latencias = Arrays.copyOf(latencias, Math.max(latencias.length * 2, cantidad + otra.cantidad));
+            }
+            System.arraycopy(otra.latencias, 0, latencias, cantidad, otra.cantidad);
+            cantidad += otra.cantidad;
+            otra.estados.forEach((estado, n) -> estados.merge(estado, n, Long::sum));
+        }
+
+        ResultadoOperacion resultado(String operacion, double segundos) {
+            var ordenadas = Arrays.copyOf(latencias, cantidad);
+            Arrays.sort(ordenadas);
+            long errores = estados.entrySet().stream()
+                    .filter(e -> !e.getKey().startsWith("2"))
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+            return new ResultadoOperacion(operacion, cantidad, errores, estados, cantidad / segundos,
+                    percentil(ordenadas, 0.50), percentil(ordenadas, 0.90),
+                    percentil(ordenadas, 0.99), percentil(ordenadas, 0.999),
+                    cantidad > 0 ? ordenadas[cantidad - 1] / 1e6 : 0);
+        }
+
+        private static double percentil(long[] ordenadas, double p) {
+            if (ordenadas.length == 0) {
+                return 0;
+            }
+            int i = (int) Math.min(ordenadas.length - 1, Math.ceil(p * ordenadas.length) - 1);
+            return ordenadas[Math.max(0, i)] / 1e6;
+        }
+    }
+}
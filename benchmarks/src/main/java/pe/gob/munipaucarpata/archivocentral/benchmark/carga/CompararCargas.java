@@ -0,0 +1,65 @@
+package pe.gob.munipaucarpata.archivocentral.benchmark.carga;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import pe.gob.munipaucarpata.archivocentral.benchmark.carga.CargaTrabajo.Resultado;
+import pe.gob.munipaucarpata.archivocentral.benchmark.carga.CargaTrabajo.ResultadoOperacion;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Compara dos resultados de {@link CargaTrabajo} (por ejemplo, de dos
+ * commits) e imprime en CSV, por endpoint, peticiones/s y p50/p99 de cada
+ * uno con la variación porcentual.
+ *
+ * Uso: {@code CompararCargas base.json nuevo.json}
+ */
+public final class CompararCargas {
+
+    private CompararCargas() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Uso: CompararCargas base.json nuevo.json");
+            System.exit(2);
+        }
+        var mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        var base = mapper.readValue(Path.of(args[0]).toFile(), Resultado.class);
+        var nuevo = mapper.readValue(Path.of(args[1]).toFile(), Resultado.class);
+
+        if (base.filas() != nuevo.filas() || base.concurrencia() != nuevo.concurrencia()
+                || !base.mezcla().equals(nuevo.mezcla())) {
+            System.err.println("Aviso: las ejecuciones usan distintos datos, concurrencia o mezcla");
+        }
+
+        var operaciones = new LinkedHashMap<String, ResultadoOperacion[]>();
+        Stream.concat(base.operaciones().stream(), Stream.of(base.total()))
+                .forEach(r -> operaciones.computeIfAbsent(r.operacion(), k -> new ResultadoOperacion[2])[0] = r);
+        Stream.concat(nuevo.operaciones().stream(), Stream.of(nuevo.total()))
+                .forEach(r -> operaciones.computeIfAbsent(r.operacion(), k -> new ResultadoOperacion[2])[1] = r);
+
+        System.err.printf("base: %s (%s) / nuevo: %s (%s)%n",
+                base.etiqueta(), base.inicio(), nuevo.etiqueta(), nuevo.inicio());
+        System.out.println("operacion,porSegundoBase,porSegundoNuevo,variacion,p50MsBase,p50MsNuevo,variacion,"
+                + "p99MsBase,p99MsNuevo,variacion");
+        operaciones.forEach((operacion, par) -> {
+            if (par[0] == null || par[1] == null) {
+                return;
+            }
+            System.out.printf("%s,%.1f,%.1f,%s,%.2f,%.2f,%s,%.2f,%.2f,%s%n", operacion,
+                    par[0].porSegundo(), par[1].porSegundo(), variacion(par[0].porSegundo(), par[1].porSegundo()),
+                    par[0].p50Ms(), par[1].p50Ms(), variacion(par[0].p50Ms(), par[1].p50Ms()),
+                    par[0].p99Ms(), par[1].p99Ms(), variacion(par[0].p99Ms(), par[1].p99Ms()));
+        });
+    }
+
+    private static String variacion(double base, double nuevo) {
+        return base == 0 ? "" : "%+.1f%%".formatted((nuevo - base) * 100 / base);
+    }
+}
@@ -0,0 +1,393 @@
+package pe.gob.munipaucarpata.archivocentral.benchmark.carga;
+
+import pe.gob.munipaucarpata.archivocentral.expediente.TipoDocumento;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.CreateExpedienteRequest;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generador determinista de expedientes sintéticos con distribuciones
+ * parecidas a las del Archivo Central.
+ *
+ * <p>
+ * La fila {@code n} depende solo de la semilla y de {@code n}: se puede
+ * generar en cualquier orden y en paralelo, y el ejecutor de carga
+ * ({@link CargaTrabajo}) sabe sin consultar la base qué N°, DNI y nombres
+ * existen.
+ * </p>
+ *
+ * <ul>
+ * <li>N° correlativos desde {@code primerId}, por bloques de año: los años
+ * recientes tienen muchos más expedientes (crecimiento de 10% anual desde
+ * {@link #PRIMER_ANIO}).</li>
+ * <li>Solicitantes recurrentes: 60% de las filas son de un grupo reducido de
+ * ciudadanos, con sesgo hacia los primeros; algunos aparecen con el nombre
+ * escrito distinto (sin tildes, sin segundo nombre, letras cambiadas) o
+ * con un dígito del DNI mal tipeado.</li>
+ * <li>Apellidos y nombres con frecuencias aproximadas de Arequipa; 8% de
+ * solicitantes son instituciones.</li>
+ * <li>Asuntos de 60 a 4000 caracteres, con cola larga.</li>
+ * <li>Todos los {@link TipoDocumento}, con frecuencias desiguales.</li>
+ * </ul>
+ */
+public final class ExpedientesSinteticos {
+
+    public static final int PRIMER_ANIO = 1990;
+    public static final int ULTIMO_ANIO = 2025;
+
+    /** Fracción de filas de solicitantes recurrentes. */
+    private static final double RECURRENTES = 0.60;
+
+    private static final Ponderado<String> APELLIDOS = new Ponderado<>(
+            "QUISPE", 30, "MAMANI", 25, "CONDORI", 16, "FLORES", 15, "HUAMANÍ", 12,
+            "RODRÍGUEZ", 11, "SÁNCHEZ", 11, "GARCÍA", 10, "APAZA", 10, "CHOQUE", 9,
+            "ROJAS", 9, "RAMOS", 8, "CHÁVEZ", 8, "GUTIÉRREZ", 7, "TICONA", 7,
+            "VILCA", 7, "MEDINA", 6, "MENDOZA", 6, "TORRES", 6, "CCAMA", 6,
+            "PUMA", 5, "PARI", 5, "HUANCA", 5, "CÁCERES", 5, "VALDIVIA", 5,
+            "ZEBALLOS", 4, "PACHECO", 4, "SALAS", 4, "PAREDES", 4, "CUTIPA", 4,
+            "YUPANQUI", 3, "NÚÑEZ", 3, "LLERENA", 3, "CHIRINOS", 3, "ZÚÑIGA", 3,
+            "COAGUILA", 2, "LAURA", 2, "DELGADO", 4, "CRUZ", 4, "PÉREZ", 5);
+
+    private static final Ponderado<String> NOMBRES = new Ponderado<>(
+            "JUAN", 14, "JOSÉ", 12, "LUIS", 10, "CARLOS", 9, "MARÍA", 16, "ROSA", 9,
+            "CARMEN", 7, "JORGE", 6, "VÍCTOR", 6, "CÉSAR", 5, "MIGUEL", 5, "EDGAR", 4,
+            "PERCY", 3, "WILBER", 3, "FREDY", 3, "ALEJANDRO", 4, "PEDRO", 4, "MARCO", 3,
+            "ROBERTO", 3, "ANA", 7, "ELIZABETH", 5, "JULIA", 4, "LUZ", 4, "MARTHA", 4,
+            "GLADYS", 3, "JUANA", 4, "SONIA", 3, "NELLY", 3, "YOLANDA", 3, "ELVIRA", 2);
+
+    private static final Ponderado<String> INSTITUCIONES = new Ponderado<>(
+            "ASOCIACIÓN DE VIVIENDA %s", 5, "JUNTA DE USUARIOS DEL SECTOR %s", 2,
+            "COMITÉ DE VASO DE LECHE %s", 3, "INSTITUCIÓN EDUCATIVA %s", 2,
+            "EMPRESA DE TRANSPORTES %s S.A.C.", 2, "PUEBLO JOVEN %s", 2,
+            "MUNICIPALIDAD DISTRITAL DE %s", 1);
+
+    private static final String[] LUGARES = {
+            "LAS FLORES", "15 DE ENERO", "CAMPO MARTE", "SEÑOR DE LOS MILAGROS",
+            "VILLA CONFIANZA", "ALTO JESÚS", "MIGUEL GRAU", "CERRO VERDE",
+            "EL MIRADOR", "VILLA SANTA ROSA", "SAN CRISTÓBAL", "GUARDIA CIVIL",
+            "DOLORES", "LA CAMPIÑA", "CHARACATO", "SABANDÍA", "KENNEDY", "LOS ÁNGELES" };
+
+    private static final Ponderado<TipoDocumento> TIPOS = new Ponderado<>(
+            TipoDocumento.SOLICITUD, 30, TipoDocumento.OFICIO, 18, TipoDocumento.INFORME, 14,
+            TipoDocumento.MEMORANDO, 12, TipoDocumento.CARTA, 8, TipoDocumento.RESOLUCION, 6,
+            TipoDocumento.EXPEDIENTE_ADMINISTRATIVO, 5, TipoDocumento.CONTRATO, 3,
+            TipoDocumento.CONVENIO, 1, TipoDocumento.OTRO, 3);
+
+    private static final Ponderado<String> DEPENDENCIAS = new Ponderado<>(
+            "MESA DE PARTES - MDP", 20, "GERENCIA MUNICIPAL - MDP", 12,
+            "SUB GERENCIA DE CATASTRO Y HABILITACIONES URBANAS - MDP", 14,
+            "GERENCIA DE INFRAESTRUCTURA Y DESARROLLO URBANO - MDP", 10,
+            "GERENCIA DE DESARROLLO SOCIAL - MDP", 8, "GERENCIA DE ADMINISTRACIÓN TRIBUTARIA - MDP", 9,
+            "SUB GERENCIA DE LICENCIAS Y AUTORIZACIONES - MDP", 7, "OFICINA DE ASESORÍA JURÍDICA - MDP", 5,
+            "SUB GERENCIA DE RECURSOS HUMANOS - MDP", 5, "GERENCIA DE SERVICIOS A LA CIUDAD - MDP", 4,
+            "OFICINA DE PLANEAMIENTO Y PRESUPUESTO - MDP", 3, "SUB GERENCIA DE LOGÍSTICA - MDP", 4,
+            "ALCALDÍA - MDP", 3, "SECRETARÍA GENERAL - MDP", 3, "ÓRGANO DE CONTROL INSTITUCIONAL - MDP", 1,
+            "SUB GERENCIA DE SEGURIDAD CIUDADANA - MDP", 2, "DEFENSA CIVIL - MDP", 2);
+
+    private static final String[] SIGLAS_AREA = { "GM", "SGCHU", "GIDU", "GDS", "GAT", "OAJ", "SGRH", "SG" };
+
+    private static final String[][] ASUNTOS = {
+            /* SOLICITUD */ {
+                    "SOLICITA LICENCIA DE CONSTRUCCIÓN PARA VIVIENDA UNIFAMILIAR",
+                    "SOLICITA CERTIFICADO DE NUMERACIÓN DEL PREDIO",
+                    "SOLICITA VISACIÓN DE PLANOS PARA PRESCRIPCIÓN ADQUISITIVA",
+                    "SOLICITA LICENCIA DE FUNCIONAMIENTO PARA BODEGA",
+                    "SOLICITA FRACCIONAMIENTO DE DEUDA TRIBUTARIA DEL IMPUESTO PREDIAL",
+                    "SOLICITA CONSTANCIA DE POSESIÓN DEL LOTE" },
+            /* OFICIO */ {
+                    "REMITE INFORMACIÓN SOLICITADA SOBRE PROYECTOS DE INVERSIÓN",
+                    "COMUNICA PROGRAMACIÓN DE ACTIVIDADES DE FISCALIZACIÓN",
+                    "INVITA A REUNIÓN DE COORDINACIÓN INTERINSTITUCIONAL" },
+            /* INFORME */ {
+                    "INFORME TÉCNICO DE INSPECCIÓN OCULAR DEL PREDIO",
+                    "INFORME LEGAL SOBRE RECURSO DE APELACIÓN PRESENTADO",
+                    "INFORME DE CONFORMIDAD DE SERVICIO DE MANTENIMIENTO DE VÍAS" },
+            /* MEMORANDO */ {
+                    "DISPONE ATENCIÓN PRIORITARIA DEL EXPEDIENTE",
+                    "REMITE ACTUADOS PARA EVALUACIÓN Y OPINIÓN TÉCNICA" },
+            /* CARTA */ {
+                    "COMUNICA OBSERVACIONES A LA DOCUMENTACIÓN PRESENTADA",
+                    "RESPONDE RECLAMO SOBRE RECOJO DE RESIDUOS SÓLIDOS" },
+            /* RESOLUCION */ {
+                    "APRUEBA SUBDIVISIÓN DE LOTE URBANO SIN OBRAS",
+                    "DECLARA IMPROCEDENTE RECURSO DE RECONSIDERACIÓN",
+                    "SANCIONA CON MULTA POR CONSTRUCCIÓN SIN LICENCIA" },
+            /* EXPEDIENTE_ADMINISTRATIVO */ {
+                    "PROCEDIMIENTO ADMINISTRATIVO SANCIONADOR POR OCUPACIÓN DE VÍA PÚBLICA",
+                    "PROCESO DE SELECCIÓN PARA LA ADQUISICIÓN DE MATERIALES DE CONSTRUCCIÓN" },
+            /* CONTRATO */ {
+                    "CONTRATO DE EJECUCIÓN DE OBRA DE PAVIMENTACIÓN",
+                    "CONTRATO DE LOCACIÓN DE SERVICIOS PROFESIONALES" },
+            /* CONVENIO */ {
+                    "CONVENIO DE COOPERACIÓN INTERINSTITUCIONAL PARA CAPACITACIÓN",
+                    "CONVENIO MARCO CON LA UNIVERSIDAD NACIONAL DE SAN AGUSTÍN" },
+            /* OTRO */ {
+                    "DENUNCIA VECINAL POR RUIDOS MOLESTOS",
+                    "COPIA DE ACTA DE SESIÓN DE CONCEJO" } };
+
+    private static final String[] DETALLES = {
+            "DEL PREDIO UBICADO EN LA MZ. %s LOTE %d DEL A.H. %s",
+            "CONFORME A LO DISPUESTO EN LA ORDENANZA MUNICIPAL N° %d-%d-MDP",
+            "ADJUNTANDO COPIA DE DNI, RECIBO DE PAGO Y DECLARACIÓN JURADA",
+            "CON REFERENCIA AL EXPEDIENTE N° %d DE FECHA ANTERIOR",
+            "PARA SU EVALUACIÓN, OPINIÓN TÉCNICA Y TRÁMITE CORRESPONDIENTE",
+            "EN EL MARCO DEL TEXTO ÚNICO DE PROCEDIMIENTOS ADMINISTRATIVOS VIGENTE",
+            "SEGÚN INSPECCIÓN REALIZADA POR PERSONAL DE LA SUB GERENCIA DE CATASTRO",
+            "DEBIDO A QUE EL RECURRENTE NO HA CUMPLIDO CON SUBSANAR LAS OBSERVACIONES",
+            "SE ADJUNTAN PLANOS DE UBICACIÓN, LOCALIZACIÓN Y MEMORIA DESCRIPTIVA",
+            "HABIÉNDOSE VERIFICADO EL CUMPLIMIENTO DE LOS REQUISITOS ESTABLECIDOS" };
+
+    private static final String[] OBSERVACIONES = {
+            "Documento recibido con cargo de recepción.",
+            "Contiene anexos fotográficos.",
+            "Folios con enmendaduras, se deja constancia.",
+            "Expediente incompleto, falta plano de ubicación.",
+            "Se adjunta CD con archivos digitales.",
+            "Documentación en mal estado de conservación." };
+
+    private final long filas;
+    private final int primerId;
+    private final long semilla;
+    private final int ciudadanosRecurrentes;
+
+    /** Última fila (exclusiva) de cada año, desde PRIMER_ANIO. */
+    private final long[] finAnio;
+
+    public ExpedientesSinteticos(long filas, int primerId, long semilla) {
+        if (filas < 1 || primerId < 1 || primerId + filas - 1 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Rango de N° inválido: %d filas desde %d".formatted(filas, primerId));
+        }
+        this.filas = filas;
+        this.primerId = primerId;
+        this.semilla = semilla;
+        this.ciudadanosRecurrentes = (int) Math.max(100, filas / 25);
+
+        int anios = ULTIMO_ANIO - PRIMER_ANIO + 1;
+        double[] pesos = new double[anios];
+        double total = 0;
+        for (int i = 0; i < anios; i++) {
+            pesos[i] = Math.pow(1.10, i);
+            total += pesos[i];
+        }
+        this.finAnio = new long[anios];
+        double acumulado = 0;
+        for (int i = 0; i < anios; i++) {
+            acumulado += pesos[i];
+            finAnio[i] = Math.round(filas * acumulado / total);
+        }
+        finAnio[anios - 1] = filas;
+    }
+
+    public long filas() {
+        return filas;
+    }
+
+    /** N° de expediente de la fila {@code n}. */
+    public int id(long n) {
+        return (int) (primerId + n);
+    }
+
+    /** Año de la fila {@code n}: los N° son correlativos dentro de cada año. */
+    public int anio(long n) {
+        // Primer año cuyo fin es mayor que n (puede haber años sin filas)
+        int bajo = 0;
+        int alto = finAnio.length - 1;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (finAnio[medio] > n) {
+                alto = medio;
+            } else {
+                bajo = medio + 1;
+            }
+        }
+        return PRIMER_ANIO + bajo;
+    }
+
+    /** Primera fila del año (o -1 si el año no tiene expedientes). */
+    public long primeraFila(int anio) {
+        int i = anio - PRIMER_ANIO;
+        if (i < 0 || i >= finAnio.length) {
+            return -1;
+        }
+        long inicio = i == 0 ? 0 : finAnio[i - 1];
+        return inicio < finAnio[i] ? inicio : -1;
+    }
+
+    /**
+     * Expediente de la fila {@code n} (0 ≤ n &lt; filas), ya normalizado como
+     * lo guarda la API (trim y mayúsculas).
+     */
+    public CreateExpedienteRequest fila(long n) {
+        var random = new SplittableRandom(semilla * 0x9E3779B97F4A7C15L + n);
+        int anio = anio(n);
+        var fecha = LocalDate.ofYearDay(anio, 1 + random.nextInt(Year.of(anio).length()));
+        var tipo = TIPOS.elegir(random);
+
+        String nombre;
+        String dni;
+        if (random.nextDouble() < RECURRENTES) {
+            // Sesgo: los primeros ciudadanos del grupo son los más frecuentes
+            double u = random.nextDouble();
+            long ciudadano = (long) (u * u * u * ciudadanosRecurrentes);
+            nombre = nombre(ciudadano);
+            dni = dni(ciudadano);
+            double error = random.nextDouble();
+            if (error < 0.04) {
+                nombre = variante(nombre, random);
+            } else if (error < 0.05) {
+                dni = digitoCambiado(dni, random);
+            }
+        } else {
+            long ciudadano = ciudadanosRecurrentes + n;
+            nombre = nombre(ciudadano);
+            dni = dni(ciudadano);
+        }
+
+        return new CreateExpedienteRequest(
+                id(n),
+                anio,
+                fecha,
+                tipo,
+                nroDocumento(tipo, anio, random),
+                nombre,
+                dni,
+                asunto(tipo, random),
+                DEPENDENCIAS.elegir(random),
+                1 + (int) Math.min(799, -Math.log(1 - random.nextDouble()) * 12),
+                random.nextDouble() < 0.35
+                        ? "CAJA N° %d / FÓLDER %s".formatted(1 + random.nextInt(400), random.nextBoolean() ? "AZUL" : "MANILA")
+                        : null,
+                random.nextDouble() < 0.20 ? OBSERVACIONES[random.nextInt(OBSERVACIONES.length)] : null);
+    }
+
+    /**
+     * Nombre de un ciudadano: siempre el mismo para el mismo índice.
+     */
+    public String nombre(long ciudadano) {
+        var random = new SplittableRandom(~semilla * 0xC2B2AE3D27D4EB4FL + ciudadano);
+        if (random.nextDouble() < 0.08) {
+            return INSTITUCIONES.elegir(random).formatted(LUGARES[random.nextInt(LUGARES.length)]);
+        }
+        var sb = new StringBuilder(48)
+                .append(APELLIDOS.elegir(random)).append(' ')
+                .append(APELLIDOS.elegir(random)).append(' ')
+                .append(NOMBRES.elegir(random));
+        if (random.nextDouble() < 0.55) {
+            sb.append(' ').append(NOMBRES.elegir(random));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * DNI de un ciudadano. Dos ciudadanos pueden compartir DNI (poco
+     * frecuente), como en los datos reales mal digitados.
+     */
+    public String dni(long ciudadano) {
+        long x = (semilla ^ 0x5DEECE66DL) + ciudadano * 0x9E3779B97F4A7C15L;
+        x = (x ^ (x >>> 31)) * 0xBF58476D1CE4E5B9L;
+        x ^= x >>> 29;
+        return "%08d".formatted(1_000_000 + Math.floorMod(x, 79_000_000L));
+    }
+
+    /** Índice de un ciudadano recurrente al azar (para consultar por DNI o nombre). */
+    public long ciudadanoRecurrente(SplittableRandom random) {
+        double u = random.nextDouble();
+        return (long) (u * u * u * ciudadanosRecurrentes);
+    }
+
+    // -------------------------------------------------------------------------
+    // Utilidad privada
+    // -------------------------------------------------------------------------
+
+    private static String nroDocumento(TipoDocumento tipo, int anio, SplittableRandom random) {
+        int numero = 1 + random.nextInt(random.nextInt(10) == 0 ? 9999 : 999);
+        String area = SIGLAS_AREA[random.nextInt(SIGLAS_AREA.length)];
+        return switch (tipo) {
+            case SOLICITUD -> random.nextInt(3) == 0 ? "S/N" : "EXP. %06d-%d".formatted(numero, anio);
+            case EXPEDIENTE_ADMINISTRATIVO -> "EXP. ADM. %04d-%d-MDP".formatted(numero, anio);
+            case OTRO -> "DOC. %04d-%d".formatted(numero, anio);
+            default -> "%s N° %03d-%d-MDP/%s".formatted(tipo.name(), numero, anio, area);
+        };
+    }
+
+    private static String asunto(TipoDocumento tipo, SplittableRandom random) {
+        var opciones = ASUNTOS[tipo.ordinal()];
+        var sb = new StringBuilder(256).append(opciones[random.nextInt(opciones.length)]);
+        // Cola larga: la mayoría 1-3 detalles; 1 de cada 10, un texto extenso
+        int detalles = random.nextInt(10) == 0 ? 15 + random.nextInt(45) : 1 + random.nextInt(3);
+        for (int i = 0; i < detalles && sb.length() < 3900; i++) {
+            sb.append(i == 0 ? " " : ", ").append(detalle(random));
+        }
+        if (sb.length() > 4000) {
+            sb.setLength(4000);
+        }
+        return sb.append('.').toString();
+    }
+
+    private static String detalle(SplittableRandom random) {
+        int i = random.nextInt(DETALLES.length);
+        return switch (i) {
+            case 0 -> DETALLES[0].formatted((char) ('A' + random.nextInt(20)), 1 + random.nextInt(40),
+                    LUGARES[random.nextInt(LUGARES.length)]);
+            case 1 -> DETALLES[1].formatted(1 + random.nextInt(600), PRIMER_ANIO + random.nextInt(36));
+            case 3 -> DETALLES[3].formatted(1 + random.nextInt(900_000));
+            default -> DETALLES[i];
+        };
+    }
+
+    /** Nombre escrito de otra forma: sin tildes, sin segundo nombre (o con Z→S), o con dos letras cambiadas. */
+    private static String variante(String nombre, SplittableRandom random) {
+        return switch (random.nextInt(3)) {
+            case 0 -> nombre.replace('Á', 'A').replace('É', 'E').replace('Í', 'I')
+                    .replace('Ó', 'O').replace('Ú', 'U').replace('Ñ', 'N');
+            case 1 -> nombre.split(" ").length > 3
+                    ? nombre.substring(0, nombre.lastIndexOf(' '))
+                    : nombre.replace('Z', 'S').replace("LL", "Y");
+            default -> {
+                int i = 1 + random.nextInt(Math.max(1, nombre.length() - 2));
+                var c = nombre.toCharArray();
+                char t = c[i];
+                c[i] = c[i - 1];
+                c[i - 1] = t;
+                yield new String(c);
+            }
+        };
+    }
+
+    private static String digitoCambiado(String dni, SplittableRandom random) {
+        var c = dni.toCharArray();
+        int i = 1 + random.nextInt(7);
+        c[i] = (char) ('0' + (c[i] - '0' + 1 + random.nextInt(9)) % 10);
+        return new String(c);
+    }
+
+    /**
+     * Elección ponderada: pares (valor, peso) y búsqueda binaria sobre los
+     * pesos acumulados.
+     */
+    private static final class Ponderado<T> {
+
+        private final Object[] valores;
+        private final int[] acumulados;
+
+        Ponderado(Object... pares) {
+            valores = new Object[pares.length / 2];
+            acumulados = new int[pares.length / 2];
+            int total = 0;
+            for (int i = 0; i < valores.length; i++) {
+                valores[i] = pares[2 * i];
+                total += (Integer) pares[2 * i + 1];
+                acumulados[i] = total;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        T elegir(SplittableRandom random) {
+            int i = Arrays.binarySearch(acumulados, random.nextInt(acumulados[acumulados.length - 1]) + 1);
+            return (T) valores[i >= 0 ? i : -i - 1];
+        }
+    }
+}
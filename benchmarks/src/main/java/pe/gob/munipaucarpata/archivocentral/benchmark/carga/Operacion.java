@@ -0,0 +1,221 @@
+package pe.gob.munipaucarpata.archivocentral.benchmark.carga;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.CreateExpedienteRequest;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.LoteExpedientesRequest;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.UpdateExpedienteRequest;
+
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Endpoints de ExpedienteController que reproduce {@link CargaTrabajo}, con
+ * parámetros tomados de los datos de {@link ExpedientesSinteticos} (N°,
+ * años, DNI y nombres que existen).
+ */
+enum Operacion {
+
+    OBTENER("obtener") {
+        @Override
+        HttpRequest peticion(Contexto c, SplittableRandom r) {
+            return c.get("/" + c.datos().id(c.filaAlAzar(r)));
+        }
+    },
+
+    LOTE("lote") {
+        @Override
+        HttpRequest peticion(Contexto c, SplittableRandom r) {
+            // Una página de N° consecutivos, como la que arma el cliente de escritorio
+            long primera = c.filaAlAzar(r);
+            var ids = new ArrayList<Integer>(50);
+            for (long n = primera; n < Math.min(primera + 50, c.datos().filas()); n++) {
+                ids.add(c.datos().id(n));
+            }
+            return c.post("/lote", new LoteExpedientesRequest(ids));
+        }
+    },
+
+    ANIO("anio") {
+        @Override
+        HttpRequest peticion(Contexto c, SplittableRandom r) {
+            // Casi siempre la primera página
+            int pagina = r.nextInt(10) < 8 ? 0 : r.nextInt(20);
+            return c.get("/anio/%d?page=%d&size=20".formatted(c.anioAlAzar(r), pagina));
+        }
+    },
+
+    BUSCAR_DNI("buscar-dni") {
+        @Override
+        HttpRequest peticion(Contexto c, SplittableRandom r) {
+            return c.get("/buscar?dni=" + c.datos().dni(c.datos().ciudadanoRecurrente(r)));
+        }
+    },
+
+    BUSCAR_NOMBRE("buscar-nombre") {
+        @Override
+        HttpRequest peticion(Contexto c, SplittableRandom r) {
+            // Los dos apellidos: lo que suele escribir el usuario
+            var palabras = c.datos().nombre(c.datos().ciudadanoRecurrente(r)).split(" ");
+            return c.get("/buscar?nombre=" + Contexto.codificar(palabras[0] + " " + palabras[1]));
+        }
+    },
+
+    CURSOR("cursor") {
+        @Override
+        HttpRequest peticion(Contexto c, SplittableRandom r) {
+            return c.get("/cursor?anio=%d&size=50".formatted(c.anioAlAzar(r)));
+        }
+    },
+
+    TEXTO("texto") {
+        private static final String[] CONSULTAS = {
+                "licencia de construccion", "prescripcion adquisitiva", "vaso de leche",
+                "fraccionamiento impuesto predial", "recurso de apelacion", "pavimentacion" };
+
+        @Override
+        HttpRequest peticion(Contexto c, SplittableRandom r) {
+            var q = Contexto.codificar(CONSULTAS[r.nextInt(CONSULTAS.length)]);
+            return r.nextBoolean()
+                    ? c.get("/texto?q=" + q)
+                    : c.get("/texto?q=%s&anio=%d".formatted(q, c.anioAlAzar(r)));
+        }
+    },
+
+    SIMILARES("similares") {
+        @Override
+        HttpRequest peticion(Contexto c, SplittableRandom r) {
+            var nombre = c.datos().nombre(c.datos().ciudadanoRecurrente(r));
+            return c.get("/similares?campo=NOMBRE&texto=" + Contexto.codificar(nombre));
+        }
+    },
+
+    ESTADISTICAS("estadisticas") {
+        private static final String[] DIMENSIONES = { "ANIO", "TIPO_DOCUMENTO", "DIRIGIDO_A" };
+
+        @Override
+        HttpRequest peticion(Contexto c, SplittableRandom r) {
+            return c.get("/estadisticas?dimension=" + DIMENSIONES[r.nextInt(DIMENSIONES.length)]);
+        }
+    },
+
+    HUECOS("huecos") {
+        @Override
+        HttpRequest peticion(Contexto c, SplittableRandom r) {
+            return c.get("/huecos?anio=" + c.anioAlAzar(r));
+        }
+    },
+
+    CAMBIOS("cambios") {
+        @Override
+        HttpRequest peticion(Contexto c, SplittableRandom r) {
+            return c.get("/cambios?limite=100");
+        }
+    },
+
+    REGISTRAR("registrar") {
+        @Override
+        HttpRequest peticion(Contexto c, SplittableRandom r) {
+            var e = c.datos().fila(c.filaAlAzar(r));
+            var nuevo = new CreateExpedienteRequest(
+                    c.nuevos().getAndIncrement(), ExpedientesSinteticos.ULTIMO_ANIO,
+                    e.fechaRegistro().withYear(ExpedientesSinteticos.ULTIMO_ANIO),
+                    e.tipoDocumento(), e.nroDocumento(), e.nombreSolicitante(), e.dni(), e.asunto(),
+                    e.dirigidoA(), e.folios(), e.archivadoCon(), e.observaciones());
+            return c.post("", nuevo);
+        }
+    },
+
+    CORREGIR("corregir") {
+        @Override
+        HttpRequest peticion(Contexto c, SplittableRandom r) {
+            long n = c.filaAlAzar(r);
+            var e = c.datos().fila(n);
+            var correccion = new UpdateExpedienteRequest(
+                    e.fechaRegistro(), e.tipoDocumento(), e.nroDocumento(), e.nombreSolicitante(), e.dni(),
+                    e.asunto(), e.dirigidoA(), e.folios() + 1, e.archivadoCon(),
+                    "Corregido en prueba de carga (%d)".formatted(r.nextInt(1000)));
+            return c.put("/" + c.datos().id(n), correccion);
+        }
+    };
+
+    private final String clave;
+
+    Operacion(String clave) {
+        this.clave = clave;
+    }
+
+    /** Nombre en {@code --mezcla} y en el resultado. */
+    String clave() {
+        return clave;
+    }
+
+    static Operacion deClave(String clave) {
+        for (var op : values()) {
+            if (op.clave.equals(clave)) {
+                return op;
+            }
+        }
+        throw new IllegalArgumentException("Operación desconocida: " + clave);
+    }
+
+    abstract HttpRequest peticion(Contexto c, SplittableRandom r);
+
+    /**
+     * Lo que comparten las operaciones de una ejecución.
+     *
+     * @param nuevos siguiente N° libre para {@link #REGISTRAR}
+     */
+    record Contexto(String url, ExpedientesSinteticos datos, ObjectMapper mapper, AtomicInteger nuevos) {
+
+        long filaAlAzar(SplittableRandom r) {
+            return r.nextLong(datos.filas());
+        }
+
+        /** Año de una fila al azar: los años con más expedientes se consultan más. */
+        int anioAlAzar(SplittableRandom r) {
+            return datos.anio(filaAlAzar(r));
+        }
+
+        HttpRequest get(String ruta) {
+            return HttpRequest.newBuilder(URI.create(url + ruta))
+                    .header("Accept", "application/json")
+                    .GET()
+                    .build();
+        }
+
+        HttpRequest post(String ruta, Object cuerpo) {
+            return HttpRequest.newBuilder(URI.create(url + ruta))
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(json(cuerpo)))
+                    .build();
+        }
+
+        HttpRequest put(String ruta, Object cuerpo) {
+            return HttpRequest.newBuilder(URI.create(url + ruta))
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofByteArray(json(cuerpo)))
+                    .build();
+        }
+
+        static String codificar(String valor) {
+            return URLEncoder.encode(valor, StandardCharsets.UTF_8);
+        }
+
+        private byte[] json(Object cuerpo) {
+            try {
+                return mapper.writeValueAsBytes(cuerpo);
+            } catch (JsonProcessingException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+}
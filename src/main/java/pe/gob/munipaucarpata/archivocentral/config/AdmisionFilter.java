@@ -0,0 +1,185 @@
+package pe.gob.munipaucarpata.archivocentral.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Control de admisión delante del acceso a base de datos.
+ *
+ * <p>
+ * Con hilos virtuales (perfil {@code virtual}) Tomcat ya no limita la
+ * concurrencia: sin este filtro, una ráfaga deja cientos de peticiones
+ * bloqueadas en {@code getConnection()} del pool de Hikari hasta su
+ * timeout. Aquí se limita a {@code concurrencia-maxima} peticiones
+ * simultáneas a /api/**, con una cola de hasta {@code cola-maxima}
+ * esperando un máximo de {@code espera-maxima}. Fuera de eso se responde
+ * de inmediato 503 con {@code Retry-After}.
+ * </p>
+ *
+ * <p>
+ * Las exportaciones con StreamingResponseBody siguen leyendo de la base
+ * (cursor del servidor) después de que vuelve el despacho inicial: su
+ * permiso se libera al terminar la petición asíncrona (completa, con
+ * error o por timeout), no al volver del filtro. Los flujos SSE
+ * ({@code text/event-stream}) no: pasan hasta
+ * {@code archivo.cambios.sse-timeout} abiertos sin conexión a la base
+ * (el reenvío tras una reconexión usa un pool propio de dos hilos) y, con
+ * el permiso retenido, unos pocos suscriptores dejarían sin admisión al
+ * resto de /api/**. Su permiso se libera al volver el despacho inicial.
+ * </p>
+ *
+ * Se activa con {@code archivo.admision.habilitada=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "archivo.admision.habilitada", havingValue = "true")
+public class AdmisionFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmisionFilter.class);
+
+    private final Semaphore permisos;
+    private final AtomicInteger enCola = new AtomicInteger();
+    private final int colaMaxima;
+    private final Duration esperaMaxima;
+    private final long reintentarSegundos;
+    private final ObjectMapper objectMapper;
+
+    AdmisionFilter(
+            @Value("${archivo.admision.concurrencia-maxima:${spring.datasource.hikari.maximum-pool-size:10}}") int concurrenciaMaxima,
+            @Value("${archivo.admision.cola-maxima:50}") int colaMaxima,
+            @Value("${archivo.admision.espera-maxima:2s}") Duration esperaMaxima,
+            @Value("${archivo.admision.reintentar-en:1s}") Duration reintentarEn,
+            ObjectMapper objectMapper) {
+        this.permisos = new Semaphore(concurrenciaMaxima, true);
+        this.colaMaxima = colaMaxima;
+        this.esperaMaxima = esperaMaxima;
+        this.reintentarSegundos = Math.max(1, reintentarEn.toSeconds());
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!admitir()) {
+            rechazar(request, response);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted() && !esFlujoEventos(request)) {
+                request.getAsyncContext().addListener(new LiberarAlTerminar());
+            } else {
+                permisos.release();
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Utilidad privada
+    // -------------------------------------------------------------------------
+
+    private boolean admitir() {
+        if (permisos.tryAcquire()) {
+            return true;
+        }
+        // Cola llena: falla rápido sin esperar
+        if (enCola.incrementAndGet() > colaMaxima) {
+            enCola.decrementAndGet();
+            return false;
+        }
+        try {
+            return permisos.tryAcquire(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            enCola.decrementAndGet();
+        }
+    }
+
+    /**
+     * Handler declarado con {@code produces = text/event-stream}. La
+     * cabecera Content-Type de un SseEmitter se escribe recién con el primer
+     * evento, después del despacho inicial.
+     */
+    private static boolean esFlujoEventos(HttpServletRequest request) {
+        return request.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE) instanceof Set<?> tipos
+                && tipos.contains(MediaType.TEXT_EVENT_STREAM);
+    }
+
+    /**
+     * Libera el permiso de una petición asíncrona una sola vez: tras un
+     * error o un timeout el contenedor también llama a onComplete.
+     */
+    private final class LiberarAlTerminar implements AsyncListener {
+
+        private final AtomicBoolean liberado = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Un nuevo startAsync descarta los listeners: se vuelve a registrar
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void liberar() {
+            if (liberado.compareAndSet(false, true)) {
+                permisos.release();
+            }
+        }
+    }
+
+    private void rechazar(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.warn("Admisión rechazada: {} {} (en cola: {})", request.getMethod(), request.getRequestURI(), enCola.get());
+
+        var problem = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE,
+                "Servidor ocupado. Intente nuevamente en unos segundos.");
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(reintentarSegundos));
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), problem);
+    }
+}
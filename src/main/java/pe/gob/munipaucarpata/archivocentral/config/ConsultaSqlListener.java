@@ -0,0 +1,118 @@
+package pe.gob.munipaucarpata.archivocentral.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Observa cada sentencia JDBC (Hibernate y JdbcTemplate).
+ *
+ * <ul>
+ * <li>Registra su duración en el timer {@code archivo.sql.duracion}.</li>
+ * <li>Cuenta las sentencias del hilo actual, para
+ * {@link ConsultasPorPeticionInterceptor}.</li>
+ * <li>Si supera el umbral, y según el muestreo, la encola para el log de
+ * consultas lentas ({@code archivo.sql.lenta}). El log se escribe en un
+ * hilo aparte con cola acotada: nunca bloquea la petición.</li>
+ * </ul>
+ *
+ * Reemplaza a {@code spring.jpa.show-sql} y al log TRACE de parámetros.
+ */
+@Component
+public class ConsultaSqlListener implements QueryExecutionListener, DisposableBean {
+
+    private static final Logger logLentas = LoggerFactory.getLogger("archivo.sql.lenta");
+
+    private static final ThreadLocal<int[]> SENTENCIAS = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final Timer timerSelect;
+    private final Timer timerEscritura;
+    private final long umbralMs;
+    private final double muestreo;
+    private final ThreadPoolExecutor escritorLog;
+
+    ConsultaSqlListener(
+            MeterRegistry registry,
+            @Value("${archivo.sql.lenta.umbral:500ms}") Duration umbral,
+            @Value("${archivo.sql.lenta.muestreo:1.0}") double muestreo) {
+        this.timerSelect = timer(registry, "select");
+        this.timerEscritura = timer(registry, "escritura");
+        this.umbralMs = umbral.toMillis();
+        this.muestreo = muestreo;
+        // Un hilo, cola de 1000; si se llena se descartan entradas en vez de bloquear
+        this.escritorLog = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1000),
+                r -> {
+                    var hilo = new Thread(r, "sql-lenta-log");
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        // sin trabajo previo
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long ms = execInfo.getElapsedTime();
+        SENTENCIAS.get()[0] += queryInfoList.size();
+
+        boolean esSelect = !queryInfoList.isEmpty()
+                && queryInfoList.get(0).getQuery().stripLeading().regionMatches(true, 0, "select", 0, 6);
+        (esSelect ? timerSelect : timerEscritura).record(ms, TimeUnit.MILLISECONDS);
+
+        if (ms >= umbralMs && (muestreo >= 1.0 || ThreadLocalRandom.current().nextDouble() < muestreo)) {
+            // El SQL se copia aquí; el formateo y la escritura ocurren en el otro hilo
+            var sql = queryInfoList.stream().map(QueryInfo::getQuery).toList();
+            int lote = execInfo.isBatch() ? execInfo.getBatchSize() : 1;
+            escritorLog.execute(() -> logLentas.warn("Consulta lenta: {} ms (lote {}): {}",
+                    ms, lote, sql.stream().map(q -> q.replaceAll("\\s+", " ")).collect(Collectors.joining("; "))));
+        }
+    }
+
+    /**
+     * Inicia el conteo de sentencias del hilo actual.
+     */
+    static void reiniciarConteo() {
+        SENTENCIAS.get()[0] = 0;
+    }
+
+    /**
+     * Sentencias ejecutadas en el hilo actual desde {@link #reiniciarConteo}.
+     */
+    static int conteo() {
+        return SENTENCIAS.get()[0];
+    }
+
+    @Override
+    public void destroy() {
+        escritorLog.shutdown();
+    }
+
+    private static Timer timer(MeterRegistry registry, String tipo) {
+        return Timer.builder("archivo.sql.duracion")
+                .description("Duración de sentencias JDBC")
+                .tag("tipo", tipo)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
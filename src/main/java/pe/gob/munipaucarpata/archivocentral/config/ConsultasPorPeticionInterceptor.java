@@ -0,0 +1,40 @@
+package pe.gob.munipaucarpata.archivocentral.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Registra cuántas sentencias SQL ejecutó cada petición, por endpoint, en
+ * {@code archivo.sql.sentencias.por.peticion} (detecta N+1 y regresiones).
+ */
+class ConsultasPorPeticionInterceptor implements HandlerInterceptor {
+
+    private final MeterRegistry registry;
+
+    ConsultasPorPeticionInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ConsultaSqlListener.reiniciarConteo();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        // Patrón de la ruta (ej: /api/expedientes/{id}) para no crear una serie por id
+        var uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("archivo.sql.sentencias.por.peticion")
+                .description("Sentencias SQL ejecutadas por petición")
+                .tag("method", request.getMethod())
+                .tag("uri", uri != null ? uri.toString() : "UNKNOWN")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry)
+                .record(ConsultaSqlListener.conteo());
+    }
+}
@@ -34,6 +34,9 @@ public class CorsConfig {
         // Headers permitidos
         config.setAllowedHeaders(List.of("*"));
 
+        // Headers legibles desde Angular (peticiones condicionales)
+        config.setExposedHeaders(List.of("ETag", "Last-Modified"));
+
         // Permitir cookies/credenciales
         config.setAllowCredentials(true);
 
@@ -0,0 +1,52 @@
+package pe.gob.munipaucarpata.archivocentral.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Formatos binarios para clientes máquina a máquina (sincronización
+ * nocturna, reportes), elegidos por el encabezado Accept:
+ *
+ * <ul>
+ * <li>{@code application/cbor} (RFC 8949)</li>
+ * <li>{@code application/x-jackson-smile}</li>
+ * </ul>
+ *
+ * Sin Accept (o con application/json) la respuesta sigue siendo JSON: la
+ * aplicación Angular no cambia. Ambos formatos parten de la misma
+ * configuración de Jackson que el JSON (spring.jackson.*), pero escriben
+ * las fechas como números (Instant en epoch ms, LocalDate como [a, m, d])
+ * en lugar de cadenas ISO-8601.
+ *
+ * Las ETags de ExpedienteController incluyen el formato negociado y sus
+ * respuestas llevan {@code Vary: Accept, Accept-Encoding} (ver Etags).
+ */
+@Configuration
+public class FormatosBinariosConfig {
+
+    // El builder de Spring Boot es prototype: cada conversor recibe uno propio.
+    // Jackson2ObjectMapperBuilder.cbor()/smile() son estáticos y crearían uno
+    // nuevo, sin la configuración spring.jackson.*
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(fechasNumericas(builder.factory(new CBORFactory()).build()));
+    }
+
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(fechasNumericas(builder.factory(new SmileFactory()).build()));
+    }
+
+    private static ObjectMapper fechasNumericas(ObjectMapper mapper) {
+        return mapper
+                .enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS);
+    }
+}
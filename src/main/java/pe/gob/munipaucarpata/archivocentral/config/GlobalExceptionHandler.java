@@ -1,11 +1,14 @@
 package pe.gob.munipaucarpata.archivocentral.config;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -19,8 +22,9 @@ import java.util.stream.Collectors;
  *
  * Formatos de error:
  *   400 Bad Request  → errores de validación (campo → mensaje)
+ *   4xx/5xx          → ResponseStatusException (estado y detalle propios)
  *   404 Not Found    → expediente no encontrado
- *   409 Conflict     → nro_expediente duplicado
+ *   409 Conflict     → nro_expediente duplicado / edición concurrente
  *   500 Server Error → errores inesperados
  */
 @RestControllerAdvice
@@ -62,6 +66,27 @@ public class GlobalExceptionHandler {
         return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, ex.getMessage());
     }
 
+    /**
+     * Otro usuario guardó el expediente entre la lectura y la escritura
+     * (@Version de Hibernate).
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    ProblemDetail handleOptimisticLock(OptimisticLockingFailureException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT,
+                "El expediente fue modificado por otro usuario. Vuelva a cargarlo e intente nuevamente.");
+    }
+
+    /**
+     * Errores con estado HTTP explícito (ej: cursor inválido → 400).
+     * Conserva las cabeceras de la excepción.
+     */
+    @ExceptionHandler(ResponseStatusException.class)
+    ResponseEntity<ProblemDetail> handleResponseStatus(ResponseStatusException ex) {
+        return ResponseEntity.status(ex.getStatusCode())
+                .headers(ex.getHeaders())
+                .body(ex.getBody());
+    }
+
     /**
      * Catch-all: errores internos no esperados.
      */
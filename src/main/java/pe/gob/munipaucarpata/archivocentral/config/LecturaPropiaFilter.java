@@ -0,0 +1,234 @@
+package pe.gob.munipaucarpata.archivocentral.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Lectura de las propias escrituras con réplicas.
+ *
+ * <p>
+ * Tras una escritura confirmada en una petición a /api/** que responde
+ * 2xx, se entrega la cookie {@value #COOKIE} con vigencia
+ * {@code archivo.replicas.lectura-propia}. Mientras el cliente la envíe,
+ * sus lecturas van a la primaria: un expediente recién registrado o
+ * corregido se ve de inmediato aunque las réplicas aún no lo hayan
+ * recibido. Al viajar con el cliente, funciona igual con varias
+ * instancias de la API.
+ * </p>
+ *
+ * <p>
+ * Escritura es una transacción de lectura-escritura confirmada en la
+ * primaria durante la petición ({@link #alUsarPrimaria}, ver
+ * RuteoLecturasConfig) o una respuesta 201 (el registro agrupado confirma
+ * en otro hilo). Los POST de solo lectura (/lote, reportes) y las
+ * escrituras fallidas no entregan la cookie. Como el cuerpo confirma la
+ * respuesta, la cookie se agrega justo antes de escribirlo, cuando el
+ * estado ya es el definitivo.
+ * </p>
+ *
+ * <p>
+ * La ventana se propaga a los hilos de las respuestas asíncronas
+ * (StreamingResponseBody) con {@link #propagar}.
+ * </p>
+ *
+ * Con {@code archivo.replicas.lectura-propia=0s} se desactiva.
+ */
+@Component
+@ConditionalOnProperty(name = "archivo.replicas.habilitadas", havingValue = "true")
+public class LecturaPropiaFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "archivo-escritura";
+
+    /** Atributo de la petición: confirmó una escritura en la primaria. */
+    private static final String ESCRITURA = LecturaPropiaFilter.class.getName() + ".ESCRITURA";
+
+    private static final ThreadLocal<Boolean> PRIMARIA = new ThreadLocal<>();
+
+    private final Duration ventana;
+
+    LecturaPropiaFilter(@Value("${archivo.replicas.lectura-propia:5s}") Duration ventana) {
+        this.ventana = ventana;
+    }
+
+    /**
+     * true si la petición en curso debe leer de la primaria.
+     */
+    static boolean enVentana() {
+        return Boolean.TRUE.equals(PRIMARIA.get());
+    }
+
+    /**
+     * Ejecuta una lectura en la primaria aunque no haya ventana de lectura
+     * propia (llenado de ExpedienteCache: una réplica con retraso guardaría
+     * en caché una versión ya invalidada). La conexión se pide en la
+     * primera sentencia de la transacción: debe llamarse antes de consultar.
+     */
+    public static <T> T enPrimaria(Supplier<T> lectura) {
+        if (enVentana()) {
+            return lectura.get();
+        }
+        PRIMARIA.set(Boolean.TRUE);
+        try {
+            return lectura.get();
+        } finally {
+            PRIMARIA.remove();
+        }
+    }
+
+    /**
+     * Envuelve una tarea asíncrona para que lea de la primaria si la
+     * petición que la creó estaba en la ventana (TaskDecorator del
+     * ejecutor de Spring MVC).
+     */
+    static Runnable propagar(Runnable tarea) {
+        if (!enVentana()) {
+            return tarea;
+        }
+        return () -> {
+            PRIMARIA.set(Boolean.TRUE);
+            try {
+                tarea.run();
+            } finally {
+                PRIMARIA.remove();
+            }
+        };
+    }
+
+    /**
+     * Se pidió una conexión de la primaria para una transacción de
+     * lectura-escritura: si se confirma dentro de una petición, la marca
+     * como escritura.
+     */
+    static void alUsarPrimaria() {
+        var atributos = RequestContextHolder.getRequestAttributes();
+        if (atributos == null || atributos.getAttribute(ESCRITURA, RequestAttributes.SCOPE_REQUEST) != null
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                atributos.setAttribute(ESCRITURA, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+            }
+        });
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return ventana.isZero() || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (hastaCookie(request) > System.currentTimeMillis()) {
+            PRIMARIA.set(Boolean.TRUE);
+        }
+        var respuesta = esEscritura(request) ? new ConCookieDeEscritura(request, response) : null;
+        try {
+            chain.doFilter(request, respuesta != null ? respuesta : response);
+            if (respuesta != null) {
+                // Sin cuerpo (ej. 204): la respuesta aún no se confirmó
+                respuesta.agregarCookie();
+            }
+        } finally {
+            PRIMARIA.remove();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Utilidad privada
+    // -------------------------------------------------------------------------
+
+    private static boolean esEscritura(HttpServletRequest request) {
+        return switch (request.getMethod()) {
+            case "GET", "HEAD", "OPTIONS" -> false;
+            default -> true;
+        };
+    }
+
+    private static long hastaCookie(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return 0;
+        }
+        for (var cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Agrega la cookie antes de que se confirme la respuesta (primer acceso
+     * al cuerpo o flush), si la petición escribió y el estado es 2xx.
+     */
+    private final class ConCookieDeEscritura extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+        private boolean revisada;
+
+        ConCookieDeEscritura(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            agregarCookie();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            agregarCookie();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            agregarCookie();
+            super.flushBuffer();
+        }
+
+        void agregarCookie() {
+            if (revisada || isCommitted()) {
+                return;
+            }
+            revisada = true;
+            var estado = HttpStatus.resolve(getStatus());
+            boolean escribio = request.getAttribute(ESCRITURA) != null || estado == HttpStatus.CREATED;
+            if (escribio && estado != null && estado.is2xxSuccessful()) {
+                var cookie = new Cookie(COOKIE, Long.toString(System.currentTimeMillis() + ventana.toMillis()));
+                cookie.setPath("/api");
+                cookie.setHttpOnly(true);
+                cookie.setMaxAge((int) Math.max(1, ventana.toSeconds()));
+                addCookie(cookie);
+            }
+        }
+    }
+}
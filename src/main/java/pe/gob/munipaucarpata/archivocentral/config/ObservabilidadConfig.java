@@ -0,0 +1,63 @@
+package pe.gob.munipaucarpata.archivocentral.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Instrumentación de la API.
+ *
+ * <ul>
+ * <li>Latencia por endpoint: {@code http.server.requests} (Actuator) con
+ * percentiles e histograma, ver application.properties.</li>
+ * <li>Pool Hikari y estadísticas de Hibernate: métricas automáticas de
+ * Actuator y hibernate-micrometer.</li>
+ * <li>SQL: el DataSource se envuelve con datasource-proxy y
+ * {@link ConsultaSqlListener}.</li>
+ * </ul>
+ *
+ * Prometheus: GET /actuator/prometheus
+ */
+@Configuration
+public class ObservabilidadConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<MeterRegistry> registry;
+
+    ObservabilidadConfig(ObjectProvider<MeterRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry interceptors) {
+        interceptors.addInterceptor(new ConsultasPorPeticionInterceptor(registry.getObject()))
+                .addPathPatterns("/api/**");
+    }
+
+    /**
+     * Envuelve el DataSource (Hikari) para observar cada sentencia. El proxy
+     * delega unwrap(), así Actuator sigue publicando las métricas del pool.
+     */
+    @Bean
+    static BeanPostProcessor proxySqlPostProcessor(ObjectProvider<ConsultaSqlListener> listener) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(listener.getObject())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
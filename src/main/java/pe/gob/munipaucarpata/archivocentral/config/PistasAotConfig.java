@@ -0,0 +1,49 @@
+package pe.gob.munipaucarpata.archivocentral.config;
+
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.http.ProblemDetail;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.CreateExpedienteRequest;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteLoteItem;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteResponse;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Pistas para la imagen nativa (perfil Maven "native").
+ *
+ * <p>
+ * Los tipos de @RequestBody y de las respuestas de los controladores los
+ * registra Spring AOT. Aquí van los que la API convierte a mano con
+ * ObjectMapper (NDJSON del lote y de la exportación, eventos SSE, filas de
+ * la importación, respuesta 503 de AdmisionFilter) y los proxies JDK con
+ * los que datasource-proxy envuelve JDBC (ObservabilidadConfig).
+ * </p>
+ */
+@Configuration
+@ImportRuntimeHints(PistasAotConfig.ProxiesJdbc.class)
+@RegisterReflectionForBinding({
+        ExpedienteResponse.class,
+        ExpedienteLoteItem.class,
+        CreateExpedienteRequest.class,
+        ProblemDetail.class })
+public class PistasAotConfig {
+
+    static class ProxiesJdbc implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (var tipo : new Class<?>[] { Connection.class, Statement.class,
+                    PreparedStatement.class, CallableStatement.class }) {
+                hints.proxies().registerJdkProxy(ProxyJdbcObject.class, tipo);
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package pe.gob.munipaucarpata.archivocentral.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pools de conexión de la primaria y de las réplicas de lectura.
+ *
+ * <p>
+ * Cada {@code verificacion} se consulta, por réplica, si está en línea y
+ * cuánto retraso de replicación tiene respecto a la primaria (LSN
+ * reproducido vs. LSN actual de la primaria). {@link #lecturas()} es el
+ * DataSource que usan las transacciones readOnly (ver RuteoLecturasConfig):
+ * reparte en round-robin entre las réplicas disponibles con retraso menor a
+ * {@code retraso-maximo} y, si no hay ninguna, usa la primaria.
+ * </p>
+ *
+ * <p>
+ * Las peticiones dentro de la ventana de lectura propia
+ * ({@link LecturaPropiaFilter}) van siempre a la primaria.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "archivo.replicas.habilitadas", havingValue = "true")
+public class Replicas implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(Replicas.class);
+
+    private static final String SQL_LSN_PRIMARIA = "SELECT CAST(pg_current_wal_lsn() AS TEXT)";
+
+    // Fuera de recuperación (no es réplica) se considera al día
+    private static final String SQL_ESTADO_REPLICA = """
+            SELECT NOT pg_is_in_recovery()
+                       OR pg_last_wal_replay_lsn() >= CAST(? AS pg_lsn) AS al_dia,
+                   EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) AS retraso
+            """;
+
+    private final HikariDataSource primaria;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger turno = new AtomicInteger();
+    private final Duration retrasoMaximo;
+    private final Counter lecturasPrimaria;
+    private final ScheduledExecutorService verificador;
+    private final DataSource lecturas = new LecturasDataSource();
+
+    Replicas(
+            DataSourceProperties properties,
+            Environment environment,
+            MeterRegistry registry,
+            @Value("${archivo.replicas.urls}") List<String> urls,
+            @Value("${archivo.replicas.username:${spring.datasource.username}}") String username,
+            @Value("${archivo.replicas.password:${spring.datasource.password}}") String password,
+            @Value("${archivo.replicas.connection-timeout:1s}") Duration connectionTimeout,
+            @Value("${archivo.replicas.retraso-maximo:5s}") Duration retrasoMaximo,
+            @Value("${archivo.replicas.verificacion:2s}") Duration verificacion) {
+        this.retrasoMaximo = retrasoMaximo;
+
+        // Misma configuración spring.datasource.* / hikari.* que sin réplicas
+        this.primaria = pool(properties, environment, registry, "primaria");
+
+        for (int i = 0; i < urls.size(); i++) {
+            var nombre = "replica-" + (i + 1);
+            var pool = pool(properties, environment, registry, nombre);
+            pool.setJdbcUrl(urls.get(i).trim());
+            pool.setUsername(username);
+            pool.setPassword(password);
+            pool.setReadOnly(true);
+            // Una réplica caída no debe retener la petición 30 s antes del respaldo
+            pool.setConnectionTimeout(connectionTimeout.toMillis());
+            pool.setInitializationFailTimeout(-1);
+            replicas.add(new Replica(nombre, pool, registry));
+        }
+
+        this.lecturasPrimaria = Counter.builder("archivo.replicas.lecturas")
+                .description("Transacciones de solo lectura por destino")
+                .tag("destino", "primaria")
+                .register(registry);
+
+        this.verificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            var hilo = new Thread(r, "replicas-verificacion");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        verificador.scheduleWithFixedDelay(this::verificar, 0, verificacion.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Pool de la primaria: escrituras y lecturas de respaldo.
+     */
+    DataSource primaria() {
+        return primaria;
+    }
+
+    /**
+     * DataSource de lecturas: réplica elegida o primaria como respaldo.
+     */
+    DataSource lecturas() {
+        return lecturas;
+    }
+
+    @Override
+    public void destroy() {
+        verificador.shutdownNow();
+        replicas.forEach(r -> r.pool.close());
+        primaria.close();
+    }
+
+    // -------------------------------------------------------------------------
+    // Selección
+    // -------------------------------------------------------------------------
+
+    private final class LecturasDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            var replica = LecturaPropiaFilter.enVentana() ? null : elegir();
+            if (replica != null) {
+                try {
+                    var conexion = replica.pool.getConnection();
+                    replica.lecturas.increment();
+                    return conexion;
+                } catch (SQLException ex) {
+                    replica.marcarCaida(ex);
+                }
+            }
+            lecturasPrimaria.increment();
+            return primaria.getConnection();
+        }
+
+        /**
+         * Inalcanzable: JPA y JdbcTemplate piden {@link #getConnection()}, y
+         * LazyConnectionDataSourceProxy solo llama a esta variante si se le
+         * piden credenciales. Tampoco delegaría: los pools de Hikari no
+         * admiten credenciales por llamada y lanzan la misma excepción.
+         */
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new SQLFeatureNotSupportedException("Las credenciales se configuran por pool");
+        }
+    }
+
+    private Replica elegir() {
+        int n = replicas.size();
+        int inicio = Math.floorMod(turno.getAndIncrement(), n);
+        for (int i = 0; i < n; i++) {
+            var replica = replicas.get((inicio + i) % n);
+            if (replica.apta(retrasoMaximo)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    // -------------------------------------------------------------------------
+    // Verificación periódica
+    // -------------------------------------------------------------------------
+
+    private void verificar() {
+        String lsnPrimaria;
+        try (var con = primaria.getConnection();
+                var rs = con.createStatement().executeQuery(SQL_LSN_PRIMARIA)) {
+            rs.next();
+            lsnPrimaria = rs.getString(1);
+        } catch (SQLException ex) {
+            // Sin primaria no hay referencia de retraso: se conserva el último estado
+            log.warn("No se pudo leer el LSN de la primaria: {}", ex.getMessage());
+            return;
+        }
+        for (var replica : replicas) {
+            replica.verificar(lsnPrimaria);
+        }
+    }
+
+    private static HikariDataSource pool(
+            DataSourceProperties properties, Environment environment, MeterRegistry registry, String nombre) {
+        var pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(nombre);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        return pool;
+    }
+
+    private static final class Replica {
+
+        private final String nombre;
+        private final HikariDataSource pool;
+        private final Counter lecturas;
+
+        private volatile boolean disponible;
+        private volatile double retrasoSegundos = Double.POSITIVE_INFINITY;
+
+        Replica(String nombre, HikariDataSource pool, MeterRegistry registry) {
+            this.nombre = nombre;
+            this.pool = pool;
+            this.lecturas = Counter.builder("archivo.replicas.lecturas")
+                    .description("Transacciones de solo lectura por destino")
+                    .tag("destino", nombre)
+                    .register(registry);
+            Gauge.builder("archivo.replicas.retraso", this, r -> r.retrasoSegundos)
+                    .description("Retraso de replicación en segundos (+Inf si no responde)")
+                    .tag("replica", nombre)
+                    .baseUnit("seconds")
+                    .register(registry);
+            Gauge.builder("archivo.replicas.disponible", this, r -> r.disponible ? 1 : 0)
+                    .tag("replica", nombre)
+                    .register(registry);
+        }
+
+        boolean apta(Duration retrasoMaximo) {
+            return disponible && retrasoSegundos * 1000 <= retrasoMaximo.toMillis();
+        }
+
+        void verificar(String lsnPrimaria) {
+            try (var con = pool.getConnection();
+                    var ps = con.prepareStatement(SQL_ESTADO_REPLICA)) {
+                ps.setString(1, lsnPrimaria);
+                try (var rs = ps.executeQuery()) {
+                    rs.next();
+                    boolean alDia = rs.getBoolean("al_dia");
+                    double retraso = rs.getDouble("retraso");
+                    boolean sinReproduccion = rs.wasNull();
+                    retrasoSegundos = alDia ? 0
+                            : sinReproduccion ? Double.POSITIVE_INFINITY
+                            : Math.max(0, retraso);
+                }
+                if (!disponible) {
+                    log.info("Réplica {} disponible (retraso {} s)", nombre, retrasoSegundos);
+                }
+                disponible = true;
+            } catch (SQLException ex) {
+                marcarCaida(ex);
+            }
+        }
+
+        void marcarCaida(SQLException ex) {
+            if (disponible) {
+                log.warn("Réplica {} no disponible, lecturas a la primaria: {}", nombre, ex.getMessage());
+            }
+            disponible = false;
+            retrasoSegundos = Double.POSITIVE_INFINITY;
+        }
+    }
+}
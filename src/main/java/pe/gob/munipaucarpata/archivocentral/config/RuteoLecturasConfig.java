@@ -0,0 +1,65 @@
+package pe.gob.munipaucarpata.archivocentral.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Envía las transacciones {@code @Transactional(readOnly = true)} a las
+ * réplicas de lectura y el resto a la primaria.
+ *
+ * <p>
+ * El DataSource de la aplicación es un {@link LazyConnectionDataSourceProxy}:
+ * la conexión física se pide recién en la primera sentencia, cuando el
+ * gestor de transacciones ya marcó la conexión como de solo lectura. Con esa
+ * marca, el proxy la toma de {@link Replicas#lecturas()}; sin ella, de la
+ * primaria. Así ExpedienteService (readOnly a nivel de clase) lee de las
+ * réplicas y solo registrar / actualizar escriben en la primaria, sin
+ * cambios en los servicios.
+ * </p>
+ *
+ * <p>
+ * Las conexiones de lectura-escritura avisan a {@link LecturaPropiaFilter}
+ * (cookie de lectura propia), y las respuestas asíncronas heredan la
+ * ventana de lectura propia de su petición (TaskDecorator del ejecutor de
+ * Spring MVC).
+ * </p>
+ *
+ * Se activa con {@code archivo.replicas.habilitadas=true} (perfil
+ * {@code replicas}). Sin él, Spring Boot crea el pool único de siempre.
+ */
+@Configuration
+@ConditionalOnProperty(name = "archivo.replicas.habilitadas", havingValue = "true")
+public class RuteoLecturasConfig {
+
+    @Bean
+    DataSource dataSource(Replicas replicas) {
+        var escrituras = new DelegatingDataSource(replicas.primaria()) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                LecturaPropiaFilter.alUsarPrimaria();
+                return super.getConnection();
+            }
+        };
+        var ruteo = new LazyConnectionDataSourceProxy(escrituras);
+        ruteo.setReadOnlyDataSource(replicas.lecturas());
+        return ruteo;
+    }
+
+    /**
+     * Spring Boot lo aplica al ejecutor de las respuestas asíncronas
+     * (StreamingResponseBody): sin él, una exportación pedida dentro de la
+     * ventana de lectura propia leería de una réplica.
+     */
+    @Bean
+    TaskDecorator lecturaPropiaTaskDecorator() {
+        return LecturaPropiaFilter::propagar;
+    }
+}
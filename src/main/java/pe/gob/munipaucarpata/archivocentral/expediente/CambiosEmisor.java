@@ -0,0 +1,240 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Server-Sent Events de expedientes registrados y corregidos.
+ *
+ * <p>
+ * Cada {@link ExpedienteModificado} confirmado (después del commit) se
+ * envía a todos los suscriptores como evento {@code registrado} o
+ * {@code corregido}, con el expediente en JSON y como id un
+ * {@link CursorCambios}. Al reconectarse, EventSource envía ese id en
+ * Last-Event-ID y se reenvía todo lo posterior ({@link #suscribir}).
+ * </p>
+ *
+ * <p>
+ * El id nunca pasa del horizonte seguro ({@code archivo.cambios.margen}
+ * atrás, ver {@link ExpedienteService#buscarCambios(String, int)}): un
+ * cambio recién confirmado puede tener updated_at posterior al de otro que
+ * una transacción más lenta confirma después. Si el id fuera el del propio
+ * cambio, ese otro quedaría detrás del cursor al reconectarse. Con el
+ * horizonte, el reenvío puede repetir cambios ya entregados; el cliente los
+ * reconoce por (id, version).
+ * </p>
+ *
+ * <p>
+ * Los envíos se hacen en hilos propios: un cliente lento no demora la
+ * respuesta de quien registró. Solo se emiten en vivo los cambios hechos en
+ * esta instancia de la API; la importación masiva no emite eventos (sus
+ * filas aparecen en GET /cambios).
+ * </p>
+ */
+@Component
+class CambiosEmisor implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CambiosEmisor.class);
+
+    /** Cambios por consulta al reenviar lo perdido tras una reconexión. */
+    private static final int TAMANIO_REENVIO = 1000;
+
+    private final List<Suscripcion> suscriptores = new CopyOnWriteArrayList<>();
+    private final ExecutorService envios = Executors.newSingleThreadExecutor(r -> {
+        var hilo = new Thread(r, "cambios-sse");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    // Pocos hilos: cada reenvío usa una conexión por página
+    private final ExecutorService reenvios = Executors.newFixedThreadPool(2, r -> {
+        var hilo = new Thread(r, "cambios-reenvio");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    private final ExpedienteService service;
+    private final long timeoutMs;
+    private final Duration margen;
+
+    CambiosEmisor(
+            ExpedienteService service,
+            @Value("${archivo.cambios.sse-timeout:30m}") Duration timeout,
+            @Value("${archivo.cambios.margen:5s}") Duration margen) {
+        this.service = service;
+        this.timeoutMs = timeout.toMillis();
+        this.margen = margen;
+    }
+
+    /**
+     * Registra un suscriptor. Al vencer el timeout el cliente se reconecta
+     * solo (EventSource) con Last-Event-ID.
+     *
+     * <p>
+     * Con {@code ultimoEvento}, en segundo plano se reenvían todos los
+     * cambios posteriores confirmados hasta la suscripción, por páginas.
+     * Los que se confirman después llegan en vivo; mientras dura el reenvío
+     * se descartan las versiones ya enviadas por la otra vía y los eventos
+     * en vivo salen sin id, para que el cursor del cliente no salte lo que
+     * falta reenviar.
+     * </p>
+     *
+     * @param ultimoEvento cabecera Last-Event-ID (null o vacía = solo en vivo)
+     */
+    SseEmitter suscribir(String ultimoEvento) {
+        // Antes de registrar: un cursor inválido responde 400
+        var desde = ultimoEvento == null || ultimoEvento.isBlank() ? null : CursorCambios.decodificar(ultimoEvento);
+
+        var suscripcion = new Suscripcion(new SseEmitter(timeoutMs), desde != null);
+        suscriptores.add(suscripcion);
+        suscripcion.emisor.onCompletion(() -> suscriptores.remove(suscripcion));
+        suscripcion.emisor.onTimeout(() -> suscriptores.remove(suscripcion));
+        suscripcion.emisor.onError(ex -> suscriptores.remove(suscripcion));
+
+        if (desde != null) {
+            // Todo lo confirmado después de este instante (más el desfase de
+            // reloj entre nodos) llega en vivo
+            var hasta = Instant.now().plus(margen);
+            reenvios.execute(() -> reenviar(suscripcion, desde, hasta));
+        }
+        return suscripcion.emisor;
+    }
+
+    @TransactionalEventListener
+    void alConfirmar(ExpedienteModificado evento) {
+        if (suscriptores.isEmpty()) {
+            return;
+        }
+        var nombre = evento.nuevo() ? "registrado" : "corregido";
+        envios.execute(() -> suscriptores.forEach(s -> s.enviar(evento.expediente(), nombre, false)));
+    }
+
+    /**
+     * Comentario periódico: mantiene abiertos proxies y balanceadores y
+     * detecta clientes desconectados.
+     */
+    @Scheduled(fixedRate = 15_000)
+    void latido() {
+        if (!suscriptores.isEmpty()) {
+            envios.execute(() -> suscriptores.forEach(s -> s.enviar(SseEmitter.event().comment("latido"))));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        envios.shutdownNow();
+        reenvios.shutdownNow();
+        suscriptores.forEach(s -> s.emisor.complete());
+    }
+
+    // -------------------------------------------------------------------------
+    // Utilidad privada
+    // -------------------------------------------------------------------------
+
+    private void reenviar(Suscripcion suscripcion, CursorCambios desde, Instant hasta) {
+        var cursor = desde;
+        try {
+            List<ExpedienteResponse> pagina;
+            do {
+                pagina = service.buscarCambios(cursor, hasta, TAMANIO_REENVIO);
+                for (var expediente : pagina) {
+                    if (!suscripcion.enviar(expediente, "cambio", true)) {
+                        return;
+                    }
+                }
+                if (!pagina.isEmpty()) {
+                    var ultimo = pagina.get(pagina.size() - 1);
+                    cursor = new CursorCambios(ultimo.updatedAt(), ultimo.id());
+                }
+            } while (pagina.size() == TAMANIO_REENVIO);
+            suscripcion.terminarReenvio();
+        } catch (RuntimeException ex) {
+            log.warn("Falló el reenvío de cambios a un suscriptor SSE: {}", ex.getMessage());
+            suscriptores.remove(suscripcion);
+            suscripcion.emisor.completeWithError(ex);
+        }
+    }
+
+    /**
+     * Cursor del evento: el del cambio o, si es más reciente, el horizonte
+     * seguro. Todo cambio hasta el horizonte ya se confirmó y se envió a
+     * este suscriptor (reenviado o en vivo).
+     */
+    private CursorCambios cursorSeguro(ExpedienteResponse expediente) {
+        var horizonte = Instant.now().minus(margen);
+        return expediente.updatedAt().isAfter(horizonte)
+                ? new CursorCambios(horizonte, Integer.MAX_VALUE)
+                : new CursorCambios(expediente.updatedAt(), expediente.id());
+    }
+
+    private final class Suscripcion {
+
+        final SseEmitter emisor;
+
+        /** N° → mayor versión enviada, solo mientras dura el reenvío (null después). */
+        private volatile Map<Integer, Integer> versiones;
+
+        Suscripcion(SseEmitter emisor, boolean conReenvio) {
+            this.emisor = emisor;
+            this.versiones = conReenvio ? new ConcurrentHashMap<>() : null;
+        }
+
+        /**
+         * Envía el cambio salvo que durante el reenvío ya se haya enviado esa
+         * versión o una posterior. Sincronizado: la verificación y el envío
+         * del reenvío y de los eventos en vivo no se intercalan.
+         *
+         * @return false si el suscriptor se desconectó
+         */
+        synchronized boolean enviar(ExpedienteResponse expediente, String nombre, boolean reenvio) {
+            var enviadas = versiones;
+            if (enviadas != null) {
+                var previa = enviadas.get(expediente.id());
+                if (previa != null && previa >= expediente.version()) {
+                    return true;
+                }
+                enviadas.put(expediente.id(), expediente.version());
+            }
+            var evento = SseEmitter.event()
+                    .name(nombre)
+                    .data(expediente, MediaType.APPLICATION_JSON);
+            // En vivo durante el reenvío: sin id, el cliente conserva el último cursor
+            if (reenvio || enviadas == null) {
+                evento.id(cursorSeguro(expediente).codificar());
+            }
+            return enviar(evento);
+        }
+
+        synchronized void terminarReenvio() {
+            versiones = null;
+        }
+
+        boolean enviar(SseEmitter.SseEventBuilder evento) {
+            try {
+                emisor.send(evento);
+                return true;
+            } catch (IOException | IllegalStateException ex) {
+                log.debug("Suscriptor SSE desconectado: {}", ex.getMessage());
+                suscriptores.remove(this);
+                emisor.completeWithError(ex);
+                return false;
+            }
+        }
+    }
+}
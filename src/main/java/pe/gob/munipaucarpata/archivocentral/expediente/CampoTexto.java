@@ -0,0 +1,20 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+/**
+ * Campos de texto libre con índice trigram (búsqueda aproximada).
+ * Cada valor conoce su columna en archivo.expedientes.
+ */
+public enum CampoTexto {
+    NOMBRE("nombre_solicitante"),
+    DIRIGIDO_A("dirigido_a");
+
+    private final String columna;
+
+    CampoTexto(String columna) {
+        this.columna = columna;
+    }
+
+    String columna() {
+        return columna;
+    }
+}
@@ -0,0 +1,44 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Posición en el flujo de cambios: clave {@code (updated_at, id)} del
+ * último cambio entregado, en microsegundos (la precisión de TIMESTAMPTZ).
+ * Se serializa como token opaco Base64-URL, igual que {@link CursorExpediente}.
+ */
+public record CursorCambios(Instant updatedAt, int id) {
+
+    /** Antes de cualquier cambio: el flujo empieza desde el primer registro. */
+    public static final CursorCambios INICIO = new CursorCambios(Instant.EPOCH, 0);
+
+    public static CursorCambios de(ExpedienteEntity entity) {
+        return new CursorCambios(entity.getUpdatedAt(), entity.getId());
+    }
+
+    public String codificar() {
+        var plano = ChronoUnit.MICROS.between(Instant.EPOCH, updatedAt) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(plano.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static CursorCambios decodificar(String token) {
+        try {
+            var partes = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII).split(":");
+            if (partes.length != 2) {
+                throw new IllegalStateException();
+            }
+            return new CursorCambios(
+                    Instant.EPOCH.plus(Long.parseLong(partes[0]), ChronoUnit.MICROS),
+                    Integer.parseInt(partes[1]));
+        } catch (RuntimeException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de cambios inválido");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posición de continuación para la paginación por cursor (keyset).
+ *
+ * Guarda la clave {@code (anio, id)} del último expediente devuelto y el
+ * sentido del recorrido. Se serializa como un token opaco Base64-URL para
+ * que el cliente no dependa de su formato.
+ */
+public record CursorExpediente(boolean descendente, int anio, int id) {
+
+    public String codificar() {
+        var plano = (descendente ? "d" : "a") + ":" + anio + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(plano.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static CursorExpediente decodificar(String token) {
+        try {
+            var partes = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII).split(":");
+            if (partes.length != 3 || !(partes[0].equals("a") || partes[0].equals("d"))) {
+                throw new IllegalStateException();
+            }
+            return new CursorExpediente(
+                    partes[0].equals("d"),
+                    Integer.parseInt(partes[1]),
+                    Integer.parseInt(partes[2]));
+        } catch (RuntimeException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de paginación inválido");
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+/**
+ * Dimensiones de agrupación de las estadísticas de expedientes.
+ * Cada valor conoce su columna en archivo.resumen_expedientes.
+ */
+public enum DimensionEstadistica {
+    ANIO("anio"),
+    TIPO_DOCUMENTO("tipo_documento"),
+    DIRIGIDO_A("dirigido_a");
+
+    private final String columna;
+
+    DimensionEstadistica(String columna) {
+        this.columna = columna;
+    }
+
+    String columna() {
+        return columna;
+    }
+}
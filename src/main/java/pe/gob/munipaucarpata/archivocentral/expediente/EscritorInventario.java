@@ -0,0 +1,418 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.HeaderFooter;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.PrintSetup;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.awt.Color;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Escritura incremental del reporte de inventario de transferencia
+ * ({@link ReporteInventarioService}).
+ *
+ * <p>
+ * El servicio recorre los expedientes ordenados por tipo de documento y
+ * llama, en orden: {@link #inicio}, y por cada tipo {@link #grupo}, sus
+ * {@link #fila} y {@link #subtotal}; al final {@link #fin} con los totales.
+ * Ninguna implementación guarda las filas: CSV escribe directo, XLSX usa
+ * SXSSF (solo una ventana de filas en memoria, el resto en un temporal
+ * comprimido) y PDF entrega la tabla al documento por bloques (las filas
+ * ya paginadas se liberan).
+ * </p>
+ */
+interface EscritorInventario extends AutoCloseable {
+
+    /** Títulos de las columnas (el tipo de documento encabeza cada grupo). */
+    String[] COLUMNAS = { "Item", "N° Exp.", "Fecha", "N° Documento", "Solicitante", "DNI",
+            "Asunto", "Dirigido a", "Folios", "Archivado con" };
+
+    /**
+     * Expediente tal como aparece en el inventario.
+     *
+     * @param item correlativo en el reporte (1, 2, ...)
+     */
+    record FilaInventario(
+            long item,
+            TipoDocumento tipo,
+            int id,
+            LocalDate fechaRegistro,
+            String nroDocumento,
+            String nombreSolicitante,
+            String dni,
+            String asunto,
+            String dirigidoA,
+            int folios,
+            String archivadoCon) {
+    }
+
+    /**
+     * @param titulo  ej. "INVENTARIO DE TRANSFERENCIA - AÑO 2024"
+     * @param detalle filtros aplicados y fecha de generación
+     */
+    record Encabezado(String titulo, String detalle) {
+    }
+
+    void inicio(Encabezado encabezado) throws IOException;
+
+    void grupo(TipoDocumento tipo) throws IOException;
+
+    void fila(FilaInventario fila) throws IOException;
+
+    void subtotal(TipoDocumento tipo, long cantidad, long folios) throws IOException;
+
+    /** Escribe el total general y completa el archivo en la salida. */
+    void fin(long cantidad, long folios) throws IOException;
+
+    /** Libera los recursos propios (no cierra la salida). */
+    @Override
+    default void close() throws IOException {
+    }
+
+    static EscritorInventario para(FormatoReporte formato, OutputStream salida) {
+        return switch (formato) {
+            case CSV -> new Csv(salida);
+            case XLSX -> new Xlsx(salida);
+            case PDF -> new Pdf(salida);
+        };
+    }
+
+    // -------------------------------------------------------------------------
+    // CSV: una fila por expediente, con la columna del tipo; subtotales y
+    // total como filas marcadas en la primera columna
+    // -------------------------------------------------------------------------
+
+    final class Csv implements EscritorInventario {
+
+        private final Writer writer;
+
+        Csv(OutputStream salida) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        @Override
+        public void inicio(Encabezado encabezado) throws IOException {
+            writer.write('\uFEFF'); // BOM: Excel detecta UTF-8 (tildes y Ñ)
+            ExpedienteCsv.escribir(writer, COLUMNAS[0], "Tipo de documento", COLUMNAS[1], COLUMNAS[2],
+                    COLUMNAS[3], COLUMNAS[4], COLUMNAS[5], COLUMNAS[6], COLUMNAS[7], COLUMNAS[8], COLUMNAS[9]);
+        }
+
+        @Override
+        public void grupo(TipoDocumento tipo) {
+            // El tipo va en cada fila
+        }
+
+        @Override
+        public void fila(FilaInventario f) throws IOException {
+            ExpedienteCsv.escribir(writer, f.item(), f.tipo(), f.id(), f.fechaRegistro(), f.nroDocumento(),
+                    f.nombreSolicitante(), f.dni(), f.asunto(), f.dirigidoA(), f.folios(), f.archivadoCon());
+        }
+
+        @Override
+        public void subtotal(TipoDocumento tipo, long cantidad, long folios) throws IOException {
+            ExpedienteCsv.escribir(writer, "SUBTOTAL", tipo, cantidad + " expedientes",
+                    null, null, null, null, null, null, folios, null);
+        }
+
+        @Override
+        public void fin(long cantidad, long folios) throws IOException {
+            ExpedienteCsv.escribir(writer, "TOTAL", null, cantidad + " expedientes",
+                    null, null, null, null, null, null, folios, null);
+            writer.flush();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // XLSX (SXSSF): hojas listas para imprimir, encabezado repetido por página.
+    // Al llegar al máximo de filas de Excel sigue en "Inventario 2", "3"...
+    // -------------------------------------------------------------------------
+
+    final class Xlsx implements EscritorInventario {
+
+        /** Filas en memoria; las anteriores se vuelcan al temporal. */
+        private static final int VENTANA = 100;
+
+        private static final int[] ANCHOS = { 7, 9, 11, 16, 32, 10, 60, 28, 7, 24 };
+
+        private static final String HOJA = "Inventario";
+
+        /** Caracteres por celda que admite Excel (32 767). */
+        private static final int MAX_TEXTO = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+
+        private final OutputStream salida;
+        private final int maxFilas;
+        private final SXSSFWorkbook libro = new SXSSFWorkbook(VENTANA);
+        private final CellStyle negrita;
+        private final CellStyle encabezado;
+        private final CellStyle fecha;
+        private final CellStyle texto;
+        private SXSSFSheet hoja;
+        private int siguiente;
+
+        Xlsx(OutputStream salida) {
+            this(salida, SpreadsheetVersion.EXCEL2007.getMaxRows());
+        }
+
+        /**
+         * @param maxFilas filas por hoja antes de continuar en otra
+         */
+        Xlsx(OutputStream salida, int maxFilas) {
+            this.salida = salida;
+            this.maxFilas = maxFilas;
+            libro.setCompressTempFiles(true);
+
+            var fuenteNegrita = libro.createFont();
+            fuenteNegrita.setBold(true);
+            negrita = libro.createCellStyle();
+            negrita.setFont(fuenteNegrita);
+            encabezado = libro.createCellStyle();
+            encabezado.setFont(fuenteNegrita);
+            encabezado.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+            encabezado.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            fecha = libro.createCellStyle();
+            fecha.setDataFormat(libro.createDataFormat().getFormat("dd/mm/yyyy"));
+            texto = libro.createCellStyle();
+            texto.setWrapText(true);
+
+            hoja = crearHoja(HOJA);
+        }
+
+        @Override
+        public void inicio(Encabezado e) {
+            celda(nuevaFila(), 0, e.titulo()).setCellStyle(negrita);
+            hoja.addMergedRegion(new CellRangeAddress(0, 0, 0, COLUMNAS.length - 1));
+            celda(nuevaFila(), 0, e.detalle());
+            hoja.addMergedRegion(new CellRangeAddress(1, 1, 0, COLUMNAS.length - 1));
+            siguiente++;
+            titulosColumnas();
+        }
+
+        @Override
+        public void grupo(TipoDocumento tipo) {
+            celda(nuevaFila(), 0, tipo.name()).setCellStyle(negrita);
+        }
+
+        @Override
+        public void fila(FilaInventario f) {
+            var fila = nuevaFila();
+            fila.createCell(0).setCellValue(f.item());
+            fila.createCell(1).setCellValue(f.id());
+            var celdaFecha = fila.createCell(2);
+            celdaFecha.setCellValue(f.fechaRegistro());
+            celdaFecha.setCellStyle(fecha);
+            celda(fila, 3, f.nroDocumento());
+            celda(fila, 4, f.nombreSolicitante());
+            celda(fila, 5, f.dni());
+            celda(fila, 6, f.asunto()).setCellStyle(texto);
+            celda(fila, 7, f.dirigidoA());
+            fila.createCell(8).setCellValue(f.folios());
+            celda(fila, 9, f.archivadoCon());
+        }
+
+        @Override
+        public void subtotal(TipoDocumento tipo, long cantidad, long folios) {
+            totales("Subtotal " + tipo.name() + ": " + cantidad + " expedientes", folios);
+            siguiente++; // línea en blanco entre grupos
+        }
+
+        @Override
+        public void fin(long cantidad, long folios) throws IOException {
+            totales("TOTAL: " + cantidad + " expedientes", folios);
+            libro.write(salida);
+        }
+
+        @Override
+        public void close() throws IOException {
+            libro.close(); // borra los temporales de SXSSF
+        }
+
+        /** Fila siguiente; en una hoja nueva si la actual está llena. */
+        private Row nuevaFila() {
+            if (siguiente >= maxFilas) {
+                hoja = crearHoja(HOJA + " " + (libro.getNumberOfSheets() + 1));
+                siguiente = 0;
+                titulosColumnas();
+            }
+            return hoja.createRow(siguiente++);
+        }
+
+        private SXSSFSheet crearHoja(String nombre) {
+            var nueva = libro.createSheet(nombre);
+            for (int i = 0; i < ANCHOS.length; i++) {
+                nueva.setColumnWidth(i, ANCHOS[i] * 256);
+            }
+            var setup = nueva.getPrintSetup();
+            setup.setLandscape(true);
+            setup.setPaperSize(PrintSetup.A4_PAPERSIZE);
+            setup.setFitWidth((short) 1);
+            setup.setFitHeight((short) 0);
+            nueva.setFitToPage(true);
+            return nueva;
+        }
+
+        private void titulosColumnas() {
+            int numero = siguiente;
+            var fila = hoja.createRow(siguiente++);
+            for (int i = 0; i < COLUMNAS.length; i++) {
+                celda(fila, i, COLUMNAS[i]).setCellStyle(encabezado);
+            }
+            hoja.setRepeatingRows(new CellRangeAddress(numero, numero, 0, COLUMNAS.length - 1));
+            hoja.createFreezePane(0, numero + 1);
+        }
+
+        private void totales(String etiqueta, long folios) {
+            var fila = nuevaFila();
+            celda(fila, 4, etiqueta).setCellStyle(negrita);
+            var celdaFolios = fila.createCell(8);
+            celdaFolios.setCellValue(folios);
+            celdaFolios.setCellStyle(negrita);
+        }
+
+        private static Cell celda(Row fila, int columna, String valor) {
+            var celda = fila.createCell(columna);
+            if (valor != null) {
+                // Excel rechaza textos más largos: se corta con una elipsis
+                celda.setCellValue(valor.length() > MAX_TEXTO ? valor.substring(0, MAX_TEXTO - 1) + "…" : valor);
+            }
+            return celda;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // PDF (OpenPDF): A4 horizontal, tabla entregada al documento por bloques
+    // -------------------------------------------------------------------------
+
+    final class Pdf implements EscritorInventario {
+
+        /** Filas de la tabla que se acumulan antes de paginarlas. */
+        private static final int FILAS_POR_BLOQUE = 200;
+
+        private static final float[] ANCHOS = { 4, 5, 6, 9, 17, 6, 28, 14, 4, 10 };
+
+        private static final DateTimeFormatter FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+        private static final Font NORMAL = FontFactory.getFont(FontFactory.HELVETICA, 7);
+        private static final Font NEGRITA = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 7);
+        private static final Font TITULO = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12);
+
+        private static final Color GRIS = new Color(0xE0, 0xE0, 0xE0);
+
+        private final Document documento = new Document(PageSize.A4.rotate(), 28, 28, 28, 36);
+        private final PdfPTable tabla = new PdfPTable(ANCHOS);
+        private int filasPendientes;
+
+        Pdf(OutputStream salida) {
+            PdfWriter.getInstance(documento, salida).setCloseStream(false);
+            var pie = new HeaderFooter(new Phrase("Página ", NORMAL), true);
+            pie.setBorder(0);
+            pie.setAlignment(Element.ALIGN_RIGHT);
+            documento.setFooter(pie);
+
+            tabla.setWidthPercentage(100);
+            tabla.setHeaderRows(1);
+            tabla.setComplete(false); // LargeElement: cada add() pagina y libera las filas
+        }
+
+        @Override
+        public void inicio(Encabezado e) throws IOException {
+            documento.open();
+            agregar(new Paragraph(e.titulo(), TITULO));
+            var detalle = new Paragraph(e.detalle(), NORMAL);
+            detalle.setSpacingAfter(8);
+            agregar(detalle);
+            for (var columna : COLUMNAS) {
+                var celda = new PdfPCell(new Phrase(columna, NEGRITA));
+                celda.setBackgroundColor(GRIS);
+                tabla.addCell(celda);
+            }
+        }
+
+        @Override
+        public void grupo(TipoDocumento tipo) throws IOException {
+            var celda = new PdfPCell(new Phrase(tipo.name(), NEGRITA));
+            celda.setColspan(COLUMNAS.length);
+            celda.setBackgroundColor(GRIS);
+            tabla.addCell(celda);
+            filaAgregada();
+        }
+
+        @Override
+        public void fila(FilaInventario f) throws IOException {
+            tabla.addCell(new Phrase(Long.toString(f.item()), NORMAL));
+            tabla.addCell(new Phrase(Integer.toString(f.id()), NORMAL));
+            tabla.addCell(new Phrase(f.fechaRegistro().format(FECHA), NORMAL));
+            tabla.addCell(new Phrase(f.nroDocumento(), NORMAL));
+            tabla.addCell(new Phrase(f.nombreSolicitante(), NORMAL));
+            tabla.addCell(new Phrase(f.dni(), NORMAL));
+            tabla.addCell(new Phrase(f.asunto(), NORMAL));
+            tabla.addCell(new Phrase(f.dirigidoA(), NORMAL));
+            tabla.addCell(new Phrase(Integer.toString(f.folios()), NORMAL));
+            tabla.addCell(new Phrase(f.archivadoCon() != null ? f.archivadoCon() : "", NORMAL));
+            filaAgregada();
+        }
+
+        @Override
+        public void subtotal(TipoDocumento tipo, long cantidad, long folios) throws IOException {
+            totales("Subtotal " + tipo.name() + ": " + cantidad + " expedientes", folios);
+        }
+
+        @Override
+        public void fin(long cantidad, long folios) throws IOException {
+            totales("TOTAL: " + cantidad + " expedientes", folios);
+            tabla.setComplete(true);
+            agregar(tabla);
+            documento.close();
+        }
+
+        private void totales(String etiqueta, long folios) throws IOException {
+            var celda = new PdfPCell(new Phrase(etiqueta, NEGRITA));
+            celda.setColspan(COLUMNAS.length - 2);
+            celda.setHorizontalAlignment(Element.ALIGN_RIGHT);
+            tabla.addCell(celda);
+            tabla.addCell(new Phrase(Long.toString(folios), NEGRITA));
+            tabla.addCell(new Phrase("", NORMAL));
+            filaAgregada();
+        }
+
+        private void filaAgregada() throws IOException {
+            if (++filasPendientes == FILAS_POR_BLOQUE) {
+                agregar(tabla);
+                filasPendientes = 0;
+            }
+        }
+
+        private void agregar(Element elemento) throws IOException {
+            try {
+                documento.add(elemento);
+            } catch (DocumentException ex) {
+                throw new IOException("No se pudo escribir el PDF", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reconciliación periódica de archivo.resumen_expedientes.
+ *
+ * Horario en {@code archivo.estadisticas.reconciliacion.cron}; "-" la
+ * desactiva (se puede ejecutar a demanda con
+ * POST /api/expedientes/estadisticas/reconciliar).
+ */
+@Component
+class EstadisticasReconciliacionTarea {
+
+    private final ExpedienteEstadisticaService estadisticas;
+
+    EstadisticasReconciliacionTarea(ExpedienteEstadisticaService estadisticas) {
+        this.estadisticas = estadisticas;
+    }
+
+    @Scheduled(cron = "${archivo.estadisticas.reconciliacion.cron:-}")
+    void reconciliar() {
+        estadisticas.reconciliar();
+    }
+}
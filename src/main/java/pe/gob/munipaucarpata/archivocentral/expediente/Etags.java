@@ -0,0 +1,141 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.server.ResponseStatusException;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteVersionado;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Construcción y comparación de ETags para los endpoints de expedientes.
+ *
+ * <ul>
+ * <li>Expediente individual: ETag fuerte con su {@code version}, ej. {@code "3"}.</li>
+ * <li>Páginas: ETag débil con el resumen (MD5) de los pares (N°, version)
+ * de la página ya cargada, el total, los parámetros de paginación y la
+ * vista (completa / resumen). Toda modificación de un expediente incrementa
+ * su version, así que no hace falta serializar el contenido.</li>
+ * </ul>
+ *
+ * Ambas incluyen el formato negociado por Accept ({@link #formato}): JSON,
+ * CBOR y Smile son representaciones distintas con bytes distintos, y una
+ * caché no debe responder con una el If-None-Match de otra. JSON, el formato
+ * por defecto, no lleva sufijo: {@code "3"}, {@code "3-cbor"},
+ * {@code "3-smile"}.
+ */
+final class Etags {
+
+    static final String JSON = "";
+    static final String CBOR = "cbor";
+    static final String SMILE = "smile";
+
+    private static final MediaType APPLICATION_SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    private Etags() {
+    }
+
+    /**
+     * Formato que elegirá Spring MVC para el Accept del cliente: el primer
+     * tipo aceptado (por especificidad y calidad) compatible con JSON, CBOR o
+     * Smile, en el orden de los convertidores (JSON primero, así que
+     * {@code *}{@code /*} es JSON).
+     */
+    static String formato(List<MediaType> aceptados) {
+        var ordenados = new ArrayList<>(aceptados);
+        MimeTypeUtils.sortBySpecificity(ordenados);
+        for (var aceptado : ordenados) {
+            if (aceptado.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return JSON;
+            }
+            if (aceptado.isCompatibleWith(APPLICATION_SMILE)) {
+                return SMILE;
+            }
+            if (aceptado.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+                return CBOR;
+            }
+        }
+        return JSON;
+    }
+
+    static String deVersion(int version, String formato) {
+        return "\"" + version + sufijo(formato) + "\"";
+    }
+
+    static String deListado(
+            long total, List<? extends ExpedienteVersionado> contenido, Pageable pageable, String vista, String formato) {
+        var resumen = new StringBuilder(contenido.size() * 12 + 64);
+        for (var expediente : contenido) {
+            resumen.append(expediente.id()).append(':').append(expediente.version()).append(',');
+        }
+        resumen.append('|').append(total).append('|').append(pageable).append('|').append(vista);
+        var md5 = DigestUtils.md5DigestAsHex(resumen.toString().getBytes(StandardCharsets.UTF_8));
+        return "W/\"" + md5 + sufijo(formato) + "\"";
+    }
+
+    /**
+     * Comparación débil (RFC 9110 §8.8.3.2) contra un If-None-Match que puede
+     * contener varias ETags separadas por coma o "*".
+     */
+    static boolean coincide(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        var buscada = sinPrefijoDebil(etag);
+        for (var candidata : ifNoneMatch.split(",")) {
+            var valor = candidata.trim();
+            if (valor.equals("*") || sinPrefijoDebil(valor).equals(buscada)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Versión esperada según If-Match. Devuelve null si no se envió o es
+     * "*" (basta con que el expediente exista).
+     *
+     * Acepta la versión con prefijo W/: Tomcat debilita la ETag al comprimir
+     * la respuesta con gzip, pero sigue identificando la misma versión. El
+     * sufijo de formato ({@code "3-cbor"}) se ignora por lo mismo.
+     *
+     * @throws ResponseStatusException 412 si el valor no es una ETag de versión
+     */
+    static Integer versionEsperada(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        var valor = sinPrefijoDebil(ifMatch.trim());
+        if (valor.length() > 2 && valor.startsWith("\"") && valor.endsWith("\"")) {
+            var interior = valor.substring(1, valor.length() - 1);
+            var guion = interior.indexOf('-');
+            if (guion > 0 && esFormato(interior.substring(guion + 1))) {
+                interior = interior.substring(0, guion);
+            }
+            try {
+                return Integer.valueOf(interior);
+            } catch (NumberFormatException ex) {
+                // se trata abajo como precondición fallida
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                "If-Match no corresponde a ninguna versión del expediente");
+    }
+
+    private static String sufijo(String formato) {
+        return formato.isEmpty() ? "" : "-" + formato;
+    }
+
+    private static boolean esFormato(String valor) {
+        return valor.equals(CBOR) || valor.equals(SMILE);
+    }
+
+    private static String sinPrefijoDebil(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
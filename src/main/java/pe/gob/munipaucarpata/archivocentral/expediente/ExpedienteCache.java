@@ -0,0 +1,395 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pe.gob.munipaucarpata.archivocentral.config.LecturaPropiaFilter;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteResponse;
+
+import java.sql.Array;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Caché en proceso de las lecturas más frecuentes de ExpedienteService:
+ * expediente por N° y primeras páginas de listar por año.
+ *
+ * <p>
+ * Coherencia entre instancias: cada registro o corrección envía, dentro de
+ * su transacción, un {@code NOTIFY} en el canal {@value #CANAL} con N°,
+ * versión y año. PostgreSQL lo entrega a todas las instancias recién al
+ * confirmarse (nunca si se revierte), y cada una invalida sus entradas en
+ * milisegundos. La métrica {@code archivo.cache.propagacion} mide ese
+ * tiempo (envío → recepción).
+ * </p>
+ *
+ * <p>
+ * Límite de desactualización: mientras la escucha está conectada, el
+ * tiempo de propagación; si se desconecta, la caché deja de usarse hasta
+ * reconectar (y se vacía). Como respaldo, ninguna entrada vive más de
+ * {@code archivo.cache.ttl}.
+ * </p>
+ *
+ * <p>
+ * Con réplicas de lectura, las cargas que llenan la caché leen de la
+ * primaria ({@link LecturaPropiaFilter#enPrimaria}): una réplica con
+ * retraso puede devolver, después de la notificación, la versión anterior
+ * al cambio, y quedaría en caché hasta el TTL. Solo los fallos de caché
+ * llegan a la primaria.
+ * </p>
+ *
+ * Prueba local con dos instancias: ver application-nodo2.properties.
+ */
+@Component
+public class ExpedienteCache implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpedienteCache.class);
+
+    static final String CANAL = "archivo_expedientes";
+
+    // Un NOTIFY por cambio en una sola sentencia (la corrección masiva
+    // acumula miles por transacción)
+    private static final String SQL_NOTIFICAR = "SELECT pg_notify('" + CANAL + "', p) FROM unnest(?) AS p";
+
+    /** Espera máxima por notificaciones antes de verificar la conexión. */
+    private static final int ESPERA_MS = 10_000;
+
+    private static final Duration REINTENTO = Duration.ofSeconds(5);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IndiceNumeros numeros;
+    private final boolean habilitada;
+    private final int paginasPorAnio;
+
+    private final Cache<Integer, ExpedienteResponse> expedientes;
+    private final Cache<PaginaAnio, Page<ExpedienteResponse>> paginas;
+    // Última versión notificada por N°: evita guardar una lectura más vieja
+    // (ej. de una réplica con retraso) que llegó después de la invalidación
+    private final Cache<Integer, Integer> versionesNotificadas;
+    // Cambia con cada invalidación: una carga iniciada antes no se guarda
+    private final AtomicLong generacion = new AtomicLong();
+
+    private final Timer propagacion;
+    private final Counter reconexiones;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final Thread escucha;
+    private volatile boolean escuchando;
+    private volatile boolean activo = true;
+
+    ExpedienteCache(
+            JdbcTemplate jdbcTemplate,
+            IndiceNumeros numeros,
+            DataSourceProperties dataSource,
+            MeterRegistry registry,
+            @Value("${archivo.cache.habilitada:true}") boolean habilitada,
+            @Value("${archivo.cache.tamanio:10000}") int tamanio,
+            @Value("${archivo.cache.ttl:60s}") Duration ttl,
+            @Value("${archivo.cache.paginas-por-anio:3}") int paginasPorAnio) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.numeros = numeros;
+        this.habilitada = habilitada;
+        this.paginasPorAnio = paginasPorAnio;
+
+        this.expedientes = Caffeine.newBuilder()
+                .maximumSize(tamanio)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        // Cada página guarda hasta su tamaño en expedientes: se limita la cantidad
+        this.paginas = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, tamanio / 100))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.versionesNotificadas = Caffeine.newBuilder()
+                .maximumSize(tamanio)
+                .expireAfterWrite(ttl)
+                .build();
+
+        CaffeineCacheMetrics.monitor(registry, expedientes, "expedientes");
+        CaffeineCacheMetrics.monitor(registry, paginas, "expedientes-paginas");
+        this.propagacion = Timer.builder("archivo.cache.propagacion")
+                .description("Tiempo entre el envío de una invalidación y su recepción")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.reconexiones = Counter.builder("archivo.cache.reconexiones")
+                .description("Reconexiones de la escucha de invalidaciones")
+                .register(registry);
+
+        // LISTEN en la primaria: las réplicas no reciben notificaciones
+        this.url = dataSource.determineUrl();
+        this.username = dataSource.determineUsername();
+        this.password = dataSource.determinePassword();
+        this.escucha = new Thread(this::escuchar, "cache-notificaciones");
+        this.escucha.setDaemon(true);
+        if (habilitada) {
+            escucha.start();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // LECTURA
+    // -------------------------------------------------------------------------
+
+    /**
+     * Expediente por N°. Los inexistentes no se guardan.
+     */
+    Optional<ExpedienteResponse> expediente(Integer id, Supplier<Optional<ExpedienteResponse>> carga) {
+        var enCache = enCache(id);
+        if (enCache.isPresent()) {
+            return enCache;
+        }
+        long g = generacion.get();
+        var cargado = LecturaPropiaFilter.enPrimaria(carga);
+        cargado.ifPresent(e -> guardar(expedientes, id, e, g, v -> {
+            Integer notificada = versionesNotificadas.getIfPresent(id);
+            return notificada == null || v.version() >= notificada;
+        }));
+        return cargado;
+    }
+
+    /**
+     * Expediente por N° solo si ya está en caché (sin consultar).
+     */
+    Optional<ExpedienteResponse> enCache(Integer id) {
+        return usable() ? Optional.ofNullable(expedientes.getIfPresent(id)) : Optional.empty();
+    }
+
+    /**
+     * Página de listar por año. Solo las primeras
+     * {@code archivo.cache.paginas-por-anio} páginas se guardan.
+     */
+    Page<ExpedienteResponse> paginaAnio(Integer anio, Pageable pageable, Supplier<Page<ExpedienteResponse>> carga) {
+        if (pageable.getPageNumber() >= paginasPorAnio) {
+            // No se guarda: puede leerse de una réplica
+            return carga.get();
+        }
+        var clave = new PaginaAnio(anio, pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort().toString());
+        return leer(paginas, clave, carga);
+    }
+
+    private <K, V> V leer(Cache<K, V> cache, K clave, Supplier<V> carga) {
+        if (usable()) {
+            var valor = cache.getIfPresent(clave);
+            if (valor != null) {
+                return valor;
+            }
+        }
+        long g = generacion.get();
+        var valor = LecturaPropiaFilter.enPrimaria(carga);
+        guardar(cache, clave, valor, g, v -> true);
+        return valor;
+    }
+
+    private <K, V> void guardar(Cache<K, V> cache, K clave, V valor, long generacionCarga, Predicate<V> admitir) {
+        if (usable() && generacion.get() == generacionCarga && admitir.test(valor)) {
+            cache.put(clave, valor);
+        }
+    }
+
+    private boolean usable() {
+        return habilitada && escuchando;
+    }
+
+    private record PaginaAnio(int anio, int pagina, int tamanio, String orden) {
+    }
+
+    // -------------------------------------------------------------------------
+    // ENVÍO DE INVALIDACIONES
+    // -------------------------------------------------------------------------
+
+    /**
+     * Registro o corrección (incluida la masiva): se notifica al confirmar
+     * la transacción que publicó el evento.
+     */
+    @EventListener
+    void alModificar(ExpedienteModificado evento) {
+        var e = evento.expediente();
+        notificar((evento.nuevo() ? "n:" : "e:") + e.id() + ":" + e.version() + ":" + e.anio());
+    }
+
+    /**
+     * Expedientes insertados o modificados sin evento por expediente
+     * (importación masiva): invalida las páginas de esos años.
+     */
+    void notificarAnios(Collection<Integer> anios) {
+        anios.forEach(anio -> notificar("a:" + anio));
+    }
+
+    /**
+     * Dentro de una transacción, acumula la notificación y la envía antes del
+     * commit (PostgreSQL la entrega al confirmarse); fuera de ella, la envía
+     * de inmediato. En esta instancia se aplica tras el commit sin esperar
+     * el eco.
+     */
+    @SuppressWarnings("unchecked")
+    private void notificar(String tipo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enviar(List.of(tipo));
+            aplicar(tipo, 0);
+            return;
+        }
+        var pendientes = (List<String>) TransactionSynchronizationManager.getResource(this);
+        if (pendientes == null) {
+            var lista = new ArrayList<String>();
+            TransactionSynchronizationManager.bindResource(this, lista);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    enviar(lista);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(ExpedienteCache.this);
+                    if (status == STATUS_COMMITTED) {
+                        lista.forEach(p -> aplicar(p, 0));
+                    }
+                }
+            });
+            pendientes = lista;
+        }
+        pendientes.add(tipo);
+    }
+
+    private void enviar(List<String> tipos) {
+        // La hora de envío viaja al final para medir la propagación
+        String[] mensajes = tipos.stream()
+                .map(t -> t + ":" + System.currentTimeMillis())
+                .toArray(String[]::new);
+        jdbcTemplate.query(SQL_NOTIFICAR,
+                ps -> {
+                    Array array = ps.getConnection().createArrayOf("text", mensajes);
+                    ps.setArray(1, array);
+                },
+                rs -> {
+                });
+    }
+
+    // -------------------------------------------------------------------------
+    // RECEPCIÓN
+    // -------------------------------------------------------------------------
+
+    private void escuchar() {
+        while (activo) {
+            try (var con = DriverManager.getConnection(url, username, password);
+                    var st = con.createStatement()) {
+                st.execute("LISTEN " + CANAL);
+                // Lo que cambió mientras no se escuchaba no se notificó
+                invalidarTodo();
+                escuchando = true;
+                log.info("Caché de expedientes: escuchando invalidaciones en {}", CANAL);
+
+                var pg = con.unwrap(PGConnection.class);
+                while (activo) {
+                    var notificaciones = pg.getNotifications(ESPERA_MS);
+                    if (notificaciones == null || notificaciones.length == 0) {
+                        // Sin tráfico: comprueba que la conexión sigue viva
+                        st.execute("SELECT 1");
+                        continue;
+                    }
+                    long recibido = System.currentTimeMillis();
+                    for (var notificacion : notificaciones) {
+                        aplicar(notificacion.getParameter(), recibido);
+                    }
+                }
+            } catch (SQLException ex) {
+                escuchando = false;
+                if (activo) {
+                    reconexiones.increment();
+                    log.warn("Caché de expedientes sin invalidaciones (no se usa hasta reconectar): {}", ex.getMessage());
+                    esperar(REINTENTO);
+                }
+            }
+        }
+    }
+
+    /**
+     * Aplica una notificación {@code tipo:datos:enviadoMs}.
+     *
+     * @param recibido hora de recepción (0 = aplicada localmente, no se mide)
+     */
+    private void aplicar(String mensaje, long recibido) {
+        var partes = mensaje.split(":");
+        try {
+            switch (partes[0]) {
+                case "n", "e" -> {
+                    int id = Integer.parseInt(partes[1]);
+                    int version = Integer.parseInt(partes[2]);
+                    int anio = Integer.parseInt(partes[3]);
+                    versionesNotificadas.asMap().merge(id, version, Math::max);
+                    generacion.incrementAndGet();
+                    expedientes.invalidate(id);
+                    invalidarAnio(anio);
+                    if (partes[0].equals("n")) {
+                        // Registros de otras instancias: el índice de N° queda al día sin esperar su recarga
+                        numeros.agregar(id, anio);
+                    }
+                }
+                case "a" -> invalidarAnio(Integer.parseInt(partes[1]));
+                case "*" -> invalidarTodo();
+                default -> log.warn("Notificación de caché desconocida: {}", mensaje);
+            }
+            if (recibido > 0) {
+                long enviado = Long.parseLong(partes[partes.length - 1]);
+                propagacion.record(Math.max(0, recibido - enviado), TimeUnit.MILLISECONDS);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Notificación de caché inválida '{}': {}", mensaje, ex.getMessage());
+            invalidarTodo();
+        }
+    }
+
+    private void invalidarAnio(int anio) {
+        generacion.incrementAndGet();
+        paginas.asMap().keySet().removeIf(p -> p.anio() == anio);
+    }
+
+    private void invalidarTodo() {
+        generacion.incrementAndGet();
+        expedientes.invalidateAll();
+        paginas.invalidateAll();
+    }
+
+    private static void esperar(Duration duracion) {
+        try {
+            Thread.sleep(duracion);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        activo = false;
+        escucha.interrupt();
+    }
+}
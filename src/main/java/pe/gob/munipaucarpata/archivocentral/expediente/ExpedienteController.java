@@ -1,42 +1,152 @@
 package pe.gob.munipaucarpata.archivocentral.expediente;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.CorreccionLoteRequest;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.CorreccionLoteResponse;
 import pe.gob.munipaucarpata.archivocentral.expediente.dto.CreateExpedienteRequest;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.EstadisticaResponse;
 import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteSimilarResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteTextoResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteVersionado;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.HuecosResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ImportacionResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.LoteExpedientesRequest;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.LoteExpedientesResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.NumeroLibreResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.PaginaCursor;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ReconciliacionResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ReemplazoDirigidoARequest;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ReemplazoResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ReporteInventarioRequest;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ReporteInventarioResponse;
 import pe.gob.munipaucarpata.archivocentral.expediente.dto.UpdateExpedienteRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Supplier;
+
 /**
  * REST Controller — Archivo Central MDP.
  *
  * Endpoints:
  * POST /api/expedientes - Registrar expediente
- * GET /api/expedientes - Listar (paginado)
+ * POST /api/expedientes/importar - Importación masiva (CSV / NDJSON)
+ * GET /api/expedientes - Listar (paginado; ?vista=resumen para la tabla)
  * GET /api/expedientes/{id} - Obtener por N° de expediente
+ * POST /api/expedientes/lote - Obtener varios N° en una consulta (JSON / NDJSON)
  * GET /api/expedientes/anio/{anio} - Listar por año
- * GET /api/expedientes/buscar?anio=&numero=&dni=&nombre= - Búsqueda flexible
+ * GET /api/expedientes/huecos?desde=&hasta=&anio= - N° faltantes en un rango o año
+ * GET /api/expedientes/numero-libre?anio=&desde= - Sugerir N° para un expediente nuevo
+ * GET /api/expedientes/buscar?anio=&numero=&dni=&nombre=&dirigidoA=&tipo=&fechaDesde=&fechaHasta= - Búsqueda flexible
+ * GET /api/expedientes/cursor?anio=&numero=&dni=&nombre=&dirigidoA=&cursor= - Paginación por cursor
+ * GET /api/expedientes/similares?campo=&texto=&anio= - Búsqueda aproximada
+ * GET /api/expedientes/texto?q=&anio=&dni=&tipo= - Texto completo (asunto/observaciones)
+ * GET /api/expedientes/cambios?desde=&limite= - Cambios desde un cursor (sincronización)
+ * GET /api/expedientes/cambios/stream - Cambios en vivo (Server-Sent Events)
+ * GET /api/expedientes/exportar?formato=&anio=&numero=&dni=&nombre= - Exportación (CSV / NDJSON)
+ * POST /api/expedientes/reportes/inventario - Solicitar inventario de transferencia (XLSX / PDF / CSV)
+ * GET /api/expedientes/reportes/{id} - Estado y avance del reporte
+ * GET /api/expedientes/reportes/{id}/archivo - Descargar el reporte terminado
  * PUT /api/expedientes/{id} - Corregir datos
+ * POST /api/expedientes/correcciones - Corrección masiva con verificación de versión
+ * POST /api/expedientes/correcciones/dirigido-a - Reemplazo masivo de dependencia destino
  * GET /api/expedientes/tipos - Listar tipos de documento
+ * GET /api/expedientes/estadisticas?dimension=&anio= - Cantidad y folios por grupo
+ * POST /api/expedientes/estadisticas/reconciliar - Recalcular estadísticas
  *
  * No hay DELETE.
+ *
+ * Todas las respuestas (salvo exportar, archivo de reporte y lote NDJSON) admiten
+ * Accept: application/cbor o application/x-jackson-smile; JSON es el
+ * formato por defecto. Ver FormatosBinariosConfig.
  */
 @RestController
 @RequestMapping("/api/expedientes")
 @Tag(name = "Expedientes", description = "Inventario de expedientes del Archivo Central")
 public class ExpedienteController {
 
+    /** Vista por defecto: todos los campos de ExpedienteResponse. */
+    private static final String VISTA_COMPLETA = "completa";
+
+    /** Vista de tabla: id, año, fecha, tipo, solicitante y folios. */
+    private static final String VISTA_RESUMEN = "resumen";
+
+    private static final String VISTA_DESC = "completa (todos los campos) o resumen (id, año, fecha, tipo, solicitante, folios)";
+
+    /**
+     * Las respuestas con ETag dependen del formato (Accept) y de la compresión
+     * gzip (Accept-Encoding): una caché intermedia debe separarlas.
+     */
+    private static final String[] VARY = { HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING };
+
+    /** N° resueltos por consulta en la respuesta NDJSON del lote. */
+    private static final int TRAMO_LOTE = 1000;
+
     private final ExpedienteService service;
+    private final ExpedienteImportacionService importacionService;
+    private final ExpedienteExportacionService exportacionService;
+    private final ExpedienteEstadisticaService estadisticaService;
+    private final ExpedienteCorreccionService correccionService;
+    private final ReporteInventarioService reporteService;
+    private final CambiosEmisor cambiosEmisor;
+    /** null salvo con archivo.registro.agrupado.habilitado=true. */
+    private final RegistroAgrupado registroAgrupado;
+    private final ObjectMapper objectMapper;
+    private final ContentNegotiationManager negociacion;
 
-    ExpedienteController(ExpedienteService service) {
+    ExpedienteController(
+            ExpedienteService service,
+            ExpedienteImportacionService importacionService,
+            ExpedienteExportacionService exportacionService,
+            ExpedienteEstadisticaService estadisticaService,
+            ExpedienteCorreccionService correccionService,
+            ReporteInventarioService reporteService,
+            CambiosEmisor cambiosEmisor,
+            ObjectProvider<RegistroAgrupado> registroAgrupado,
+            ObjectMapper objectMapper,
+            ContentNegotiationManager negociacion) {
         this.service = service;
+        this.importacionService = importacionService;
+        this.exportacionService = exportacionService;
+        this.estadisticaService = estadisticaService;
+        this.correccionService = correccionService;
+        this.reporteService = reporteService;
+        this.cambiosEmisor = cambiosEmisor;
+        this.registroAgrupado = registroAgrupado.getIfAvailable();
+        this.objectMapper = objectMapper;
+        this.negociacion = negociacion;
     }
 
     // -------------------------------------------------------------------------
@@ -47,19 +157,45 @@ public class ExpedienteController {
     @Operation(summary = "Registrar expediente", description = "Registra un expediente físico existente. El N° de expediente se ingresa manualmente (no es autoincremental).")
     ResponseEntity<ExpedienteResponse> registrar(
             @Valid @RequestBody CreateExpedienteRequest request) {
-        var response = service.registrar(request);
+        var response = registroAgrupado != null
+                ? registroAgrupado.registrar(request)
+                : service.registrar(request);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    // -------------------------------------------------------------------------
+    // POST /api/expedientes/importar
+    // -------------------------------------------------------------------------
+
+    @PostMapping(value = "/importar", consumes = { "text/csv", "application/x-ndjson" })
+    @Operation(summary = "Importación masiva", description = "Registra expedientes desde un archivo CSV (con encabezado) o NDJSON (un objeto por línea). "
+            + "Las filas inválidas o duplicadas no detienen la carga: se devuelven en el reporte de errores.")
+    ImportacionResponse importar(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        var formato = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.valueOf("text/csv"))
+                ? FormatoArchivo.CSV
+                : FormatoArchivo.NDJSON;
+        return importacionService.importar(body, formato);
+    }
+
     // -------------------------------------------------------------------------
     // GET /api/expedientes
     // -------------------------------------------------------------------------
 
     @GetMapping
-    @Operation(summary = "Listar expedientes", description = "Devuelve todos los expedientes paginados.")
-    Page<ExpedienteResponse> listar(
+    @Operation(summary = "Listar expedientes", description = "Devuelve todos los expedientes paginados. "
+            + "Admite If-None-Match: responde 304 si no hubo cambios.")
+    ResponseEntity<? extends Page<?>> listar(
+            @Parameter(description = VISTA_DESC) @RequestParam(defaultValue = VISTA_COMPLETA) String vista,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
             @PageableDefault(size = 20, sort = "id") Pageable pageable) {
-        return service.listar(pageable);
+        if (esResumen(vista)) {
+            return paginaCondicional(pageable, VISTA_RESUMEN, ifNoneMatch,
+                    () -> service.listarResumen(pageable));
+        }
+        return paginaCondicional(pageable, VISTA_COMPLETA, ifNoneMatch,
+                () -> service.listar(pageable));
     }
 
     // -------------------------------------------------------------------------
@@ -67,10 +203,90 @@ public class ExpedienteController {
     // -------------------------------------------------------------------------
 
     @GetMapping("/{id}")
-    @Operation(summary = "Obtener por N° de expediente", description = "Busca un expediente por su número.")
-    ExpedienteResponse obtenerPorId(
-            @Parameter(description = "Número del expediente") @PathVariable Integer id) {
-        return service.obtenerPorId(id);
+    @Operation(summary = "Obtener por N° de expediente", description = "Busca un expediente por su número. "
+            + "La ETag es la versión del expediente (y el formato, si no es JSON): con If-None-Match responde 304 si no cambió.")
+    ResponseEntity<ExpedienteResponse> obtenerPorId(
+            @Parameter(description = "Número del expediente") @PathVariable Integer id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Revalidación: solo se consulta la versión, sin leer asunto ni observaciones
+        if (ifNoneMatch != null) {
+            var actual = service.obtenerVersion(id);
+            if (actual.isPresent()) {
+                var etag = Etags.deVersion(actual.get().version(), formatoNegociado());
+                if (Etags.coincide(ifNoneMatch, etag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                            .eTag(etag)
+                            .varyBy(VARY)
+                            .lastModified(actual.get().updatedAt())
+                            .build();
+                }
+            }
+        }
+        return conVersion(service.obtenerPorId(id));
+    }
+
+    // -------------------------------------------------------------------------
+    // POST /api/expedientes/lote
+    // -------------------------------------------------------------------------
+
+    @PostMapping(value = "/lote", produces = { MediaType.APPLICATION_JSON_VALUE, "application/cbor", "application/x-jackson-smile" })
+    @Operation(summary = "Obtener por lote", description = "Resuelve hasta 5000 N° de expediente con una sola consulta. "
+            + "Devuelve los encontrados en el orden pedido y la lista de N° no registrados. "
+            + "Con Accept: application/x-ndjson no hay límite y la respuesta se transmite por tramos.")
+    LoteExpedientesResponse obtenerLote(@Valid @RequestBody LoteExpedientesRequest request) {
+        return service.obtenerLote(request.ids());
+    }
+
+    @PostMapping(value = "/lote", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Obtener por lote (NDJSON)", description = "Una línea por N° distinto, en el orden pedido: {\"id\":…,\"expediente\":{…}} "
+            + "o {\"id\":…} si no está registrado. Cada tramo de 1000 N° es una consulta.")
+    ResponseEntity<StreamingResponseBody> obtenerLoteNdjson(@Valid @RequestBody LoteExpedientesRequest request) {
+        // Repetidos fuera antes de partir: un N° no debe salir en dos tramos
+        var ids = List.copyOf(new LinkedHashSet<>(request.ids()));
+        StreamingResponseBody cuerpo = salida -> {
+            var writer = new OutputStreamWriter(salida, StandardCharsets.UTF_8);
+            for (int i = 0; i < ids.size(); i += TRAMO_LOTE) {
+                // Cada tramo usa su propia transacción: la conexión no espera al cliente
+                for (var item : service.obtenerTramo(ids.subList(i, Math.min(i + TRAMO_LOTE, ids.size())))) {
+                    writer.write(objectMapper.writeValueAsString(item));
+                    writer.write('\n');
+                }
+                writer.flush();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(cuerpo);
+    }
+
+    // -------------------------------------------------------------------------
+    // GET /api/expedientes/huecos?desde=&hasta=&anio=
+    // -------------------------------------------------------------------------
+
+    @GetMapping("/huecos")
+    @Operation(summary = "N° faltantes", description = "Rangos de N° de expediente no registrados (perdidos o pendientes) entre desde y hasta, "
+            + "o entre el primer y el último N° del año indicado. Se calcula en memoria, sin recorrer la tabla.")
+    HuecosResponse buscarHuecos(
+            @Parameter(description = "Primer N° del rango") @RequestParam(required = false) Integer desde,
+
+            @Parameter(description = "Último N° del rango") @RequestParam(required = false) Integer hasta,
+
+            @Parameter(description = "Año: rango entre su primer y último N° registrado") @RequestParam(required = false) Integer anio) {
+        return service.buscarHuecos(desde, hasta, anio);
+    }
+
+    // -------------------------------------------------------------------------
+    // GET /api/expedientes/numero-libre?anio=&desde=
+    // -------------------------------------------------------------------------
+
+    @GetMapping("/numero-libre")
+    @Operation(summary = "Sugerir N° de expediente", description = "Primer N° libre desde el indicado; sin él, el siguiente al último del año "
+            + "(o al último registrado). Es una sugerencia: el N° se confirma al registrar.")
+    NumeroLibreResponse sugerirNumero(
+            @Parameter(description = "Año del expediente nuevo") @RequestParam(required = false) Integer anio,
+
+            @Parameter(description = "Buscar el primer libre desde este N°") @RequestParam(required = false) Integer desde) {
+        return service.sugerirNumero(anio, desde);
     }
 
     // -------------------------------------------------------------------------
@@ -78,31 +294,248 @@ public class ExpedienteController {
     // -------------------------------------------------------------------------
 
     @GetMapping("/anio/{anio}")
-    @Operation(summary = "Listar por año", description = "Devuelve todos los expedientes de un año específico.")
-    Page<ExpedienteResponse> listarPorAnio(
+    @Operation(summary = "Listar por año", description = "Devuelve todos los expedientes de un año específico. "
+            + "Admite If-None-Match: responde 304 si no hubo cambios.")
+    ResponseEntity<? extends Page<?>> listarPorAnio(
             @Parameter(description = "Año del expediente (ej: 2000)") @PathVariable Integer anio,
+            @Parameter(description = VISTA_DESC) @RequestParam(defaultValue = VISTA_COMPLETA) String vista,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
             @PageableDefault(size = 20, sort = "id") Pageable pageable) {
-        return service.listarPorAnio(anio, pageable);
+        if (esResumen(vista)) {
+            return paginaCondicional(pageable, VISTA_RESUMEN, ifNoneMatch,
+                    () -> service.listarPorAnioResumen(anio, pageable));
+        }
+        return paginaCondicional(pageable, VISTA_COMPLETA, ifNoneMatch,
+                () -> service.listarPorAnio(anio, pageable));
     }
 
     // -------------------------------------------------------------------------
-    // GET /api/expedientes/buscar?anio=&numero=&dni=&nombre=
+    // GET /api/expedientes/buscar?anio=&numero=&dni=&nombre=&dirigidoA=
     // -------------------------------------------------------------------------
 
     @GetMapping("/buscar")
-    @Operation(summary = "Búsqueda flexible", description = "Busca expedientes por año, número, DNI y/o nombre del solicitante. "
-            + "Los parámetros pueden combinarse o usarse individualmente.")
-    Page<ExpedienteResponse> buscar(
+    @Operation(summary = "Búsqueda flexible", description = "Busca expedientes por año, número, DNI, nombre del solicitante, dependencia destino, tipo y/o rango de fechas. "
+            + "Los parámetros pueden combinarse o usarse individualmente. Admite If-None-Match. "
+            + "Sin sort ordena por año descendente y N°; sort admite id, anio, fechaRegistro, tipoDocumento, "
+            + "nombreSolicitante y folios (otra propiedad responde 400).")
+    ResponseEntity<? extends Page<?>> buscar(
             @Parameter(description = "Año del expediente") @RequestParam(required = false) Integer anio,
 
             @Parameter(description = "N° de expediente exacto") @RequestParam(required = false) Integer numero,
 
             @Parameter(description = "DNI del solicitante (8 dígitos exactos)") @RequestParam(required = false) String dni,
 
-            @Parameter(description = "Nombre del solicitante (parcial, insensible a mayúsculas)") @RequestParam(required = false) String nombre,
+            @Parameter(description = "Nombre del solicitante (parcial, insensible a mayúsculas y tildes)") @RequestParam(required = false) String nombre,
 
-            @PageableDefault(size = 20, sort = "id") Pageable pageable) {
-        return service.buscar(anio, numero, dni, nombre, pageable);
+            @Parameter(description = "Dependencia destino (parcial, insensible a mayúsculas y tildes)") @RequestParam(required = false) String dirigidoA,
+
+            @Parameter(description = "Tipo de documento") @RequestParam(required = false) TipoDocumento tipo,
+
+            @Parameter(description = "Fecha de registro desde (yyyy-MM-dd, inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaDesde,
+
+            @Parameter(description = "Fecha de registro hasta (yyyy-MM-dd, inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaHasta,
+
+            @Parameter(description = VISTA_DESC) @RequestParam(defaultValue = VISTA_COMPLETA) String vista,
+
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+
+            @PageableDefault(size = 20) Pageable pageable) {
+        var filtro = FiltroExpediente.de(anio, numero, dni, nombre, dirigidoA, tipo, fechaDesde, fechaHasta);
+        if (esResumen(vista)) {
+            return paginaCondicional(pageable, VISTA_RESUMEN, ifNoneMatch,
+                    () -> service.buscarResumen(filtro, pageable));
+        }
+        return paginaCondicional(pageable, VISTA_COMPLETA, ifNoneMatch,
+                () -> service.buscar(filtro, pageable));
+    }
+
+    // -------------------------------------------------------------------------
+    // GET /api/expedientes/cursor?anio=&numero=&dni=&nombre=&dirigidoA=&cursor=
+    // -------------------------------------------------------------------------
+
+    @GetMapping("/cursor")
+    @Operation(summary = "Listar con paginación por cursor", description = "Recorre expedientes ordenados por (año, N°) sin OFFSET: "
+            + "la latencia no depende de la profundidad de la página. Acepta los mismos filtros que /buscar "
+            + "(sin filtros equivale a listar; con año equivale a listar por año). "
+            + "Para la página siguiente, enviar el siguienteCursor de la respuesta anterior.")
+    PaginaCursor<ExpedienteResponse> buscarPorCursor(
+            @Parameter(description = "Año del expediente") @RequestParam(required = false) Integer anio,
+
+            @Parameter(description = "N° de expediente exacto") @RequestParam(required = false) Integer numero,
+
+            @Parameter(description = "DNI del solicitante (8 dígitos exactos)") @RequestParam(required = false) String dni,
+
+            @Parameter(description = "Nombre del solicitante (parcial, insensible a mayúsculas y tildes)") @RequestParam(required = false) String nombre,
+
+            @Parameter(description = "Dependencia destino (parcial, insensible a mayúsculas y tildes)") @RequestParam(required = false) String dirigidoA,
+
+            @Parameter(description = "Tipo de documento") @RequestParam(required = false) TipoDocumento tipo,
+
+            @Parameter(description = "Fecha de registro desde (yyyy-MM-dd, inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaDesde,
+
+            @Parameter(description = "Fecha de registro hasta (yyyy-MM-dd, inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaHasta,
+
+            @Parameter(description = "Token de continuación devuelto por la página anterior") @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Registros por página (máx. 1000)") @RequestParam(defaultValue = "20") int size,
+
+            @Parameter(description = "Orden por (año, N°): desc (recientes primero) o asc") @RequestParam(defaultValue = "desc") String orden,
+
+            @Parameter(description = "Incluir el total de registros (ejecuta COUNT)") @RequestParam(defaultValue = "false") boolean contar) {
+        return service.buscarPorCursor(
+                FiltroExpediente.de(anio, numero, dni, nombre, dirigidoA, tipo, fechaDesde, fechaHasta), cursor, size, !"asc".equalsIgnoreCase(orden), contar);
+    }
+
+    // -------------------------------------------------------------------------
+    // GET /api/expedientes/similares?campo=&texto=&anio=
+    // -------------------------------------------------------------------------
+
+    @GetMapping("/similares")
+    @Operation(summary = "Búsqueda aproximada", description = "Busca por nombre del solicitante o dependencia destino tolerando errores de tipeo "
+            + "y tildes omitidas. Devuelve los expedientes ordenados por similitud (0..1).")
+    List<ExpedienteSimilarResponse> buscarSimilares(
+            @Parameter(description = "Campo a comparar: NOMBRE o DIRIGIDO_A") @RequestParam(defaultValue = "NOMBRE") CampoTexto campo,
+
+            @Parameter(description = "Texto buscado (ej: QUISPE MAMANI)") @RequestParam String texto,
+
+            @Parameter(description = "Año del expediente") @RequestParam(required = false) Integer anio,
+
+            @Parameter(description = "Similitud mínima entre 0 y 1 (menor = más tolerante)") @RequestParam(defaultValue = "0.5") double umbral,
+
+            @Parameter(description = "Máximo de resultados (máx. 200)") @RequestParam(defaultValue = "20") int limite) {
+        return service.buscarSimilares(campo, texto, anio, umbral, limite);
+    }
+
+    // -------------------------------------------------------------------------
+    // GET /api/expedientes/texto?q=&anio=&dni=&tipo=
+    // -------------------------------------------------------------------------
+
+    @GetMapping("/texto")
+    @Operation(summary = "Búsqueda de texto completo", description = "Busca en el asunto y las observaciones (español, sin distinguir tildes). "
+            + "Admite \"frase exacta\", -excluir y OR. Resultados ordenados por relevancia con fragmentos resaltados.")
+    Page<ExpedienteTextoResponse> buscarTexto(
+            @Parameter(description = "Texto a buscar (ej: licencia de construcción)") @RequestParam String q,
+
+            @Parameter(description = "Año del expediente") @RequestParam(required = false) Integer anio,
+
+            @Parameter(description = "DNI del solicitante (8 dígitos exactos)") @RequestParam(required = false) String dni,
+
+            @Parameter(description = "Tipo de documento") @RequestParam(required = false) TipoDocumento tipo,
+
+            @Parameter(description = "Fecha de registro desde (yyyy-MM-dd, inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaDesde,
+
+            @Parameter(description = "Fecha de registro hasta (yyyy-MM-dd, inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaHasta,
+
+            @PageableDefault(size = 20) Pageable pageable) {
+        return service.buscarTexto(q, FiltroExpediente.de(anio, null, dni, null, null, tipo, fechaDesde, fechaHasta), pageable);
+    }
+
+    // -------------------------------------------------------------------------
+    // GET /api/expedientes/cambios?desde=&limite=
+    // -------------------------------------------------------------------------
+
+    @GetMapping("/cambios")
+    @Operation(summary = "Flujo de cambios", description = "Expedientes registrados o corregidos después del cursor, del más antiguo al más reciente. "
+            + "Sin cursor empieza desde el inicio. Guardar siguienteCursor y volver a consultar con él: "
+            + "con hayMas=false el cliente está al día. El tráfico es proporcional a los cambios, no al tamaño del archivo.")
+    PaginaCursor<ExpedienteResponse> buscarCambios(
+            @Parameter(description = "siguienteCursor de la respuesta anterior") @RequestParam(required = false) String desde,
+
+            @Parameter(description = "Cambios por página (máx. 1000)") @RequestParam(defaultValue = "500") int limite) {
+        return service.buscarCambios(desde, limite);
+    }
+
+    // -------------------------------------------------------------------------
+    // GET /api/expedientes/cambios/stream
+    // -------------------------------------------------------------------------
+
+    @GetMapping(value = "/cambios/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Cambios en vivo (SSE)", description = "Eventos registrado / corregido con el expediente en JSON, al confirmarse cada cambio. "
+            + "El id de cada evento es un cursor de /cambios: al reconectarse con Last-Event-ID se reenvía todo lo perdido "
+            + "(puede repetir cambios ya recibidos: identificarlos por id y version).")
+    SseEmitter suscribirCambios(
+            @RequestHeader(value = "Last-Event-ID", required = false) String ultimoEvento) {
+        return cambiosEmisor.suscribir(ultimoEvento);
+    }
+
+    // -------------------------------------------------------------------------
+    // GET /api/expedientes/exportar?formato=&anio=&numero=&dni=&nombre=
+    // -------------------------------------------------------------------------
+
+    @GetMapping("/exportar")
+    @Operation(summary = "Exportar inventario", description = "Descarga en CSV o NDJSON todos los expedientes que cumplen los filtros de /buscar, "
+            + "ordenados por año y N°. La respuesta se transmite a medida que se lee la base de datos.")
+    ResponseEntity<StreamingResponseBody> exportar(
+            @Parameter(description = "Formato: CSV o NDJSON") @RequestParam(defaultValue = "CSV") FormatoArchivo formato,
+
+            @Parameter(description = "Año del expediente") @RequestParam(required = false) Integer anio,
+
+            @Parameter(description = "N° de expediente exacto") @RequestParam(required = false) Integer numero,
+
+            @Parameter(description = "DNI del solicitante (8 dígitos exactos)") @RequestParam(required = false) String dni,
+
+            @Parameter(description = "Nombre del solicitante (parcial, insensible a mayúsculas y tildes)") @RequestParam(required = false) String nombre,
+
+            @Parameter(description = "Dependencia destino (parcial, insensible a mayúsculas y tildes)") @RequestParam(required = false) String dirigidoA,
+
+            @Parameter(description = "Tipo de documento") @RequestParam(required = false) TipoDocumento tipo,
+
+            @Parameter(description = "Fecha de registro desde (yyyy-MM-dd, inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaDesde,
+
+            @Parameter(description = "Fecha de registro hasta (yyyy-MM-dd, inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaHasta) {
+        var filtro = FiltroExpediente.de(anio, numero, dni, nombre, dirigidoA, tipo, fechaDesde, fechaHasta);
+        var nombreArchivo = (anio != null ? "expedientes-" + anio : "expedientes") + "." + formato.extension();
+
+        StreamingResponseBody cuerpo = salida -> exportacionService.exportar(filtro, formato, salida);
+        return ResponseEntity.ok()
+                .contentType(formato.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(nombreArchivo).build().toString())
+                .body(cuerpo);
+    }
+
+    // -------------------------------------------------------------------------
+    // POST /api/expedientes/reportes/inventario
+    // -------------------------------------------------------------------------
+
+    @PostMapping("/reportes/inventario")
+    @Operation(summary = "Solicitar inventario de transferencia", description = "Genera en segundo plano el inventario de un año (XLSX, PDF o CSV), "
+            + "agrupado por tipo de documento con subtotales de folios. Responde 202 con el id del trabajo; "
+            + "si el mismo reporte ya se generó y el año no cambió desde entonces, nace TERMINADO. 503 si hay demasiados reportes en espera.")
+    ResponseEntity<ReporteInventarioResponse> solicitarReporte(
+            @Valid @RequestBody ReporteInventarioRequest request) {
+        var reporte = reporteService.solicitar(request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/expedientes/reportes/" + reporte.id()))
+                .body(reporte);
+    }
+
+    // -------------------------------------------------------------------------
+    // GET /api/expedientes/reportes/{id}
+    // -------------------------------------------------------------------------
+
+    @GetMapping("/reportes/{id}")
+    @Operation(summary = "Estado del reporte", description = "Estado (EN_COLA, EN_PROCESO, TERMINADO, FALLIDO), filas procesadas y porcentaje. "
+            + "Al terminar incluye la ruta de descarga. Los trabajos se conservan según archivo.reportes.retencion.")
+    ReporteInventarioResponse consultarReporte(
+            @Parameter(description = "Id del trabajo devuelto al solicitarlo") @PathVariable String id) {
+        return reporteService.consultar(id);
+    }
+
+    // -------------------------------------------------------------------------
+    // GET /api/expedientes/reportes/{id}/archivo
+    // -------------------------------------------------------------------------
+
+    @GetMapping("/reportes/{id}/archivo")
+    @Operation(summary = "Descargar reporte", description = "Descarga el archivo de un reporte TERMINADO (409 si aún no terminó o falló).")
+    ResponseEntity<Resource> descargarReporte(
+            @Parameter(description = "Id del trabajo devuelto al solicitarlo") @PathVariable String id) {
+        var archivo = reporteService.archivo(id);
+        return ResponseEntity.ok()
+                .contentType(archivo.formato().mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(archivo.nombre()).build().toString())
+                .body(new FileSystemResource(archivo.ruta()));
     }
 
     // -------------------------------------------------------------------------
@@ -110,11 +543,39 @@ public class ExpedienteController {
     // -------------------------------------------------------------------------
 
     @PutMapping("/{id}")
-    @Operation(summary = "Corregir expediente", description = "Actualiza los datos de un expediente para corregir errores de registro. No se puede cambiar el N° de expediente ni el año.")
-    ExpedienteResponse actualizar(
+    @Operation(summary = "Corregir expediente", description = "Actualiza los datos de un expediente para corregir errores de registro. No se puede cambiar el N° de expediente ni el año. "
+            + "Con If-Match (ETag obtenida en el GET) responde 412 si otro usuario lo modificó antes.")
+    ResponseEntity<ExpedienteResponse> actualizar(
             @Parameter(description = "Número del expediente a corregir") @PathVariable Integer id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UpdateExpedienteRequest request) {
-        return service.actualizar(id, request);
+        return conVersion(service.actualizar(id, request, Etags.versionEsperada(ifMatch)));
+    }
+
+    // -------------------------------------------------------------------------
+    // POST /api/expedientes/correcciones
+    // -------------------------------------------------------------------------
+
+    @PostMapping("/correcciones")
+    @Operation(summary = "Corrección masiva", description = "Aplica muchas correcciones (hasta 10000), cada una con la versión que el cliente editó. "
+            + "Se procesan por tramos con un batch de UPDATE por tramo. Devuelve por expediente CORREGIDO (con su versión nueva), "
+            + "CONFLICTO_VERSION (con la versión actual) o NO_ENCONTRADO.")
+    CorreccionLoteResponse corregirLote(
+            @Valid @RequestBody CorreccionLoteRequest request) {
+        return correccionService.corregir(request);
+    }
+
+    // -------------------------------------------------------------------------
+    // POST /api/expedientes/correcciones/dirigido-a
+    // -------------------------------------------------------------------------
+
+    @PostMapping("/correcciones/dirigido-a")
+    @Operation(summary = "Reemplazo masivo de dependencia destino", description = "Reemplaza 'Dirigido A' en todos los expedientes con el valor actual "
+            + "(opcionalmente solo en los años indicados) con una sentencia por tramo en el servidor. No verifica versiones; sí las incrementa. "
+            + "Los cambios aparecen en /cambios y por SSE.")
+    ReemplazoResponse reemplazarDirigidoA(
+            @Valid @RequestBody ReemplazoDirigidoARequest request) {
+        return correccionService.reemplazarDirigidoA(request);
     }
 
     // -------------------------------------------------------------------------
@@ -126,4 +587,88 @@ public class ExpedienteController {
     TipoDocumento[] listarTipos() {
         return TipoDocumento.values();
     }
+
+    // -------------------------------------------------------------------------
+    // GET /api/expedientes/estadisticas?dimension=&anio=
+    // -------------------------------------------------------------------------
+
+    @GetMapping("/estadisticas")
+    @Operation(summary = "Estadísticas", description = "Cantidad de expedientes y total de folios por año, tipo de documento o dependencia destino. "
+            + "Se leen de un resumen pre-agregado: el costo no depende del tamaño del archivo.")
+    List<EstadisticaResponse> estadisticas(
+            @Parameter(description = "Agrupar por: ANIO, TIPO_DOCUMENTO o DIRIGIDO_A") @RequestParam(defaultValue = "ANIO") DimensionEstadistica dimension,
+
+            @Parameter(description = "Restringir a un año") @RequestParam(required = false) Integer anio) {
+        return estadisticaService.consultar(dimension, anio);
+    }
+
+    // -------------------------------------------------------------------------
+    // POST /api/expedientes/estadisticas/reconciliar
+    // -------------------------------------------------------------------------
+
+    @PostMapping("/estadisticas/reconciliar")
+    @Operation(summary = "Reconciliar estadísticas", description = "Recalcula el resumen desde los expedientes, corrige los grupos desviados y los reporta. "
+            + "Recorre toda la tabla: usar fuera del horario de atención.")
+    ReconciliacionResponse reconciliarEstadisticas() {
+        return estadisticaService.reconciliar();
+    }
+
+    // -------------------------------------------------------------------------
+    // Utilidad privada — vistas y respuestas condicionales
+    // -------------------------------------------------------------------------
+
+    private static boolean esResumen(String vista) {
+        return VISTA_RESUMEN.equalsIgnoreCase(vista);
+    }
+
+    /**
+     * Formato (JSON, CBOR o Smile) que Spring MVC elegirá para esta
+     * petición, para incluirlo en la ETag. Un Accept inválido se trata como
+     * JSON: la negociación de la respuesta lo rechaza igual con 406.
+     */
+    private String formatoNegociado() {
+        var peticion = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+        try {
+            return Etags.formato(negociacion.resolveMediaTypes(new ServletWebRequest(peticion)));
+        } catch (HttpMediaTypeNotAcceptableException ex) {
+            return Etags.JSON;
+        }
+    }
+
+    private ResponseEntity<ExpedienteResponse> conVersion(ExpedienteResponse response) {
+        return ResponseEntity.ok()
+                .eTag(Etags.deVersion(response.version(), formatoNegociado()))
+                .varyBy(VARY)
+                .lastModified(response.updatedAt())
+                .body(response);
+    }
+
+    /**
+     * Ejecuta la consulta de la página y la devuelve con su ETag débil, o
+     * 304 sin cuerpo si coincide con If-None-Match. La ETag sale de los
+     * (N°, version) de la página ya cargada (sin consultas adicionales ni
+     * serializar dos veces); las primeras páginas de cada año vienen de
+     * ExpedienteCache.
+     *
+     * <p>
+     * Last-Modified es la modificación más reciente de la página. Solo
+     * informa: If-Modified-Since no se evalúa, porque un registro en una
+     * página anterior desplaza filas más antiguas a esta sin cambiar esa
+     * fecha (la ETag sí cambia).
+     * </p>
+     */
+    private <T extends ExpedienteVersionado> ResponseEntity<Page<T>> paginaCondicional(
+            Pageable pageable, String vista, String ifNoneMatch, Supplier<Page<T>> consulta) {
+        var pagina = consulta.get();
+        var etag = Etags.deListado(pagina.getTotalElements(), pagina.getContent(), pageable, vista, formatoNegociado());
+        var noModificada = Etags.coincide(ifNoneMatch, etag);
+        var respuesta = ResponseEntity.status(noModificada ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .eTag(etag)
+                .varyBy(VARY);
+        pagina.stream()
+                .map(ExpedienteVersionado::updatedAt)
+                .max(Comparator.naturalOrder())
+                .ifPresent(respuesta::lastModified);
+        return noModificada ? respuesta.build() : respuesta.body(pagina);
+    }
 }
@@ -0,0 +1,384 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.CorreccionLoteRequest;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.CorreccionLoteResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.CorreccionLoteResponse.Estado;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.CorreccionLoteResponse.Resultado;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ReemplazoDirigidoARequest;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ReemplazoResponse;
+
+import java.sql.Array;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Corrección masiva de expedientes (campañas de corrección, ej. normalizar
+ * la dependencia destino tras una reorganización).
+ *
+ * <p>
+ * {@link #corregir}: equivale a un PUT con If-Match por expediente, pero
+ * por tramos de {@code archivo.correccion.tamanio-lote} correcciones. Cada
+ * tramo es una transacción que:
+ * </p>
+ * <ol>
+ * <li>Lee versión y grupo estadístico de todos sus N° con una sola
+ * consulta {@code id = ANY(?) FOR UPDATE} (sin cargar entidades).</li>
+ * <li>Clasifica cada corrección: no encontrado, conflicto de versión o
+ * aplicable.</li>
+ * <li>Aplica las aplicables en un batch JDBC de UPDATE ... WHERE version = ?
+ * y ajusta las estadísticas en otro batch.</li>
+ * </ol>
+ *
+ * <p>
+ * {@link #reemplazarDirigidoA}: reemplazo por conjunto, resuelto en el
+ * servidor con una sentencia por tramo.
+ * </p>
+ */
+@Service
+public class ExpedienteCorreccionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpedienteCorreccionService.class);
+
+    /** Máximo de correcciones por solicitud. */
+    private static final int MAX_CORRECCIONES = 10_000;
+
+    // ORDER BY id: dos correcciones masivas simultáneas bloquean las filas en
+    // el mismo orden y no se interbloquean
+    private static final String SQL_ACTUALES = """
+            SELECT id, anio, tipo_documento, dirigido_a, folios, version
+            FROM archivo.expedientes
+            WHERE id = ANY(?)
+            ORDER BY id
+            FOR UPDATE
+            """;
+
+    // anio en el WHERE: con la tabla particionada solo se busca en su partición
+    private static final String SQL_ACTUALIZAR = """
+            UPDATE archivo.expedientes
+            SET fecha_registro = ?, tipo_documento = ?, nro_documento = ?,
+                nombre_solicitante = ?, dni = ?, asunto = ?, dirigido_a = ?,
+                folios = ?, archivado_con = ?, observaciones = ?,
+                updated_at = ?, version = version + 1
+            WHERE anio = ? AND id = ? AND version = ?
+            """;
+
+    // Un tramo por transacción: los siguientes tramos id (PK) en orden, hasta
+    // tamanio-tramo-reemplazo. Reemplaza y mueve los expedientes entre grupos
+    // del resumen en la misma sentencia: resta del grupo anterior y suma al
+    // nuevo por (año, tipo)
+    private static final String SQL_REEMPLAZAR_DIRIGIDO_A = """
+            WITH objetivo AS (
+                SELECT anio, id
+                FROM archivo.expedientes
+                WHERE dirigido_a = ? AND id > ? %s
+                ORDER BY id
+                LIMIT ?
+            ), cambiados AS (
+                UPDATE archivo.expedientes e
+                SET dirigido_a = ?, updated_at = ?, version = e.version + 1
+                FROM objetivo o
+                WHERE e.anio = o.anio AND e.id = o.id AND e.dirigido_a = ?
+                RETURNING e.id, e.anio, e.tipo_documento, e.folios
+            ), deltas AS (
+                SELECT anio, tipo_documento, CAST(? AS VARCHAR) AS dirigido_a,
+                       -COUNT(*) AS cantidad, -SUM(folios) AS folios
+                FROM cambiados
+                GROUP BY anio, tipo_documento
+                UNION ALL
+                SELECT anio, tipo_documento, CAST(? AS VARCHAR), COUNT(*), SUM(folios)
+                FROM cambiados
+                GROUP BY anio, tipo_documento
+            ), resumen AS (
+                INSERT INTO archivo.resumen_expedientes AS r (anio, tipo_documento, dirigido_a, cantidad, folios)
+                SELECT anio, tipo_documento, dirigido_a, cantidad, folios
+                FROM deltas
+                ORDER BY anio, tipo_documento, dirigido_a
+                ON CONFLICT (anio, tipo_documento, dirigido_a) DO UPDATE
+                SET cantidad = r.cantidad + EXCLUDED.cantidad,
+                    folios   = r.folios + EXCLUDED.folios
+            )
+            SELECT (SELECT COUNT(*) FROM objetivo) AS leidos,
+                   (SELECT MAX(id) FROM objetivo) AS ultimo,
+                   (SELECT ARRAY_AGG(id) FROM cambiados) AS cambiados
+            """;
+
+    private static final String SQL_ELIMINAR_VACIOS = """
+            DELETE FROM archivo.resumen_expedientes
+            WHERE dirigido_a = ? AND cantidad <= 0
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final ExpedienteRepository repository;
+    private final ExpedienteEstadisticaService estadisticas;
+    private final ApplicationEventPublisher eventos;
+    private final int tamanioLote;
+    private final int tamanioTramoReemplazo;
+
+    ExpedienteCorreccionService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ExpedienteRepository repository,
+            ExpedienteEstadisticaService estadisticas,
+            ApplicationEventPublisher eventos,
+            @Value("${archivo.correccion.tamanio-lote:500}") int tamanioLote,
+            @Value("${archivo.correccion.tamanio-tramo-reemplazo:5000}") int tamanioTramoReemplazo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.repository = repository;
+        this.estadisticas = estadisticas;
+        this.eventos = eventos;
+        this.tamanioLote = tamanioLote;
+        this.tamanioTramoReemplazo = tamanioTramoReemplazo;
+    }
+
+    // -------------------------------------------------------------------------
+    // CORRECCIÓN POR EXPEDIENTE
+    // -------------------------------------------------------------------------
+
+    /**
+     * Aplica las correcciones por tramos. Un tramo confirmado no se revierte
+     * si falla uno posterior. Publica {@link ExpedienteModificado} por cada
+     * expediente corregido.
+     *
+     * @throws ResponseStatusException 400 si se envían más de {@link #MAX_CORRECCIONES}
+     */
+    public CorreccionLoteResponse corregir(CorreccionLoteRequest request) {
+        var correcciones = request.correcciones();
+        if (correcciones.size() > MAX_CORRECCIONES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Se pueden enviar hasta %d correcciones por solicitud (se recibieron %d)"
+                            .formatted(MAX_CORRECCIONES, correcciones.size()));
+        }
+
+        long inicio = System.nanoTime();
+        var resultados = new ArrayList<Resultado>(correcciones.size());
+        for (int desde = 0; desde < correcciones.size(); desde += tamanioLote) {
+            var tramo = correcciones.subList(desde, Math.min(desde + tamanioLote, correcciones.size()));
+            resultados.addAll(transaccion.execute(status -> procesarTramo(tramo)));
+        }
+
+        int corregidos = 0;
+        int conflictos = 0;
+        int noEncontrados = 0;
+        for (var r : resultados) {
+            switch (r.estado()) {
+                case CORREGIDO -> corregidos++;
+                case CONFLICTO_VERSION -> conflictos++;
+                case NO_ENCONTRADO -> noEncontrados++;
+            }
+        }
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+        log.info("Corrección masiva: {} solicitadas, {} corregidas, {} en conflicto, {} no encontradas en {} ms",
+                correcciones.size(), corregidos, conflictos, noEncontrados, duracionMs);
+
+        return new CorreccionLoteResponse(
+                correcciones.size(), corregidos, conflictos, noEncontrados, duracionMs, resultados);
+    }
+
+    private List<Resultado> procesarTramo(List<CorreccionLoteRequest.Item> tramo) {
+        Map<Integer, Actual> actuales = buscarActuales(tramo);
+
+        Instant ahora = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        var resultados = new ArrayList<Resultado>(tramo.size());
+        var actualizaciones = new ArrayList<Object[]>();
+        var movimientos = new ArrayList<GrupoResumen[]>();
+        var corregidos = new LinkedHashSet<Integer>();
+
+        for (var item : tramo) {
+            var actual = actuales.get(item.id());
+            if (actual == null) {
+                resultados.add(new Resultado(item.id(), Estado.NO_ENCONTRADO, null));
+                continue;
+            }
+            if (actual.version() != item.version()) {
+                resultados.add(new Resultado(item.id(), Estado.CONFLICTO_VERSION, actual.version()));
+                continue;
+            }
+
+            // Misma normalización que PUT (trim/mayúsculas)
+            var e = new ExpedienteEntity();
+            e.actualizar(item.datos());
+            actualizaciones.add(new Object[] {
+                    e.getFechaRegistro(), e.getTipoDocumento().name(), e.getNroDocumento(),
+                    e.getNombreSolicitante(), e.getDni(), e.getAsunto(), e.getDirigidoA(),
+                    e.getFolios(), e.getArchivadoCon(), e.getObservaciones(),
+                    Timestamp.from(ahora), actual.grupo().anio(), item.id(), actual.version() });
+
+            var nuevo = new GrupoResumen(actual.grupo().anio(), e.getTipoDocumento().name(),
+                    e.getDirigidoA(), e.getFolios());
+            movimientos.add(new GrupoResumen[] { actual.grupo(), nuevo });
+
+            // Un mismo N° repetido en la solicitud se evalúa contra la versión ya corregida
+            actuales.put(item.id(), new Actual(nuevo, actual.version() + 1));
+            resultados.add(new Resultado(item.id(), Estado.CORREGIDO, actual.version() + 1));
+            corregidos.add(item.id());
+        }
+
+        if (actualizaciones.isEmpty()) {
+            return resultados;
+        }
+
+        int[] filas = jdbcTemplate.batchUpdate(SQL_ACTUALIZAR, actualizaciones);
+        for (int i = 0; i < filas.length; i++) {
+            // No debería ocurrir: las filas están bloqueadas desde la lectura
+            if (filas[i] == 0) {
+                throw new OptimisticLockingFailureException(
+                        "El expediente N° %s fue modificado durante la corrección masiva"
+                                .formatted(actualizaciones.get(i)[12]));
+            }
+        }
+        estadisticas.moverTodos(movimientos);
+
+        for (var entity : repository.buscarPorIds(corregidos.toArray(Integer[]::new))) {
+            eventos.publishEvent(new ExpedienteModificado(ExpedienteResponse.from(entity), false));
+        }
+        return resultados;
+    }
+
+    private Map<Integer, Actual> buscarActuales(List<CorreccionLoteRequest.Item> tramo) {
+        Integer[] ids = tramo.stream().map(CorreccionLoteRequest.Item::id).distinct().toArray(Integer[]::new);
+        var actuales = new HashMap<Integer, Actual>();
+        jdbcTemplate.query(SQL_ACTUALES,
+                ps -> {
+                    Array array = ps.getConnection().createArrayOf("integer", ids);
+                    ps.setArray(1, array);
+                },
+                rs -> {
+                    actuales.put(rs.getInt("id"), new Actual(
+                            new GrupoResumen(rs.getInt("anio"), rs.getString("tipo_documento"),
+                                    rs.getString("dirigido_a"), rs.getInt("folios")),
+                            rs.getInt("version")));
+                });
+        return actuales;
+    }
+
+    /**
+     * Estado vigente de un expediente dentro del tramo.
+     */
+    private record Actual(GrupoResumen grupo, int version) {
+    }
+
+    // -------------------------------------------------------------------------
+    // REEMPLAZO POR CONJUNTO
+    // -------------------------------------------------------------------------
+
+    /**
+     * Reemplaza la dependencia destino de todos los expedientes que la
+     * tienen (opcionalmente solo en ciertos años) sin cargar entidades ni
+     * verificar versiones, por tramos de
+     * {@code archivo.correccion.tamanio-tramo-reemplazo} expedientes. Cada
+     * tramo es una transacción corta con un único UPDATE en el servidor.
+     * Así updated_at queda dentro de {@code archivo.cambios.margen} de su
+     * commit, aunque la campaña dure minutos: de lo contrario, el flujo de
+     * cambios, la detección incremental de duplicados y la caché de
+     * reportes saltarían esas filas. Como en {@link #corregir}, un tramo
+     * confirmado no se revierte si falla uno posterior.
+     *
+     * <p>
+     * Incrementa la versión y updated_at de cada expediente (las ETags
+     * previas dejan de valer) y publica {@link ExpedienteModificado} por
+     * cada uno: aparecen en GET /cambios y por SSE, y se invalidan en la
+     * caché de todas las instancias.
+     * </p>
+     *
+     * @throws ResponseStatusException 400 si el valor nuevo es igual al actual
+     */
+    public ReemplazoResponse reemplazarDirigidoA(ReemplazoDirigidoARequest request) {
+        var actual = request.valorActual().trim().toUpperCase();
+        var nuevo = request.valorNuevo().trim().toUpperCase();
+        if (actual.equals(nuevo)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "El valor nuevo es igual al actual: " + actual);
+        }
+
+        long inicio = System.nanoTime();
+        var anios = request.anios() != null && !request.anios().isEmpty()
+                ? request.anios().toArray(Integer[]::new)
+                : null;
+        var sql = SQL_REEMPLAZAR_DIRIGIDO_A.formatted(anios != null ? "AND anio = ANY(?)" : "");
+
+        int corregidos = 0;
+        int ultimo = Integer.MIN_VALUE;
+        Tramo tramo;
+        do {
+            int desde = ultimo;
+            tramo = transaccion.execute(status -> reemplazarTramo(sql, actual, nuevo, anios, desde));
+            corregidos += tramo.cambiados();
+            ultimo = tramo.ultimo();
+        } while (tramo.leidos() == tamanioTramoReemplazo);
+        jdbcTemplate.update(SQL_ELIMINAR_VACIOS, actual);
+
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+        log.info("Reemplazo de dirigido_a '{}' por '{}' (años {}): {} expedientes en {} ms",
+                actual, nuevo, anios != null ? request.anios() : "todos", corregidos, duracionMs);
+        return new ReemplazoResponse(corregidos, duracionMs);
+    }
+
+    private Tramo reemplazarTramo(String sql, String actual, String nuevo, Integer[] anios, int desde) {
+        // Por tramo: la transacción dura milisegundos, no toda la campaña
+        var ahora = Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS));
+        var tramo = jdbcTemplate.query(sql,
+                ps -> {
+                    int i = 1;
+                    ps.setString(i++, actual);
+                    ps.setInt(i++, desde);
+                    if (anios != null) {
+                        Array array = ps.getConnection().createArrayOf("integer", anios);
+                        ps.setArray(i++, array);
+                    }
+                    ps.setInt(i++, tamanioTramoReemplazo);
+                    ps.setString(i++, nuevo);
+                    ps.setTimestamp(i++, ahora);
+                    ps.setString(i++, actual);
+                    ps.setString(i++, actual);
+                    ps.setString(i, nuevo);
+                },
+                rs -> {
+                    rs.next();
+                    var ids = rs.getArray("cambiados");
+                    return new Tramo(rs.getInt("leidos"), rs.getInt("ultimo"),
+                            ids != null ? (Integer[]) ids.getArray() : new Integer[0]);
+                });
+        if (tramo.cambiados() == 0) {
+            return tramo;
+        }
+        for (var entity : repository.buscarPorIds(tramo.ids())) {
+            eventos.publishEvent(new ExpedienteModificado(ExpedienteResponse.from(entity), false));
+        }
+        return tramo;
+    }
+
+    /**
+     * Resultado de un tramo del reemplazo.
+     *
+     * @param leidos expedientes con el valor actual encontrados (menos que
+     *               el tamaño del tramo: no quedan más)
+     * @param ultimo mayor N° leído, desde donde sigue el próximo tramo
+     * @param ids    N° reemplazados
+     */
+    private record Tramo(int leidos, int ultimo, Integer[] ids) {
+
+        int cambiados() {
+            return ids.length;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Utilidades CSV (RFC 4180) para importación y exportación de expedientes.
+ *
+ * El lector es incremental: lee un registro a la vez desde el
+ * {@link Reader}, por lo que el archivo completo nunca se carga en memoria.
+ * Soporta campos entre comillas con comas, saltos de línea y comillas
+ * escapadas ({@code ""}). La escritura aplica el mismo formato.
+ */
+final class ExpedienteCsv {
+
+    private ExpedienteCsv() {
+    }
+
+    // -------------------------------------------------------------------------
+    // Lectura
+    // -------------------------------------------------------------------------
+
+    /**
+     * Lector incremental de registros CSV.
+     */
+    static final class Lector {
+
+        private final Reader reader;
+        private int siguiente = -2; // -2 = aún no leído
+
+        Lector(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Lee el siguiente registro. Devuelve {@code null} al llegar al final.
+         * Las líneas completamente vacías se omiten.
+         */
+        List<String> leer() throws IOException {
+            int c = peek();
+            while (c == '\r' || c == '\n') {
+                consumir();
+                c = peek();
+            }
+            if (c == -1) {
+                return null;
+            }
+
+            var campos = new ArrayList<String>();
+            var actual = new StringBuilder();
+            boolean entreComillas = false;
+
+            while (true) {
+                c = consumir();
+                if (entreComillas) {
+                    if (c == -1) {
+                        throw new IOException("CSV mal formado: comillas sin cerrar");
+                    }
+                    if (c == '"') {
+                        if (peek() == '"') {
+                            consumir();
+                            actual.append('"');
+                        } else {
+                            entreComillas = false;
+                        }
+                    } else {
+                        actual.append((char) c);
+                    }
+                    continue;
+                }
+
+                if (c == '"' && actual.isEmpty()) {
+                    entreComillas = true;
+                } else if (c == ',') {
+                    campos.add(actual.toString());
+                    actual.setLength(0);
+                } else if (c == '\r' || c == '\n' || c == -1) {
+                    if (c == '\r' && peek() == '\n') {
+                        consumir();
+                    }
+                    campos.add(actual.toString());
+                    return campos;
+                } else {
+                    actual.append((char) c);
+                }
+            }
+        }
+
+        private int peek() throws IOException {
+            if (siguiente == -2) {
+                siguiente = reader.read();
+            }
+            return siguiente;
+        }
+
+        private int consumir() throws IOException {
+            int c = peek();
+            siguiente = -2;
+            return c;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Escritura
+    // -------------------------------------------------------------------------
+
+    /**
+     * Escribe un registro CSV terminado en CRLF. Los valores null se
+     * escriben como celda vacía.
+     */
+    static void escribir(Writer writer, Object... valores) throws IOException {
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (valores[i] != null) {
+                escribirCampo(writer, valores[i].toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static void escribirCampo(Writer writer, String valor) throws IOException {
+        boolean requiereComillas = false;
+        for (int i = 0; i < valor.length() && !requiereComillas; i++) {
+            char c = valor.charAt(i);
+            requiereComillas = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!requiereComillas) {
+            writer.write(valor);
+            return;
+        }
+        writer.write('"');
+        writer.write(valor.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    // -------------------------------------------------------------------------
+    // Utilidades
+    // -------------------------------------------------------------------------
+
+    /**
+     * Normaliza un encabezado para compararlo con los nombres de campo del DTO:
+     * "nombre_solicitante", "NombreSolicitante" y "nombreSolicitante" son
+     * equivalentes.
+     */
+    static String normalizarEncabezado(String encabezado) {
+        return encabezado.replace("_", "")
+                .replace("\uFEFF", "") // BOM de archivos exportados desde Excel
+                .trim()
+                .toLowerCase(Locale.ROOT);
+    }
+}
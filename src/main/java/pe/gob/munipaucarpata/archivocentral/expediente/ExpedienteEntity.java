@@ -7,6 +7,7 @@ import pe.gob.munipaucarpata.archivocentral.expediente.dto.UpdateExpedienteReque
 
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 
 /**
  * Entidad JPA que mapea la tabla archivo.expedientes.
@@ -28,8 +29,29 @@ import java.time.LocalDate;
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @Entity
 @Table(name = "expedientes", schema = "archivo")
+@SqlResultSetMapping(
+        name = ExpedienteEntity.MAPEO_CON_SIMILITUD,
+        entities = @EntityResult(entityClass = ExpedienteEntity.class),
+        columns = @ColumnResult(name = "similitud", type = Double.class))
+@SqlResultSetMapping(
+        name = ExpedienteEntity.MAPEO_CON_FRAGMENTOS,
+        entities = @EntityResult(entityClass = ExpedienteEntity.class),
+        columns = {
+                @ColumnResult(name = "relevancia", type = Double.class),
+                @ColumnResult(name = "fragmento_asunto", type = String.class),
+                @ColumnResult(name = "fragmento_observaciones", type = String.class) })
 public class ExpedienteEntity {
 
+    /**
+     * Mapeo de resultados nativos "e.*, similitud" (búsqueda aproximada).
+     */
+    public static final String MAPEO_CON_SIMILITUD = "ExpedienteConSimilitud";
+
+    /**
+     * Mapeo de resultados nativos de la búsqueda de texto completo.
+     */
+    public static final String MAPEO_CON_FRAGMENTOS = "ExpedienteConFragmentos";
+
     @EqualsAndHashCode.Include
     @Id
     @Column(name = "id", nullable = false)
@@ -130,15 +152,18 @@ public class ExpedienteEntity {
     // Lifecycle Hooks - Auditoría
     // -------------------------------------------------------------------------
 
+    // Microsegundos: la precisión de TIMESTAMPTZ. Así el valor en memoria
+    // (respuesta, eventos, cursor de cambios) es idéntico al guardado.
+
     @PrePersist
     protected void onCreate() {
-        Instant now = Instant.now();
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
         this.createdAt = now;
         this.updatedAt = now;
     }
 
     @PreUpdate
     protected void onUpdate() {
-        this.updatedAt = Instant.now();
+        this.updatedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
     }
 }
@@ -0,0 +1,251 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.EstadisticaResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ReconciliacionResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ReconciliacionResponse.Diferencia;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Estadísticas de expedientes (cantidad y folios) por año, tipo de
+ * documento y dependencia destino.
+ *
+ * <p>
+ * Se leen de archivo.resumen_expedientes, que tiene una fila por
+ * (año, tipo, dependencia): el costo de una consulta depende de la
+ * cantidad de grupos, no de expedientes. El resumen se actualiza con
+ * deltas en la misma transacción que registra o corrige el expediente
+ * ({@link #registrar}, {@link #mover}); la importación masiva lo actualiza
+ * en su propio INSERT.
+ * </p>
+ *
+ * <p>
+ * {@link #reconciliar} recalcula los grupos desde la tabla de expedientes,
+ * corrige los desviados y los reporta (ver EstadisticasReconciliacionTarea).
+ * </p>
+ */
+@Service
+@Transactional(readOnly = true)
+public class ExpedienteEstadisticaService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpedienteEstadisticaService.class);
+
+    /** Máximo de grupos desviados detallados en la respuesta. */
+    private static final int MAX_DIFERENCIAS = 100;
+
+    private static final String SQL_SUMAR = """
+            INSERT INTO archivo.resumen_expedientes AS r (anio, tipo_documento, dirigido_a, cantidad, folios)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (anio, tipo_documento, dirigido_a) DO UPDATE
+            SET cantidad = r.cantidad + EXCLUDED.cantidad,
+                folios   = r.folios + EXCLUDED.folios
+            """;
+
+    private static final String SQL_ELIMINAR_VACIO = """
+            DELETE FROM archivo.resumen_expedientes
+            WHERE anio = ? AND tipo_documento = ? AND dirigido_a = ? AND cantidad <= 0
+            """;
+
+    private static final String SQL_CONSULTAR = """
+            SELECT %1$s::text AS clave, SUM(cantidad) AS cantidad, SUM(folios) AS folios
+            FROM archivo.resumen_expedientes
+            %2$s
+            GROUP BY %1$s
+            ORDER BY %1$s
+            """;
+
+    private static final String SQL_DIFERENCIAS = """
+            WITH reales AS (
+                SELECT anio, tipo_documento, dirigido_a, COUNT(*) AS cantidad, SUM(folios) AS folios
+                FROM archivo.expedientes
+                GROUP BY anio, tipo_documento, dirigido_a
+            )
+            SELECT COALESCE(x.anio, r.anio)                     AS anio,
+                   COALESCE(x.tipo_documento, r.tipo_documento) AS tipo_documento,
+                   COALESCE(x.dirigido_a, r.dirigido_a)         AS dirigido_a,
+                   COALESCE(r.cantidad, 0) AS cantidad_registrada,
+                   COALESCE(x.cantidad, 0) AS cantidad_real,
+                   COALESCE(r.folios, 0)   AS folios_registrados,
+                   COALESCE(x.folios, 0)   AS folios_reales
+            FROM reales x
+            FULL JOIN archivo.resumen_expedientes r
+                   ON r.anio = x.anio
+                  AND r.tipo_documento = x.tipo_documento
+                  AND r.dirigido_a = x.dirigido_a
+            WHERE x.cantidad IS DISTINCT FROM r.cantidad
+               OR x.folios IS DISTINCT FROM r.folios
+            ORDER BY 1, 2, 3
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ExpedienteEstadisticaService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // -------------------------------------------------------------------------
+    // CONSULTA
+    // -------------------------------------------------------------------------
+
+    /**
+     * Cantidad y folios por grupo de la dimensión pedida, opcionalmente
+     * restringidos a un año.
+     */
+    public List<EstadisticaResponse> consultar(DimensionEstadistica dimension, Integer anio) {
+        var sql = SQL_CONSULTAR.formatted(dimension.columna(), anio != null ? "WHERE anio = ?" : "");
+        var args = anio != null ? new Object[] { anio } : new Object[0];
+        return jdbcTemplate.query(sql,
+                (rs, i) -> new EstadisticaResponse(
+                        rs.getString("clave"), rs.getLong("cantidad"), rs.getLong("folios")),
+                args);
+    }
+
+    // -------------------------------------------------------------------------
+    // MANTENIMIENTO INCREMENTAL (dentro de la transacción del llamador)
+    // -------------------------------------------------------------------------
+
+    /**
+     * Suma un expediente recién registrado a su grupo.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(GrupoResumen grupo) {
+        sumar(grupo, 1, grupo.folios());
+    }
+
+    /**
+     * Aplica una corrección: si el expediente cambió de grupo (tipo o
+     * dependencia), lo resta del anterior y lo suma al nuevo; si solo cambió
+     * la cantidad de folios, ajusta la diferencia.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void mover(GrupoResumen anterior, GrupoResumen nuevo) {
+        if (anterior.mismaClave(nuevo)) {
+            if (anterior.folios() != nuevo.folios()) {
+                sumar(nuevo, 0, nuevo.folios() - anterior.folios());
+            }
+            return;
+        }
+        Stream.of(anterior, nuevo).sorted(GrupoResumen.POR_CLAVE).forEach(grupo -> {
+            if (grupo == anterior) {
+                sumar(anterior, -1, -anterior.folios());
+                jdbcTemplate.update(SQL_ELIMINAR_VACIO,
+                        anterior.anio(), anterior.tipoDocumento(), anterior.dirigidoA());
+            } else {
+                sumar(nuevo, 1, nuevo.folios());
+            }
+        });
+    }
+
+    /**
+     * Aplica varias correcciones a la vez: acumula los deltas por grupo y
+     * los escribe con un UPSERT por grupo afectado, en un solo batch y en
+     * orden de clave (como {@link #mover}).
+     *
+     * @param movimientos pares {anterior, nuevo}
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void moverTodos(List<GrupoResumen[]> movimientos) {
+        var deltas = new TreeMap<GrupoResumen, long[]>(GrupoResumen.POR_CLAVE);
+        for (var par : movimientos) {
+            var anterior = par[0];
+            var nuevo = par[1];
+            var menos = deltas.computeIfAbsent(anterior, g -> new long[2]);
+            menos[0]--;
+            menos[1] -= anterior.folios();
+            var mas = deltas.computeIfAbsent(nuevo, g -> new long[2]);
+            mas[0]++;
+            mas[1] += nuevo.folios();
+        }
+
+        var sumas = new ArrayList<Object[]>();
+        var vaciados = new ArrayList<Object[]>();
+        deltas.forEach((grupo, delta) -> {
+            if (delta[0] != 0 || delta[1] != 0) {
+                sumas.add(new Object[] { grupo.anio(), grupo.tipoDocumento(), grupo.dirigidoA(), delta[0], delta[1] });
+            }
+            if (delta[0] < 0) {
+                vaciados.add(new Object[] { grupo.anio(), grupo.tipoDocumento(), grupo.dirigidoA() });
+            }
+        });
+        if (!sumas.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_SUMAR, sumas);
+        }
+        if (!vaciados.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_ELIMINAR_VACIO, vaciados);
+        }
+    }
+
+    private void sumar(GrupoResumen grupo, long cantidad, long folios) {
+        jdbcTemplate.update(SQL_SUMAR,
+                grupo.anio(), grupo.tipoDocumento(), grupo.dirigidoA(), cantidad, folios);
+    }
+
+    // -------------------------------------------------------------------------
+    // RECONCILIACIÓN
+    // -------------------------------------------------------------------------
+
+    /**
+     * Recalcula todos los grupos desde archivo.expedientes (un GROUP BY),
+     * corrige en el resumen solo los que difieren y los reporta.
+     *
+     * <p>
+     * Sin bloquear la tabla durante el recorrido: la consulta de diferencias
+     * es una sola sentencia y ve expedientes y resumen en la misma
+     * instantánea. Cada corrección se aplica como delta (real − registrado
+     * en esa instantánea) con el mismo UPSERT que los registros: lo que se
+     * confirmó después ya sumó su propio delta a ambos lados y se conserva.
+     * Solo las filas corregidas quedan bloqueadas, hasta el commit.
+     * </p>
+     */
+    @Transactional
+    public ReconciliacionResponse reconciliar() {
+        long inicio = System.nanoTime();
+
+        var diferencias = jdbcTemplate.query(SQL_DIFERENCIAS, (rs, i) -> new Diferencia(
+                rs.getInt("anio"),
+                rs.getString("tipo_documento"),
+                rs.getString("dirigido_a"),
+                rs.getLong("cantidad_registrada"),
+                rs.getLong("cantidad_real"),
+                rs.getLong("folios_registrados"),
+                rs.getLong("folios_reales")));
+
+        var sumas = new ArrayList<Object[]>();
+        var vaciados = new ArrayList<Object[]>();
+        for (var d : diferencias) {
+            sumas.add(new Object[] { d.anio(), d.tipoDocumento(), d.dirigidoA(),
+                    d.cantidadReal() - d.cantidadRegistrada(), d.foliosReales() - d.foliosRegistrados() });
+            if (d.cantidadReal() < d.cantidadRegistrada() || d.cantidadReal() == 0) {
+                vaciados.add(new Object[] { d.anio(), d.tipoDocumento(), d.dirigidoA() });
+            }
+        }
+        if (!sumas.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_SUMAR, sumas);
+        }
+        if (!vaciados.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_ELIMINAR_VACIO, vaciados);
+        }
+
+        Integer grupos = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM archivo.resumen_expedientes", Integer.class);
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+
+        if (diferencias.isEmpty()) {
+            log.info("Reconciliación de estadísticas: {} grupos sin diferencias ({} ms)", grupos, duracionMs);
+        } else {
+            log.warn("Reconciliación de estadísticas: {} de {} grupos desviados, corregidos ({} ms). Primero: {}",
+                    diferencias.size(), grupos, duracionMs, diferencias.get(0));
+        }
+        return new ReconciliacionResponse(grupos != null ? grupos : 0, diferencias.size(),
+                diferencias.subList(0, Math.min(diferencias.size(), MAX_DIFERENCIAS)), duracionMs);
+    }
+}
@@ -0,0 +1,189 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteResponse;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exportación masiva del inventario (CSV / NDJSON) para auditorías.
+ *
+ * <p>
+ * Las filas se leen con un cursor del servidor (fetch size acotado dentro
+ * de una transacción de solo lectura) y se escriben directamente en la
+ * respuesta: no se crean entidades ni páginas, por lo que la memoria usada
+ * es constante sin importar el tamaño de la exportación.
+ * </p>
+ *
+ * <p>
+ * El CSV usa como encabezados los nombres de campo de
+ * {@link ExpedienteResponse}, de modo que puede reimportarse con
+ * {@link ExpedienteImportacionService}.
+ * </p>
+ */
+@Service
+public class ExpedienteExportacionService {
+
+    private static final String SQL_BASE = """
+            SELECT e.id, e.anio, e.fecha_registro, e.tipo_documento, e.nro_documento,
+                   e.nombre_solicitante, e.dni, e.asunto, e.dirigido_a, e.folios,
+                   e.archivado_con, e.observaciones, e.created_at, e.updated_at, e.version
+            FROM archivo.expedientes e
+            WHERE TRUE""";
+
+    /** Cada cuántas filas se vacía el buffer hacia el cliente. */
+    private static final int FILAS_POR_FLUSH = 500;
+
+    private static final String[] ENCABEZADOS = Arrays.stream(ExpedienteResponse.class.getRecordComponents())
+            .map(c -> c.getName())
+            .toArray(String[]::new);
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transaccion;
+    private final ObjectMapper objectMapper;
+
+    ExpedienteExportacionService(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${archivo.exportacion.fetch-size:1000}") int fetchSize) {
+        // JdbcTemplate propio: el fetch size activa el cursor del servidor en PostgreSQL
+        var jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        this.jdbc = new NamedParameterJdbcTemplate(jdbcTemplate);
+
+        // PostgreSQL solo usa cursor con autocommit desactivado (dentro de una transacción)
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccion.setReadOnly(true);
+
+        this.objectMapper = objectMapper;
+    }
+
+    // -------------------------------------------------------------------------
+    // EXPORTACIÓN
+    // -------------------------------------------------------------------------
+
+    /**
+     * Escribe en {@code salida} todos los expedientes que cumplen el filtro,
+     * ordenados por (anio, id).
+     */
+    public void exportar(FiltroExpediente filtro, FormatoArchivo formato, OutputStream salida) throws IOException {
+        var sql = new StringBuilder(SQL_BASE);
+        var params = new LinkedHashMap<String, Object>();
+        filtro.agregarPredicados(sql, params);
+        sql.append(" ORDER BY e.anio ASC, e.id ASC");
+
+        var writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 64 * 1024);
+        var escritor = formato == FormatoArchivo.CSV ? new EscritorCsv(writer) : new EscritorNdjson(writer);
+        escritor.inicio();
+        writer.flush(); // el encabezado sale de inmediato
+
+        var filas = new AtomicLong();
+        try {
+            transaccion.executeWithoutResult(status -> jdbc.query(sql.toString(), params, rs -> {
+                try {
+                    escritor.fila(leer(rs));
+                    if (filas.incrementAndGet() % FILAS_POR_FLUSH == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException ex) {
+                    // Cliente desconectado: se aborta la consulta y se libera la conexión
+                    throw new UncheckedIOException(ex);
+                }
+            }));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        writer.flush();
+    }
+
+    // -------------------------------------------------------------------------
+    // Escritores por formato
+    // -------------------------------------------------------------------------
+
+    private interface Escritor {
+        void inicio() throws IOException;
+
+        void fila(ExpedienteResponse expediente) throws IOException;
+    }
+
+    private record EscritorCsv(Writer writer) implements Escritor {
+
+        @Override
+        public void inicio() throws IOException {
+            writer.write('\uFEFF'); // BOM: Excel detecta UTF-8 (tildes y Ñ)
+            ExpedienteCsv.escribir(writer, (Object[]) ENCABEZADOS);
+        }
+
+        @Override
+        public void fila(ExpedienteResponse e) throws IOException {
+            ExpedienteCsv.escribir(writer,
+                    e.id(), e.anio(), e.fechaRegistro(), e.tipoDocumento(), e.nroDocumento(),
+                    e.nombreSolicitante(), e.dni(), e.asunto(), e.dirigidoA(), e.folios(),
+                    e.archivadoCon(), e.observaciones(), e.createdAt(), e.updatedAt(), e.version());
+        }
+    }
+
+    private final class EscritorNdjson implements Escritor {
+
+        private final Writer writer;
+
+        EscritorNdjson(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void inicio() {
+            // NDJSON no tiene encabezado
+        }
+
+        @Override
+        public void fila(ExpedienteResponse expediente) throws IOException {
+            writer.write(objectMapper.writeValueAsString(expediente));
+            writer.write('\n');
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Utilidad privada
+    // -------------------------------------------------------------------------
+
+    private static ExpedienteResponse leer(ResultSet rs) throws SQLException {
+        return new ExpedienteResponse(
+                rs.getInt("id"),
+                rs.getInt("anio"),
+                rs.getObject("fecha_registro", LocalDate.class),
+                TipoDocumento.valueOf(rs.getString("tipo_documento")),
+                rs.getString("nro_documento"),
+                rs.getString("nombre_solicitante"),
+                rs.getString("dni"),
+                rs.getString("asunto"),
+                rs.getString("dirigido_a"),
+                rs.getInt("folios"),
+                rs.getString("archivado_con"),
+                rs.getString("observaciones"),
+                rs.getObject("created_at", OffsetDateTime.class).toInstant(),
+                rs.getObject("updated_at", OffsetDateTime.class).toInstant(),
+                rs.getInt("version"));
+    }
+}
@@ -0,0 +1,376 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.CreateExpedienteRequest;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ImportacionResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ImportacionResponse.ErrorFila;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importación masiva de expedientes (digitalización del inventario físico).
+ *
+ * <p>
+ * El archivo (CSV o NDJSON) se lee de forma incremental y se procesa en
+ * lotes de {@code archivo.importacion.tamanio-lote} filas. Por cada lote:
+ * </p>
+ * <ol>
+ * <li>Cada fila se valida con las mismas reglas de
+ * {@link CreateExpedienteRequest}.</li>
+ * <li>Los N° ya registrados se detectan con una sola consulta
+ * {@code id = ANY(?)}.</li>
+ * <li>Las filas restantes se insertan con un único INSERT multi-fila
+ * {@code ON CONFLICT DO NOTHING} ({@link InsercionMultifila}), que en la
+ * misma sentencia suma las filas nuevas a las estadísticas
+ * (archivo.resumen_expedientes).</li>
+ * </ol>
+ *
+ * <p>
+ * Cada lote se confirma por separado: una fila inválida no anula la carga,
+ * solo aparece en el reporte de errores. El reporte detalla hasta
+ * {@code archivo.importacion.max-errores} filas y cuenta las demás: un error
+ * sistemático (columna equivocada) en millones de filas no acumula sus
+ * errores en memoria.
+ * </p>
+ */
+@Service
+public class ExpedienteImportacionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpedienteImportacionService.class);
+
+    private static final String SQL_EXISTENTES = """
+            SELECT id FROM archivo.expedientes WHERE id = ANY(?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final IndiceNumeros numeros;
+    private final ExpedienteCache cache;
+    private final int tamanioLote;
+    private final int maxErrores;
+
+    ExpedienteImportacionService(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            Validator validator,
+            IndiceNumeros numeros,
+            ExpedienteCache cache,
+            @Value("${archivo.importacion.tamanio-lote:500}") int tamanioLote,
+            @Value("${archivo.importacion.max-errores:1000}") int maxErrores) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.numeros = numeros;
+        this.cache = cache;
+        this.tamanioLote = tamanioLote;
+        this.maxErrores = maxErrores;
+    }
+
+    // -------------------------------------------------------------------------
+    // IMPORTACIÓN
+    // -------------------------------------------------------------------------
+
+    /**
+     * Importa todos los expedientes del flujo de entrada.
+     * Nunca falla por filas individuales: los errores se reportan por fila.
+     */
+    public ImportacionResponse importar(InputStream entrada, FormatoArchivo formato) throws IOException {
+        long inicio = System.nanoTime();
+        var reader = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        var fuente = formato == FormatoArchivo.CSV ? new FuenteCsv(reader) : new FuenteNdjson(reader);
+
+        var errores = new Errores(maxErrores);
+        var lote = new ArrayList<FilaValida>(tamanioLote);
+        int totalFilas = 0;
+        int insertadas = 0;
+
+        FilaLeida fila;
+        while ((fila = fuente.siguiente()) != null) {
+            totalFilas++;
+            if (fila.error() != null) {
+                errores.add(fila.error());
+                if (fila.fatal()) {
+                    break;
+                }
+                continue;
+            }
+            lote.add(new FilaValida(fila.numero(), fila.request()));
+            if (lote.size() >= tamanioLote) {
+                insertadas += procesarLote(lote, errores);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            insertadas += procesarLote(lote, errores);
+        }
+
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+        double filasPorSegundo = duracionMs > 0 ? totalFilas * 1000.0 / duracionMs : totalFilas;
+        log.info("Importación {}: {} filas, {} insertadas, {} rechazadas en {} ms ({} filas/s)",
+                formato, totalFilas, insertadas, errores.total(), duracionMs, Math.round(filasPorSegundo));
+
+        return new ImportacionResponse(totalFilas, insertadas, errores.total(), duracionMs, filasPorSegundo,
+                errores.detalle(), errores.total() - errores.detalle().size());
+    }
+
+    // -------------------------------------------------------------------------
+    // Procesamiento por lotes
+    // -------------------------------------------------------------------------
+
+    /**
+     * Descarta duplicados (en el lote y en BD) e inserta el resto en una sola
+     * sentencia. Devuelve la cantidad de filas insertadas.
+     */
+    private int procesarLote(List<FilaValida> lote, Errores errores) {
+        Set<Integer> existentes = buscarExistentes(lote);
+
+        var vistos = new HashSet<Integer>();
+        var aInsertar = new ArrayList<FilaValida>(lote.size());
+        for (var fila : lote) {
+            Integer id = fila.request().id();
+            if (existentes.contains(id) || !vistos.add(id)) {
+                errores.add(duplicado(fila));
+            } else {
+                aInsertar.add(fila);
+            }
+        }
+        if (aInsertar.isEmpty()) {
+            return 0;
+        }
+
+        var sql = InsercionMultifila.sql(aInsertar.size(), InsercionMultifila.RETORNO_MINIMO);
+        var args = InsercionMultifila.parametros(aInsertar.stream().map(FilaValida::request).toList());
+
+        var insertados = new HashSet<>(jdbcTemplate.query(sql, (rs, i) -> rs.getInt("id"), args));
+
+        // Filas que otro proceso registró entre la verificación y el INSERT
+        var anios = new HashSet<Integer>();
+        for (var fila : aInsertar) {
+            if (insertados.contains(fila.request().id())) {
+                numeros.agregar(fila.request().id(), fila.request().anio());
+                anios.add(fila.request().anio());
+            } else {
+                errores.add(duplicado(fila));
+            }
+        }
+        cache.notificarAnios(anios);
+        return insertados.size();
+    }
+
+    private Set<Integer> buscarExistentes(List<FilaValida> lote) {
+        Integer[] ids = lote.stream().map(f -> f.request().id()).toArray(Integer[]::new);
+        return new HashSet<>(jdbcTemplate.query(SQL_EXISTENTES,
+                ps -> {
+                    Array array = ps.getConnection().createArrayOf("integer", ids);
+                    ps.setArray(1, array);
+                },
+                (rs, rowNum) -> rs.getInt(1)));
+    }
+
+    private ErrorFila duplicado(FilaValida fila) {
+        return new ErrorFila(fila.numero(), fila.request().id(), Map.of("id",
+                "Ya existe un expediente registrado con el N° %d".formatted(fila.request().id())));
+    }
+
+    // -------------------------------------------------------------------------
+    // Lectura y validación de filas
+    // -------------------------------------------------------------------------
+
+    /**
+     * Reporte de errores acotado: los primeros {@code max} en detalle y la
+     * cantidad total.
+     */
+    private static final class Errores {
+
+        private final List<ErrorFila> detalle = new ArrayList<>();
+        private final int max;
+        private int total;
+
+        Errores(int max) {
+            this.max = max;
+        }
+
+        void add(ErrorFila error) {
+            total++;
+            if (detalle.size() < max) {
+                detalle.add(error);
+            }
+        }
+
+        int total() {
+            return total;
+        }
+
+        List<ErrorFila> detalle() {
+            return detalle;
+        }
+    }
+
+    private record FilaLeida(long numero, CreateExpedienteRequest request, ErrorFila error, boolean fatal) {
+    }
+
+    private record FilaValida(long numero, CreateExpedienteRequest request) {
+    }
+
+    private interface Fuente {
+        FilaLeida siguiente() throws IOException;
+    }
+
+    /**
+     * Convierte un objeto JSON en request y lo valida con Bean Validation.
+     */
+    private FilaLeida convertir(long numero, ObjectNode nodo) {
+        Integer id = nodo.path("id").canConvertToInt() ? nodo.path("id").asInt() : null;
+        CreateExpedienteRequest request;
+        try {
+            request = objectMapper.treeToValue(nodo, CreateExpedienteRequest.class);
+        } catch (JsonProcessingException ex) {
+            return new FilaLeida(numero, null, new ErrorFila(numero, id, errorFormato(ex)), false);
+        }
+
+        Set<ConstraintViolation<CreateExpedienteRequest>> violaciones = validator.validate(request);
+        if (!violaciones.isEmpty()) {
+            Map<String, String> mensajes = new LinkedHashMap<>();
+            for (var v : violaciones) {
+                mensajes.putIfAbsent(v.getPropertyPath().toString(), v.getMessage());
+            }
+            return new FilaLeida(numero, null, new ErrorFila(numero, request.id(), mensajes), false);
+        }
+        return new FilaLeida(numero, request, null, false);
+    }
+
+    private Map<String, String> errorFormato(JsonProcessingException ex) {
+        if (ex instanceof JsonMappingException jme && !jme.getPath().isEmpty()) {
+            var campo = jme.getPath().get(jme.getPath().size() - 1).getFieldName();
+            if (campo != null) {
+                return Map.of(campo, "Valor inválido");
+            }
+        }
+        return Map.of("formato", "Fila con formato inválido");
+    }
+
+    /**
+     * NDJSON: un objeto {@link CreateExpedienteRequest} por línea.
+     */
+    private final class FuenteNdjson implements Fuente {
+
+        private final BufferedReader reader;
+        private long numero;
+
+        FuenteNdjson(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public FilaLeida siguiente() throws IOException {
+            String linea;
+            do {
+                linea = reader.readLine();
+                if (linea == null) {
+                    return null;
+                }
+            } while (linea.isBlank());
+
+            numero++;
+            try {
+                var nodo = objectMapper.readTree(linea);
+                if (nodo instanceof ObjectNode objeto) {
+                    return convertir(numero, objeto);
+                }
+            } catch (JsonProcessingException ex) {
+                // se reporta abajo como formato inválido
+            }
+            return new FilaLeida(numero, null,
+                    new ErrorFila(numero, null, Map.of("formato", "La línea no es un objeto JSON válido")), false);
+        }
+    }
+
+    /**
+     * CSV con encabezado. Las columnas se asocian por nombre, aceptando tanto
+     * el nombre del campo JSON (nombreSolicitante) como el de la columna en BD
+     * (nombre_solicitante). Las celdas vacías se tratan como null.
+     */
+    private final class FuenteCsv implements Fuente {
+
+        private final ExpedienteCsv.Lector lector;
+        private List<String> campos;
+        private long numero;
+
+        FuenteCsv(BufferedReader reader) {
+            this.lector = new ExpedienteCsv.Lector(reader);
+        }
+
+        @Override
+        public FilaLeida siguiente() throws IOException {
+            try {
+                if (campos == null && !leerEncabezado()) {
+                    return null;
+                }
+                var valores = lector.leer();
+                if (valores == null) {
+                    return null;
+                }
+                numero++;
+                if (valores.size() != campos.size()) {
+                    return new FilaLeida(numero, null, new ErrorFila(numero, null, Map.of("formato",
+                            "Se esperaban %d columnas y se encontraron %d".formatted(campos.size(), valores.size()))),
+                            false);
+                }
+
+                var nodo = objectMapper.createObjectNode();
+                for (int i = 0; i < campos.size(); i++) {
+                    var campo = campos.get(i);
+                    var valor = valores.get(i);
+                    if (campo != null && !valor.isBlank()) {
+                        nodo.put(campo, valor);
+                    }
+                }
+                return convertir(numero, nodo);
+            } catch (IOException ex) {
+                // CSV estructuralmente roto: no se puede seguir leyendo
+                numero++;
+                return new FilaLeida(numero, null,
+                        new ErrorFila(numero, null, Map.of("formato", ex.getMessage())), true);
+            }
+        }
+
+        private boolean leerEncabezado() throws IOException {
+            var encabezado = lector.leer();
+            if (encabezado == null) {
+                return false;
+            }
+            Map<String, String> conocidos = new HashMap<>();
+            for (var componente : CreateExpedienteRequest.class.getRecordComponents()) {
+                conocidos.put(ExpedienteCsv.normalizarEncabezado(componente.getName()), componente.getName());
+            }
+            // Columnas desconocidas quedan en null y se ignoran
+            campos = encabezado.stream()
+                    .map(h -> conocidos.get(ExpedienteCsv.normalizarEncabezado(h)))
+                    .toList();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteResponse;
+
+/**
+ * Evento publicado por {@link ExpedienteService} al registrar o corregir un
+ * expediente. Los oyentes con {@code @TransactionalEventListener} lo
+ * reciben solo si la transacción se confirmó.
+ *
+ * @param expediente estado guardado (con version y updated_at nuevos)
+ * @param nuevo      true si es un registro, false si es una corrección
+ */
+public record ExpedienteModificado(ExpedienteResponse expediente, boolean nuevo) {
+}
@@ -0,0 +1,91 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteResumenResponse;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Consultas de expedientes que se construyen dinámicamente y por eso no
+ * encajan en un {@code @Query} fijo. Implementadas en
+ * {@link ExpedienteRepositoryImpl}.
+ */
+public interface ExpedienteRepositoryCustom {
+
+  /**
+   * Paginación por cursor (keyset) sobre {@code (anio, id)}.
+   *
+   * Devuelve hasta {@code limite} expedientes que cumplen el filtro y están
+   * estrictamente después de {@code desde} (o desde el inicio si es null),
+   * ordenados por {@code (anio, id)} en el sentido indicado.
+   */
+  List<ExpedienteEntity> buscarDesde(
+      FiltroExpediente filtro, CursorExpediente desde, boolean descendente, int limite);
+
+  /**
+   * Inserta un expediente nuevo (persist + flush, sin el SELECT previo de
+   * {@code save}/merge). Un N° ya registrado falla aquí: por la clave
+   * primaria o, con la tabla particionada, porque el trigger descarta la
+   * fila y el INSERT no afecta ninguna.
+   */
+  ExpedienteEntity insertar(ExpedienteEntity entity);
+
+  /**
+   * Expedientes cuyos N° están en {@code ids}, en una sola consulta
+   * {@code id = ANY(?)} sobre la clave primaria. Sin orden definido.
+   */
+  List<ExpedienteEntity> buscarPorIds(Integer[] ids);
+
+  /**
+   * Expedientes modificados después de {@code desde} en orden
+   * {@code (updated_at, id)} ascendente, sin pasar de {@code hasta}.
+   * Recorre {@code idx_exp_updated_id}.
+   */
+  List<ExpedienteEntity> buscarCambios(CursorCambios desde, Instant hasta, int limite);
+
+  /**
+   * Búsqueda combinada flexible: solo los criterios presentes en el filtro
+   * generan predicado. Ordena según el sort del Pageable (id, anio,
+   * fechaRegistro, tipoDocumento, nombreSolicitante, folios; otra propiedad
+   * responde 400) con id como desempate; sin sort, anio DESC, id ASC.
+   */
+  Page<ExpedienteEntity> buscar(FiltroExpediente filtro, Pageable pageable);
+
+  /**
+   * Búsqueda combinada en vista resumen: mismo orden que {@link #buscar},
+   * pero solo lee las columnas de {@link ExpedienteResumenResponse}.
+   */
+  Page<ExpedienteResumenResponse> buscarResumen(FiltroExpediente filtro, Pageable pageable);
+
+  /**
+   * Búsqueda aproximada (tolerante a errores de tipeo y tildes) sobre un
+   * campo de texto, ordenada por similitud trigram descendente.
+   *
+   * @param umbral word_similarity mínima (0..1) para considerar coincidencia
+   * @return filas {@code [ExpedienteEntity, Double similitud]}
+   */
+  List<Object[]> buscarSimilares(
+      CampoTexto campo, String texto, Integer anio, double umbral, int limite);
+
+  /**
+   * Búsqueda de texto completo (configuración española, sin tildes) sobre
+   * asunto y observaciones, ordenada por relevancia.
+   *
+   * @param texto consulta en sintaxis web: palabras, "frase exacta", -excluir, OR
+   * @return filas {@code [ExpedienteEntity, Double relevancia,
+   *         String fragmentoAsunto, String fragmentoObservaciones]}
+   */
+  List<Object[]> buscarTexto(String texto, FiltroExpediente filtro, long offset, int limite);
+
+  /**
+   * Cuenta los resultados de {@link #buscarTexto}.
+   */
+  long contarTexto(String texto, FiltroExpediente filtro);
+
+  /**
+   * Cuenta los expedientes que cumplen el filtro.
+   */
+  long contar(FiltroExpediente filtro);
+}
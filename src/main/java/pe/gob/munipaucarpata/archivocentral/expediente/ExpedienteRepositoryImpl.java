@@ -0,0 +1,311 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteResumenResponse;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementación de {@link ExpedienteRepositoryCustom}.
+ *
+ * El SQL solo incluye los predicados de los filtros presentes, de modo que
+ * PostgreSQL planifica cada combinación con sus índices. La condición de
+ * cursor es una comparación de fila {@code (anio, id) > (?, ?)} que se
+ * resuelve con un rango sobre {@code idx_exp_anio_id}: el costo de una
+ * página no depende de su profundidad.
+ */
+class ExpedienteRepositoryImpl implements ExpedienteRepositoryCustom {
+
+  /** Opciones de ts_headline: coincidencias marcadas, hasta 2 fragmentos. */
+  private static final String OPCIONES_FRAGMENTO =
+      "StartSel=<mark>, StopSel=</mark>, MaxWords=35, MinWords=15, MaxFragments=2, FragmentDelimiter=\" … \"";
+
+  /**
+   * Propiedades por las que se puede ordenar {@link #buscar} y
+   * {@link #buscarResumen} (columnas de la vista resumen) y su columna.
+   */
+  private static final Map<String, String> ORDENABLES = Map.of(
+      "id", "e.id",
+      "anio", "e.anio",
+      "fechaRegistro", "e.fecha_registro",
+      "tipoDocumento", "e.tipo_documento",
+      "nombreSolicitante", "e.nombre_solicitante",
+      "folios", "e.folios");
+
+  /** Orden sin sort en el Pageable: los más recientes primero. */
+  private static final String ORDEN_POR_DEFECTO = " ORDER BY e.anio DESC, e.id ASC";
+
+  @PersistenceContext
+  private EntityManager em;
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<ExpedienteEntity> buscarDesde(
+      FiltroExpediente filtro, CursorExpediente desde, boolean descendente, int limite) {
+
+    planSegunValores(filtro);
+    var sql = new StringBuilder("SELECT * FROM archivo.expedientes e WHERE TRUE");
+    var params = new LinkedHashMap<String, Object>();
+    filtro.agregarPredicados(sql, params);
+
+    if (desde != null) {
+      sql.append(descendente
+          ? " AND (e.anio, e.id) < (:cursorAnio, :cursorId)"
+          : " AND (e.anio, e.id) > (:cursorAnio, :cursorId)");
+      params.put("cursorAnio", desde.anio());
+      params.put("cursorId", desde.id());
+    }
+    sql.append(descendente
+        ? " ORDER BY e.anio DESC, e.id DESC"
+        : " ORDER BY e.anio ASC, e.id ASC");
+
+    var query = em.createNativeQuery(sql.toString(), ExpedienteEntity.class);
+    params.forEach(query::setParameter);
+    return query.setMaxResults(limite).getResultList();
+  }
+
+  @Override
+  public ExpedienteEntity insertar(ExpedienteEntity entity) {
+    em.persist(entity);
+    em.flush();
+    return entity;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<ExpedienteEntity> buscarPorIds(Integer[] ids) {
+    // Un único parámetro array: mismo SQL (y plan) para cualquier cantidad de ids
+    return em.createNativeQuery(
+            "SELECT * FROM archivo.expedientes e WHERE e.id = ANY(CAST(:ids AS INTEGER[]))",
+            ExpedienteEntity.class)
+        .setParameter("ids", ids)
+        .getResultList();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<ExpedienteEntity> buscarCambios(CursorCambios desde, Instant hasta, int limite) {
+    return em.createNativeQuery("""
+            SELECT * FROM archivo.expedientes e
+            WHERE (e.updated_at, e.id) > (:desdeFecha, :desdeId)
+              AND e.updated_at <= :hasta
+            ORDER BY e.updated_at ASC, e.id ASC""", ExpedienteEntity.class)
+        .setParameter("desdeFecha", desde.updatedAt())
+        .setParameter("desdeId", desde.id())
+        .setParameter("hasta", hasta)
+        .setMaxResults(limite)
+        .getResultList();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Page<ExpedienteEntity> buscar(FiltroExpediente filtro, Pageable pageable) {
+    planSegunValores(filtro);
+    var sql = new StringBuilder("SELECT * FROM archivo.expedientes e WHERE TRUE");
+    var params = new LinkedHashMap<String, Object>();
+    filtro.agregarPredicados(sql, params);
+    agregarOrden(sql, pageable.getSort());
+
+    var query = em.createNativeQuery(sql.toString(), ExpedienteEntity.class);
+    params.forEach(query::setParameter);
+    List<ExpedienteEntity> contenido = query
+        .setFirstResult((int) pageable.getOffset())
+        .setMaxResults(pageable.getPageSize())
+        .getResultList();
+    return PageableExecutionUtils.getPage(contenido, pageable, () -> contar(filtro));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Page<ExpedienteResumenResponse> buscarResumen(FiltroExpediente filtro, Pageable pageable) {
+    planSegunValores(filtro);
+    var sql = new StringBuilder("""
+        SELECT e.id, e.anio, e.fecha_registro, e.tipo_documento, e.nombre_solicitante, e.folios,
+            e.updated_at, e.version
+        FROM archivo.expedientes e WHERE TRUE""");
+    var params = new LinkedHashMap<String, Object>();
+    filtro.agregarPredicados(sql, params);
+    agregarOrden(sql, pageable.getSort());
+
+    var query = em.createNativeQuery(sql.toString());
+    params.forEach(query::setParameter);
+    List<Object[]> filas = query
+        .setFirstResult((int) pageable.getOffset())
+        .setMaxResults(pageable.getPageSize())
+        .getResultList();
+
+    var contenido = filas.stream()
+        .map(f -> new ExpedienteResumenResponse(
+            ((Number) f[0]).intValue(),
+            ((Number) f[1]).intValue(),
+            f[2] instanceof Date fecha ? fecha.toLocalDate() : (LocalDate) f[2],
+            TipoDocumento.valueOf((String) f[3]),
+            (String) f[4],
+            ((Number) f[5]).intValue(),
+            instante(f[6]),
+            ((Number) f[7]).intValue()))
+        .toList();
+    return PageableExecutionUtils.getPage(contenido, pageable, () -> contar(filtro));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<Object[]> buscarSimilares(
+      CampoTexto campo, String texto, Integer anio, double umbral, int limite) {
+
+    // Umbral de word_similarity solo para esta transacción
+    em.createNativeQuery("SELECT set_config('pg_trgm.word_similarity_threshold', :umbral, true)")
+        .setParameter("umbral", Double.toString(umbral))
+        .getSingleResult();
+
+    var columna = "archivo.f_normalizar(e." + campo.columna() + ")";
+    var sql = new StringBuilder()
+        .append("SELECT e.*, word_similarity(archivo.f_normalizar(:texto), ").append(columna)
+        .append(") AS similitud FROM archivo.expedientes e")
+        .append(" WHERE archivo.f_normalizar(:texto) <% ").append(columna);
+    if (anio != null) {
+      sql.append(" AND e.anio = :anio");
+    }
+    sql.append(" ORDER BY similitud DESC, e.id ASC");
+
+    var query = em.createNativeQuery(sql.toString(), ExpedienteEntity.MAPEO_CON_SIMILITUD)
+        .setParameter("texto", texto);
+    if (anio != null) {
+      query.setParameter("anio", anio);
+    }
+    return query.setMaxResults(limite).getResultList();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<Object[]> buscarTexto(String texto, FiltroExpediente filtro, long offset, int limite) {
+    // Subconsulta: ranking y paginación solo con la columna busqueda (índice GIN).
+    // ts_headline es costoso, por eso se calcula únicamente para la página.
+    var sql = new StringBuilder("""
+        SELECT d.*, r.relevancia,
+               ts_headline('archivo.es', d.asunto, r.q, '%1$s') AS fragmento_asunto,
+               CASE WHEN d.observaciones IS NULL THEN NULL
+                    ELSE ts_headline('archivo.es', d.observaciones, r.q, '%1$s')
+               END AS fragmento_observaciones
+        FROM (
+            SELECT e.id, q, ts_rank_cd(e.busqueda, q) AS relevancia
+            FROM archivo.expedientes e, websearch_to_tsquery('archivo.es', :texto) q
+            WHERE e.busqueda @@ q""".formatted(OPCIONES_FRAGMENTO));
+    var params = new LinkedHashMap<String, Object>();
+    params.put("texto", texto);
+    filtro.agregarPredicados(sql, params);
+    sql.append("""
+
+            ORDER BY relevancia DESC, e.id ASC
+            LIMIT :limite OFFSET :offset
+        ) r
+        JOIN archivo.expedientes d ON d.id = r.id
+        ORDER BY r.relevancia DESC, d.id ASC
+        """);
+    params.put("limite", limite);
+    params.put("offset", offset);
+
+    var query = em.createNativeQuery(sql.toString(), ExpedienteEntity.MAPEO_CON_FRAGMENTOS);
+    params.forEach(query::setParameter);
+    return query.getResultList();
+  }
+
+  @Override
+  public long contarTexto(String texto, FiltroExpediente filtro) {
+    var sql = new StringBuilder("SELECT COUNT(*) FROM archivo.expedientes e"
+        + " WHERE e.busqueda @@ websearch_to_tsquery('archivo.es', :texto)");
+    var params = new LinkedHashMap<String, Object>();
+    params.put("texto", texto);
+    filtro.agregarPredicados(sql, params);
+
+    var query = em.createNativeQuery(sql.toString());
+    params.forEach(query::setParameter);
+    return ((Number) query.getSingleResult()).longValue();
+  }
+
+  @Override
+  public long contar(FiltroExpediente filtro) {
+    var sql = new StringBuilder("SELECT COUNT(*) FROM archivo.expedientes e WHERE TRUE");
+    var params = new LinkedHashMap<String, Object>();
+    filtro.agregarPredicados(sql, params);
+
+    var query = em.createNativeQuery(sql.toString());
+    params.forEach(query::setParameter);
+    return ((Number) query.getSingleResult()).longValue();
+  }
+
+  // ---------------------------------------------------------------------------
+  // Utilidad privada
+  // ---------------------------------------------------------------------------
+
+  /**
+   * Con rango de fechas o búsqueda por subcadena, plan a medida de los
+   * valores en el resto de la transacción. El plan genérico (prepared
+   * statement reutilizado) no conoce la selectividad del rango ni del
+   * patrón LIKE y, con LIMIT y ORDER BY anio, puede recorrer idx_exp_anio
+   * filtrando fila por fila en lugar de usar idx_exp_fecha o el índice
+   * trigram (ver db/explain_busqueda_dinamica.sql en las pruebas).
+   */
+  private void planSegunValores(FiltroExpediente filtro) {
+    if (filtro.fechaDesde() != null || filtro.fechaHasta() != null
+        || filtro.nombre() != null || filtro.dirigidoA() != null) {
+      em.createNativeQuery("SELECT set_config('plan_cache_mode', 'force_custom_plan', true)")
+          .getSingleResult();
+    }
+  }
+
+  /**
+   * TIMESTAMPTZ de una consulta nativa: según la versión de Hibernate llega
+   * como OffsetDateTime, Instant o Timestamp.
+   */
+  private static Instant instante(Object valor) {
+    if (valor instanceof OffsetDateTime fecha) {
+      return fecha.toInstant();
+    }
+    return valor instanceof Timestamp fecha ? fecha.toInstant() : (Instant) valor;
+  }
+
+  /**
+   * ORDER BY según el sort del Pageable, con e.id como desempate para que
+   * las páginas no repitan ni salten filas.
+   *
+   * @throws ResponseStatusException 400 si se ordena por una propiedad que
+   *                                 no está en {@link #ORDENABLES}
+   */
+  static void agregarOrden(StringBuilder sql, Sort sort) {
+    if (sort.isUnsorted()) {
+      sql.append(ORDEN_POR_DEFECTO);
+      return;
+    }
+    var separador = " ORDER BY ";
+    var conId = false;
+    for (var orden : sort) {
+      var columna = ORDENABLES.get(orden.getProperty());
+      if (columna == null) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+            "No se puede ordenar por '" + orden.getProperty() + "'. Valores permitidos: "
+                + String.join(", ", ORDENABLES.keySet().stream().sorted().toList()));
+      }
+      sql.append(separador).append(columna).append(orden.isAscending() ? " ASC" : " DESC");
+      separador = ", ";
+      conId |= columna.equals("e.id");
+    }
+    if (!conId) {
+      sql.append(", e.id ASC");
+    }
+  }
+}
@@ -1,14 +1,37 @@
 package pe.gob.munipaucarpata.archivocentral.expediente;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 import pe.gob.munipaucarpata.archivocentral.expediente.dto.CreateExpedienteRequest;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteLoteItem;
 import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteResumenResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteSimilarResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteTextoResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.HuecosResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.LoteExpedientesResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.NumeroLibreResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.PaginaCursor;
 import pe.gob.munipaucarpata.archivocentral.expediente.dto.UpdateExpedienteRequest;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 
 /**
  * Lógica de negocio para el registro y consulta de expedientes.
@@ -17,15 +40,50 @@ import java.util.NoSuchElementException;
  * - No se eliminan expedientes (solo registro y consulta/corrección)
  * - El id (número de expediente) lo ingresa el usuario, no es autoincremental
  * - No pueden existir dos expedientes con el mismo id
+ *
+ * Cada registro o corrección publica {@link ExpedienteModificado}.
+ *
+ * Expediente por N° y primeras páginas por año se sirven desde {@link ExpedienteCache}, coherente entre instancias.
  */
 @Service
 @Transactional(readOnly = true)
 public class ExpedienteService {
 
+    /** Tamaño máximo de página en la paginación por cursor. */
+    private static final int MAX_PAGINA_CURSOR = 1000;
+
+    /** Máximo de resultados en la búsqueda aproximada. */
+    private static final int MAX_SIMILARES = 200;
+
+    /** Máximo de N° por consulta de lote (respuesta JSON). */
+    private static final int MAX_LOTE = 5000;
+
+    /** Máximo de cambios por página del flujo de cambios. */
+    private static final int MAX_CAMBIOS = 1000;
+
+    /** Máximo de rangos en el reporte de huecos. */
+    private static final int MAX_RANGOS_HUECOS = 10_000;
+
     private final ExpedienteRepository repository;
+    private final ExpedienteEstadisticaService estadisticas;
+    private final IndiceNumeros numeros;
+    private final ExpedienteCache cache;
+    private final ApplicationEventPublisher eventos;
+    private final Duration margenCambios;
 
-    ExpedienteService(ExpedienteRepository repository) {
+    ExpedienteService(
+            ExpedienteRepository repository,
+            ExpedienteEstadisticaService estadisticas,
+            IndiceNumeros numeros,
+            ExpedienteCache cache,
+            ApplicationEventPublisher eventos,
+            @Value("${archivo.cambios.margen:5s}") Duration margenCambios) {
         this.repository = repository;
+        this.estadisticas = estadisticas;
+        this.numeros = numeros;
+        this.cache = cache;
+        this.eventos = eventos;
+        this.margenCambios = margenCambios;
     }
 
     // -------------------------------------------------------------------------
@@ -34,18 +92,30 @@ public class ExpedienteService {
 
     /**
      * Registra un expediente físico existente.
-     * Valida que el id (número de expediente) no esté ya registrado.
+     * Valida que el id (número de expediente) no esté ya registrado: si el
+     * índice en memoria ya lo tiene, responde sin consultar la base de datos;
+     * si no, lo resuelve el propio INSERT (clave primaria).
+     * Suma el expediente a las estadísticas en la misma transacción.
      */
     @Transactional
     public ExpedienteResponse registrar(CreateExpedienteRequest request) {
-        if (repository.existsById(request.id())) {
-            throw new IllegalArgumentException(
-                    "Ya existe un expediente registrado con el N° %d".formatted(request.id()));
+        if (numeros.registrado(request.id())) {
+            throw duplicado(request.id());
         }
 
         var entity = ExpedienteEntity.crear(request);
-        var saved = repository.save(entity);
-        return ExpedienteResponse.from(saved);
+        ExpedienteEntity saved;
+        try {
+            saved = repository.insertar(entity);
+        } catch (DuplicateKeyException | OptimisticLockingFailureException ex) {
+            // Clave primaria, o INSERT de 0 filas: trg_exp_id_unico descartó el N°
+            // repetido. Otra violación de integridad no es un duplicado (500)
+            throw duplicado(request.id());
+        }
+        estadisticas.registrar(GrupoResumen.de(saved));
+        var response = ExpedienteResponse.from(saved);
+        eventos.publishEvent(new ExpedienteModificado(response, true));
+        return response;
     }
 
     // -------------------------------------------------------------------------
@@ -60,39 +130,227 @@ public class ExpedienteService {
                 .map(ExpedienteResponse::from);
     }
 
+    /**
+     * Lista todos los expedientes paginados en vista resumen (sin asunto
+     * ni observaciones).
+     */
+    public Page<ExpedienteResumenResponse> listarResumen(Pageable pageable) {
+        return repository.findAllProjectedBy(pageable, ExpedienteResumenResponse.class);
+    }
+
     /**
      * Obtiene un expediente por su número (id).
      */
     public ExpedienteResponse obtenerPorId(Integer id) {
-        return repository.findById(id)
-                .map(ExpedienteResponse::from)
+        return cache.expediente(id, () -> repository.findById(id).map(ExpedienteResponse::from))
                 .orElseThrow(() -> new NoSuchElementException(
                         "Expediente no encontrado con N° " + id));
     }
 
+    /**
+     * Resuelve varios N° de expediente en una sola consulta.
+     *
+     * @throws ResponseStatusException 400 si se piden más de {@link #MAX_LOTE}
+     */
+    public LoteExpedientesResponse obtenerLote(List<Integer> ids) {
+        if (ids.size() > MAX_LOTE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Se pueden consultar hasta %d N° por lote (se recibieron %d)".formatted(MAX_LOTE, ids.size()));
+        }
+        var expedientes = new ArrayList<ExpedienteResponse>();
+        var faltantes = new ArrayList<Integer>();
+        for (var item : obtenerTramo(ids)) {
+            if (item.expediente() != null) {
+                expedientes.add(item.expediente());
+            } else {
+                faltantes.add(item.id());
+            }
+        }
+        return new LoteExpedientesResponse(expedientes, faltantes);
+    }
+
+    /**
+     * Resuelve un tramo de N° con una consulta {@code id = ANY(?)}: un
+     * resultado por N° distinto, en el orden de la solicitud. La respuesta
+     * NDJSON del lote llama a este método por tramos.
+     */
+    public List<ExpedienteLoteItem> obtenerTramo(List<Integer> ids) {
+        var distintos = new LinkedHashSet<>(ids);
+        var porId = new HashMap<Integer, ExpedienteEntity>();
+        for (var entity : repository.buscarPorIds(distintos.toArray(Integer[]::new))) {
+            porId.put(entity.getId(), entity);
+        }
+        return distintos.stream()
+                .map(id -> {
+                    var entity = porId.get(id);
+                    return new ExpedienteLoteItem(id, entity != null ? ExpedienteResponse.from(entity) : null);
+                })
+                .toList();
+    }
+
+    /**
+     * Versión actual de un expediente, sin cargar sus campos de texto.
+     * Permite responder 304 Not Modified con una consulta mínima.
+     */
+    public Optional<VersionExpediente> obtenerVersion(Integer id) {
+        var enCache = cache.enCache(id);
+        if (enCache.isPresent()) {
+            return enCache.map(e -> new VersionExpediente(e.version(), e.updatedAt()));
+        }
+        return repository.findVersionById(id);
+    }
+
     /**
      * Lista todos los expedientes de un año específico.
      */
     public Page<ExpedienteResponse> listarPorAnio(Integer anio, Pageable pageable) {
-        return repository.findByAnio(anio, pageable)
-                .map(ExpedienteResponse::from);
+        return cache.paginaAnio(anio, pageable, () -> repository.findByAnio(anio, pageable)
+                .map(ExpedienteResponse::from));
+    }
+
+    /**
+     * Lista los expedientes de un año en vista resumen.
+     */
+    public Page<ExpedienteResumenResponse> listarPorAnioResumen(Integer anio, Pageable pageable) {
+        return repository.findByAnio(anio, pageable, ExpedienteResumenResponse.class);
     }
 
     /**
-     * Búsqueda flexible por anio, numero, dni y/o nombre_solicitante.
+     * Búsqueda flexible por anio, numero, dni, nombre_solicitante,
+     * dirigido_a, tipo_documento y/o rango de fecha_registro.
      *
-     * Los parámetros son opcionales y pueden combinarse.
+     * Los criterios son opcionales y pueden combinarse.
      * Si ninguno se proporciona, devuelve todos (equivale a listar).
      */
-    public Page<ExpedienteResponse> buscar(
-            Integer anio, Integer numero, String dni, String nombre, Pageable pageable) {
+    public Page<ExpedienteResponse> buscar(FiltroExpediente filtro, Pageable pageable) {
+        return repository.buscar(filtro, pageable)
+                .map(ExpedienteResponse::from);
+    }
 
-        // Normalizar: blancos → null para que el JPQL los ignore
-        String dniParam = isBlank(dni) ? null : dni.trim();
-        String nombreParam = isBlank(nombre) ? null : nombre.trim().toUpperCase();
+    /**
+     * Búsqueda de texto completo en asunto y observaciones, combinable con
+     * los filtros de {@link FiltroExpediente}. Resultados ordenados por
+     * relevancia, con fragmentos resaltados de cada campo.
+     */
+    public Page<ExpedienteTextoResponse> buscarTexto(String texto, FiltroExpediente filtro, Pageable pageable) {
+        if (isBlank(texto)) {
+            return Page.empty(pageable);
+        }
+        var consulta = texto.trim();
+        var contenido = repository.buscarTexto(consulta, filtro, pageable.getOffset(), pageable.getPageSize())
+                .stream()
+                .map(fila -> new ExpedienteTextoResponse(
+                        ((Number) fila[1]).doubleValue(),
+                        (String) fila[2],
+                        (String) fila[3],
+                        ExpedienteResponse.from((ExpedienteEntity) fila[0])))
+                .toList();
+        return PageableExecutionUtils.getPage(contenido, pageable,
+                () -> repository.contarTexto(consulta, filtro));
+    }
 
-        return repository.buscarCombinado(anio, numero, dniParam, nombreParam, pageable)
-                .map(ExpedienteResponse::from);
+    /**
+     * Búsqueda aproximada por nombre del solicitante o dirigido a, tolerante
+     * a errores de tipeo y a tildes omitidas. Resultados ordenados por
+     * similitud descendente.
+     */
+    public List<ExpedienteSimilarResponse> buscarSimilares(
+            CampoTexto campo, String texto, Integer anio, double umbral, int limite) {
+        if (isBlank(texto)) {
+            return List.of();
+        }
+        return repository.buscarSimilares(
+                campo, texto.trim(), anio, Math.clamp(umbral, 0.0, 1.0), Math.clamp(limite, 1, MAX_SIMILARES))
+                .stream()
+                .map(fila -> new ExpedienteSimilarResponse(
+                        ((Number) fila[1]).doubleValue(),
+                        ExpedienteResponse.from((ExpedienteEntity) fila[0])))
+                .toList();
+    }
+
+    /**
+     * Búsqueda flexible en vista resumen.
+     */
+    public Page<ExpedienteResumenResponse> buscarResumen(FiltroExpediente filtro, Pageable pageable) {
+        return repository.buscarResumen(filtro, pageable);
+    }
+
+    /**
+     * Búsqueda con paginación por cursor (keyset) sobre (anio, id).
+     *
+     * Sin OFFSET: cada página continúa desde la clave del último registro de
+     * la anterior, por lo que su costo no crece con la profundidad. El
+     * COUNT(*) solo se ejecuta si {@code contar} es true.
+     *
+     * @param cursor      token de la página anterior (null = primera página)
+     * @param descendente sentido del recorrido; ignorado si hay cursor
+     */
+    public PaginaCursor<ExpedienteResponse> buscarPorCursor(
+            FiltroExpediente filtro, String cursor, int size, boolean descendente, boolean contar) {
+
+        var desde = isBlank(cursor) ? null : CursorExpediente.decodificar(cursor);
+        boolean desc = desde != null ? desde.descendente() : descendente;
+        int limite = Math.clamp(size, 1, MAX_PAGINA_CURSOR);
+
+        // Se pide un registro extra para saber si hay página siguiente sin contar
+        var filas = repository.buscarDesde(filtro, desde, desc, limite + 1);
+        boolean hayMas = filas.size() > limite;
+        if (hayMas) {
+            filas = filas.subList(0, limite);
+        }
+
+        String siguiente = null;
+        if (hayMas) {
+            var ultimo = filas.get(filas.size() - 1);
+            siguiente = new CursorExpediente(desc, ultimo.getAnio(), ultimo.getId()).codificar();
+        }
+
+        Long total = contar ? repository.contar(filtro) : null;
+        return new PaginaCursor<>(
+                filas.stream().map(ExpedienteResponse::from).toList(), siguiente, hayMas, total);
+    }
+
+    /**
+     * Flujo de cambios: expedientes registrados o corregidos después del
+     * cursor, en orden {@code (updated_at, id)} ascendente.
+     *
+     * <p>
+     * updated_at se fija antes del commit, por lo que una transacción lenta
+     * puede confirmar un cambio con fecha anterior a otro ya entregado. Para
+     * no saltarlo, solo se entregan cambios con más de
+     * {@code archivo.cambios.margen} de antigüedad (mayor que la duración
+     * de una transacción de escritura y el desfase de reloj entre nodos).
+     * </p>
+     *
+     * @param cursor token de la respuesta anterior (null = desde el inicio)
+     * @return página cuyo siguienteCursor siempre está presente: con
+     *         {@code hayMas = false} el cliente está al día y vuelve a
+     *         consultar más tarde con el mismo cursor
+     */
+    public PaginaCursor<ExpedienteResponse> buscarCambios(String cursor, int limite) {
+        var desde = isBlank(cursor) ? CursorCambios.INICIO : CursorCambios.decodificar(cursor);
+        int tope = Math.clamp(limite, 1, MAX_CAMBIOS);
+
+        var filas = repository.buscarCambios(desde, Instant.now().minus(margenCambios), tope + 1);
+        boolean hayMas = filas.size() > tope;
+        if (hayMas) {
+            filas = filas.subList(0, tope);
+        }
+
+        var siguiente = filas.isEmpty() ? desde : CursorCambios.de(filas.get(filas.size() - 1));
+        return new PaginaCursor<>(
+                filas.stream().map(ExpedienteResponse::from).toList(), siguiente.codificar(), hayMas, null);
+    }
+
+    /**
+     * Cambios después del cursor y hasta {@code hasta}, sin margen, para el
+     * reenvío de {@link CambiosEmisor}. No es de solo lectura: se lee de la
+     * primaria aunque haya réplicas, para ver todo lo confirmado antes de
+     * la suscripción.
+     */
+    @Transactional
+    public List<ExpedienteResponse> buscarCambios(CursorCambios desde, Instant hasta, int limite) {
+        return repository.buscarCambios(desde, hasta, limite).stream().map(ExpedienteResponse::from).toList();
     }
 
     // -------------------------------------------------------------------------
@@ -102,22 +360,105 @@ public class ExpedienteService {
     /**
      * Corrige los datos de un expediente ya registrado.
      * El id (número de expediente) y año no se pueden cambiar.
+     * Si cambia el tipo, la dependencia o los folios, ajusta las estadísticas.
+     *
+     * @param versionEsperada versión que el cliente editó (If-Match); null = sin verificar
+     * @throws ResponseStatusException 412 si la versión actual es distinta
      */
     @Transactional
-    public ExpedienteResponse actualizar(Integer id, UpdateExpedienteRequest request) {
+    public ExpedienteResponse actualizar(Integer id, UpdateExpedienteRequest request, Integer versionEsperada) {
         var entity = repository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException(
                         "Expediente no encontrado con N° " + id));
 
+        if (versionEsperada != null && entity.getVersion() != versionEsperada) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    "El expediente N° %d fue modificado (versión actual %d)".formatted(id, entity.getVersion()));
+        }
+
+        var anterior = GrupoResumen.de(entity);
         entity.actualizar(request);
-        var saved = repository.save(entity);
-        return ExpedienteResponse.from(saved);
+        // flush: la respuesta (y su ETag) debe llevar la versión y updated_at nuevos
+        var saved = repository.saveAndFlush(entity);
+        estadisticas.mover(anterior, GrupoResumen.de(saved));
+        var response = ExpedienteResponse.from(saved);
+        eventos.publishEvent(new ExpedienteModificado(response, false));
+        return response;
+    }
+
+    // -------------------------------------------------------------------------
+    // NUMERACIÓN
+    // -------------------------------------------------------------------------
+
+    /**
+     * N° no registrados en [desde, hasta] o, con {@code anio}, entre el
+     * primer y el último N° de ese año (los límites dados tienen prioridad).
+     * Se calcula sobre el índice en memoria, sin consultar la base de datos.
+     *
+     * @throws ResponseStatusException 400 si el rango no queda definido o es inválido
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // no usa conexión
+    public HuecosResponse buscarHuecos(Integer desde, Integer hasta, Integer anio) {
+        return numeros.consultar(n -> {
+            Integer inicio = desde;
+            Integer fin = hasta;
+            if (anio != null) {
+                var primero = n.primero(anio);
+                if (primero.isEmpty() && (inicio == null || fin == null)) {
+                    throw new NoSuchElementException("No hay expedientes registrados en el año " + anio);
+                }
+                inicio = inicio != null ? inicio : primero.getAsInt();
+                fin = fin != null ? fin : n.ultimo(anio).getAsInt();
+            }
+            if (inicio == null || fin == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Indique desde y hasta, o el año");
+            }
+            if (inicio < 1 || inicio > fin) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Rango inválido: desde=%d, hasta=%d".formatted(inicio, fin));
+            }
+
+            long registrados = n.registrados(inicio, fin);
+            long faltantes = (long) fin - inicio + 1 - registrados;
+            var rangos = n.huecos(inicio, fin, MAX_RANGOS_HUECOS + 1);
+            boolean truncado = rangos.size() > MAX_RANGOS_HUECOS;
+            if (truncado) {
+                rangos = rangos.subList(0, MAX_RANGOS_HUECOS);
+            }
+            return new HuecosResponse(inicio, fin, registrados, faltantes, rangos, truncado);
+        });
+    }
+
+    /**
+     * Sugiere el N° para un expediente nuevo: el primero libre desde
+     * {@code desde}; sin él, el siguiente al último del año; sin año, el
+     * siguiente al último registrado.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // no usa conexión
+    public NumeroLibreResponse sugerirNumero(Integer anio, Integer desde) {
+        return numeros.consultar(n -> {
+            int base;
+            if (desde != null) {
+                base = desde;
+            } else if (anio != null && n.ultimo(anio).isPresent()) {
+                base = n.ultimo(anio).getAsInt() + 1;
+            } else {
+                base = n.ultimo() + 1;
+            }
+            return new NumeroLibreResponse(n.siguienteLibre(base));
+        });
     }
 
     // -------------------------------------------------------------------------
     // Utilidad privada
     // -------------------------------------------------------------------------
 
+    private static IllegalArgumentException duplicado(Integer id) {
+        return new IllegalArgumentException(
+                "Ya existe un expediente registrado con el N° %d".formatted(id));
+    }
+
     private boolean isBlank(String value) {
         return value == null || value.isBlank();
     }
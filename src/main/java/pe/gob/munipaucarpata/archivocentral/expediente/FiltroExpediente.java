@@ -0,0 +1,103 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Criterios de búsqueda de expedientes (todos opcionales).
+ *
+ * Se construye con {@link #de}, que aplica la misma normalización que el
+ * registro: blancos → null (sin filtro), DNI sin espacios, nombre y
+ * dirigido a en mayúsculas.
+ *
+ * {@link #agregarPredicados} genera SQL solo con los criterios presentes:
+ * cada combinación de filtros es un texto SQL distinto, con su propio plan
+ * (y plan cacheado del prepared statement) que puede usar el índice
+ * adecuado, en lugar de un único plan genérico con "(:x IS NULL OR ...)".
+ */
+public record FiltroExpediente(
+        Integer anio,
+        Integer numero,
+        String dni,
+        String nombre,
+        String dirigidoA,
+        TipoDocumento tipoDocumento,
+        LocalDate fechaDesde,
+        LocalDate fechaHasta) {
+
+    /**
+     * Filtro vacío: equivale a listar todo.
+     */
+    public static final FiltroExpediente TODOS = new FiltroExpediente(null, null, null, null, null, null, null, null);
+
+    public static FiltroExpediente de(
+            Integer anio, Integer numero, String dni, String nombre, String dirigidoA,
+            TipoDocumento tipoDocumento,
+            LocalDate fechaDesde,
+            LocalDate fechaHasta) {
+        return new FiltroExpediente(
+                anio,
+                numero,
+                isBlank(dni) ? null : dni.trim(),
+                isBlank(nombre) ? null : nombre.trim().toUpperCase(),
+                isBlank(dirigidoA) ? null : dirigidoA.trim().toUpperCase(),
+                tipoDocumento,
+                fechaDesde,
+                fechaHasta);
+    }
+
+    /**
+     * Filtro solo por año (listar por año).
+     */
+    public static FiltroExpediente deAnio(Integer anio) {
+        return new FiltroExpediente(anio, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * Agrega a {@code sql} un "AND ..." por cada criterio presente (alias de
+     * tabla {@code e}) y registra sus parámetros nombrados. Los criterios
+     * ausentes no generan predicado, así cada combinación usa sus índices.
+     */
+    void agregarPredicados(StringBuilder sql, Map<String, Object> params) {
+        if (anio() != null) {
+            sql.append(" AND e.anio = :anio");
+            params.put("anio", anio());
+        }
+        if (numero() != null) {
+            sql.append(" AND e.id = :numero");
+            params.put("numero", numero());
+        }
+        if (dni() != null) {
+            sql.append(" AND e.dni = :dni");
+            params.put("dni", dni());
+        }
+        if (tipoDocumento() != null) {
+            sql.append(" AND e.tipo_documento = :tipo");
+            params.put("tipo", tipoDocumento().name());
+        }
+        // Rango de fecha_registro (idx_exp_fecha), ambos extremos inclusivos
+        if (fechaDesde() != null) {
+            sql.append(" AND e.fecha_registro >= :fechaDesde");
+            params.put("fechaDesde", fechaDesde());
+        }
+        if (fechaHasta() != null) {
+            sql.append(" AND e.fecha_registro <= :fechaHasta");
+            params.put("fechaHasta", fechaHasta());
+        }
+        // Subcadena sin mayúsculas ni tildes: se resuelve con los índices GIN trigram
+        if (nombre() != null) {
+            sql.append(" AND archivo.f_normalizar(e.nombre_solicitante)"
+                    + " LIKE '%' || archivo.f_normalizar(:nombre) || '%'");
+            params.put("nombre", nombre());
+        }
+        if (dirigidoA() != null) {
+            sql.append(" AND archivo.f_normalizar(e.dirigido_a)"
+                    + " LIKE '%' || archivo.f_normalizar(:dirigidoA) || '%'");
+            params.put("dirigidoA", dirigidoA());
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
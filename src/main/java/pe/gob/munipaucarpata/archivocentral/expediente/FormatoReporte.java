@@ -0,0 +1,30 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formatos del reporte de inventario ({@link ReporteInventarioService}).
+ */
+public enum FormatoReporte {
+    CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv"),
+    XLSX(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"), "xlsx"),
+    PDF(MediaType.APPLICATION_PDF, "pdf");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    FormatoReporte(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+}
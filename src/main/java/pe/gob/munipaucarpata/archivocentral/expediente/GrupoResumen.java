@@ -0,0 +1,29 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import java.util.Comparator;
+
+/**
+ * Grupo de archivo.resumen_expedientes al que aporta un expediente, con
+ * sus folios.
+ */
+record GrupoResumen(int anio, String tipoDocumento, String dirigidoA, int folios) {
+
+    /**
+     * Orden de la clave primaria. Las filas se actualizan siempre en este
+     * orden para que dos transacciones que mueven expedientes en sentidos
+     * opuestos no se bloqueen mutuamente.
+     */
+    static final Comparator<GrupoResumen> POR_CLAVE = Comparator
+            .comparingInt(GrupoResumen::anio)
+            .thenComparing(GrupoResumen::tipoDocumento)
+            .thenComparing(GrupoResumen::dirigidoA);
+
+    static GrupoResumen de(ExpedienteEntity entity) {
+        return new GrupoResumen(
+                entity.getAnio(), entity.getTipoDocumento().name(), entity.getDirigidoA(), entity.getFolios());
+    }
+
+    boolean mismaClave(GrupoResumen otro) {
+        return POR_CLAVE.compare(this, otro) == 0;
+    }
+}
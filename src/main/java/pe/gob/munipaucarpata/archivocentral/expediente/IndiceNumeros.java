@@ -0,0 +1,271 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Índice en memoria de los N° de expediente registrados
+ * ({@link NumerosRegistrados}).
+ *
+ * <p>
+ * Se carga al iniciar, en segundo plano (una lectura de id y anio con
+ * cursor del servidor), y se mantiene al día con cada registro confirmado
+ * en esta instancia ({@link ExpedienteModificado}) y cada lote importado.
+ * Los registros de otras instancias llegan con las notificaciones de
+ * {@link ExpedienteCache}; cada {@code archivo.numeros.resincronizacion}
+ * se leen además los cambios posteriores del flujo de cambios
+ * ({@code idx_exp_updated_id}), que incluye sus importaciones y las
+ * notificaciones perdidas. Solo se vuelve a cargar completo si la carga
+ * inicial falló.
+ * </p>
+ *
+ * <p>
+ * La lectura incremental no pasa del horizonte seguro
+ * ({@code archivo.cambios.margen} atrás, como GET /cambios): un cambio con
+ * updated_at anterior que se confirma después no queda detrás del cursor.
+ * </p>
+ *
+ * <p>
+ * Como no se eliminan expedientes, un N° presente en el índice está
+ * registrado con certeza; uno ausente puede haberse registrado en otra
+ * instancia desde la última carga (el registro lo resuelve la clave
+ * primaria).
+ * </p>
+ */
+@Component
+public class IndiceNumeros {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceNumeros.class);
+
+    private static final String SQL_NUMEROS = "SELECT id, anio FROM archivo.expedientes";
+
+    private static final String SQL_CAMBIOS = """
+            SELECT id, anio, updated_at FROM archivo.expedientes
+            WHERE (updated_at, id) > (?, ?) AND updated_at <= ?
+            ORDER BY updated_at, id
+            LIMIT ?""";
+
+    /** Filas por ida y vuelta del cursor durante la carga. */
+    private static final int FILAS_POR_LECTURA = 10_000;
+
+    /** Cambios por consulta de la lectura incremental. */
+    private static final int CAMBIOS_POR_LECTURA = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate lectura;
+    private final Duration margen;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Solo lo usa la tarea programada (fixedDelay: nunca en paralelo consigo misma)
+    private CursorCambios cursor;
+
+    // Protegidos por lock
+    private NumerosRegistrados numeros;
+    private List<int[]> pendientes;
+
+    IndiceNumeros(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry registry,
+            @Value("${archivo.cambios.margen:5s}") Duration margen) {
+        // JdbcTemplate propio: el fetch size activa el cursor del servidor en PostgreSQL
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FILAS_POR_LECTURA);
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.margen = margen;
+
+        Gauge.builder("archivo.numeros.registrados", this, i -> i.medir(NumerosRegistrados::cantidad))
+                .description("N° de expediente en el índice en memoria")
+                .register(registry);
+        Gauge.builder("archivo.numeros.memoria", this, i -> i.medir(NumerosRegistrados::bytes))
+                .description("Memoria de los bitmaps del índice de N°")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    // -------------------------------------------------------------------------
+    // CARGA
+    // -------------------------------------------------------------------------
+
+    /**
+     * Carga completa la primera vez (o si falló); después, solo los cambios
+     * posteriores a la última lectura.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${archivo.numeros.resincronizacion:30s}")
+    void sincronizar() {
+        if (cursor == null) {
+            cargar();
+        } else {
+            leerCambios();
+        }
+    }
+
+    /**
+     * Carga completa. Los N° que se agregan mientras tanto se guardan en
+     * {@code pendientes} y se aplican antes de reemplazar el índice, para no
+     * perder los confirmados después de iniciada la lectura.
+     */
+    void cargar() {
+        long inicio = System.nanoTime();
+        // Lo confirmado después del snapshot pero con updated_at anterior
+        // (dentro del margen) lo trae la primera lectura incremental
+        var desde = new CursorCambios(Instant.now().minus(margen).truncatedTo(ChronoUnit.MICROS), 0);
+        escribir(() -> pendientes = new ArrayList<>());
+
+        var nuevos = new NumerosRegistrados();
+        try {
+            lectura.executeWithoutResult(status -> jdbcTemplate.query(SQL_NUMEROS,
+                    rs -> {
+                        nuevos.agregar(rs.getInt(1), rs.getInt(2));
+                    }));
+        } catch (RuntimeException ex) {
+            escribir(() -> pendientes = null);
+            log.warn("No se pudo cargar el índice de N° de expediente: {}", ex.getMessage());
+            return;
+        }
+
+        escribir(() -> {
+            pendientes.forEach(p -> nuevos.agregar(p[0], p[1]));
+            pendientes = null;
+            nuevos.optimizar();
+            numeros = nuevos;
+        });
+        cursor = desde;
+        log.info("Índice de N° de expediente: {} registrados, {} KB, cargado en {} ms",
+                nuevos.cantidad(), nuevos.bytes() / 1024, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Agrega los N° de los cambios posteriores al cursor hasta el horizonte
+     * seguro, por páginas. Un error deja el cursor donde quedó: la próxima
+     * ejecución continúa desde ahí.
+     */
+    void leerCambios() {
+        var hasta = Timestamp.from(Instant.now().minus(margen));
+        try {
+            int leidos;
+            do {
+                var nuevos = new ArrayList<int[]>();
+                var desde = cursor;
+                var ultimo = new CursorCambios[1];
+                lectura.executeWithoutResult(status -> jdbcTemplate.query(SQL_CAMBIOS,
+                        rs -> {
+                            nuevos.add(new int[] { rs.getInt(1), rs.getInt(2) });
+                            ultimo[0] = new CursorCambios(rs.getTimestamp(3).toInstant(), rs.getInt(1));
+                        },
+                        Timestamp.from(desde.updatedAt()), desde.id(), hasta, CAMBIOS_POR_LECTURA));
+                if (!nuevos.isEmpty()) {
+                    escribir(() -> nuevos.forEach(n -> numeros.agregar(n[0], n[1])));
+                    cursor = ultimo[0];
+                }
+                leidos = nuevos.size();
+            } while (leidos == CAMBIOS_POR_LECTURA);
+        } catch (RuntimeException ex) {
+            log.warn("No se pudieron leer los cambios para el índice de N° de expediente: {}", ex.getMessage());
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // ACTUALIZACIÓN
+    // -------------------------------------------------------------------------
+
+    /**
+     * Agrega un N° ya confirmado en la base de datos.
+     */
+    void agregar(int id, int anio) {
+        escribir(() -> {
+            if (numeros != null) {
+                numeros.agregar(id, anio);
+            }
+            if (pendientes != null) {
+                pendientes.add(new int[] { id, anio });
+            }
+        });
+    }
+
+    @TransactionalEventListener
+    void alConfirmar(ExpedienteModificado evento) {
+        if (evento.nuevo()) {
+            agregar(evento.expediente().id(), evento.expediente().anio());
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // CONSULTA
+    // -------------------------------------------------------------------------
+
+    /**
+     * true si el N° está registrado con certeza; false si no lo está o si
+     * el índice aún no se cargó.
+     */
+    public boolean registrado(int id) {
+        lock.readLock().lock();
+        try {
+            return numeros != null && numeros.contiene(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ejecuta una consulta sobre el índice.
+     *
+     * @throws ResponseStatusException 503 si el índice aún se está cargando
+     */
+    public <T> T consultar(Function<NumerosRegistrados, T> consulta) {
+        lock.readLock().lock();
+        try {
+            if (numeros == null) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "El índice de N° de expediente se está cargando; intente en unos segundos");
+            }
+            return consulta.apply(numeros);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Utilidad privada
+    // -------------------------------------------------------------------------
+
+    private void escribir(Runnable accion) {
+        lock.writeLock().lock();
+        try {
+            accion.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private double medir(Function<NumerosRegistrados, Long> medida) {
+        lock.readLock().lock();
+        try {
+            return numeros != null ? medida.apply(numeros) : Double.NaN;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.CreateExpedienteRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * INSERT multi-fila de expedientes nuevos, compartido por la importación
+ * masiva y el registro agrupado.
+ *
+ * <p>
+ * Una sola sentencia inserta las filas con {@code ON CONFLICT DO NOTHING}
+ * y suma las insertadas a archivo.resumen_expedientes (ver
+ * ExpedienteEstadisticaService). Los N° ya registrados no se insertan ni
+ * vuelven en el resultado.
+ * </p>
+ */
+final class InsercionMultifila {
+
+    // ON CONFLICT sin columnas: con la tabla particionada por año no hay
+    // índice único sobre id; ahí los N° repetidos los descarta el trigger
+    // trg_exp_id_unico (06_particionado_anio.sql) y tampoco vuelven en RETURNING.
+    private static final String SQL = """
+            WITH nuevos AS (
+                INSERT INTO archivo.expedientes (
+                    id, anio, fecha_registro, tipo_documento, nro_documento,
+                    nombre_solicitante, dni, asunto, dirigido_a, folios,
+                    archivado_con, observaciones)
+                VALUES %s
+                ON CONFLICT DO NOTHING
+                RETURNING %s
+            ), resumen AS (
+                INSERT INTO archivo.resumen_expedientes AS r (anio, tipo_documento, dirigido_a, cantidad, folios)
+                SELECT anio, tipo_documento, dirigido_a, COUNT(*), SUM(folios)
+                FROM nuevos
+                GROUP BY anio, tipo_documento, dirigido_a
+                ORDER BY anio, tipo_documento, dirigido_a
+                ON CONFLICT (anio, tipo_documento, dirigido_a) DO UPDATE
+                SET cantidad = r.cantidad + EXCLUDED.cantidad,
+                    folios   = r.folios + EXCLUDED.folios
+            )
+            SELECT * FROM nuevos
+            """;
+
+    private static final String VALORES_FILA = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /** Columnas que necesita el resumen, más el N°. */
+    static final String RETORNO_MINIMO = "id, anio, tipo_documento, dirigido_a, folios";
+
+    /** Todas las columnas de ExpedienteResponse. */
+    static final String RETORNO_COMPLETO = "id, anio, fecha_registro, tipo_documento, nro_documento, "
+            + "nombre_solicitante, dni, asunto, dirigido_a, folios, archivado_con, observaciones, "
+            + "created_at, updated_at, version";
+
+    private InsercionMultifila() {
+    }
+
+    /**
+     * SQL para {@code filas} filas, devolviendo las columnas {@code retorno}
+     * de las insertadas. 12 parámetros por fila: PostgreSQL admite hasta
+     * ~2700 filas por sentencia.
+     */
+    static String sql(int filas, String retorno) {
+        return SQL.formatted(String.join(", ", Collections.nCopies(filas, VALORES_FILA)), retorno);
+    }
+
+    /**
+     * Parámetros en el orden de {@link #sql}, con la misma normalización que
+     * el registro individual (trim/mayúsculas).
+     */
+    static Object[] parametros(List<CreateExpedienteRequest> requests) {
+        var args = new ArrayList<Object>(requests.size() * 12);
+        for (var request : requests) {
+            var e = ExpedienteEntity.crear(request);
+            args.add(e.getId());
+            args.add(e.getAnio());
+            args.add(e.getFechaRegistro());
+            args.add(e.getTipoDocumento().name());
+            args.add(e.getNroDocumento());
+            args.add(e.getNombreSolicitante());
+            args.add(e.getDni());
+            args.add(e.getAsunto());
+            args.add(e.getDirigidoA());
+            args.add(e.getFolios());
+            args.add(e.getArchivadoCon());
+            args.add(e.getObservaciones());
+        }
+        return args.toArray();
+    }
+}
@@ -0,0 +1,119 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import org.roaringbitmap.RoaringBitmap;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.RangoNumeros;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * Conjunto de N° de expediente registrados, en total y por año, como
+ * bitmaps comprimidos (Roaring): cada bloque de 65536 N° se guarda como
+ * lista ordenada, bitmap o secuencia de rangos según cuál ocupe menos.
+ * Una numeración casi consecutiva de millones de expedientes ocupa pocos
+ * KB y se consulta en tiempo casi constante.
+ *
+ * <p>
+ * No es seguro entre hilos: ver {@link IndiceNumeros}.
+ * </p>
+ */
+public final class NumerosRegistrados {
+
+    private final RoaringBitmap todos = new RoaringBitmap();
+    private final Map<Integer, RoaringBitmap> porAnio = new HashMap<>();
+
+    public void agregar(int id, int anio) {
+        todos.add(id);
+        porAnio.computeIfAbsent(anio, a -> new RoaringBitmap()).add(id);
+    }
+
+    public boolean contiene(int id) {
+        return todos.contains(id);
+    }
+
+    public long cantidad() {
+        return todos.getLongCardinality();
+    }
+
+    /**
+     * Primer N° registrado en el año, si tiene alguno.
+     */
+    public OptionalInt primero(int anio) {
+        var delAnio = porAnio.get(anio);
+        return delAnio == null || delAnio.isEmpty() ? OptionalInt.empty() : OptionalInt.of(delAnio.first());
+    }
+
+    /**
+     * Último N° registrado en el año, si tiene alguno.
+     */
+    public OptionalInt ultimo(int anio) {
+        var delAnio = porAnio.get(anio);
+        return delAnio == null || delAnio.isEmpty() ? OptionalInt.empty() : OptionalInt.of(delAnio.last());
+    }
+
+    /**
+     * Último N° registrado en cualquier año (0 si no hay ninguno).
+     */
+    public int ultimo() {
+        return todos.isEmpty() ? 0 : todos.last();
+    }
+
+    /**
+     * Cantidad de N° registrados en [desde, hasta].
+     */
+    public long registrados(int desde, int hasta) {
+        return todos.rangeCardinality(desde, (long) hasta + 1);
+    }
+
+    /**
+     * Rangos de N° no registrados en [desde, hasta], en orden, hasta
+     * {@code maxRangos}. Salta de un N° presente al siguiente ausente y
+     * viceversa, por lo que el costo depende de la cantidad de huecos, no
+     * del ancho del rango.
+     */
+    public List<RangoNumeros> huecos(int desde, int hasta, int maxRangos) {
+        var rangos = new ArrayList<RangoNumeros>();
+        long x = desde;
+        while (x <= hasta && rangos.size() < maxRangos) {
+            long inicio = todos.nextAbsentValue((int) x);
+            if (inicio > hasta) {
+                break;
+            }
+            long siguiente = todos.nextValue((int) inicio);
+            long fin = siguiente < 0 || siguiente > hasta ? hasta : siguiente - 1;
+            rangos.add(new RangoNumeros((int) inicio, (int) fin));
+            x = fin + 1;
+        }
+        return rangos;
+    }
+
+    /**
+     * Primer N° libre mayor o igual a {@code desde}.
+     */
+    public int siguienteLibre(int desde) {
+        return (int) Math.min(todos.nextAbsentValue(Math.max(desde, 1)), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Convierte los bloques con secuencias largas a rangos. Llamar tras una
+     * carga completa.
+     */
+    public void optimizar() {
+        todos.runOptimize();
+        porAnio.values().forEach(RoaringBitmap::runOptimize);
+    }
+
+    /**
+     * Memoria ocupada por los bitmaps (aproximada).
+     */
+    public long bytes() {
+        long bytes = todos.getLongSizeInBytes();
+        for (var delAnio : porAnio.values()) {
+            bytes += delAnio.getLongSizeInBytes();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,258 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.CreateExpedienteRequest;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteResponse;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Registro agrupado (group commit) para campañas de digitalización con
+ * muchos registros simultáneos.
+ *
+ * <p>
+ * Cada {@link #registrar} encola su solicitud y espera. Un único hilo
+ * escritor toma la primera solicitud, junta las que lleguen durante
+ * {@code ventana} (o hasta {@code max-filas}) y las inserta en una sola
+ * transacción con un INSERT multi-fila {@code ON CONFLICT DO NOTHING}
+ * ({@link InsercionMultifila}): un commit (un fsync) por grupo en lugar de
+ * uno por expediente, con una sola conexión del pool.
+ * </p>
+ *
+ * <p>
+ * Cada solicitud recibe su propio resultado: el expediente creado o 409
+ * si el N° ya existía (o se repitió dentro del grupo). El resultado se
+ * entrega recién después del commit: la durabilidad es la misma que la
+ * del registro individual. Si el grupo falla, sus filas se reintentan de a
+ * una para que una fila con problemas no afecte a las demás.
+ * </p>
+ *
+ * Se activa con {@code archivo.registro.agrupado.habilitado=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "archivo.registro.agrupado.habilitado", havingValue = "true")
+public class RegistroAgrupado implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistroAgrupado.class);
+
+    private static final RowMapper<ExpedienteResponse> FILA = (rs, i) -> new ExpedienteResponse(
+            rs.getInt("id"),
+            rs.getInt("anio"),
+            rs.getObject("fecha_registro", LocalDate.class),
+            TipoDocumento.valueOf(rs.getString("tipo_documento")),
+            rs.getString("nro_documento"),
+            rs.getString("nombre_solicitante"),
+            rs.getString("dni"),
+            rs.getString("asunto"),
+            rs.getString("dirigido_a"),
+            rs.getInt("folios"),
+            rs.getString("archivado_con"),
+            rs.getString("observaciones"),
+            rs.getTimestamp("created_at").toInstant(),
+            rs.getTimestamp("updated_at").toInstant(),
+            rs.getInt("version"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final ApplicationEventPublisher eventos;
+    private final IndiceNumeros numeros;
+    private final BlockingQueue<Solicitud> cola;
+    private final long ventanaNanos;
+    private final int maxFilas;
+    private final Duration espera;
+    private final DistributionSummary filasPorGrupo;
+    private final Timer commitGrupo;
+    private final Thread escritor;
+    private volatile boolean activo = true;
+
+    RegistroAgrupado(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ApplicationEventPublisher eventos,
+            IndiceNumeros numeros,
+            MeterRegistry registry,
+            @Value("${archivo.registro.agrupado.ventana:5ms}") Duration ventana,
+            @Value("${archivo.registro.agrupado.max-filas:200}") int maxFilas,
+            @Value("${archivo.registro.agrupado.capacidad:10000}") int capacidad,
+            @Value("${archivo.registro.agrupado.espera:10s}") Duration espera) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.eventos = eventos;
+        this.numeros = numeros;
+        this.cola = new LinkedBlockingQueue<>(capacidad);
+        this.ventanaNanos = ventana.toNanos();
+        this.maxFilas = Math.min(maxFilas, 2000);
+        this.espera = espera;
+
+        this.filasPorGrupo = DistributionSummary.builder("archivo.registro.agrupado.filas")
+                .description("Expedientes por commit del registro agrupado")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.commitGrupo = Timer.builder("archivo.registro.agrupado.commit")
+                .description("Duración de la transacción de cada grupo")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+
+        this.escritor = new Thread(this::escribir, "registro-agrupado");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    /**
+     * Encola el registro y espera el commit de su grupo.
+     *
+     * @throws IllegalArgumentException si el N° ya está registrado (409)
+     * @throws ResponseStatusException  503 si la cola está llena o el
+     *                                  grupo no se confirmó a tiempo
+     */
+    public ExpedienteResponse registrar(CreateExpedienteRequest request) {
+        if (numeros.registrado(request.id())) {
+            throw duplicado(request.id());
+        }
+        var solicitud = new Solicitud(request, new CompletableFuture<>());
+        if (!cola.offer(solicitud)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Demasiados registros en espera; intente nuevamente");
+        }
+        try {
+            return solicitud.resultado().get(espera.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            // El grupo puede confirmarse después: el cliente debe verificar antes de reintentar
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "El registro del N° %d no se confirmó a tiempo; verifique antes de reintentar".formatted(request.id()));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Registro interrumpido");
+        }
+    }
+
+    @Override
+    public void destroy() {
+        activo = false;
+        escritor.interrupt();
+    }
+
+    // -------------------------------------------------------------------------
+    // Hilo escritor
+    // -------------------------------------------------------------------------
+
+    private void escribir() {
+        var grupo = new ArrayList<Solicitud>(maxFilas);
+        while (activo) {
+            try {
+                grupo.add(cola.take());
+                long limite = System.nanoTime() + ventanaNanos;
+                while (grupo.size() < maxFilas) {
+                    long resta = limite - System.nanoTime();
+                    var siguiente = resta > 0 ? cola.poll(resta, TimeUnit.NANOSECONDS) : cola.poll();
+                    if (siguiente == null) {
+                        break;
+                    }
+                    grupo.add(siguiente);
+                }
+                confirmar(grupo);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException ex) {
+                log.error("Error inesperado en el registro agrupado", ex);
+                grupo.forEach(s -> s.resultado().completeExceptionally(ex));
+            } finally {
+                grupo.clear();
+            }
+        }
+        // Al detenerse, las solicitudes pendientes no quedan esperando
+        var servicioDetenido = new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Servicio deteniéndose");
+        cola.forEach(s -> s.resultado().completeExceptionally(servicioDetenido));
+    }
+
+    /**
+     * Inserta el grupo en una transacción y entrega los resultados tras el
+     * commit. Un N° repetido dentro del grupo: gana la primera solicitud.
+     */
+    private void confirmar(List<Solicitud> grupo) {
+        var porId = new HashMap<Integer, Solicitud>();
+        var unicos = new ArrayList<Solicitud>(grupo.size());
+        for (var s : grupo) {
+            if (porId.putIfAbsent(s.request().id(), s) == null) {
+                unicos.add(s);
+            } else {
+                s.resultado().completeExceptionally(duplicado(s.request().id()));
+            }
+        }
+
+        List<ExpedienteResponse> insertados;
+        long inicio = System.nanoTime();
+        try {
+            insertados = transaccion.execute(status -> insertar(unicos));
+        } catch (RuntimeException ex) {
+            if (unicos.size() == 1) {
+                unicos.get(0).resultado().completeExceptionally(ex);
+                return;
+            }
+            log.warn("Falló un grupo de {} registros, se reintentan de a uno: {}", unicos.size(), ex.getMessage());
+            unicos.forEach(s -> confirmar(List.of(s)));
+            return;
+        }
+        commitGrupo.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        filasPorGrupo.record(unicos.size());
+
+        // Después del commit: recién aquí el cliente recibe 201
+        for (var e : insertados) {
+            porId.remove(e.id()).resultado().complete(e);
+        }
+        porId.values().stream()
+                .filter(s -> !s.resultado().isDone())
+                .forEach(s -> s.resultado().completeExceptionally(duplicado(s.request().id())));
+    }
+
+    private List<ExpedienteResponse> insertar(List<Solicitud> grupo) {
+        var requests = grupo.stream().map(Solicitud::request).toList();
+        var insertados = jdbcTemplate.query(
+                InsercionMultifila.sql(requests.size(), InsercionMultifila.RETORNO_COMPLETO),
+                FILA,
+                InsercionMultifila.parametros(requests));
+        // Dentro de la transacción: los oyentes transaccionales (SSE, índice de
+        // N°, caché) actúan al confirmarse, igual que en el registro individual
+        insertados.forEach(e -> eventos.publishEvent(new ExpedienteModificado(e, true)));
+        return insertados;
+    }
+
+    private static IllegalArgumentException duplicado(Integer id) {
+        return new IllegalArgumentException(
+                "Ya existe un expediente registrado con el N° %d".formatted(id));
+    }
+
+    private record Solicitud(CreateExpedienteRequest request, CompletableFuture<ExpedienteResponse> resultado) {
+    }
+}
@@ -0,0 +1,525 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import pe.gob.munipaucarpata.archivocentral.expediente.EscritorInventario.Encabezado;
+import pe.gob.munipaucarpata.archivocentral.expediente.EscritorInventario.FilaInventario;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ReporteInventarioRequest;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ReporteInventarioResponse;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ReporteInventarioResponse.Estado;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reporte de inventario de transferencia de un año, generado en segundo
+ * plano.
+ *
+ * <p>
+ * {@link #solicitar} registra un trabajo y responde de inmediato con su
+ * id; el cliente consulta el avance con {@link #consultar} y descarga el
+ * archivo con {@link #archivo}. Los trabajos corren en un pool acotado
+ * ({@code archivo.reportes.hilos}, con {@code archivo.reportes.cola} en
+ * espera; más allá, 503): cada uno ocupa una conexión durante toda la
+ * generación, nunca un hilo de petición.
+ * </p>
+ *
+ * <p>
+ * Las filas se leen con cursor del servidor, ordenadas por tipo de
+ * documento, y se escriben a medida que llegan ({@link EscritorInventario}):
+ * la memoria no depende del tamaño del año. El conteo (para el avance) y
+ * las filas salen de la misma instantánea (REPEATABLE READ).
+ * </p>
+ *
+ * <p>
+ * Caché en disco: el archivo se guarda con una clave de formato, filtros y
+ * max(updated_at) del año. Como no se eliminan expedientes ni cambian de
+ * año, cualquier registro o corrección del año cambia esa clave; un pedido
+ * idéntico sin cambios de por medio se responde con el archivo existente.
+ * Si el último cambio tiene menos de {@code archivo.cambios.margen} podría
+ * haber transacciones anteriores aún sin confirmar: ese reporte se genera
+ * igual, pero no se reutiliza. Los trabajos se guardan en memoria de la
+ * instancia; el directorio puede compartirse entre instancias.
+ * </p>
+ */
+@Service
+public class ReporteInventarioService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReporteInventarioService.class);
+
+    private static final String SQL_FILAS = """
+            SELECT e.id, e.fecha_registro, e.tipo_documento, e.nro_documento, e.nombre_solicitante,
+                   e.dni, e.asunto, e.dirigido_a, e.folios, e.archivado_con
+            FROM archivo.expedientes e
+            WHERE TRUE""";
+
+    private static final String SQL_CONTEO = "SELECT count(*) FROM archivo.expedientes e WHERE TRUE";
+
+    /**
+     * Con la tabla particionada por año, el índice (updated_at, id) de la
+     * partición lee una sola entrada. Sin particionar recorre los
+     * expedientes del año por idx_exp_anio (proporcional al año, no a la tabla).
+     */
+    private static final String SQL_ULTIMO_CAMBIO = "SELECT max(updated_at) FROM archivo.expedientes WHERE anio = ?";
+
+    private static final String PREFIJO = "inventario-";
+    private static final String TEMPORAL = ".tmp";
+
+    private static final ZoneId ZONA = ZoneId.of("America/Lima");
+    private static final DateTimeFormatter GENERADO = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate lectura;
+    private final Path directorio;
+    private final Duration margen;
+    private final Duration retencion;
+    private final ThreadPoolExecutor ejecutor;
+    private final Map<String, Trabajo> trabajos = new ConcurrentHashMap<>();
+    /** Trabajos en cola o en proceso por clave de caché: un pedido repetido se une al existente. */
+    private final Map<String, Trabajo> enCurso = new ConcurrentHashMap<>();
+    private final Timer generacion;
+    private final Counter aciertos;
+    private final Counter fallos;
+
+    ReporteInventarioService(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry registry,
+            @Value("${archivo.reportes.directorio:${java.io.tmpdir}/archivo-reportes}") Path directorio,
+            @Value("${archivo.reportes.hilos:2}") int hilos,
+            @Value("${archivo.reportes.cola:20}") int cola,
+            @Value("${archivo.reportes.retencion:7d}") Duration retencion,
+            @Value("${archivo.exportacion.fetch-size:1000}") int fetchSize,
+            @Value("${archivo.cambios.margen:5s}") Duration margen) throws IOException {
+        // JdbcTemplate propio: el fetch size activa el cursor del servidor en PostgreSQL
+        var jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        this.jdbc = new NamedParameterJdbcTemplate(jdbcTemplate);
+
+        // Conteo y filas de una misma instantánea; el último cambio se lee del
+        // mismo servidor que las filas (réplica, si las lecturas van a una)
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.lectura.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+
+        this.directorio = Files.createDirectories(directorio);
+        this.margen = margen;
+        this.retencion = retencion;
+
+        var numero = new AtomicInteger();
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola), r -> {
+                    var hilo = new Thread(r, "reporte-inventario-" + numero.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+
+        this.generacion = Timer.builder("archivo.reportes.generacion")
+                .description("Duración de la generación de reportes de inventario")
+                .register(registry);
+        this.aciertos = Counter.builder("archivo.reportes.solicitudes").tag("cache", "acierto").register(registry);
+        this.fallos = Counter.builder("archivo.reportes.solicitudes").tag("cache", "fallo").register(registry);
+        Gauge.builder("archivo.reportes.cola", ejecutor, e -> e.getQueue().size())
+                .description("Reportes en espera de un hilo")
+                .register(registry);
+    }
+
+    // -------------------------------------------------------------------------
+    // API
+    // -------------------------------------------------------------------------
+
+    /**
+     * Registra el trabajo. Si el archivo de la misma clave ya existe, el
+     * trabajo nace terminado; si otro igual está en curso, devuelve ese.
+     *
+     * @throws ResponseStatusException 503 si la cola de reportes está llena
+     */
+    public ReporteInventarioResponse solicitar(ReporteInventarioRequest request) {
+        var formato = request.formato() != null ? request.formato() : FormatoReporte.XLSX;
+        var filtro = FiltroExpediente.de(request.anio(), null, request.dni(), request.nombre(),
+                request.dirigidoA(), request.tipoDocumento(), request.fechaDesde(), request.fechaHasta());
+
+        var clave = clave(filtro, formato);
+        if (clave != null) {
+            var existente = enCurso.get(clave);
+            if (existente != null) {
+                aciertos.increment();
+                return existente.respuesta();
+            }
+            var archivo = directorio.resolve(PREFIJO + clave + "." + formato.extension());
+            if (Files.exists(archivo)) {
+                aciertos.increment();
+                var trabajo = new Trabajo(filtro, formato, null);
+                trabajo.desdeCache(archivo);
+                trabajos.put(trabajo.id, trabajo);
+                return trabajo.respuesta();
+            }
+        }
+        fallos.increment();
+
+        var trabajo = new Trabajo(filtro, formato, clave);
+        if (clave != null) {
+            var existente = enCurso.putIfAbsent(clave, trabajo);
+            if (existente != null) {
+                return existente.respuesta();
+            }
+        }
+        trabajos.put(trabajo.id, trabajo);
+        try {
+            ejecutor.execute(() -> generar(trabajo));
+        } catch (RejectedExecutionException ex) {
+            trabajos.remove(trabajo.id);
+            if (clave != null) {
+                enCurso.remove(clave, trabajo);
+            }
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Demasiados reportes en espera; intente más tarde");
+        }
+        return trabajo.respuesta();
+    }
+
+    /**
+     * @throws NoSuchElementException si el trabajo no existe (o ya venció)
+     */
+    public ReporteInventarioResponse consultar(String id) {
+        return buscar(id).respuesta();
+    }
+
+    /**
+     * Archivo de un trabajo terminado.
+     *
+     * @throws NoSuchElementException  si el trabajo o su archivo no existen
+     * @throws ResponseStatusException 409 si aún no terminó o falló
+     */
+    public ArchivoReporte archivo(String id) {
+        var trabajo = buscar(id);
+        if (trabajo.estado != Estado.TERMINADO) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "El reporte %s no está disponible (estado %s)".formatted(id, trabajo.estado));
+        }
+        if (!Files.exists(trabajo.archivo)) {
+            throw new NoSuchElementException("El archivo del reporte %s ya no existe; vuelva a solicitarlo".formatted(id));
+        }
+        var nombre = "inventario-" + trabajo.filtro.anio() + "." + trabajo.formato.extension();
+        return new ArchivoReporte(trabajo.archivo, trabajo.formato, nombre);
+    }
+
+    /**
+     * @param nombre nombre sugerido para la descarga
+     */
+    public record ArchivoReporte(Path ruta, FormatoReporte formato, String nombre) {
+    }
+
+    @Override
+    public void destroy() {
+        ejecutor.shutdownNow();
+    }
+
+    // -------------------------------------------------------------------------
+    // Generación
+    // -------------------------------------------------------------------------
+
+    private void generar(Trabajo trabajo) {
+        trabajo.estado = Estado.EN_PROCESO;
+        trabajo.inicio = System.nanoTime();
+        Path temporal = null;
+        try {
+            temporal = Files.createTempFile(directorio, PREFIJO, TEMPORAL);
+            var sql = new StringBuilder(SQL_FILAS);
+            var conteo = new StringBuilder(SQL_CONTEO);
+            var params = new LinkedHashMap<String, Object>();
+            trabajo.filtro.agregarPredicados(sql, params);
+            trabajo.filtro.agregarPredicados(conteo, params);
+            sql.append(" ORDER BY e.tipo_documento ASC, e.id ASC");
+
+            var destino = temporal;
+            long inicio = System.nanoTime();
+            lectura.executeWithoutResult(status -> {
+                trabajo.filasTotales = jdbc.queryForObject(conteo.toString(), params, Long.class);
+                try (var salida = new BufferedOutputStream(Files.newOutputStream(destino), 64 * 1024);
+                        var escritor = EscritorInventario.para(trabajo.formato, salida)) {
+                    escritor.inicio(encabezado(trabajo.filtro));
+                    var agrupador = new Agrupador(escritor, trabajo.filasProcesadas);
+                    jdbc.query(sql.toString(), params, agrupador::fila);
+                    agrupador.fin();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            generacion.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+
+            var nombre = PREFIJO + (trabajo.clave != null ? trabajo.clave : trabajo.id) + "." + trabajo.formato.extension();
+            var archivo = Files.move(temporal, directorio.resolve(nombre),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            trabajo.terminar(archivo);
+            log.info("Reporte {} ({} {}): {} filas en {} ms", trabajo.id, trabajo.formato, trabajo.filtro.anio(),
+                    trabajo.filasProcesadas.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        } catch (Exception ex) {
+            log.error("Falló el reporte {} ({} {})", trabajo.id, trabajo.formato, trabajo.filtro.anio(), ex);
+            trabajo.fallar();
+            if (temporal != null) {
+                try {
+                    Files.deleteIfExists(temporal);
+                } catch (IOException e) {
+                    log.warn("No se pudo borrar {}", temporal, e);
+                }
+            }
+        } finally {
+            if (trabajo.clave != null) {
+                enCurso.remove(trabajo.clave, trabajo);
+            }
+        }
+    }
+
+    /**
+     * Recorre las filas (ordenadas por tipo) y emite grupos, subtotales y
+     * total al escritor.
+     */
+    private static final class Agrupador {
+
+        private final EscritorInventario escritor;
+        private final AtomicLong procesadas;
+        private TipoDocumento actual;
+        private long cantidad;
+        private long folios;
+        private long totalFolios;
+
+        Agrupador(EscritorInventario escritor, AtomicLong procesadas) {
+            this.escritor = escritor;
+            this.procesadas = procesadas;
+        }
+
+        void fila(ResultSet rs) throws SQLException {
+            var tipo = TipoDocumento.valueOf(rs.getString("tipo_documento"));
+            try {
+                if (tipo != actual) {
+                    cerrarGrupo();
+                    escritor.grupo(tipo);
+                    actual = tipo;
+                }
+                int foliosFila = rs.getInt("folios");
+                escritor.fila(new FilaInventario(
+                        procesadas.get() + 1,
+                        tipo,
+                        rs.getInt("id"),
+                        rs.getObject("fecha_registro", LocalDate.class),
+                        rs.getString("nro_documento"),
+                        rs.getString("nombre_solicitante"),
+                        rs.getString("dni"),
+                        rs.getString("asunto"),
+                        rs.getString("dirigido_a"),
+                        foliosFila,
+                        rs.getString("archivado_con")));
+                cantidad++;
+                folios += foliosFila;
+                totalFolios += foliosFila;
+                procesadas.incrementAndGet();
+            } catch (IOException ex) {
+                // Disco lleno u otro error de escritura: se aborta la consulta
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        void fin() throws IOException {
+            cerrarGrupo();
+            escritor.fin(procesadas.get(), totalFolios);
+        }
+
+        private void cerrarGrupo() throws IOException {
+            if (actual != null) {
+                escritor.subtotal(actual, cantidad, folios);
+            }
+            cantidad = 0;
+            folios = 0;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Limpieza
+    // -------------------------------------------------------------------------
+
+    /**
+     * Olvida los trabajos y borra los archivos (y temporales de generaciones
+     * interrumpidas) con más de {@code archivo.reportes.retencion}.
+     */
+    @Scheduled(initialDelayString = "${archivo.reportes.limpieza:1h}", fixedDelayString = "${archivo.reportes.limpieza:1h}")
+    void limpiar() {
+        var limite = Instant.now().minus(retencion);
+        trabajos.values().removeIf(t -> t.terminado != null && t.terminado.isBefore(limite));
+        int borrados = 0;
+        try (var archivos = Files.list(directorio)) {
+            for (var archivo : archivos.filter(p -> p.getFileName().toString().startsWith(PREFIJO)).toList()) {
+                if (Files.getLastModifiedTime(archivo).toInstant().isBefore(limite) && Files.deleteIfExists(archivo)) {
+                    borrados++;
+                }
+            }
+        } catch (IOException ex) {
+            log.warn("No se pudo limpiar {}", directorio, ex);
+        }
+        if (borrados > 0) {
+            log.info("Reportes vencidos borrados: {}", borrados);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Utilidad privada
+    // -------------------------------------------------------------------------
+
+    private Trabajo buscar(String id) {
+        var trabajo = trabajos.get(id);
+        if (trabajo == null) {
+            throw new NoSuchElementException("No existe el reporte " + id);
+        }
+        return trabajo;
+    }
+
+    /**
+     * Clave de caché: formato, filtro y último cambio del año. null si ese
+     * cambio es demasiado reciente para darlo por estable.
+     */
+    private String clave(FiltroExpediente filtro, FormatoReporte formato) {
+        var ultimoCambio = lectura.execute(status -> jdbc.getJdbcTemplate()
+                .queryForObject(SQL_ULTIMO_CAMBIO, OffsetDateTime.class, filtro.anio()));
+        if (ultimoCambio != null && ultimoCambio.toInstant().isAfter(Instant.now().minus(margen))) {
+            return null;
+        }
+        var texto = String.join("|", formato.name(), String.valueOf(filtro), String.valueOf(ultimoCambio));
+        try {
+            var hash = MessageDigest.getInstance("SHA-256").digest(texto.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static Encabezado encabezado(FiltroExpediente filtro) {
+        var detalle = new StringBuilder("Archivo Central - MDP");
+        if (filtro.tipoDocumento() != null) {
+            detalle.append(" | Tipo: ").append(filtro.tipoDocumento());
+        }
+        if (filtro.dirigidoA() != null) {
+            detalle.append(" | Dirigido a: ").append(filtro.dirigidoA());
+        }
+        if (filtro.nombre() != null) {
+            detalle.append(" | Solicitante: ").append(filtro.nombre());
+        }
+        if (filtro.dni() != null) {
+            detalle.append(" | DNI: ").append(filtro.dni());
+        }
+        if (filtro.fechaDesde() != null || filtro.fechaHasta() != null) {
+            detalle.append(" | Fechas: ").append(filtro.fechaDesde() != null ? filtro.fechaDesde() : "...")
+                    .append(" a ").append(filtro.fechaHasta() != null ? filtro.fechaHasta() : "...");
+        }
+        detalle.append(" | Generado: ").append(GENERADO.format(Instant.now().atZone(ZONA)));
+        return new Encabezado("INVENTARIO DE TRANSFERENCIA - AÑO " + filtro.anio(), detalle.toString());
+    }
+
+    /**
+     * Estado de un trabajo. Lo escribe su hilo del pool y lo leen las
+     * consultas de avance (campos volátiles).
+     */
+    private static final class Trabajo {
+
+        final String id = UUID.randomUUID().toString();
+        final FiltroExpediente filtro;
+        final FormatoReporte formato;
+        /** null: no se reutiliza (cambios demasiado recientes o acierto de caché). */
+        final String clave;
+        final Instant solicitado = Instant.now();
+        final AtomicLong filasProcesadas = new AtomicLong();
+        volatile Estado estado = Estado.EN_COLA;
+        volatile Long filasTotales;
+        volatile long inicio;
+        volatile Instant terminado;
+        volatile Path archivo;
+        volatile boolean desdeCache;
+        volatile Double filasPorSegundo;
+        volatile String error;
+
+        Trabajo(FiltroExpediente filtro, FormatoReporte formato, String clave) {
+            this.filtro = filtro;
+            this.formato = formato;
+            this.clave = clave;
+        }
+
+        void desdeCache(Path archivo) {
+            this.archivo = archivo;
+            this.desdeCache = true;
+            this.terminado = Instant.now();
+            this.estado = Estado.TERMINADO;
+        }
+
+        void terminar(Path archivo) {
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            this.filasPorSegundo = segundos > 0 ? filasProcesadas.get() / segundos : null;
+            this.archivo = archivo;
+            this.terminado = Instant.now();
+            this.estado = Estado.TERMINADO;
+        }
+
+        void fallar() {
+            // El detalle queda en el log, como en GlobalExceptionHandler
+            this.error = "Error al generar el reporte. Contacte al administrador.";
+            this.terminado = Instant.now();
+            this.estado = Estado.FALLIDO;
+        }
+
+        ReporteInventarioResponse respuesta() {
+            var total = filasTotales;
+            long procesadas = filasProcesadas.get();
+            Double porcentaje = switch (estado) {
+                case TERMINADO -> 100.0;
+                case EN_COLA -> 0.0;
+                default -> total == null ? null : total == 0 ? 100.0 : Math.min(100.0, procesadas * 100.0 / total);
+            };
+            return new ReporteInventarioResponse(
+                    id, estado, formato, filtro.anio(),
+                    procesadas, total, porcentaje, desdeCache,
+                    solicitado, terminado, filasPorSegundo, error,
+                    estado == Estado.TERMINADO ? "/api/expedientes/reportes/" + id + "/archivo" : null);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import java.time.Instant;
+
+/**
+ * Versión (@Version) y fecha de última modificación de un expediente,
+ * sin cargar el resto de columnas. Base de su ETag y Last-Modified.
+ */
+public record VersionExpediente(int version, Instant updatedAt) {
+}
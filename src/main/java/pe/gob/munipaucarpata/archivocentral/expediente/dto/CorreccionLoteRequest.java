@@ -0,0 +1,33 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+
+import java.util.List;
+
+/**
+ * DTO de entrada de la corrección masiva: cada ítem lleva el N° de
+ * expediente, la versión que el cliente editó y los datos corregidos
+ * (mismas reglas que PUT /api/expedientes/{id}).
+ */
+public record CorreccionLoteRequest(
+
+                @NotEmpty(message = "Debe indicar al menos una corrección") List<@NotNull(message = "Corrección es requerida") @Valid Item> correcciones
+
+) {
+    /**
+     * Corrección de un expediente.
+     *
+     * @param id      N° de expediente
+     * @param version versión leída por el cliente (campo version o ETag del GET)
+     * @param datos   datos corregidos
+     */
+    public record Item(
+
+                    @NotNull(message = "N° de Expediente es requerido") @Min(value = 1, message = "N° de Expediente debe ser mayor a 0") Integer id,
+
+                    @NotNull(message = "Versión es requerida") @Min(value = 0, message = "Versión no puede ser negativa") Integer version,
+
+                    @NotNull(message = "Datos son requeridos") @Valid UpdateExpedienteRequest datos) {
+    }
+}
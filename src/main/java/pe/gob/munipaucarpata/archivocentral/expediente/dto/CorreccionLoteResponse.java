@@ -0,0 +1,44 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+import java.util.List;
+
+/**
+ * DTO de salida de la corrección masiva.
+ *
+ * Cada corrección se resuelve por separado: un conflicto de versión o un
+ * N° inexistente no impide aplicar las demás. Los resultados siguen el
+ * orden de la solicitud.
+ */
+public record CorreccionLoteResponse(
+
+        int total,
+        int corregidos,
+        int conflictos,
+        int noEncontrados,
+        long duracionMs,
+        List<Resultado> resultados
+
+) {
+    public enum Estado {
+        /** Corrección aplicada. */
+        CORREGIDO,
+        /** Otro usuario modificó el expediente después de la versión indicada. */
+        CONFLICTO_VERSION,
+        /** No existe un expediente con ese N°. */
+        NO_ENCONTRADO
+    }
+
+    /**
+     * Resultado de una corrección.
+     *
+     * @param id      N° de expediente
+     * @param estado  resultado
+     * @param version versión nueva si se corrigió, versión actual si hubo
+     *                conflicto; null si no existe
+     */
+    public record Resultado(
+            Integer id,
+            Estado estado,
+            Integer version) {
+    }
+}
@@ -0,0 +1,18 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+/**
+ * DTO de salida de las estadísticas: un grupo de la dimensión pedida
+ * (año, tipo de documento o dependencia destino).
+ *
+ * @param clave    valor del grupo (ej: "2024", "OFICIO", "GERENCIA MUNICIPAL")
+ * @param cantidad expedientes del grupo
+ * @param folios   total de folios del grupo
+ */
+public record EstadisticaResponse(
+
+        String clave,
+        long cantidad,
+        long folios
+
+) {
+}
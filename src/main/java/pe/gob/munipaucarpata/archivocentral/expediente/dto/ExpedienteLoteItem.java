@@ -0,0 +1,15 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Resultado de un N° en la consulta por lote. En NDJSON es una línea por
+ * N° solicitado: sin {@code expediente} si no está registrado.
+ */
+public record ExpedienteLoteItem(
+
+        Integer id,
+        @JsonInclude(JsonInclude.Include.NON_NULL) ExpedienteResponse expediente
+
+) {
+}
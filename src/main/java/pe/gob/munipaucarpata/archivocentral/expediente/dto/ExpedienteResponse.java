@@ -28,7 +28,7 @@ public record ExpedienteResponse(
         Instant updatedAt,
         int version
 
-) {
+) implements ExpedienteVersionado {
     /**
      * Factory method estático: convierte entidad JPA → DTO de respuesta.
      */
@@ -0,0 +1,28 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+import pe.gob.munipaucarpata.archivocentral.expediente.TipoDocumento;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * DTO de salida reducido para las tablas del frontend (vista=resumen).
+ *
+ * Contiene solo las columnas que muestra el listado; no incluye asunto ni
+ * observaciones (TEXT sin límite). Se usa también como proyección de
+ * Spring Data, por lo que la consulta solo lee estas columnas. Incluye
+ * updatedAt y version, base de la ETag y el Last-Modified de la página.
+ */
+public record ExpedienteResumenResponse(
+
+        Integer id,
+        Integer anio,
+        LocalDate fechaRegistro,
+        TipoDocumento tipoDocumento,
+        String nombreSolicitante,
+        Integer folios,
+        Instant updatedAt,
+        int version
+
+) implements ExpedienteVersionado {
+}
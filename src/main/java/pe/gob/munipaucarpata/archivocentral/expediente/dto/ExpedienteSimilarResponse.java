@@ -0,0 +1,13 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+/**
+ * DTO de salida de la búsqueda aproximada: el expediente y su grado de
+ * similitud (0..1) con el texto buscado.
+ */
+public record ExpedienteSimilarResponse(
+
+        double similitud,
+        ExpedienteResponse expediente
+
+) {
+}
@@ -0,0 +1,18 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+/**
+ * DTO de salida de la búsqueda de texto completo.
+ *
+ * Los fragmentos contienen las coincidencias marcadas con
+ * {@code <mark>…</mark>}; {@code fragmentoObservaciones} es null si el
+ * expediente no tiene observaciones.
+ */
+public record ExpedienteTextoResponse(
+
+        double relevancia,
+        String fragmentoAsunto,
+        String fragmentoObservaciones,
+        ExpedienteResponse expediente
+
+) {
+}
@@ -0,0 +1,17 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+import java.time.Instant;
+
+/**
+ * Elemento de un listado de expedientes (vista completa o resumen) con su
+ * N°, versión (@Version) y última modificación: base de la ETag y del
+ * Last-Modified de la página.
+ */
+public interface ExpedienteVersionado {
+
+    Integer id();
+
+    int version();
+
+    Instant updatedAt();
+}
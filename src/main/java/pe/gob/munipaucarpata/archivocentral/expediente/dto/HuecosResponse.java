@@ -0,0 +1,26 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+import java.util.List;
+
+/**
+ * DTO de salida del reporte de N° de expediente faltantes (perdidos o aún
+ * no registrados) en un rango.
+ *
+ * @param desde       inicio del rango analizado
+ * @param hasta       fin del rango analizado
+ * @param registrados N° registrados en el rango
+ * @param faltantes   N° no registrados en el rango
+ * @param rangos      huecos en orden ascendente
+ * @param truncado    true si hay más huecos que los devueltos
+ */
+public record HuecosResponse(
+
+        int desde,
+        int hasta,
+        long registrados,
+        long faltantes,
+        List<RangoNumeros> rangos,
+        boolean truncado
+
+) {
+}
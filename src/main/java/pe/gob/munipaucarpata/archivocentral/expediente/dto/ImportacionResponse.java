@@ -0,0 +1,38 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO de salida de la importación masiva de expedientes.
+ *
+ * Resume el resultado de la carga y detalla, fila por fila, los registros
+ * rechazados (validación, N° duplicado o formato inválido). Las filas
+ * válidas se insertan aunque otras fallen. El detalle se limita a los
+ * primeros {@code archivo.importacion.max-errores}; {@code rechazadas}
+ * cuenta todos y {@code erroresOmitidos} los que no se detallan.
+ */
+public record ImportacionResponse(
+
+        int totalFilas,
+        int insertadas,
+        int rechazadas,
+        long duracionMs,
+        double filasPorSegundo,
+        List<ErrorFila> errores,
+        int erroresOmitidos
+
+) {
+    /**
+     * Error de una fila del archivo importado.
+     *
+     * @param fila    número de fila de datos (1 = primera fila tras el encabezado)
+     * @param id      N° de expediente, si pudo leerse
+     * @param errores mapa campo → mensaje (mismo formato que los 400 de validación)
+     */
+    public record ErrorFila(
+            long fila,
+            Integer id,
+            Map<String, String> errores) {
+    }
+}
@@ -0,0 +1,16 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+import jakarta.validation.constraints.*;
+
+import java.util.List;
+
+/**
+ * DTO de entrada de la consulta por lote: N° de expediente a resolver, en
+ * el orden en que se quieren recibir. Los repetidos se devuelven una vez.
+ */
+public record LoteExpedientesRequest(
+
+                @NotEmpty(message = "Debe indicar al menos un N° de expediente") List<@NotNull(message = "N° de Expediente es requerido") @Min(value = 1, message = "N° de Expediente debe ser mayor a 0") Integer> ids
+
+) {
+}
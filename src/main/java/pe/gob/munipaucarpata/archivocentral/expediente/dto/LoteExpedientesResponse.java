@@ -0,0 +1,17 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+import java.util.List;
+
+/**
+ * DTO de salida de la consulta por lote.
+ *
+ * @param expedientes expedientes encontrados, en el orden de la solicitud
+ * @param faltantes   N° solicitados que no están registrados, en el mismo orden
+ */
+public record LoteExpedientesResponse(
+
+        List<ExpedienteResponse> expedientes,
+        List<Integer> faltantes
+
+) {
+}
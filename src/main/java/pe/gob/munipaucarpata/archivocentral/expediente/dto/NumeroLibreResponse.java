@@ -0,0 +1,12 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+/**
+ * DTO de salida de la sugerencia de N° para un expediente nuevo. Es una
+ * sugerencia: el N° se confirma recién al registrar.
+ */
+public record NumeroLibreResponse(
+
+        int numero
+
+) {
+}
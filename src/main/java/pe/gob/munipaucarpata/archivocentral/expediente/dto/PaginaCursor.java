@@ -0,0 +1,26 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Página de resultados con paginación por cursor (keyset).
+ *
+ * A diferencia de {@code Page}, no usa OFFSET ni ejecuta COUNT(*) salvo que
+ * el cliente lo pida: {@code total} es null en ese caso.
+ *
+ * @param contenido       registros de la página
+ * @param siguienteCursor token opaco para pedir la página siguiente (null si no hay más)
+ * @param hayMas          true si existen más registros después de esta página
+ * @param total           total de registros del filtro, solo si se solicitó
+ */
+public record PaginaCursor<T>(
+
+        List<T> contenido,
+        String siguienteCursor,
+        boolean hayMas,
+        @JsonInclude(JsonInclude.Include.NON_NULL) Long total
+
+) {
+}
@@ -0,0 +1,15 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+/**
+ * Rango cerrado de N° de expediente [desde, hasta].
+ */
+public record RangoNumeros(
+
+        int desde,
+        int hasta
+
+) {
+    public int cantidad() {
+        return hasta - desde + 1;
+    }
+}
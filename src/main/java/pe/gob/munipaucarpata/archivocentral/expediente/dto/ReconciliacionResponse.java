@@ -0,0 +1,37 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+import java.util.List;
+
+/**
+ * DTO de salida de la reconciliación de estadísticas: compara
+ * archivo.resumen_expedientes contra un GROUP BY sobre los expedientes y
+ * corrige los grupos que no coinciden.
+ *
+ * @param grupos              grupos del resumen tras la corrección
+ * @param gruposConDiferencia grupos que estaban desviados
+ * @param diferencias         detalle de los primeros grupos desviados
+ * @param duracionMs          duración total
+ */
+public record ReconciliacionResponse(
+
+        int grupos,
+        int gruposConDiferencia,
+        List<Diferencia> diferencias,
+        long duracionMs
+
+) {
+    /**
+     * Grupo desviado. Los valores {@code registrados} son los que tenía el
+     * resumen (0 si faltaba el grupo); los {@code reales}, los de la tabla de
+     * expedientes (0 si el grupo ya no existe).
+     */
+    public record Diferencia(
+            int anio,
+            String tipoDocumento,
+            String dirigidoA,
+            long cantidadRegistrada,
+            long cantidadReal,
+            long foliosRegistrados,
+            long foliosReales) {
+    }
+}
@@ -0,0 +1,23 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+import jakarta.validation.constraints.*;
+
+import java.util.List;
+
+/**
+ * DTO de entrada del reemplazo masivo de dependencia destino (ej. tras una
+ * reorganización de oficinas). Se compara sin distinguir mayúsculas ni
+ * espacios en los extremos, igual que se guarda.
+ *
+ * @param anios años a corregir; vacío o ausente = todos
+ */
+public record ReemplazoDirigidoARequest(
+
+                @NotBlank(message = "Valor actual es requerido") @Size(max = 200, message = "Valor actual no puede superar 200 caracteres") String valorActual,
+
+                @NotBlank(message = "Valor nuevo es requerido") @Size(max = 200, message = "Valor nuevo no puede superar 200 caracteres") String valorNuevo,
+
+                List<@NotNull(message = "Año es requerido") Integer> anios
+
+) {
+}
@@ -0,0 +1,15 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+/**
+ * DTO de salida de un reemplazo masivo ejecutado en el servidor.
+ *
+ * @param corregidos expedientes modificados
+ * @param duracionMs duración total
+ */
+public record ReemplazoResponse(
+
+        int corregidos,
+        long duracionMs
+
+) {
+}
@@ -0,0 +1,35 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+import jakarta.validation.constraints.*;
+import pe.gob.munipaucarpata.archivocentral.expediente.FormatoReporte;
+import pe.gob.munipaucarpata.archivocentral.expediente.TipoDocumento;
+
+import java.time.LocalDate;
+
+/**
+ * DTO de entrada del reporte de inventario de transferencia de un año.
+ *
+ * Los filtros son los de /buscar (todos opcionales, mismas reglas); el
+ * formato por defecto es XLSX.
+ */
+public record ReporteInventarioRequest(
+
+                @NotNull(message = "Año es requerido") @Min(value = 1900, message = "Año debe ser mayor a 1900") @Max(value = 2100, message = "Año debe ser menor a 2100") Integer anio,
+
+                FormatoReporte formato,
+
+                // Filtros opcionales
+                TipoDocumento tipoDocumento,
+
+                @Size(max = 8, message = "DNI debe tener como máximo 8 dígitos") String dni,
+
+                @Size(max = 200, message = "Nombre no puede superar 200 caracteres") String nombre,
+
+                @Size(max = 200, message = "Dirigido A no puede superar 200 caracteres") String dirigidoA,
+
+                LocalDate fechaDesde,
+
+                LocalDate fechaHasta
+
+) {
+}
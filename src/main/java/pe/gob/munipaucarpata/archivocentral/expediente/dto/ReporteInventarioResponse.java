@@ -0,0 +1,37 @@
+package pe.gob.munipaucarpata.archivocentral.expediente.dto;
+
+import pe.gob.munipaucarpata.archivocentral.expediente.FormatoReporte;
+
+import java.time.Instant;
+
+/**
+ * DTO de salida de un trabajo de reporte de inventario: estado, avance y,
+ * al terminar, el enlace de descarga.
+ *
+ * @param filasTotales expedientes que cumplen el filtro; null mientras se
+ *                     cuentan
+ * @param porcentaje   avance (0..100); null mientras se cuentan
+ * @param desdeCache   el archivo ya existía para los mismos filtros y datos
+ * @param descarga     ruta de descarga; null hasta que el estado sea TERMINADO
+ */
+public record ReporteInventarioResponse(
+
+        String id,
+        Estado estado,
+        FormatoReporte formato,
+        int anio,
+        long filasProcesadas,
+        Long filasTotales,
+        Double porcentaje,
+        boolean desdeCache,
+        Instant solicitado,
+        Instant terminado,
+        Double filasPorSegundo,
+        String error,
+        String descarga
+
+) {
+    public enum Estado {
+        EN_COLA, EN_PROCESO, TERMINADO, FALLIDO
+    }
+}
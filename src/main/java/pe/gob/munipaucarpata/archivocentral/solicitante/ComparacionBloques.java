@@ -0,0 +1,209 @@
+package pe.gob.munipaucarpata.archivocentral.solicitante;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compara, en paralelo (fork-join), todos los pares de solicitantes de cada
+ * bloque de un lote y devuelve los similares.
+ *
+ * <p>
+ * El trabajo se divide por cantidad de pares, no de bloques: un rango de
+ * bloques se parte donde el acumulado de pares llega a la mitad, y un
+ * bloque grande se parte por filas. Así un bloque de mil solicitantes
+ * (medio millón de pares) se reparte entre todos los hilos igual que
+ * miles de bloques de dos.
+ * </p>
+ *
+ * <p>
+ * Dos solicitantes que comparten varias claves aparecen en varios bloques:
+ * solo se comparan en el de su primera clave común que no esté omitida
+ * (bloque demasiado grande, que no se compara). Así un par que comparte un
+ * apellido muy común y también el DNI se compara en el bloque del DNI. En
+ * la ejecución incremental se omiten los pares sin ningún solicitante
+ * cambiado (ya se compararon antes).
+ * </p>
+ */
+// ForkJoinTask es Serializable por herencia; las tareas nunca se serializan
+@SuppressWarnings("serial")
+final class ComparacionBloques extends RecursiveTask<List<ComparacionBloques.Par>> {
+
+    /** Pares por debajo de los cuales una tarea no se divide más. */
+    private static final long PARES_POR_TAREA = 20_000;
+
+    /**
+     * @param nombre    nombre normalizado
+     * @param palabras  palabras del nombre
+     * @param ordenado  palabras del nombre en orden alfabético
+     * @param claves    claves de bloqueo, en el orden de la base de datos
+     * @param cambiado  creado o actualizado en esta ejecución
+     */
+    record Solicitante(long id, String nombre, String[] palabras, String ordenado, String dni, String[] claves,
+            boolean cambiado) {
+    }
+
+    record Bloque(String clave, List<Solicitante> miembros) {
+
+        long pares() {
+            long n = miembros.size();
+            return n * (n - 1) / 2;
+        }
+    }
+
+    /** Par similar, con {@code a < b}. */
+    record Par(long a, long b, double puntaje) {
+    }
+
+    /**
+     * @param umbralNombre similitud por palabras mínima entre solicitantes
+     *                     con DNI distintos
+     * @param umbralDni    similitud del nombre completo mínima con el mismo
+     *                     DNI o uno cercano
+     */
+    record Criterio(double umbralNombre, double umbralDni) {
+    }
+
+    private final List<Bloque> bloques;
+    /** acumulado[i] = pares de los bloques [0, i). */
+    private final long[] acumulado;
+    private final int desde;
+    private final int hasta;
+    /** Fila desde/hasta dentro de bloques.get(desde) cuando hasta == desde + 1; -1 = todas. */
+    private final int filaDesde;
+    private final int filaHasta;
+    private final Criterio criterio;
+    /** Claves de los bloques que no se comparan. */
+    private final Set<String> omitidas;
+    private final LongAdder comparaciones;
+
+    /**
+     * @param omitidas claves de bloques que no se comparan (ninguno de
+     *                 {@code bloques}); un par que las comparte se compara
+     *                 en otro bloque común, si lo hay
+     */
+    ComparacionBloques(List<Bloque> bloques, Criterio criterio, Set<String> omitidas, LongAdder comparaciones) {
+        this(bloques, acumulado(bloques), 0, bloques.size(), -1, -1, criterio, omitidas, comparaciones);
+    }
+
+    private ComparacionBloques(List<Bloque> bloques, long[] acumulado, int desde, int hasta,
+            int filaDesde, int filaHasta, Criterio criterio, Set<String> omitidas, LongAdder comparaciones) {
+        this.bloques = bloques;
+        this.acumulado = acumulado;
+        this.desde = desde;
+        this.hasta = hasta;
+        this.filaDesde = filaDesde;
+        this.filaHasta = filaHasta;
+        this.criterio = criterio;
+        this.omitidas = omitidas;
+        this.comparaciones = comparaciones;
+    }
+
+    @Override
+    protected List<Par> compute() {
+        if (hasta - desde > 1 && acumulado[hasta] - acumulado[desde] > PARES_POR_TAREA) {
+            // Partir el rango de bloques donde el acumulado llega a la mitad
+            long mitad = (acumulado[desde] + acumulado[hasta]) / 2;
+            int corte = desde + 1;
+            while (corte < hasta - 1 && acumulado[corte + 1] <= mitad) {
+                corte++;
+            }
+            return dividir(new ComparacionBloques(bloques, acumulado, desde, corte, -1, -1, criterio, omitidas, comparaciones),
+                    new ComparacionBloques(bloques, acumulado, corte, hasta, -1, -1, criterio, omitidas, comparaciones));
+        }
+        if (hasta - desde == 1) {
+            var bloque = bloques.get(desde);
+            int n = bloque.miembros().size();
+            int primera = filaDesde < 0 ? 0 : filaDesde;
+            int ultima = filaHasta < 0 ? n : filaHasta;
+            long pares = paresDeFilas(n, primera, ultima);
+            if (pares > PARES_POR_TAREA && ultima - primera > 1) {
+                // Las primeras filas tienen más pares: el corte se corre hacia el inicio
+                int corte = primera + 1;
+                while (corte < ultima - 1 && paresDeFilas(n, primera, corte + 1) <= pares / 2) {
+                    corte++;
+                }
+                return dividir(new ComparacionBloques(bloques, acumulado, desde, hasta, primera, corte, criterio, omitidas, comparaciones),
+                        new ComparacionBloques(bloques, acumulado, desde, hasta, corte, ultima, criterio, omitidas, comparaciones));
+            }
+            var similares = new ArrayList<Par>();
+            comparar(bloque, primera, ultima, similares);
+            return similares;
+        }
+        var similares = new ArrayList<Par>();
+        for (int i = desde; i < hasta; i++) {
+            var bloque = bloques.get(i);
+            comparar(bloque, 0, bloque.miembros().size(), similares);
+        }
+        return similares;
+    }
+
+    private List<Par> dividir(ComparacionBloques izquierda, ComparacionBloques derecha) {
+        izquierda.fork();
+        var resultado = new ArrayList<>(derecha.compute());
+        resultado.addAll(izquierda.join());
+        return resultado;
+    }
+
+    /** Compara cada fila de [primera, ultima) con las siguientes del bloque. */
+    private void comparar(Bloque bloque, int primera, int ultima, List<Par> similares) {
+        var miembros = bloque.miembros();
+        long hechas = 0;
+        for (int i = primera; i < ultima; i++) {
+            var a = miembros.get(i);
+            for (int j = i + 1; j < miembros.size(); j++) {
+                var b = miembros.get(j);
+                if (!a.cambiado() && !b.cambiado()) {
+                    continue;
+                }
+                if (!bloque.clave().equals(primeraClaveComun(a, b, omitidas))) {
+                    continue;
+                }
+                hechas++;
+                boolean dniParecido = a.dni().equals(b.dni()) || SimilitudNombres.dniCercano(a.dni(), b.dni());
+                double puntaje = dniParecido
+                        ? SimilitudNombres.similitud(a.nombre(), a.ordenado(), b.nombre(), b.ordenado())
+                        : SimilitudNombres.similitudPalabras(a.palabras(), b.palabras());
+                if (puntaje >= (dniParecido ? criterio.umbralDni() : criterio.umbralNombre())) {
+                    similares.add(a.id() < b.id() ? new Par(a.id(), b.id(), puntaje) : new Par(b.id(), a.id(), puntaje));
+                }
+            }
+        }
+        comparaciones.add(hechas);
+    }
+
+    /**
+     * Primera clave no omitida de {@code a} que también tiene {@code b}.
+     * Ambos arreglos vienen ordenados de la base de datos, así que el
+     * resultado es el mismo en el otro sentido.
+     */
+    static String primeraClaveComun(Solicitante a, Solicitante b, Set<String> omitidas) {
+        for (var clave : a.claves()) {
+            if (omitidas.contains(clave)) {
+                continue;
+            }
+            for (var otra : b.claves()) {
+                if (clave.equals(otra)) {
+                    return clave;
+                }
+            }
+        }
+        return null;
+    }
+
+    /** Pares de las filas [primera, ultima) de un bloque de n miembros. */
+    private static long paresDeFilas(long n, long primera, long ultima) {
+        // Fila i: n - 1 - i pares
+        return (ultima - primera) * (2 * n - primera - ultima - 1) / 2;
+    }
+
+    private static long[] acumulado(List<Bloque> bloques) {
+        var acumulado = new long[bloques.size() + 1];
+        for (int i = 0; i < bloques.size(); i++) {
+            acumulado[i + 1] = acumulado[i] + bloques.get(i).pares();
+        }
+        return acumulado;
+    }
+}
@@ -0,0 +1,110 @@
+package pe.gob.munipaucarpata.archivocentral.solicitante;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import pe.gob.munipaucarpata.archivocentral.solicitante.dto.EjecucionDuplicadosResponse;
+import pe.gob.munipaucarpata.archivocentral.solicitante.dto.GrupoDuplicadoResponse;
+import pe.gob.munipaucarpata.archivocentral.solicitante.dto.RevisionDuplicadoRequest;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * REST Controller — Solicitantes duplicados.
+ *
+ * Endpoints:
+ * GET /api/solicitantes/duplicados?estado=&pagina=&tamanio= - Grupos por revisar (o revisados)
+ * GET /api/solicitantes/duplicados/{id} - Obtener un grupo
+ * PUT /api/solicitantes/duplicados/{id}/revision - Confirmar o descartar un grupo
+ * POST /api/solicitantes/duplicados/ejecuciones?modo= - Iniciar la detección
+ * GET /api/solicitantes/duplicados/ejecuciones?limite= - Últimas ejecuciones
+ * GET /api/solicitantes/duplicados/ejecuciones/{id} - Estado y rendimiento de una ejecución
+ */
+@RestController
+@RequestMapping("/api/solicitantes/duplicados")
+@Tag(name = "Solicitantes duplicados", description = "Detección y revisión de solicitantes registrados con distintas grafías o DNI")
+public class DuplicadosController {
+
+    private final DuplicadosService service;
+
+    DuplicadosController(DuplicadosService service) {
+        this.service = service;
+    }
+
+    // -------------------------------------------------------------------------
+    // GET /api/solicitantes/duplicados
+    // -------------------------------------------------------------------------
+
+    @GetMapping
+    @Operation(summary = "Listar grupos", description = "Grupos de posibles duplicados en un estado, de mayor a menor similitud.")
+    List<GrupoDuplicadoResponse> listar(
+            @Parameter(description = "PENDIENTE, CONFIRMADO o DESCARTADO") @RequestParam(defaultValue = "PENDIENTE") EstadoGrupoDuplicado estado,
+            @Parameter(description = "Página (desde 0)") @RequestParam(defaultValue = "0") int pagina,
+            @Parameter(description = "Grupos por página (máximo 200)") @RequestParam(defaultValue = "50") int tamanio) {
+        return service.grupos(estado, pagina, tamanio);
+    }
+
+    // -------------------------------------------------------------------------
+    // GET /api/solicitantes/duplicados/{id}
+    // -------------------------------------------------------------------------
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Obtener grupo", description = "Grupo con sus variantes de solicitante y el N° del primer expediente de cada una.")
+    GrupoDuplicadoResponse obtener(@PathVariable long id) {
+        return service.grupo(id);
+    }
+
+    // -------------------------------------------------------------------------
+    // PUT /api/solicitantes/duplicados/{id}/revision
+    // -------------------------------------------------------------------------
+
+    @PutMapping("/{id}/revision")
+    @Operation(summary = "Revisar grupo", description = "CONFIRMADO: son la misma persona. DESCARTADO: sus pares no vuelven a proponerse. "
+            + "PENDIENTE: reabre el grupo. Los expedientes no se modifican.")
+    GrupoDuplicadoResponse revisar(
+            @PathVariable long id,
+            @Valid @RequestBody RevisionDuplicadoRequest request) {
+        return service.revisar(id, request);
+    }
+
+    // -------------------------------------------------------------------------
+    // POST /api/solicitantes/duplicados/ejecuciones
+    // -------------------------------------------------------------------------
+
+    @PostMapping("/ejecuciones")
+    @Operation(summary = "Iniciar detección", description = "Inicia la detección en segundo plano y responde 202. INCREMENTAL solo revisa "
+            + "los solicitantes de expedientes cambiados desde la última ejecución terminada (sin ninguna, se hace COMPLETA). "
+            + "409 si ya hay una en curso.")
+    ResponseEntity<EjecucionDuplicadosResponse> iniciar(
+            @Parameter(description = "COMPLETA o INCREMENTAL") @RequestParam(defaultValue = "INCREMENTAL") ModoDeteccion modo) {
+        var ejecucion = service.iniciar(modo);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/solicitantes/duplicados/ejecuciones/" + ejecucion.id()))
+                .body(ejecucion);
+    }
+
+    // -------------------------------------------------------------------------
+    // GET /api/solicitantes/duplicados/ejecuciones
+    // -------------------------------------------------------------------------
+
+    @GetMapping("/ejecuciones")
+    @Operation(summary = "Listar ejecuciones", description = "Últimas ejecuciones con su duración y comparaciones por segundo.")
+    List<EjecucionDuplicadosResponse> ejecuciones(
+            @Parameter(description = "Cantidad (máximo 100)") @RequestParam(defaultValue = "20") int limite) {
+        return service.ejecuciones(limite);
+    }
+
+    // -------------------------------------------------------------------------
+    // GET /api/solicitantes/duplicados/ejecuciones/{id}
+    // -------------------------------------------------------------------------
+
+    @GetMapping("/ejecuciones/{id}")
+    @Operation(summary = "Estado de una ejecución", description = "EN_PROCESO, TERMINADA o FALLIDA; al terminar, contadores y rendimiento.")
+    EjecucionDuplicadosResponse ejecucion(@PathVariable long id) {
+        return service.ejecucion(id);
+    }
+}
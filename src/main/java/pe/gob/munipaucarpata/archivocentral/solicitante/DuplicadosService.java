@@ -0,0 +1,813 @@
+package pe.gob.munipaucarpata.archivocentral.solicitante;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import pe.gob.munipaucarpata.archivocentral.solicitante.ComparacionBloques.Bloque;
+import pe.gob.munipaucarpata.archivocentral.solicitante.ComparacionBloques.Criterio;
+import pe.gob.munipaucarpata.archivocentral.solicitante.ComparacionBloques.Par;
+import pe.gob.munipaucarpata.archivocentral.solicitante.ComparacionBloques.Solicitante;
+import pe.gob.munipaucarpata.archivocentral.solicitante.dto.EjecucionDuplicadosResponse;
+import pe.gob.munipaucarpata.archivocentral.solicitante.dto.GrupoDuplicadoResponse;
+import pe.gob.munipaucarpata.archivocentral.solicitante.dto.GrupoDuplicadoResponse.Miembro;
+import pe.gob.munipaucarpata.archivocentral.solicitante.dto.RevisionDuplicadoRequest;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detección de solicitantes duplicados: el mismo ciudadano registrado con
+ * distintas grafías del nombre y, a veces, distinto DNI.
+ *
+ * <p>
+ * Una ejecución ({@link #iniciar}) corre en segundo plano en tres pasos:
+ * </p>
+ * <ol>
+ * <li><b>Variantes.</b> Un solo INSERT ... SELECT agrupa los expedientes en
+ * archivo.solicitantes (nombre normalizado + DNI, con sus claves de bloqueo
+ * calculadas en la base de datos, ver 08_duplicados_solicitantes.sql). La
+ * incremental solo recalcula las variantes de los expedientes con
+ * updated_at posterior a la última ejecución terminada.</li>
+ * <li><b>Comparación.</b> Las variantes se leen con cursor ordenadas por
+ * clave, de a un bloque (variantes que comparten clave). Los bloques se
+ * juntan en lotes de {@code archivo.duplicados.lote} variantes y cada lote
+ * se compara en un ForkJoinPool con todos los núcleos
+ * ({@link ComparacionBloques}) mientras se lee el siguiente: en memoria hay
+ * a lo sumo dos lotes, sin importar el tamaño de la tabla. Los bloques de
+ * más de {@code archivo.duplicados.max-bloque} variantes (claves demasiado
+ * comunes) se calculan antes y no se comparan; los pares que los comparten
+ * se comparan en otro bloque común (DNI u otro par de palabras).</li>
+ * <li><b>Grupos.</b> Los pares similares se unen en grupos (componentes
+ * conexos) y se escriben para revisión. Los grupos pendientes que tocan a
+ * un par nuevo se funden con él; los pares cuyos miembros ya están en un
+ * mismo grupo revisado no se vuelven a proponer.</li>
+ * </ol>
+ *
+ * <p>
+ * Cada ejecución guarda su rendimiento (comparaciones por segundo) en
+ * archivo.duplicados_ejecuciones. Un índice único parcial impide dos
+ * ejecuciones a la vez, aunque se pidan en distintas instancias.
+ * </p>
+ *
+ * <p>
+ * La incremental no detecta variantes que dejaron de usarse tras una
+ * corrección (su conteo de expedientes queda como estaba); la completa las
+ * elimina, salvo las de grupos revisados, que quedan con 0 expedientes y sin
+ * claves para no alterar la revisión. Conviene programar la incremental a
+ * diario y la completa de vez en cuando.
+ * </p>
+ */
+@Service
+public class DuplicadosService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(DuplicadosService.class);
+
+    /** Filas por ida y vuelta del cursor de bloques. */
+    private static final int FILAS_POR_LECTURA = 5_000;
+
+    /** Sentencias por batch y N° por arreglo al escribir o buscar grupos. */
+    private static final int TAMANIO_TRAMO = 1_000;
+
+    // -------------------------------------------------------------------------
+    // SQL — ejecuciones
+    // -------------------------------------------------------------------------
+
+    private static final String SQL_ABANDONADAS = """
+            UPDATE archivo.duplicados_ejecuciones
+            SET estado = 'FALLIDA', fin = NOW(), error = 'Interrumpida (sin terminar a tiempo)'
+            WHERE estado = 'EN_PROCESO' AND inicio < NOW() - make_interval(secs => ?)
+            """;
+
+    private static final String SQL_ULTIMA_MARCA = """
+            SELECT max(hasta) FROM archivo.duplicados_ejecuciones WHERE estado = 'TERMINADA'
+            """;
+
+    private static final String SQL_INICIAR = """
+            INSERT INTO archivo.duplicados_ejecuciones (modo, estado, desde, hasta)
+            VALUES (?, 'EN_PROCESO', ?, ?)
+            RETURNING id
+            """;
+
+    private static final String SQL_TERMINAR = """
+            UPDATE archivo.duplicados_ejecuciones
+            SET estado = 'TERMINADA', fin = NOW(), expedientes = ?, solicitantes = ?, bloques = ?,
+                bloques_omitidos = ?, comparaciones = ?, pares_similares = ?, grupos = ?,
+                duracion_ms = ?, comparaciones_por_segundo = ?
+            WHERE id = ?
+            """;
+
+    private static final String SQL_FALLAR = """
+            UPDATE archivo.duplicados_ejecuciones SET estado = 'FALLIDA', fin = NOW(), error = ? WHERE id = ?
+            """;
+
+    private static final String SQL_EJECUCIONES = """
+            SELECT * FROM archivo.duplicados_ejecuciones ORDER BY id DESC LIMIT ?
+            """;
+
+    private static final String SQL_EJECUCION = """
+            SELECT * FROM archivo.duplicados_ejecuciones WHERE id = ?
+            """;
+
+    // -------------------------------------------------------------------------
+    // SQL — variantes (archivo.solicitantes)
+    // -------------------------------------------------------------------------
+
+    private static final String SQL_ACTUALIZAR_VARIANTE = """
+            ON CONFLICT (nombre, dni) DO UPDATE
+            SET nombre_original = EXCLUDED.nombre_original,
+                expedientes     = EXCLUDED.expedientes,
+                primer_id       = EXCLUDED.primer_id,
+                claves          = EXCLUDED.claves,
+                ejecucion_id    = EXCLUDED.ejecucion_id
+            """;
+
+    private static final String SQL_VARIANTES_TODAS = """
+            INSERT INTO archivo.solicitantes (nombre, dni, nombre_original, expedientes, primer_id, claves, ejecucion_id)
+            SELECT v.nombre, v.dni, v.nombre_original, v.expedientes, v.primer_id,
+                   archivo.f_claves_solicitante(v.nombre, v.dni), :ejecucion
+            FROM (
+                SELECT archivo.f_normalizar_solicitante(e.nombre_solicitante) AS nombre, e.dni,
+                       min(e.nombre_solicitante) AS nombre_original, count(*) AS expedientes, min(e.id) AS primer_id
+                FROM archivo.expedientes e
+                GROUP BY 1, 2
+            ) v
+            """ + SQL_ACTUALIZAR_VARIANTE;
+
+    /**
+     * Variantes que ya no aparecen en ningún expediente (nombre o DNI
+     * corregidos), salvo las de grupos revisados.
+     */
+    private static final String SQL_VARIANTES_OBSOLETAS = """
+            DELETE FROM archivo.solicitantes s
+            WHERE s.ejecucion_id <> :ejecucion
+              AND NOT EXISTS (
+                  SELECT 1
+                  FROM archivo.duplicados_miembros m
+                  JOIN archivo.duplicados_grupos g ON g.id = m.grupo_id
+                  WHERE m.solicitante_id = s.id AND g.estado <> 'PENDIENTE'
+              )
+            """;
+
+    /** Las de grupos revisados se conservan sin expedientes ni claves (no se comparan). */
+    private static final String SQL_VARIANTES_RETIRADAS = """
+            UPDATE archivo.solicitantes SET expedientes = 0, claves = '{}'
+            WHERE ejecucion_id <> :ejecucion AND expedientes > 0
+            """;
+
+    // idx_exp_updated_id para los cambiados; idx_exp_dni para recontar cada variante
+    private static final String SQL_VARIANTES_CAMBIADAS = """
+            INSERT INTO archivo.solicitantes (nombre, dni, nombre_original, expedientes, primer_id, claves, ejecucion_id)
+            SELECT c.nombre, c.dni, t.nombre_original, t.expedientes, t.primer_id,
+                   archivo.f_claves_solicitante(c.nombre, c.dni), :ejecucion
+            FROM (
+                SELECT DISTINCT archivo.f_normalizar_solicitante(e.nombre_solicitante) AS nombre, e.dni
+                FROM archivo.expedientes e
+                WHERE e.updated_at > :desde AND e.updated_at <= :hasta
+            ) c
+            CROSS JOIN LATERAL (
+                SELECT min(x.nombre_solicitante) AS nombre_original, count(*) AS expedientes, min(x.id) AS primer_id
+                FROM archivo.expedientes x
+                WHERE x.dni = c.dni AND archivo.f_normalizar_solicitante(x.nombre_solicitante) = c.nombre
+            ) t
+            """ + SQL_ACTUALIZAR_VARIANTE;
+
+    private static final String SQL_CONTAR_VARIANTES = """
+            SELECT count(*), coalesce(sum(expedientes), 0) FROM archivo.solicitantes WHERE ejecucion_id = ?
+            """;
+
+    /** Claves de bloques demasiado grandes para compararlos (en toda la tabla). */
+    private static final String SQL_CLAVES_OMITIDAS = """
+            SELECT c.clave
+            FROM archivo.solicitantes s
+            CROSS JOIN LATERAL unnest(s.claves) AS c(clave)
+            GROUP BY c.clave
+            HAVING count(*) > ?
+            """;
+
+    // COLLATE "C": solo importa agrupar claves iguales, no el orden alfabético
+    private static final String SQL_BLOQUES = """
+            SELECT c.clave, s.id, s.nombre, s.dni, s.claves, s.ejecucion_id = :ejecucion AS cambiado
+            FROM archivo.solicitantes s
+            CROSS JOIN LATERAL unnest(s.claves) AS c(clave)
+            ORDER BY c.clave COLLATE "C", s.id
+            """;
+
+    /** Solo los bloques de las claves de variantes cambiadas (índice GIN sobre claves). */
+    private static final String SQL_BLOQUES_AFECTADOS = """
+            WITH afectadas AS (
+                SELECT DISTINCT unnest(claves) AS clave
+                FROM archivo.solicitantes
+                WHERE ejecucion_id = :ejecucion
+            )
+            SELECT c.clave, s.id, s.nombre, s.dni, s.claves, s.ejecucion_id = :ejecucion AS cambiado
+            FROM archivo.solicitantes s
+            CROSS JOIN LATERAL unnest(s.claves) AS c(clave)
+            WHERE s.claves && (SELECT coalesce(array_agg(clave), '{}') FROM afectadas)
+              AND c.clave IN (SELECT clave FROM afectadas)
+            ORDER BY c.clave COLLATE "C", s.id
+            """;
+
+    // -------------------------------------------------------------------------
+    // SQL — grupos
+    // -------------------------------------------------------------------------
+
+    private static final String SQL_BORRAR_PENDIENTES = """
+            DELETE FROM archivo.duplicados_grupos WHERE estado = 'PENDIENTE'
+            """;
+
+    private static final String SQL_GRUPOS_DE = """
+            SELECT m.solicitante_id, m.grupo_id
+            FROM archivo.duplicados_miembros m
+            JOIN archivo.duplicados_grupos g ON g.id = m.grupo_id
+            WHERE m.solicitante_id = ANY(?) AND (g.estado = 'PENDIENTE') = ?
+            """;
+
+    private static final String SQL_MIEMBROS_PENDIENTES = """
+            SELECT m.grupo_id, m.solicitante_id, g.puntaje
+            FROM archivo.duplicados_miembros m
+            JOIN archivo.duplicados_grupos g ON g.id = m.grupo_id
+            WHERE m.grupo_id = ANY(?)
+            """;
+
+    private static final String SQL_BORRAR_GRUPOS = """
+            DELETE FROM archivo.duplicados_grupos WHERE id = ANY(?)
+            """;
+
+    private static final String SQL_NUEVOS_IDS = """
+            SELECT nextval('archivo.duplicados_grupos_id_seq') FROM generate_series(1, ?)
+            """;
+
+    private static final String SQL_INSERTAR_GRUPO = """
+            INSERT INTO archivo.duplicados_grupos (id, puntaje, miembros, ejecucion_id) VALUES (?, ?, ?, ?)
+            """;
+
+    private static final String SQL_INSERTAR_MIEMBRO = """
+            INSERT INTO archivo.duplicados_miembros (grupo_id, solicitante_id) VALUES (?, ?)
+            """;
+
+    // -------------------------------------------------------------------------
+    // SQL — revisión
+    // -------------------------------------------------------------------------
+
+    private static final String SQL_GRUPOS_POR_ESTADO = """
+            SELECT id, estado, puntaje, ejecucion_id, creado, revisado, observacion
+            FROM archivo.duplicados_grupos
+            WHERE estado = ?
+            ORDER BY puntaje DESC, id
+            LIMIT ? OFFSET ?
+            """;
+
+    private static final String SQL_GRUPO = """
+            SELECT id, estado, puntaje, ejecucion_id, creado, revisado, observacion
+            FROM archivo.duplicados_grupos
+            WHERE id = ?
+            """;
+
+    private static final String SQL_MIEMBROS = """
+            SELECT m.grupo_id, s.id, s.nombre_original, s.dni, s.expedientes, s.primer_id
+            FROM archivo.duplicados_miembros m
+            JOIN archivo.solicitantes s ON s.id = m.solicitante_id
+            WHERE m.grupo_id = ANY(?)
+            ORDER BY s.expedientes DESC, s.id
+            """;
+
+    private static final String SQL_REVISAR = """
+            UPDATE archivo.duplicados_grupos SET estado = ?, observacion = ?, revisado = NOW() WHERE id = ?
+            """;
+
+    private static final RowMapper<EjecucionDuplicadosResponse> EJECUCION = (rs, i) -> new EjecucionDuplicadosResponse(
+            rs.getLong("id"),
+            ModoDeteccion.valueOf(rs.getString("modo")),
+            EjecucionDuplicadosResponse.Estado.valueOf(rs.getString("estado")),
+            instante(rs, "desde"),
+            instante(rs, "hasta"),
+            instante(rs, "inicio"),
+            instante(rs, "fin"),
+            rs.getObject("expedientes", Long.class),
+            rs.getObject("solicitantes", Long.class),
+            rs.getObject("bloques", Long.class),
+            rs.getObject("bloques_omitidos", Long.class),
+            rs.getObject("comparaciones", Long.class),
+            rs.getObject("pares_similares", Long.class),
+            rs.getObject("grupos", Long.class),
+            rs.getObject("duracion_ms", Long.class),
+            rs.getObject("comparaciones_por_segundo", Double.class),
+            rs.getString("error"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate cursor;
+    private final TransactionTemplate transaccion;
+    private final ForkJoinPool pool;
+    private final ExecutorService ejecutor;
+    private final Criterio criterio;
+    private final int maxBloque;
+    private final int solicitantesPorLote;
+    private final Duration margen;
+    private final Duration tiempoMaximo;
+    private final MeterRegistry registry;
+
+    DuplicadosService(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry registry,
+            @Value("${archivo.duplicados.umbral-nombre:0.93}") double umbralNombre,
+            @Value("${archivo.duplicados.umbral-dni:0.85}") double umbralDni,
+            @Value("${archivo.duplicados.max-bloque:1000}") int maxBloque,
+            @Value("${archivo.duplicados.lote:100000}") int solicitantesPorLote,
+            @Value("${archivo.duplicados.paralelismo:0}") int paralelismo,
+            @Value("${archivo.duplicados.tiempo-maximo:2h}") Duration tiempoMaximo,
+            @Value("${archivo.cambios.margen:5s}") Duration margen) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbc = new NamedParameterJdbcTemplate(jdbcTemplate);
+
+        // JdbcTemplate propio: el fetch size activa el cursor del servidor en PostgreSQL
+        var jdbcCursor = new JdbcTemplate(dataSource);
+        jdbcCursor.setFetchSize(FILAS_POR_LECTURA);
+        this.cursor = new NamedParameterJdbcTemplate(jdbcCursor);
+
+        // Todas las lecturas del trabajo van a la primaria (no read-only): leen
+        // las variantes que el mismo trabajo acaba de escribir
+        this.transaccion = new TransactionTemplate(transactionManager);
+
+        this.pool = new ForkJoinPool(paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors());
+        this.ejecutor = Executors.newSingleThreadExecutor(r -> {
+            var hilo = new Thread(r, "duplicados");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.criterio = new Criterio(umbralNombre, umbralDni);
+        this.maxBloque = maxBloque;
+        this.solicitantesPorLote = solicitantesPorLote;
+        this.tiempoMaximo = tiempoMaximo;
+        this.margen = margen;
+        this.registry = registry;
+    }
+
+    // -------------------------------------------------------------------------
+    // EJECUCIONES
+    // -------------------------------------------------------------------------
+
+    /**
+     * Registra una ejecución y la inicia en segundo plano. Sin ninguna
+     * ejecución terminada, la incremental se hace completa.
+     *
+     * @throws ResponseStatusException 409 si ya hay una en curso
+     */
+    public EjecucionDuplicadosResponse iniciar(ModoDeteccion modoPedido) {
+        jdbcTemplate.update(SQL_ABANDONADAS, tiempoMaximo.toSeconds());
+
+        var ultima = jdbcTemplate.queryForObject(SQL_ULTIMA_MARCA, OffsetDateTime.class);
+        var modo = ultima == null ? ModoDeteccion.COMPLETA : modoPedido;
+        var desde = modo == ModoDeteccion.INCREMENTAL ? ultima.toInstant() : null;
+        // Los cambios más recientes que el margen podrían tener transacciones
+        // anteriores sin confirmar: quedan para la próxima ejecución
+        var hasta = Instant.now().minus(margen);
+
+        long id;
+        try {
+            id = jdbcTemplate.queryForObject(SQL_INICIAR, Long.class, modo.name(), marca(desde), marca(hasta));
+        } catch (DuplicateKeyException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Ya hay una detección de duplicados en curso");
+        }
+        ejecutor.execute(() -> ejecutar(id, modo, desde, hasta));
+        return ejecucion(id);
+    }
+
+    /**
+     * @throws NoSuchElementException si no existe
+     */
+    public EjecucionDuplicadosResponse ejecucion(long id) {
+        return jdbcTemplate.query(SQL_EJECUCION, EJECUCION, id).stream()
+                .findFirst()
+                .orElseThrow(() -> new NoSuchElementException("No existe la ejecución " + id));
+    }
+
+    /** Últimas ejecuciones, de la más reciente a la más antigua. */
+    public List<EjecucionDuplicadosResponse> ejecuciones(int limite) {
+        return jdbcTemplate.query(SQL_EJECUCIONES, EJECUCION, Math.min(Math.max(limite, 1), 100));
+    }
+
+    @Override
+    public void destroy() {
+        ejecutor.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    private void ejecutar(long id, ModoDeteccion modo, Instant desde, Instant hasta) {
+        long inicio = System.nanoTime();
+        try {
+            // 1. Variantes
+            var params = new LinkedHashMap<String, Object>();
+            params.put("ejecucion", id);
+            transaccion.executeWithoutResult(status -> {
+                if (modo == ModoDeteccion.COMPLETA) {
+                    jdbc.update(SQL_VARIANTES_TODAS, params);
+                    jdbc.update(SQL_VARIANTES_OBSOLETAS, params);
+                    jdbc.update(SQL_VARIANTES_RETIRADAS, params);
+                } else {
+                    params.put("desde", marca(desde));
+                    params.put("hasta", marca(hasta));
+                    jdbc.update(SQL_VARIANTES_CAMBIADAS, params);
+                }
+            });
+            long[] variantes = jdbcTemplate.queryForObject(SQL_CONTAR_VARIANTES,
+                    (rs, i) -> new long[] { rs.getLong(1), rs.getLong(2) }, id);
+            long msVariantes = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+
+            // 2. Comparación
+            long inicioComparacion = System.nanoTime();
+            var omitidas = transaccion.execute(status ->
+                    Set.copyOf(jdbcTemplate.queryForList(SQL_CLAVES_OMITIDAS, String.class, maxBloque)));
+            var lector = new LectorBloques(omitidas);
+            transaccion.executeWithoutResult(status -> cursor.query(
+                    modo == ModoDeteccion.COMPLETA ? SQL_BLOQUES : SQL_BLOQUES_AFECTADOS,
+                    Map.of("ejecucion", id), lector));
+            var pares = lector.terminar();
+            double segundosComparacion = (System.nanoTime() - inicioComparacion) / 1e9;
+
+            // 3. Grupos
+            Long grupos = transaccion.execute(status -> agrupar(id, modo, pares));
+
+            long duracion = System.nanoTime() - inicio;
+            long comparaciones = lector.comparaciones.sum();
+            double porSegundo = segundosComparacion > 0 ? comparaciones / segundosComparacion : 0;
+            jdbcTemplate.update(SQL_TERMINAR, variantes[1], variantes[0], lector.bloques, lector.omitidos,
+                    comparaciones, pares.size(), grupos, TimeUnit.NANOSECONDS.toMillis(duracion), porSegundo, id);
+            Timer.builder("archivo.duplicados.ejecucion")
+                    .description("Duración de la detección de solicitantes duplicados")
+                    .tag("modo", modo.name())
+                    .register(registry)
+                    .record(duracion, TimeUnit.NANOSECONDS);
+            log.info("Duplicados {} #{}: {} variantes ({} expedientes) en {} ms; {} bloques ({} omitidos), "
+                    + "{} comparaciones ({}/s, {} hilos), {} pares similares, {} grupos; total {} ms",
+                    modo, id, variantes[0], variantes[1], msVariantes, lector.bloques, lector.omitidos,
+                    comparaciones, Math.round(porSegundo), pool.getParallelism(), pares.size(), grupos,
+                    TimeUnit.NANOSECONDS.toMillis(duracion));
+        } catch (RuntimeException ex) {
+            log.error("Falló la detección de duplicados #{}", id, ex);
+            // El detalle queda en el log, como en GlobalExceptionHandler
+            jdbcTemplate.update(SQL_FALLAR, "Error en la detección. Contacte al administrador.", id);
+        }
+    }
+
+    /**
+     * Arma los bloques a medida que llegan las filas (ordenadas por clave) y
+     * envía lotes al pool, con un solo lote en proceso mientras se lee el
+     * siguiente.
+     */
+    private final class LectorBloques implements RowCallbackHandler {
+
+        final LongAdder comparaciones = new LongAdder();
+        final List<Par> similares = new ArrayList<>();
+        long bloques;
+        long omitidos;
+
+        private final Set<String> omitidas;
+
+        private List<Bloque> lote = new ArrayList<>();
+        private int solicitantesLote;
+        private ForkJoinTask<List<Par>> enProceso;
+
+        private String clave;
+        private List<Solicitante> miembros;
+        private boolean omitido;
+
+        LectorBloques(Set<String> omitidas) {
+            this.omitidas = omitidas;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            var claveFila = rs.getString("clave");
+            if (!claveFila.equals(clave)) {
+                cerrarBloque();
+                clave = claveFila;
+                omitido = omitidas.contains(claveFila);
+                miembros = omitido ? null : new ArrayList<>();
+            }
+            if (omitido) {
+                return;
+            }
+            var nombre = rs.getString("nombre");
+            var palabras = nombre.split(" ");
+            miembros.add(new Solicitante(
+                    rs.getLong("id"),
+                    nombre,
+                    palabras,
+                    SimilitudNombres.palabrasOrdenadas(palabras),
+                    rs.getString("dni"),
+                    (String[]) rs.getArray("claves").getArray(),
+                    rs.getBoolean("cambiado")));
+        }
+
+        List<Par> terminar() {
+            cerrarBloque();
+            enviarLote();
+            if (enProceso != null) {
+                similares.addAll(enProceso.join());
+            }
+            return similares;
+        }
+
+        private void cerrarBloque() {
+            if (clave == null) {
+                return;
+            }
+            if (omitido) {
+                omitidos++;
+                return;
+            }
+            // Incremental: un bloque sin variantes cambiadas ya se comparó
+            if (miembros.size() < 2 || miembros.stream().noneMatch(Solicitante::cambiado)) {
+                return;
+            }
+            bloques++;
+            lote.add(new Bloque(clave, miembros));
+            solicitantesLote += miembros.size();
+            if (solicitantesLote >= solicitantesPorLote) {
+                enviarLote();
+            }
+        }
+
+        private void enviarLote() {
+            if (enProceso != null) {
+                similares.addAll(enProceso.join());
+                enProceso = null;
+            }
+            if (!lote.isEmpty()) {
+                enProceso = pool.submit(new ComparacionBloques(lote, criterio, omitidas, comparaciones));
+            }
+            lote = new ArrayList<>();
+            solicitantesLote = 0;
+        }
+    }
+
+    /**
+     * Une los pares en grupos y los escribe (en la transacción del llamador).
+     *
+     * @return grupos escritos
+     */
+    private long agrupar(long ejecucion, ModoDeteccion modo, List<Par> pares) {
+        if (modo == ModoDeteccion.COMPLETA) {
+            jdbcTemplate.update(SQL_BORRAR_PENDIENTES);
+        }
+
+        var ids = new HashSet<Long>();
+        pares.forEach(p -> {
+            ids.add(p.a());
+            ids.add(p.b());
+        });
+        var revisados = gruposDe(ids, false);
+        var conjuntos = new Conjuntos();
+        for (var par : pares) {
+            if (!comparten(revisados.get(par.a()), revisados.get(par.b()))) {
+                conjuntos.unir(par.a(), par.b(), par.puntaje());
+            }
+        }
+
+        if (modo == ModoDeteccion.INCREMENTAL) {
+            // Los grupos pendientes que tocan a los pares nuevos se rehacen con ellos
+            var pendientes = new HashSet<Long>();
+            gruposDe(conjuntos.elementos(), true).values().forEach(pendientes::addAll);
+            var primero = new HashMap<Long, Long>();
+            for (var tramo : tramos(pendientes)) {
+                jdbcTemplate.query(SQL_MIEMBROS_PENDIENTES, ps -> ps.setArray(1, arreglo(ps.getConnection(), tramo)), rs -> {
+                    long grupo = rs.getLong("grupo_id");
+                    long solicitante = rs.getLong("solicitante_id");
+                    var otro = primero.putIfAbsent(grupo, solicitante);
+                    conjuntos.unir(otro != null ? otro : solicitante, solicitante, rs.getDouble("puntaje"));
+                });
+                jdbcTemplate.update(SQL_BORRAR_GRUPOS, ps -> ps.setArray(1, arreglo(ps.getConnection(), tramo)));
+            }
+        }
+
+        var componentes = conjuntos.componentes();
+        if (componentes.isEmpty()) {
+            return 0;
+        }
+        var nuevosIds = jdbcTemplate.queryForList(SQL_NUEVOS_IDS, Long.class, componentes.size());
+        var filasGrupos = new ArrayList<Object[]>(componentes.size());
+        var filasMiembros = new ArrayList<Object[]>();
+        int i = 0;
+        for (var componente : componentes.entrySet()) {
+            long grupo = nuevosIds.get(i++);
+            var miembros = componente.getValue();
+            filasGrupos.add(new Object[] { grupo, conjuntos.puntaje(componente.getKey()), miembros.size(), ejecucion });
+            miembros.forEach(m -> filasMiembros.add(new Object[] { grupo, m }));
+        }
+        batch(SQL_INSERTAR_GRUPO, filasGrupos);
+        batch(SQL_INSERTAR_MIEMBRO, filasMiembros);
+        return componentes.size();
+    }
+
+    /** Grupos (pendientes o revisados) de cada variante. */
+    private Map<Long, List<Long>> gruposDe(Collection<Long> solicitantes, boolean pendientes) {
+        var grupos = new HashMap<Long, List<Long>>();
+        for (var tramo : tramos(solicitantes)) {
+            jdbcTemplate.query(SQL_GRUPOS_DE, ps -> {
+                ps.setArray(1, arreglo(ps.getConnection(), tramo));
+                ps.setBoolean(2, pendientes);
+            }, rs -> {
+                grupos.computeIfAbsent(rs.getLong("solicitante_id"), k -> new ArrayList<>()).add(rs.getLong("grupo_id"));
+            });
+        }
+        return grupos;
+    }
+
+    private static boolean comparten(List<Long> gruposA, List<Long> gruposB) {
+        return gruposA != null && gruposB != null && gruposA.stream().anyMatch(gruposB::contains);
+    }
+
+    private void batch(String sql, List<Object[]> filas) {
+        jdbcTemplate.batchUpdate(sql, filas, TAMANIO_TRAMO, (ps, fila) -> {
+            for (int i = 0; i < fila.length; i++) {
+                ps.setObject(i + 1, fila[i]);
+            }
+        });
+    }
+
+    /**
+     * Conjuntos disjuntos (union-find) de variantes, con la mayor similitud
+     * de cada conjunto. Solo contiene las variantes de algún par similar.
+     */
+    private static final class Conjuntos {
+
+        private final Map<Long, Long> padre = new HashMap<>();
+        private final Map<Long, Double> puntajes = new HashMap<>();
+
+        void unir(long a, long b, double puntaje) {
+            long ra = raiz(a);
+            long rb = raiz(b);
+            double mayor = Math.max(puntaje, Math.max(puntajes.getOrDefault(ra, 0.0), puntajes.getOrDefault(rb, 0.0)));
+            if (ra != rb) {
+                padre.put(rb, ra);
+                puntajes.remove(rb);
+            }
+            puntajes.put(ra, mayor);
+        }
+
+        double puntaje(long raiz) {
+            return puntajes.get(raiz);
+        }
+
+        Set<Long> elementos() {
+            return padre.keySet();
+        }
+
+        /** Raíz → miembros, solo conjuntos de dos o más. */
+        Map<Long, List<Long>> componentes() {
+            var componentes = new HashMap<Long, List<Long>>();
+            for (var elemento : padre.keySet()) {
+                componentes.computeIfAbsent(raiz(elemento), k -> new ArrayList<>()).add(elemento);
+            }
+            componentes.values().removeIf(miembros -> miembros.size() < 2);
+            return componentes;
+        }
+
+        private long raiz(long x) {
+            padre.putIfAbsent(x, x);
+            long raiz = x;
+            while (padre.get(raiz) != raiz) {
+                raiz = padre.get(raiz);
+            }
+            // Compresión de caminos
+            while (padre.get(x) != raiz) {
+                long siguiente = padre.get(x);
+                padre.put(x, raiz);
+                x = siguiente;
+            }
+            return raiz;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // REVISIÓN
+    // -------------------------------------------------------------------------
+
+    /** Grupos en un estado, de mayor a menor similitud. */
+    public List<GrupoDuplicadoResponse> grupos(EstadoGrupoDuplicado estado, int pagina, int tamanio) {
+        int limite = Math.min(Math.max(tamanio, 1), 200);
+        var grupos = jdbcTemplate.query(SQL_GRUPOS_POR_ESTADO, (rs, i) -> grupo(rs, List.of()),
+                estado.name(), limite, (long) Math.max(pagina, 0) * limite);
+        return conMiembros(grupos);
+    }
+
+    /**
+     * @throws NoSuchElementException si no existe
+     */
+    public GrupoDuplicadoResponse grupo(long id) {
+        var grupos = jdbcTemplate.query(SQL_GRUPO, (rs, i) -> grupo(rs, List.of()), id);
+        if (grupos.isEmpty()) {
+            throw new NoSuchElementException("No existe el grupo de duplicados " + id);
+        }
+        return conMiembros(grupos).get(0);
+    }
+
+    /**
+     * Marca el grupo como confirmado o descartado (o lo reabre).
+     *
+     * @throws NoSuchElementException si no existe
+     */
+    public GrupoDuplicadoResponse revisar(long id, RevisionDuplicadoRequest request) {
+        int filas = jdbcTemplate.update(SQL_REVISAR, request.estado().name(), request.observacion(), id);
+        if (filas == 0) {
+            throw new NoSuchElementException("No existe el grupo de duplicados " + id);
+        }
+        return grupo(id);
+    }
+
+    private List<GrupoDuplicadoResponse> conMiembros(List<GrupoDuplicadoResponse> grupos) {
+        if (grupos.isEmpty()) {
+            return grupos;
+        }
+        var ids = grupos.stream().map(GrupoDuplicadoResponse::id).toList();
+        var miembros = new HashMap<Long, List<Miembro>>();
+        jdbcTemplate.query(SQL_MIEMBROS, ps -> ps.setArray(1, arreglo(ps.getConnection(), ids)), rs -> {
+            miembros.computeIfAbsent(rs.getLong("grupo_id"), k -> new ArrayList<>()).add(new Miembro(
+                    rs.getLong("id"),
+                    rs.getString("nombre_original"),
+                    rs.getString("dni"),
+                    rs.getInt("expedientes"),
+                    rs.getInt("primer_id")));
+        });
+        return grupos.stream()
+                .map(g -> new GrupoDuplicadoResponse(g.id(), g.estado(), g.puntaje(), g.ejecucionId(), g.creado(),
+                        g.revisado(), g.observacion(), miembros.getOrDefault(g.id(), List.of())))
+                .toList();
+    }
+
+    // -------------------------------------------------------------------------
+    // Utilidad privada
+    // -------------------------------------------------------------------------
+
+    private static GrupoDuplicadoResponse grupo(ResultSet rs, List<Miembro> miembros) throws SQLException {
+        return new GrupoDuplicadoResponse(
+                rs.getLong("id"),
+                EstadoGrupoDuplicado.valueOf(rs.getString("estado")),
+                rs.getDouble("puntaje"),
+                rs.getLong("ejecucion_id"),
+                instante(rs, "creado"),
+                instante(rs, "revisado"),
+                rs.getString("observacion"),
+                miembros);
+    }
+
+    private static Instant instante(ResultSet rs, String columna) throws SQLException {
+        var valor = rs.getObject(columna, OffsetDateTime.class);
+        return valor != null ? valor.toInstant() : null;
+    }
+
+    private static SqlParameterValue marca(Instant instante) {
+        return new SqlParameterValue(Types.TIMESTAMP_WITH_TIMEZONE,
+                instante != null ? instante.atOffset(ZoneOffset.UTC) : null);
+    }
+
+    private static java.sql.Array arreglo(java.sql.Connection conexion, Collection<Long> ids) throws SQLException {
+        return conexion.createArrayOf("bigint", ids.toArray());
+    }
+
+    private static List<List<Long>> tramos(Collection<Long> ids) {
+        var lista = new ArrayList<>(ids);
+        var tramos = new ArrayList<List<Long>>();
+        for (int i = 0; i < lista.size(); i += TAMANIO_TRAMO) {
+            tramos.add(lista.subList(i, Math.min(i + TAMANIO_TRAMO, lista.size())));
+        }
+        return tramos;
+    }
+}
@@ -0,0 +1,35 @@
+package pe.gob.munipaucarpata.archivocentral.solicitante;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Detección incremental periódica de solicitantes duplicados.
+ *
+ * Horario en {@code archivo.duplicados.cron}; "-" la desactiva (se puede
+ * ejecutar a demanda con POST /api/solicitantes/duplicados/ejecuciones).
+ * Si otra instancia ya tiene una ejecución en curso, esta se omite.
+ */
+@Component
+class DuplicadosTarea {
+
+    private static final Logger log = LoggerFactory.getLogger(DuplicadosTarea.class);
+
+    private final DuplicadosService duplicados;
+
+    DuplicadosTarea(DuplicadosService duplicados) {
+        this.duplicados = duplicados;
+    }
+
+    @Scheduled(cron = "${archivo.duplicados.cron:-}")
+    void detectar() {
+        try {
+            duplicados.iniciar(ModoDeteccion.INCREMENTAL);
+        } catch (ResponseStatusException ex) {
+            log.info("Detección de duplicados omitida: {}", ex.getReason());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package pe.gob.munipaucarpata.archivocentral.solicitante;
+
+/**
+ * Estado de revisión de un grupo de posibles duplicados.
+ */
+public enum EstadoGrupoDuplicado {
+    /** Sin revisar; la próxima ejecución puede ampliarlo o rehacerlo. */
+    PENDIENTE,
+    /** Son la misma persona. */
+    CONFIRMADO,
+    /** Son personas distintas: sus pares no vuelven a proponerse. */
+    DESCARTADO
+}
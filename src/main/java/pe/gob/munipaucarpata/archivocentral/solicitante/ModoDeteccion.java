@@ -0,0 +1,11 @@
+package pe.gob.munipaucarpata.archivocentral.solicitante;
+
+/**
+ * Alcance de una ejecución de la detección de duplicados.
+ */
+public enum ModoDeteccion {
+    /** Todos los expedientes; reconstruye los grupos pendientes. */
+    COMPLETA,
+    /** Solo los solicitantes de expedientes cambiados desde la última ejecución terminada. */
+    INCREMENTAL
+}
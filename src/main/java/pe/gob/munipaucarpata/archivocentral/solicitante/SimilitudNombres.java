@@ -0,0 +1,162 @@
+package pe.gob.munipaucarpata.archivocentral.solicitante;
+
+import java.util.Arrays;
+
+/**
+ * Similitud entre nombres de solicitante ya normalizados (sin tildes, en
+ * mayúsculas, un espacio entre palabras) y cercanía entre DNI.
+ *
+ * <ul>
+ * <li>{@link #similitud}: Jaro-Winkler sobre el nombre completo (y con las
+ * palabras ordenadas, por si cambió el orden). Tolerante: se usa cuando el
+ * DNI ya coincide o casi coincide.</li>
+ * <li>{@link #similitudPalabras}: palabra por palabra, limitada por la
+ * palabra más distinta. Estricta: "QUISPE MAMANI JUAN" y "QUISPE MAMANI
+ * JOSE" comparten casi todo el texto pero no son la misma persona.</li>
+ * </ul>
+ *
+ * Sin estado: se usa desde todos los hilos de la comparación.
+ */
+final class SimilitudNombres {
+
+    /** Por debajo de esta similitud, una palabra no se considera la misma. */
+    private static final double PALABRA_MINIMA = 0.85;
+
+    /** Factor por cada palabra de más en el nombre más largo (ej. segundo nombre omitido). */
+    private static final double PALABRA_SOBRANTE = 0.98;
+
+    private SimilitudNombres() {
+    }
+
+    /** Similitud 0..1: la mayor entre los nombres tal cual y con las palabras ordenadas. */
+    static double similitud(String a, String aOrdenado, String b, String bOrdenado) {
+        double directa = jaroWinkler(a, b);
+        return directa == 1.0 ? directa : Math.max(directa, jaroWinkler(aOrdenado, bOrdenado));
+    }
+
+    /**
+     * Similitud 0..1 por palabras: cada palabra del nombre más corto se
+     * empareja con la más parecida (aún libre) del otro; el resultado es el
+     * promedio ponderado por longitud, pero nunca mayor que la palabra menos
+     * parecida si esta queda bajo {@value #PALABRA_MINIMA}.
+     */
+    static double similitudPalabras(String[] a, String[] b) {
+        var corto = a.length <= b.length ? a : b;
+        var largo = corto == a ? b : a;
+        if (corto.length < 2) {
+            return jaroWinkler(String.join(" ", a), String.join(" ", b));
+        }
+        var usada = new boolean[largo.length];
+        double suma = 0;
+        int letras = 0;
+        double peor = 1.0;
+        for (var palabra : corto) {
+            int mejor = -1;
+            double mejorSimilitud = -1;
+            for (int j = 0; j < largo.length; j++) {
+                if (!usada[j]) {
+                    double s = jaroWinkler(palabra, largo[j]);
+                    if (s > mejorSimilitud) {
+                        mejorSimilitud = s;
+                        mejor = j;
+                    }
+                }
+            }
+            usada[mejor] = true;
+            suma += mejorSimilitud * palabra.length();
+            letras += palabra.length();
+            peor = Math.min(peor, mejorSimilitud);
+        }
+        double ponderada = suma / letras * Math.pow(PALABRA_SOBRANTE, largo.length - corto.length);
+        return peor < PALABRA_MINIMA ? Math.min(ponderada, peor) : ponderada;
+    }
+
+    /** Palabras del nombre en orden alfabético, separadas por un espacio. */
+    static String palabrasOrdenadas(String[] palabras) {
+        var ordenadas = palabras.clone();
+        Arrays.sort(ordenadas);
+        return String.join(" ", ordenadas);
+    }
+
+    /**
+     * DNI que difieren en un solo dígito o en dos dígitos vecinos
+     * intercambiados (errores de digitación típicos).
+     */
+    static boolean dniCercano(String a, String b) {
+        if (a.length() != b.length()) {
+            return false;
+        }
+        int primera = -1;
+        int diferencias = 0;
+        for (int i = 0; i < a.length(); i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                if (++diferencias > 2) {
+                    return false;
+                }
+                if (primera < 0) {
+                    primera = i;
+                }
+            }
+        }
+        if (diferencias <= 1) {
+            return true;
+        }
+        int i = primera;
+        return i + 1 < a.length()
+                && a.charAt(i) == b.charAt(i + 1) && a.charAt(i + 1) == b.charAt(i);
+    }
+
+    static double jaroWinkler(String a, String b) {
+        if (a.equals(b)) {
+            return 1.0;
+        }
+        int la = a.length();
+        int lb = b.length();
+        if (la == 0 || lb == 0) {
+            return 0.0;
+        }
+
+        int ventana = Math.max(0, Math.max(la, lb) / 2 - 1);
+        var emparejadaA = new boolean[la];
+        var emparejadaB = new boolean[lb];
+        int coincidencias = 0;
+        for (int i = 0; i < la; i++) {
+            int desde = Math.max(0, i - ventana);
+            int hasta = Math.min(lb, i + ventana + 1);
+            for (int j = desde; j < hasta; j++) {
+                if (!emparejadaB[j] && a.charAt(i) == b.charAt(j)) {
+                    emparejadaA[i] = true;
+                    emparejadaB[j] = true;
+                    coincidencias++;
+                    break;
+                }
+            }
+        }
+        if (coincidencias == 0) {
+            return 0.0;
+        }
+
+        int transposiciones = 0;
+        for (int i = 0, j = 0; i < la; i++) {
+            if (emparejadaA[i]) {
+                while (!emparejadaB[j]) {
+                    j++;
+                }
+                if (a.charAt(i) != b.charAt(j)) {
+                    transposiciones++;
+                }
+                j++;
+            }
+        }
+
+        double m = coincidencias;
+        double jaro = (m / la + m / lb + (m - transposiciones / 2.0) / m) / 3.0;
+
+        // Bonificación por prefijo común (hasta 4 caracteres)
+        int prefijo = 0;
+        for (int i = 0; i < Math.min(4, Math.min(la, lb)) && a.charAt(i) == b.charAt(i); i++) {
+            prefijo++;
+        }
+        return jaro + prefijo * 0.1 * (1.0 - jaro);
+    }
+}
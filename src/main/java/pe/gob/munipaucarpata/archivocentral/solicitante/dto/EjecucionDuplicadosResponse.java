@@ -0,0 +1,48 @@
+package pe.gob.munipaucarpata.archivocentral.solicitante.dto;
+
+import pe.gob.munipaucarpata.archivocentral.solicitante.ModoDeteccion;
+
+import java.time.Instant;
+
+/**
+ * DTO de salida de una ejecución de la detección de duplicados: alcance,
+ * resultado y rendimiento. Los contadores son null mientras está en curso.
+ *
+ * @param desde           expedientes cambiados después de este instante
+ *                        (null en la ejecución completa)
+ * @param hasta           marca de agua de la siguiente ejecución incremental
+ * @param expedientes     expedientes de los solicitantes procesados
+ * @param solicitantes    variantes (nombre normalizado + DNI) procesadas
+ * @param bloquesOmitidos bloques con más de archivo.duplicados.max-bloque
+ *                        solicitantes (claves demasiado comunes), no
+ *                        comparados; sus pares se comparan en otro bloque
+ *                        común, si lo tienen
+ * @param comparaciones   pares de solicitantes comparados
+ * @param paresSimilares  pares por encima del umbral
+ * @param grupos          grupos escritos para revisión
+ */
+public record EjecucionDuplicadosResponse(
+
+        long id,
+        ModoDeteccion modo,
+        Estado estado,
+        Instant desde,
+        Instant hasta,
+        Instant inicio,
+        Instant fin,
+        Long expedientes,
+        Long solicitantes,
+        Long bloques,
+        Long bloquesOmitidos,
+        Long comparaciones,
+        Long paresSimilares,
+        Long grupos,
+        Long duracionMs,
+        Double comparacionesPorSegundo,
+        String error
+
+) {
+    public enum Estado {
+        EN_PROCESO, TERMINADA, FALLIDA
+    }
+}
@@ -0,0 +1,43 @@
+package pe.gob.munipaucarpata.archivocentral.solicitante.dto;
+
+import pe.gob.munipaucarpata.archivocentral.solicitante.EstadoGrupoDuplicado;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * DTO de salida de un grupo de solicitantes que podrían ser la misma
+ * persona.
+ *
+ * @param puntaje mayor similitud de nombre entre dos miembros (0..1)
+ */
+public record GrupoDuplicadoResponse(
+
+        long id,
+        EstadoGrupoDuplicado estado,
+        double puntaje,
+        long ejecucionId,
+        Instant creado,
+        Instant revisado,
+        String observacion,
+        List<Miembro> miembros
+
+) {
+    /**
+     * Variante del solicitante tal como se registró.
+     *
+     * @param nombre      una de las grafías registradas (las que solo
+     *                    difieren en tildes o mayúsculas son la misma variante)
+     * @param expedientes expedientes registrados con esta variante (0: ya no
+     *                    aparece en ninguno tras una corrección; se conserva
+     *                    porque el grupo fue revisado)
+     * @param primerId    N° del primer expediente, para consultarlo
+     */
+    public record Miembro(
+            long solicitanteId,
+            String nombre,
+            String dni,
+            int expedientes,
+            int primerId) {
+    }
+}
@@ -0,0 +1,16 @@
+package pe.gob.munipaucarpata.archivocentral.solicitante.dto;
+
+import jakarta.validation.constraints.*;
+import pe.gob.munipaucarpata.archivocentral.solicitante.EstadoGrupoDuplicado;
+
+/**
+ * DTO de entrada de la revisión de un grupo de posibles duplicados.
+ */
+public record RevisionDuplicadoRequest(
+
+                @NotNull(message = "Estado es requerido") EstadoGrupoDuplicado estado,
+
+                @Size(max = 500, message = "Observación no puede superar 500 caracteres") String observacion
+
+) {
+}
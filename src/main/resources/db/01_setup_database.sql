@@ -21,6 +21,30 @@ CREATE SCHEMA IF NOT EXISTS archivo;
 ALTER DATABASE archivo_central_mdp
     SET search_path TO archivo, public;
 
+-- ============================================================
+-- EXTENSIONES (búsqueda por subcadena / aproximada)
+-- ============================================================
+CREATE EXTENSION IF NOT EXISTS pg_trgm  SCHEMA public;
+CREATE EXTENSION IF NOT EXISTS unaccent SCHEMA public;
+
+-- Normaliza texto para búsqueda: sin tildes y en mayúsculas.
+-- unaccent() no es IMMUTABLE; este envoltorio fija el diccionario
+-- para poder usarlo en índices de expresión.
+CREATE OR REPLACE FUNCTION archivo.f_normalizar(texto TEXT)
+    RETURNS TEXT
+    LANGUAGE sql IMMUTABLE STRICT PARALLEL SAFE
+AS $$
+    SELECT UPPER(public.unaccent('public.unaccent'::regdictionary, texto))
+$$;
+
+-- Configuración de texto completo: español sin tildes
+-- ("construcción" y "construccion" generan el mismo lexema)
+DROP TEXT SEARCH CONFIGURATION IF EXISTS archivo.es CASCADE;
+CREATE TEXT SEARCH CONFIGURATION archivo.es (COPY = pg_catalog.spanish);
+ALTER TEXT SEARCH CONFIGURATION archivo.es
+    ALTER MAPPING FOR hword, hword_part, word
+    WITH public.unaccent, pg_catalog.spanish_stem;
+
 -- ============================================================
 -- TABLA: expedientes
 -- ============================================================
@@ -57,6 +81,12 @@ CREATE TABLE archivo.expedientes
     updated_at          TIMESTAMPTZ     NOT NULL DEFAULT NOW(),
     version             INTEGER         NOT NULL DEFAULT 0,
 
+    -- BÚSQUEDA DE TEXTO COMPLETO (mantenida por PostgreSQL en INSERT/UPDATE)
+    busqueda            TSVECTOR        GENERATED ALWAYS AS (
+                            setweight(to_tsvector('archivo.es', asunto), 'A') ||
+                            setweight(to_tsvector('archivo.es', COALESCE(observaciones, '')), 'B')
+                        ) STORED,
+
     CONSTRAINT pk_expedientes PRIMARY KEY (id),
     CONSTRAINT chk_id_positivo CHECK (id > 0),
     CONSTRAINT chk_anio CHECK (anio BETWEEN 1900 AND 2100),
@@ -92,6 +122,41 @@ CREATE INDEX IF NOT EXISTS idx_exp_fecha
 CREATE INDEX IF NOT EXISTS idx_exp_nombre
     ON archivo.expedientes (nombre_solicitante);
 
+-- Flujo de cambios: WHERE (updated_at, id) > (?, ?) ORDER BY updated_at, id
+CREATE INDEX IF NOT EXISTS idx_exp_updated_id
+    ON archivo.expedientes (updated_at, id);
+
+-- Trigram (GIN): LIKE '%x%' y similitud sin tildes ni mayúsculas
+CREATE INDEX IF NOT EXISTS idx_exp_nombre_trgm
+    ON archivo.expedientes USING GIN (archivo.f_normalizar(nombre_solicitante) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_exp_dirigido_trgm
+    ON archivo.expedientes USING GIN (archivo.f_normalizar(dirigido_a) gin_trgm_ops);
+
+-- Texto completo sobre asunto + observaciones
+CREATE INDEX IF NOT EXISTS idx_exp_busqueda
+    ON archivo.expedientes USING GIN (busqueda);
+
+-- ============================================================
+-- TABLA: resumen_expedientes (estadísticas pre-agregadas)
+-- ============================================================
+-- Una fila por (año, tipo, dependencia destino) con la cantidad de
+-- expedientes y el total de folios. La API la mantiene en la misma
+-- transacción que cada registro / corrección / importación, por lo que
+-- los tableros leen O(grupos) en vez de recorrer expedientes.
+DROP TABLE IF EXISTS archivo.resumen_expedientes;
+
+CREATE TABLE archivo.resumen_expedientes
+(
+    anio                INTEGER         NOT NULL,
+    tipo_documento      VARCHAR(50)     NOT NULL,
+    dirigido_a          VARCHAR(200)    NOT NULL,
+    cantidad            BIGINT          NOT NULL,
+    folios              BIGINT          NOT NULL,
+
+    CONSTRAINT pk_resumen_expedientes PRIMARY KEY (anio, tipo_documento, dirigido_a)
+);
+
 -- ============================================================
 -- COMENTARIOS de tabla y columnas
 -- ============================================================
@@ -107,9 +172,15 @@ COMMENT ON COLUMN archivo.expedientes.anio
 COMMENT ON COLUMN archivo.expedientes.tipo_documento
     IS 'Tipo: OFICIO, MEMORANDO, INFORME, CARTA, SOLICITUD, RESOLUCION, EXPEDIENTE_ADMINISTRATIVO, CONTRATO, CONVENIO, OTRO';
 
+COMMENT ON COLUMN archivo.expedientes.busqueda
+    IS 'tsvector (archivo.es) de asunto (peso A) y observaciones (peso B). Columna generada: no se escribe desde la aplicación.';
+
 COMMENT ON COLUMN archivo.expedientes.version
     IS 'Control de concurrencia optimista (Hibernate @Version)';
 
+COMMENT ON TABLE archivo.resumen_expedientes
+    IS 'Cantidad y folios por año, tipo y dependencia. Mantenida por la API; reconstruible con POST /api/expedientes/estadisticas/reconciliar.';
+
 -- ============================================================
 -- VERIFICACIÓN
 -- ============================================================
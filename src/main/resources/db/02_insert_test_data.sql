@@ -4,6 +4,8 @@
 -- ============================================================
 -- Nota: Los IDs son los números reales de los expedientes
 --       físicos, ingresados manualmente.
+-- Volumen de producción (1M–50M filas sintéticas): ver
+--       CargaSintetica en benchmarks/.
 -- ============================================================
 
 INSERT INTO archivo.expedientes (
@@ -119,6 +121,21 @@ INSERT INTO archivo.expedientes (
     0
 );
 
+-- ============================================================
+-- ESTADÍSTICAS: los INSERT directos no pasan por la API, que es
+-- quien mantiene archivo.resumen_expedientes. Se reconstruye.
+-- ============================================================
+BEGIN;
+
+TRUNCATE archivo.resumen_expedientes;
+
+INSERT INTO archivo.resumen_expedientes (anio, tipo_documento, dirigido_a, cantidad, folios)
+SELECT anio, tipo_documento, dirigido_a, COUNT(*), SUM(folios)
+FROM archivo.expedientes
+GROUP BY anio, tipo_documento, dirigido_a;
+
+COMMIT;
+
 -- ============================================================
 -- VERIFICACIÓN
 -- ============================================================
@@ -0,0 +1,28 @@
+-- ============================================================
+-- ARCHIVO CENTRAL MDP — Migración: búsqueda trigram
+-- Ejecutar en PgAdmin 4 conectado a: archivo_central_mdp
+-- ============================================================
+-- Solo para bases creadas antes de este cambio. En instalaciones
+-- nuevas, 01_setup_database.sql ya incluye todo lo siguiente.
+-- Es idempotente: puede ejecutarse más de una vez.
+-- ============================================================
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm  SCHEMA public;
+CREATE EXTENSION IF NOT EXISTS unaccent SCHEMA public;
+
+CREATE OR REPLACE FUNCTION archivo.f_normalizar(texto TEXT)
+    RETURNS TEXT
+    LANGUAGE sql IMMUTABLE STRICT PARALLEL SAFE
+AS $$
+    SELECT UPPER(public.unaccent('public.unaccent'::regdictionary, texto))
+$$;
+
+-- CONCURRENTLY: no bloquea escrituras durante la creación
+-- (no ejecutar dentro de una transacción explícita)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_exp_nombre_trgm
+    ON archivo.expedientes USING GIN (archivo.f_normalizar(nombre_solicitante) gin_trgm_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_exp_dirigido_trgm
+    ON archivo.expedientes USING GIN (archivo.f_normalizar(dirigido_a) gin_trgm_ops);
+
+ANALYZE archivo.expedientes;
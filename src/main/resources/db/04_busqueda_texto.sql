@@ -0,0 +1,35 @@
+-- ============================================================
+-- ARCHIVO CENTRAL MDP — Migración: búsqueda de texto completo
+-- Ejecutar en PgAdmin 4 conectado a: archivo_central_mdp
+-- ============================================================
+-- Solo para bases creadas antes de este cambio. En instalaciones
+-- nuevas, 01_setup_database.sql ya incluye todo lo siguiente.
+-- Requiere 03_busqueda_trigram.sql (extensión unaccent).
+--
+-- ADD COLUMN ... STORED reescribe la tabla: ejecutar fuera del
+-- horario de atención.
+-- ============================================================
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_ts_config c
+                   JOIN pg_namespace n ON n.oid = c.cfgnamespace
+                   WHERE n.nspname = 'archivo' AND c.cfgname = 'es') THEN
+        CREATE TEXT SEARCH CONFIGURATION archivo.es (COPY = pg_catalog.spanish);
+        ALTER TEXT SEARCH CONFIGURATION archivo.es
+            ALTER MAPPING FOR hword, hword_part, word
+            WITH public.unaccent, pg_catalog.spanish_stem;
+    END IF;
+END
+$$;
+
+ALTER TABLE archivo.expedientes
+    ADD COLUMN IF NOT EXISTS busqueda TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('archivo.es', asunto), 'A') ||
+        setweight(to_tsvector('archivo.es', COALESCE(observaciones, '')), 'B')
+    ) STORED;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_exp_busqueda
+    ON archivo.expedientes USING GIN (busqueda);
+
+ANALYZE archivo.expedientes;
@@ -0,0 +1,40 @@
+-- ============================================================
+-- ARCHIVO CENTRAL MDP — Migración: estadísticas pre-agregadas
+-- Ejecutar en PgAdmin 4 conectado a: archivo_central_mdp
+-- ============================================================
+-- Solo para bases creadas antes de este cambio. En instalaciones
+-- nuevas, 01_setup_database.sql ya crea la tabla (vacía).
+--
+-- Carga inicial con un único GROUP BY sobre expedientes. Ejecutar
+-- con la API detenida (o llamar luego a
+-- POST /api/expedientes/estadisticas/reconciliar).
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS archivo.resumen_expedientes
+(
+    anio                INTEGER         NOT NULL,
+    tipo_documento      VARCHAR(50)     NOT NULL,
+    dirigido_a          VARCHAR(200)    NOT NULL,
+    cantidad            BIGINT          NOT NULL,
+    folios              BIGINT          NOT NULL,
+
+    CONSTRAINT pk_resumen_expedientes PRIMARY KEY (anio, tipo_documento, dirigido_a)
+);
+
+COMMENT ON TABLE archivo.resumen_expedientes
+    IS 'Cantidad y folios por año, tipo y dependencia. Mantenida por la API; reconstruible con POST /api/expedientes/estadisticas/reconciliar.';
+
+BEGIN;
+
+TRUNCATE archivo.resumen_expedientes;
+
+INSERT INTO archivo.resumen_expedientes (anio, tipo_documento, dirigido_a, cantidad, folios)
+SELECT anio, tipo_documento, dirigido_a, COUNT(*), SUM(folios)
+FROM archivo.expedientes
+GROUP BY anio, tipo_documento, dirigido_a;
+
+COMMIT;
+
+-- Verificación: ambos totales deben coincidir
+SELECT (SELECT SUM(cantidad) FROM archivo.resumen_expedientes) AS resumen,
+       (SELECT COUNT(*)      FROM archivo.expedientes)         AS expedientes;
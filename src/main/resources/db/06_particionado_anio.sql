@@ -0,0 +1,330 @@
+-- ============================================================
+-- ARCHIVO CENTRAL MDP — Migración: particionado por año
+-- Ejecutar en PgAdmin 4 conectado a: archivo_central_mdp
+-- ============================================================
+-- Convierte archivo.expedientes en una tabla particionada por rango
+-- de anio (PostgreSQL 13+):
+--
+--   expedientes_1900s … expedientes_2000s   una partición por década
+--   expedientes_2010 … año actual + 5        una partición por año
+--   expedientes_default                      años sin partición propia
+--
+-- La entidad, los repositorios y las consultas no cambian: la tabla
+-- conserva nombre y columnas. Los filtros por anio (findByAnio,
+-- /buscar?anio=, cursor por (anio, id)) solo leen su partición.
+--
+-- UNICIDAD DEL N° DE EXPEDIENTE
+-- PostgreSQL exige que la clave primaria de una tabla particionada
+-- incluya la columna de partición, por lo que la PK pasa a ser
+-- (anio, id). La unicidad de id en todas las particiones la garantiza
+-- archivo.expedientes_ids (PK id), que el trigger trg_exp_id_unico
+-- llena en cada INSERT. Como en un INSERT ... ON CONFLICT DO NOTHING,
+-- un N° repetido no se inserta (la fila se descarta): la importación
+-- lo reporta como duplicado y el registro individual, cuyo INSERT no
+-- afecta ninguna fila, responde 409.
+--
+-- La migración copia los datos en una sola transacción con la tabla
+-- bloqueada para escritura: ejecutar fuera del horario de atención.
+-- La tabla original queda como archivo.expedientes_sin_particion para
+-- poder volver atrás; eliminarla al confirmar el cambio.
+-- ============================================================
+
+BEGIN;
+
+LOCK TABLE archivo.expedientes IN EXCLUSIVE MODE;
+
+-- ============================================================
+-- 1. Tabla original: se aparta con otro nombre
+-- ============================================================
+ALTER TABLE archivo.expedientes RENAME TO expedientes_sin_particion;
+ALTER TABLE archivo.expedientes_sin_particion
+    RENAME CONSTRAINT pk_expedientes TO pk_expedientes_sin_particion;
+
+-- Sus índices se eliminan para liberar los nombres (los datos quedan)
+DROP INDEX IF EXISTS archivo.idx_exp_anio;
+DROP INDEX IF EXISTS archivo.idx_exp_anio_id;
+DROP INDEX IF EXISTS archivo.idx_exp_dni;
+DROP INDEX IF EXISTS archivo.idx_exp_tipo;
+DROP INDEX IF EXISTS archivo.idx_exp_fecha;
+DROP INDEX IF EXISTS archivo.idx_exp_nombre;
+DROP INDEX IF EXISTS archivo.idx_exp_nombre_trgm;
+DROP INDEX IF EXISTS archivo.idx_exp_dirigido_trgm;
+DROP INDEX IF EXISTS archivo.idx_exp_busqueda;
+DROP INDEX IF EXISTS archivo.idx_exp_updated_id;
+
+-- ============================================================
+-- 2. Tabla particionada (mismas columnas y restricciones)
+-- ============================================================
+CREATE TABLE archivo.expedientes
+(
+    id                  INTEGER         NOT NULL,
+    anio                INTEGER         NOT NULL,
+    fecha_registro      DATE            NOT NULL,
+    tipo_documento      VARCHAR(50)     NOT NULL,
+    nro_documento       VARCHAR(50)     NOT NULL,
+    nombre_solicitante  VARCHAR(200)    NOT NULL,
+    dni                 VARCHAR(8)      NOT NULL,
+    asunto              TEXT            NOT NULL,
+    dirigido_a          VARCHAR(200)    NOT NULL,
+    folios              INTEGER         NOT NULL DEFAULT 1,
+    archivado_con       VARCHAR(300),
+    observaciones       TEXT,
+    created_at          TIMESTAMPTZ     NOT NULL DEFAULT NOW(),
+    updated_at          TIMESTAMPTZ     NOT NULL DEFAULT NOW(),
+    version             INTEGER         NOT NULL DEFAULT 0,
+    busqueda            TSVECTOR        GENERATED ALWAYS AS (
+                            setweight(to_tsvector('archivo.es', asunto), 'A') ||
+                            setweight(to_tsvector('archivo.es', COALESCE(observaciones, '')), 'B')
+                        ) STORED,
+
+    CONSTRAINT pk_expedientes PRIMARY KEY (anio, id),
+    CONSTRAINT chk_id_positivo CHECK (id > 0),
+    CONSTRAINT chk_anio CHECK (anio BETWEEN 1900 AND 2100),
+    CONSTRAINT chk_folios CHECK (folios >= 1),
+    CONSTRAINT chk_dni_length CHECK (LENGTH(dni) = 8),
+    CONSTRAINT chk_tipo_documento CHECK (
+        tipo_documento IN (
+            'OFICIO', 'MEMORANDO', 'INFORME', 'CARTA', 'SOLICITUD',
+            'RESOLUCION', 'EXPEDIENTE_ADMINISTRATIVO', 'CONTRATO',
+            'CONVENIO', 'OTRO'
+        )
+    )
+) PARTITION BY RANGE (anio);
+
+-- ============================================================
+-- 3. Particiones
+-- ============================================================
+
+-- Un año sin partición propia (anio admite hasta 2100) va a la partición
+-- por defecto: el registro nunca falla por falta de partición. Conviene
+-- crear cada enero la partición de los años siguientes, ej:
+--   SELECT archivo.crear_particion_anio(EXTRACT(YEAR FROM now())::INT + 5);
+
+-- Crea (si no existe) la partición anual de p_anio y le pasa las filas de
+-- ese año que estaban en la partición por defecto (PostgreSQL no permite
+-- crearla si la partición por defecto tiene filas del rango). Las filas
+-- se reinsertan por la tabla particionada: su N° se quita antes de
+-- archivo.expedientes_ids para que trg_exp_id_unico no las descarte.
+CREATE OR REPLACE FUNCTION archivo.crear_particion_anio(p_anio INTEGER)
+    RETURNS TEXT
+    LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_nombre TEXT := 'expedientes_' || p_anio;
+BEGIN
+    IF to_regclass('archivo.' || v_nombre) IS NULL THEN
+        IF to_regclass('archivo.expedientes_default') IS NOT NULL THEN
+            CREATE TEMP TABLE tmp_particion_anio ON COMMIT DROP AS
+            SELECT id, anio, fecha_registro, tipo_documento, nro_documento,
+                   nombre_solicitante, dni, asunto, dirigido_a, folios,
+                   archivado_con, observaciones, created_at, updated_at, version
+            FROM archivo.expedientes_default
+            WHERE anio = p_anio;
+
+            DELETE FROM archivo.expedientes_default WHERE anio = p_anio;
+            DELETE FROM archivo.expedientes_ids WHERE anio = p_anio
+                AND id IN (SELECT id FROM tmp_particion_anio);
+        END IF;
+
+        EXECUTE format(
+            'CREATE TABLE archivo.%I PARTITION OF archivo.expedientes FOR VALUES FROM (%s) TO (%s)',
+            v_nombre, p_anio, p_anio + 1);
+
+        IF to_regclass('pg_temp.tmp_particion_anio') IS NOT NULL THEN
+            INSERT INTO archivo.expedientes (
+                id, anio, fecha_registro, tipo_documento, nro_documento,
+                nombre_solicitante, dni, asunto, dirigido_a, folios,
+                archivado_con, observaciones, created_at, updated_at, version)
+            SELECT * FROM tmp_particion_anio;
+            DROP TABLE tmp_particion_anio;
+        END IF;
+    END IF;
+    RETURN v_nombre;
+END
+$$;
+
+DO $$
+BEGIN
+    -- Décadas: el archivo histórico casi no recibe registros nuevos
+    FOR d IN 1900..2000 BY 10 LOOP
+        EXECUTE format(
+            'CREATE TABLE archivo.%I PARTITION OF archivo.expedientes FOR VALUES FROM (%s) TO (%s)',
+            'expedientes_' || d || 's', d, d + 10);
+    END LOOP;
+
+    -- Años recientes y los próximos cinco
+    FOR a IN 2010..EXTRACT(YEAR FROM now())::INT + 5 LOOP
+        PERFORM archivo.crear_particion_anio(a);
+    END LOOP;
+END
+$$;
+
+CREATE TABLE archivo.expedientes_default PARTITION OF archivo.expedientes DEFAULT;
+
+-- ============================================================
+-- 4. Índices (se crean en cada partición, presente y futura)
+-- ============================================================
+
+-- findById / existsById sin año: un índice pequeño por partición
+CREATE INDEX idx_exp_id
+    ON archivo.expedientes (id);
+
+CREATE INDEX idx_exp_dni
+    ON archivo.expedientes (dni);
+
+CREATE INDEX idx_exp_tipo
+    ON archivo.expedientes (tipo_documento);
+
+CREATE INDEX idx_exp_fecha
+    ON archivo.expedientes (fecha_registro DESC);
+
+CREATE INDEX idx_exp_nombre
+    ON archivo.expedientes (nombre_solicitante);
+
+CREATE INDEX idx_exp_nombre_trgm
+    ON archivo.expedientes USING GIN (archivo.f_normalizar(nombre_solicitante) gin_trgm_ops);
+
+CREATE INDEX idx_exp_dirigido_trgm
+    ON archivo.expedientes USING GIN (archivo.f_normalizar(dirigido_a) gin_trgm_ops);
+
+CREATE INDEX idx_exp_busqueda
+    ON archivo.expedientes USING GIN (busqueda);
+
+CREATE INDEX idx_exp_updated_id
+    ON archivo.expedientes (updated_at, id);
+
+-- idx_exp_anio e idx_exp_anio_id ya no hacen falta: la PK (anio, id)
+-- cubre el orden por (anio, id) del cursor y el filtro por año poda
+-- particiones.
+
+-- ============================================================
+-- 5. Copia de datos
+-- ============================================================
+INSERT INTO archivo.expedientes (
+    id, anio, fecha_registro, tipo_documento, nro_documento,
+    nombre_solicitante, dni, asunto, dirigido_a, folios,
+    archivado_con, observaciones, created_at, updated_at, version)
+SELECT id, anio, fecha_registro, tipo_documento, nro_documento,
+       nombre_solicitante, dni, asunto, dirigido_a, folios,
+       archivado_con, observaciones, created_at, updated_at, version
+FROM archivo.expedientes_sin_particion;
+
+-- ============================================================
+-- 6. Unicidad global del N° de expediente
+-- ============================================================
+CREATE TABLE archivo.expedientes_ids
+(
+    id      INTEGER     NOT NULL,
+    anio    INTEGER     NOT NULL,
+
+    CONSTRAINT pk_expedientes_ids PRIMARY KEY (id)
+);
+
+INSERT INTO archivo.expedientes_ids (id, anio)
+SELECT id, anio FROM archivo.expedientes;
+
+CREATE OR REPLACE FUNCTION archivo.f_exp_id_unico()
+    RETURNS TRIGGER
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    INSERT INTO archivo.expedientes_ids (id, anio)
+    VALUES (NEW.id, NEW.anio)
+    ON CONFLICT (id) DO NOTHING;
+    IF NOT FOUND THEN
+        RETURN NULL; -- N° ya registrado (en cualquier partición): se descarta
+    END IF;
+    RETURN NEW;
+END
+$$;
+
+CREATE TRIGGER trg_exp_id_unico
+    BEFORE INSERT ON archivo.expedientes
+    FOR EACH ROW EXECUTE FUNCTION archivo.f_exp_id_unico();
+
+-- ============================================================
+-- 7. Comentarios
+-- ============================================================
+COMMENT ON TABLE archivo.expedientes
+    IS 'Inventario de expedientes físicos del Archivo Central - MDP (particionada por anio)';
+
+COMMENT ON COLUMN archivo.expedientes.id
+    IS 'Número del expediente físico (NO autoincremental). Único en todas las particiones vía archivo.expedientes_ids.';
+
+COMMENT ON COLUMN archivo.expedientes.anio
+    IS 'Año al que pertenece el expediente. Clave de partición: no puede cambiar.';
+
+COMMENT ON COLUMN archivo.expedientes.tipo_documento
+    IS 'Tipo: OFICIO, MEMORANDO, INFORME, CARTA, SOLICITUD, RESOLUCION, EXPEDIENTE_ADMINISTRATIVO, CONTRATO, CONVENIO, OTRO';
+
+COMMENT ON COLUMN archivo.expedientes.busqueda
+    IS 'tsvector (archivo.es) de asunto (peso A) y observaciones (peso B). Columna generada: no se escribe desde la aplicación.';
+
+COMMENT ON COLUMN archivo.expedientes.version
+    IS 'Control de concurrencia optimista (Hibernate @Version)';
+
+COMMENT ON TABLE archivo.expedientes_ids
+    IS 'N° de expediente registrados (PK global). Mantenida por trg_exp_id_unico.';
+
+-- ============================================================
+-- 8. Verificación: misma cantidad de filas o se revierte todo
+-- ============================================================
+DO $$
+DECLARE
+    v_original BIGINT;
+    v_nueva    BIGINT;
+    v_ids      BIGINT;
+BEGIN
+    SELECT COUNT(*) INTO v_original FROM archivo.expedientes_sin_particion;
+    SELECT COUNT(*) INTO v_nueva    FROM archivo.expedientes;
+    SELECT COUNT(*) INTO v_ids      FROM archivo.expedientes_ids;
+    IF v_original <> v_nueva OR v_original <> v_ids THEN
+        RAISE EXCEPTION 'Cantidades distintas: original %, particionada %, ids %',
+            v_original, v_nueva, v_ids;
+    END IF;
+END
+$$;
+
+COMMIT;
+
+ANALYZE archivo.expedientes;
+ANALYZE archivo.expedientes_ids;
+
+-- ============================================================
+-- MANTENIMIENTO: particiones antiguas en almacenamiento económico
+-- ============================================================
+-- Mueve una partición y sus índices a otro tablespace. Reescribe la
+-- partición con bloqueo exclusivo: ejecutar fuera del horario.
+--   CREATE TABLESPACE archivo_historico LOCATION '/mnt/hdd/pg_archivo';
+--   CALL archivo.mover_particion('expedientes_1990s', 'archivo_historico');
+CREATE OR REPLACE PROCEDURE archivo.mover_particion(p_particion TEXT, p_tablespace TEXT)
+    LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_indice TEXT;
+BEGIN
+    EXECUTE format('ALTER TABLE archivo.%I SET TABLESPACE %I', p_particion, p_tablespace);
+    FOR v_indice IN
+        SELECT indexname FROM pg_indexes
+        WHERE schemaname = 'archivo' AND tablename = p_particion
+    LOOP
+        EXECUTE format('ALTER INDEX archivo.%I SET TABLESPACE %I', v_indice, p_tablespace);
+    END LOOP;
+END
+$$;
+
+-- ============================================================
+-- VERIFICACIÓN: poda de particiones
+-- ============================================================
+-- Debe listar solo la partición del año (expedientes_2024), no todas
+EXPLAIN (COSTS OFF)
+SELECT * FROM archivo.expedientes WHERE anio = 2024 ORDER BY id;
+
+-- Cantidad de filas por partición
+SELECT tableoid::regclass AS particion, COUNT(*) AS filas
+FROM archivo.expedientes
+GROUP BY 1
+ORDER BY 1;
+
+-- Eliminar la tabla original al confirmar el cambio:
+-- DROP TABLE archivo.expedientes_sin_particion;
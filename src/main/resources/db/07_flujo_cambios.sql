@@ -0,0 +1,18 @@
+-- ============================================================
+-- ARCHIVO CENTRAL MDP — Migración: flujo de cambios
+-- Ejecutar en PgAdmin 4 conectado a: archivo_central_mdp
+-- ============================================================
+-- Solo para bases creadas antes de este cambio. En instalaciones
+-- nuevas, 01_setup_database.sql (y 06_particionado_anio.sql) ya
+-- incluyen el índice.
+--
+-- CONCURRENTLY no bloquea escrituras (no ejecutar dentro de una
+-- transacción explícita). Con la tabla particionada por año,
+-- CONCURRENTLY no se admite sobre la tabla padre: quitarlo y ejecutar
+-- fuera del horario de atención.
+-- ============================================================
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_exp_updated_id
+    ON archivo.expedientes (updated_at, id);
+
+ANALYZE archivo.expedientes;
@@ -0,0 +1,147 @@
+-- ============================================================
+-- ARCHIVO CENTRAL MDP — Migración: detección de solicitantes duplicados
+-- Ejecutar en PgAdmin 4 conectado a: archivo_central_mdp
+-- ============================================================
+-- Para instalaciones nuevas y existentes (después de 01, que crea
+-- archivo.f_normalizar). Las tablas las llena la API:
+--     POST /api/solicitantes/duplicados/ejecuciones?modo=COMPLETA
+-- ============================================================
+
+-- ------------------------------------------------------------
+-- Identidad de un solicitante: nombre sin tildes, en mayúsculas y con
+-- un solo espacio entre palabras
+-- ------------------------------------------------------------
+CREATE OR REPLACE FUNCTION archivo.f_normalizar_solicitante(texto TEXT)
+    RETURNS TEXT
+    LANGUAGE sql IMMUTABLE STRICT PARALLEL SAFE
+AS $$
+    SELECT regexp_replace(btrim(archivo.f_normalizar(texto)), '\s+', ' ', 'g')
+$$;
+
+-- ------------------------------------------------------------
+-- Claves de bloqueo: solo se comparan solicitantes que comparten alguna.
+--   D:<dni>            mismo DNI (nombres muy distintos del mismo DNI)
+--   N:<palabra> <palabra>  cada par de las tres primeras palabras del
+--                      nombre, en orden alfabético. Con un error en una
+--                      palabra (o el orden cambiado) queda al menos un par
+--                      igual.
+-- Antes de formar los pares se simplifica la escritura (Z→S, V→B, LL→Y,
+-- sin H) y se omiten artículos y palabras de una letra.
+-- El resultado está ordenado: la primera clave común de dos solicitantes
+-- es la que decide en qué bloque se comparan (una sola vez).
+-- ------------------------------------------------------------
+CREATE OR REPLACE FUNCTION archivo.f_claves_solicitante(p_nombre TEXT, p_dni TEXT)
+    RETURNS TEXT[]
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE
+AS $$
+    WITH palabras AS (
+        SELECT p.palabra, p.orden
+        FROM unnest(regexp_split_to_array(
+                 translate(replace(regexp_replace(coalesce(p_nombre, ''), '[^A-Z ]', ' ', 'g'), 'LL', 'Y'), 'ZVH', 'SB'),
+                 '\s+')) WITH ORDINALITY AS p(palabra, orden)
+        WHERE length(p.palabra) > 1
+          AND p.palabra NOT IN ('DE', 'DEL', 'LA', 'LAS', 'LOS', 'EL')
+        ORDER BY p.orden
+        LIMIT 3
+    ),
+    claves AS (
+        SELECT 'N:' || least(a.palabra, b.palabra) || ' ' || greatest(a.palabra, b.palabra) AS clave
+        FROM palabras a
+        JOIN palabras b ON a.orden < b.orden
+        UNION
+        SELECT 'D:' || p_dni
+        WHERE p_dni IS NOT NULL
+    )
+    SELECT coalesce(array_agg(clave ORDER BY clave), '{}')
+    FROM claves
+$$;
+
+-- ------------------------------------------------------------
+-- TABLA: solicitantes (una fila por nombre normalizado + DNI)
+-- ------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS archivo.solicitantes
+(
+    id                  BIGSERIAL       PRIMARY KEY,
+    nombre              VARCHAR(200)    NOT NULL,
+    dni                 VARCHAR(8)      NOT NULL,
+    nombre_original     VARCHAR(200)    NOT NULL,
+    -- 0 (y sin claves): ya no aparece en ningún expediente, pero pertenece
+    -- a un grupo revisado y se conserva
+    expedientes         INTEGER         NOT NULL,
+    primer_id           INTEGER         NOT NULL,
+    claves              TEXT[]          NOT NULL,
+    -- Última ejecución que la creó o actualizó
+    ejecucion_id        BIGINT          NOT NULL,
+
+    CONSTRAINT uq_solicitantes UNIQUE (nombre, dni)
+);
+
+-- Ejecución incremental: bloques de las claves de los solicitantes cambiados
+CREATE INDEX IF NOT EXISTS idx_solicitantes_claves
+    ON archivo.solicitantes USING GIN (claves);
+
+CREATE INDEX IF NOT EXISTS idx_solicitantes_ejecucion
+    ON archivo.solicitantes (ejecucion_id);
+
+-- ------------------------------------------------------------
+-- TABLA: duplicados_ejecuciones (historial, marca de agua y rendimiento)
+-- ------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS archivo.duplicados_ejecuciones
+(
+    id                  BIGSERIAL       PRIMARY KEY,
+    modo                VARCHAR(20)     NOT NULL,   -- COMPLETA / INCREMENTAL
+    estado              VARCHAR(20)     NOT NULL,   -- EN_PROCESO / TERMINADA / FALLIDA
+    -- Expedientes con updated_at en (desde, hasta]; desde NULL = todos
+    desde               TIMESTAMPTZ,
+    hasta               TIMESTAMPTZ     NOT NULL,
+    inicio              TIMESTAMPTZ     NOT NULL DEFAULT NOW(),
+    fin                 TIMESTAMPTZ,
+    expedientes         BIGINT,
+    solicitantes        BIGINT,
+    bloques             BIGINT,
+    bloques_omitidos    BIGINT,
+    comparaciones       BIGINT,
+    pares_similares     BIGINT,
+    grupos              BIGINT,
+    duracion_ms         BIGINT,
+    comparaciones_por_segundo DOUBLE PRECISION,
+    error               TEXT
+);
+
+-- Una sola ejecución a la vez en todo el clúster de la API
+CREATE UNIQUE INDEX IF NOT EXISTS uq_duplicados_ejecucion_en_proceso
+    ON archivo.duplicados_ejecuciones (estado) WHERE estado = 'EN_PROCESO';
+
+-- ------------------------------------------------------------
+-- TABLAS: duplicados_grupos / duplicados_miembros (revisión)
+-- ------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS archivo.duplicados_grupos
+(
+    id                  BIGSERIAL       PRIMARY KEY,
+    estado              VARCHAR(20)     NOT NULL DEFAULT 'PENDIENTE',  -- PENDIENTE / CONFIRMADO / DESCARTADO
+    puntaje             NUMERIC(4, 3)   NOT NULL,
+    miembros            INTEGER         NOT NULL,
+    ejecucion_id        BIGINT          NOT NULL REFERENCES archivo.duplicados_ejecuciones (id),
+    creado              TIMESTAMPTZ     NOT NULL DEFAULT NOW(),
+    revisado            TIMESTAMPTZ,
+    observacion         VARCHAR(500)
+);
+
+CREATE INDEX IF NOT EXISTS idx_duplicados_grupos_estado
+    ON archivo.duplicados_grupos (estado, puntaje DESC, id);
+
+CREATE TABLE IF NOT EXISTS archivo.duplicados_miembros
+(
+    grupo_id            BIGINT          NOT NULL REFERENCES archivo.duplicados_grupos (id) ON DELETE CASCADE,
+    solicitante_id      BIGINT          NOT NULL REFERENCES archivo.solicitantes (id) ON DELETE CASCADE,
+
+    CONSTRAINT pk_duplicados_miembros PRIMARY KEY (grupo_id, solicitante_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_duplicados_miembros_solicitante
+    ON archivo.duplicados_miembros (solicitante_id);
+
+COMMENT ON TABLE archivo.solicitantes
+    IS 'Variantes de solicitante (nombre normalizado + DNI) con sus claves de bloqueo. Mantenida por la detección de duplicados.';
+COMMENT ON TABLE archivo.duplicados_grupos
+    IS 'Grupos de solicitantes que podrían ser la misma persona, para revisión.';
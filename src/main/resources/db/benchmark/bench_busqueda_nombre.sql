@@ -0,0 +1,59 @@
+-- ============================================================
+-- ARCHIVO CENTRAL MDP — Benchmark: búsqueda por nombre
+-- ============================================================
+-- Genera 1.000.000 de filas en una tabla aparte (archivo.bench_expedientes)
+-- y compara el plan y el tiempo de:
+--   A) LIKE con UPPER() (consulta anterior, sin índice utilizable)
+--   B) LIKE con f_normalizar() + GIN trigram
+--   C) word_similarity (<%) + GIN trigram, con error de tipeo
+--
+-- Requiere haber ejecutado 01_setup_database.sql o 03_busqueda_trigram.sql.
+-- Ejecutar con psql:  psql -d archivo_central_mdp -f bench_busqueda_nombre.sql
+-- ============================================================
+
+\timing on
+
+DROP TABLE IF EXISTS archivo.bench_expedientes;
+
+CREATE TABLE archivo.bench_expedientes AS
+SELECT g                                                   AS id,
+       1990 + (g % 35)                                     AS anio,
+       (ARRAY['QUISPE','MAMANI','HUAMANÍ','CONDORI','CCAMA','FLORES',
+              'CHOQUE','APAZA','TICONA','PUMA','NÚÑEZ','GUTIÉRREZ'])[1 + (g % 12)]
+         || ' ' ||
+       (ARRAY['MAMANI','QUISPE','YUPANQUI','HUANCA','CUTIPA','LAURA',
+              'ZEBALLOS','PACHECO','MEDINA','CÁCERES'])[1 + ((g / 12) % 10)]
+         || ' ' ||
+       (ARRAY['JUAN','ROSA','EDGAR','MARÍA','LUIS','CARMEN','JOSÉ','ELVIRA',
+              'PERCY','NELLY','WILBER','YOLANDA'])[1 + ((g / 120) % 12)]
+         || ' ' || md5(g::text)::varchar(6)                AS nombre_solicitante,
+       'GERENCIA ' || (g % 40)                             AS dirigido_a
+FROM generate_series(1, 1000000) AS g;
+
+ALTER TABLE archivo.bench_expedientes ADD PRIMARY KEY (id);
+CREATE INDEX ON archivo.bench_expedientes (nombre_solicitante);
+CREATE INDEX ON archivo.bench_expedientes
+    USING GIN (archivo.f_normalizar(nombre_solicitante) gin_trgm_ops);
+ANALYZE archivo.bench_expedientes;
+
+-- A) Consulta anterior: Seq Scan sobre 1M filas
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id FROM archivo.bench_expedientes
+WHERE UPPER(nombre_solicitante) LIKE UPPER('%yupanqui jose%');
+
+-- B) Subcadena sin tildes: Bitmap Index Scan en el índice GIN
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id FROM archivo.bench_expedientes
+WHERE archivo.f_normalizar(nombre_solicitante) LIKE '%' || archivo.f_normalizar('yupanqui jose') || '%';
+
+-- C) Aproximada con error de tipeo y sin tildes ("huamani" → HUAMANÍ)
+SELECT set_config('pg_trgm.word_similarity_threshold', '0.5', false);
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id,
+       word_similarity(archivo.f_normalizar('huamany yupanki'), archivo.f_normalizar(nombre_solicitante)) AS similitud
+FROM archivo.bench_expedientes
+WHERE archivo.f_normalizar('huamany yupanki') <% archivo.f_normalizar(nombre_solicitante)
+ORDER BY similitud DESC
+LIMIT 20;
+
+DROP TABLE archivo.bench_expedientes;
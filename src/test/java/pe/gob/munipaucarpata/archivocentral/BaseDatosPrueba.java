@@ -0,0 +1,140 @@
+package pe.gob.munipaucarpata.archivocentral;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * PostgreSQL embebido para las pruebas: un servidor por JVM (binarios de
+ * io.zonky.test) y una base por nombre, creada con los scripts de
+ * {@code db/} en el orden indicado.
+ *
+ * <p>
+ * initdb no se ejecuta como root: correr {@code mvn test} con un usuario
+ * sin privilegios. Las clases que usan la base llevan
+ * {@code @DisabledIfSystemProperty(named = "user.name", matches = "root")}.
+ * </p>
+ */
+public final class BaseDatosPrueba {
+
+    /**
+     * Instalación nueva: esquema base, particionado por año y duplicados
+     * de solicitantes (los demás scripts migran bases anteriores).
+     */
+    public static final String[] ESQUEMA = {
+            "db/01_setup_database.sql",
+            "db/06_particionado_anio.sql",
+            "db/08_duplicados_solicitantes.sql" };
+
+    private static EmbeddedPostgres servidor;
+    private static final Map<String, String> urls = new HashMap<>();
+
+    private BaseDatosPrueba() {
+    }
+
+    /**
+     * URL JDBC de la base {@code nombre}; la primera vez la crea y ejecuta
+     * los scripts. El nombre de la base de los scripts
+     * ({@code archivo_central_mdp}) se reemplaza por {@code nombre}.
+     */
+    public static synchronized String url(String nombre, String... scripts) {
+        return urls.computeIfAbsent(nombre, n -> crear(n, scripts));
+    }
+
+    /**
+     * Conexión de Spring a la base {@code nombre} con el {@link #ESQUEMA},
+     * para {@code @DynamicPropertySource}.
+     */
+    public static void registrar(DynamicPropertyRegistry registry, String nombre) {
+        registry.add("spring.datasource.url", () -> url(nombre, ESQUEMA));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    /**
+     * DataSource sin pool sobre la base {@code nombre} (ya creada con
+     * {@link #url}).
+     */
+    public static synchronized DataSource dataSource(String nombre) {
+        return servidor().getDatabase("postgres", nombre);
+    }
+
+    /**
+     * Ejecuta un script completo (varias sentencias, bloques $$) en la base.
+     */
+    public static void ejecutar(DataSource dataSource, String script, String nombre) {
+        try (var conexion = dataSource.getConnection(); var sentencia = conexion.createStatement()) {
+            sentencia.execute(leer(script).replace("archivo_central_mdp", nombre));
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Falló " + script + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Inserta un expediente con datos de relleno (sin pasar por la
+     * aplicación: no actualiza estadísticas ni notifica).
+     */
+    public static void insertar(JdbcTemplate jdbcTemplate, int id, int anio, String tipo, String dirigidoA, int folios) {
+        jdbcTemplate.update("""
+                INSERT INTO archivo.expedientes (id, anio, fecha_registro, tipo_documento, nro_documento,
+                    nombre_solicitante, dni, asunto, dirigido_a, folios)
+                VALUES (?, ?, make_date(?, 1, 1), ?, 'DOC-' || ?, 'SOLICITANTE ' || ?, '12345678',
+                    'ASUNTO DE PRUEBA', ?, ?)""",
+                id, anio, anio, tipo, id, id, dirigidoA, folios);
+    }
+
+    // -------------------------------------------------------------------------
+    // Utilidad privada
+    // -------------------------------------------------------------------------
+
+    private static String crear(String nombre, String[] scripts) {
+        try (var conexion = servidor().getPostgresDatabase().getConnection();
+                var sentencia = conexion.createStatement()) {
+            sentencia.execute("CREATE DATABASE " + nombre + " ENCODING 'UTF8' TEMPLATE template0");
+        } catch (SQLException ex) {
+            throw new IllegalStateException("No se pudo crear la base " + nombre, ex);
+        }
+        var dataSource = dataSource(nombre);
+        for (var script : scripts) {
+            ejecutar(dataSource, script, nombre);
+        }
+        return servidor().getJdbcUrl("postgres", nombre);
+    }
+
+    private static EmbeddedPostgres servidor() {
+        if (servidor == null) {
+            try {
+                servidor = EmbeddedPostgres.builder()
+                        .setServerConfig("max_connections", "200")
+                        .start();
+            } catch (IOException ex) {
+                throw new UncheckedIOException("No se pudo iniciar PostgreSQL embebido", ex);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    servidor.close();
+                } catch (IOException ex) {
+                    // la JVM termina igual
+                }
+            }));
+        }
+        return servidor;
+    }
+
+    private static String leer(String script) {
+        try (var entrada = new ClassPathResource(script).getInputStream()) {
+            return new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package pe.gob.munipaucarpata.archivocentral.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import pe.gob.munipaucarpata.archivocentral.BaseDatosPrueba;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Los suscriptores SSE no retienen permisos de admisión: con más flujos
+ * abiertos que {@code concurrencia-maxima}, el resto de /api/** sigue
+ * admitiéndose.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "archivo.admision.habilitada=true",
+        "archivo.admision.concurrencia-maxima=2",
+        "archivo.admision.espera-maxima=500ms" })
+@DisabledIfSystemProperty(named = "user.name", matches = "root", disabledReason = "initdb no corre como root")
+class AdmisionFilterTest {
+
+    @DynamicPropertySource
+    static void base(DynamicPropertyRegistry registry) {
+        BaseDatosPrueba.registrar(registry, "admision");
+    }
+
+    @LocalServerPort
+    private int puerto;
+
+    @Test
+    void losFlujosSseNoOcupanPermisos() throws Exception {
+        var cliente = HttpClient.newHttpClient();
+        // Las cabeceras de un flujo SSE llegan con el primer evento: no se esperan
+        var flujos = new ArrayList<CompletableFuture<HttpResponse<Void>>>();
+        try {
+            for (int i = 0; i < 4; i++) {
+                flujos.add(cliente.sendAsync(peticion("/api/expedientes/cambios/stream"),
+                        HttpResponse.BodyHandlers.discarding()));
+            }
+            // Sin la exención, los dos primeros retienen los permisos y el resto espera 500 ms
+            Thread.sleep(1000);
+
+            var respuesta = cliente.send(peticion("/api/expedientes/tipos"), HttpResponse.BodyHandlers.ofString());
+            assertThat(respuesta.statusCode()).isEqualTo(200);
+            assertThat(flujos).noneMatch(CompletableFuture::isDone);
+        } finally {
+            flujos.forEach(flujo -> flujo.cancel(true));
+        }
+    }
+
+    private HttpRequest peticion(String ruta) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + ruta)).build();
+    }
+}
@@ -0,0 +1,41 @@
+package pe.gob.munipaucarpata.archivocentral.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Los conversores binarios parten de la configuración de Jackson de la
+ * aplicación (aquí, la zona horaria de spring.jackson.time-zone).
+ */
+class FormatosBinariosConfigTest {
+
+    private static final TimeZone LIMA = TimeZone.getTimeZone("America/Lima");
+
+    private final FormatosBinariosConfig config = new FormatosBinariosConfig();
+
+    @Test
+    void cborConservaLaConfiguracionDeJackson() {
+        var mapper = config.cborHttpMessageConverter(builder()).getObjectMapper();
+
+        assertThat(mapper.getFactory()).isInstanceOf(CBORFactory.class);
+        assertThat(mapper.getSerializationConfig().getTimeZone()).isEqualTo(LIMA);
+    }
+
+    @Test
+    void smileConservaLaConfiguracionDeJackson() {
+        var mapper = config.smileHttpMessageConverter(builder()).getObjectMapper();
+
+        assertThat(mapper.getFactory()).isInstanceOf(SmileFactory.class);
+        assertThat(mapper.getSerializationConfig().getTimeZone()).isEqualTo(LIMA);
+    }
+
+    private static Jackson2ObjectMapperBuilder builder() {
+        return new Jackson2ObjectMapperBuilder().timeZone(LIMA);
+    }
+}
@@ -0,0 +1,150 @@
+package pe.gob.munipaucarpata.archivocentral.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import pe.gob.munipaucarpata.archivocentral.BaseDatosPrueba;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ruteo de lecturas a réplicas y lectura propia, con dos bases embebidas
+ * (la "réplica" se distingue por current_database()).
+ */
+@DisabledIfSystemProperty(named = "user.name", matches = "root", disabledReason = "initdb no corre como root")
+class RuteoLecturasTest {
+
+    private static Replicas replicas;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate lectura;
+    private static TransactionTemplate escritura;
+
+    private final LecturaPropiaFilter filtro = new LecturaPropiaFilter(Duration.ofSeconds(5));
+
+    @BeforeAll
+    static void bases() throws Exception {
+        var properties = new DataSourceProperties();
+        properties.setUrl(BaseDatosPrueba.url("ruteo_primaria"));
+        properties.setUsername("postgres");
+        properties.setPassword("");
+        properties.afterPropertiesSet();
+        replicas = new Replicas(properties, new MockEnvironment(), new SimpleMeterRegistry(),
+                List.of(BaseDatosPrueba.url("ruteo_replica")), "postgres", "",
+                Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofMillis(100));
+
+        var dataSource = new RuteoLecturasConfig().dataSource(replicas);
+        var transacciones = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        lectura = new TransactionTemplate(transacciones);
+        lectura.setReadOnly(true);
+        escritura = new TransactionTemplate(transacciones);
+
+        // La primera verificación marca la réplica como disponible
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!"ruteo_replica".equals(base(lectura)) && System.currentTimeMillis() < limite) {
+            Thread.sleep(50);
+        }
+    }
+
+    @AfterAll
+    static void cerrar() {
+        replicas.destroy();
+    }
+
+    @Test
+    void lecturasVanALaReplicaYEscriturasALaPrimaria() {
+        assertThat(base(lectura)).isEqualTo("ruteo_replica");
+        assertThat(base(escritura)).isEqualTo("ruteo_primaria");
+    }
+
+    @Test
+    void dentroDeLaVentanaLeeDeLaPrimariaTambienEnHilosAsincronos() throws Exception {
+        var request = new MockHttpServletRequest("GET", "/api/expedientes/1");
+        request.setCookies(new Cookie(LecturaPropiaFilter.COOKIE, Long.toString(System.currentTimeMillis() + 5000)));
+        var bases = new String[2];
+
+        filtro.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            bases[0] = base(lectura);
+            var asincrona = LecturaPropiaFilter.propagar(() -> bases[1] = base(lectura));
+            CompletableFuture.runAsync(asincrona).join();
+        });
+
+        assertThat(bases).containsExactly("ruteo_primaria", "ruteo_primaria");
+    }
+
+    @Test
+    void elLlenadoDeLaCacheLeeDeLaPrimaria() {
+        assertThat(LecturaPropiaFilter.enPrimaria(() -> base(lectura))).isEqualTo("ruteo_primaria");
+        assertThat(base(lectura)).isEqualTo("ruteo_replica");
+    }
+
+    @Test
+    void escrituraConfirmadaCon2xxEntregaLaCookie() throws Exception {
+        var response = post((req, res) -> {
+            escritura.executeWithoutResult(status -> jdbcTemplate.execute("SELECT 1"));
+            res.getWriter().write("{}");
+        });
+        assertThat(response.getCookie(LecturaPropiaFilter.COOKIE)).isNotNull();
+    }
+
+    @Test
+    void postDeSoloLecturaNoEntregaLaCookie() throws Exception {
+        var response = post((req, res) -> {
+            lectura.executeWithoutResult(status -> jdbcTemplate.execute("SELECT 1"));
+            res.getWriter().write("{}");
+        });
+        assertThat(response.getCookie(LecturaPropiaFilter.COOKIE)).isNull();
+    }
+
+    @Test
+    void escrituraRevertidaNoEntregaLaCookie() throws Exception {
+        var response = post((req, res) -> {
+            escritura.executeWithoutResult(status -> {
+                jdbcTemplate.execute("SELECT 1");
+                status.setRollbackOnly();
+            });
+            ((HttpServletResponse) res).setStatus(409);
+            res.getWriter().write("{}");
+        });
+        assertThat(response.getCookie(LecturaPropiaFilter.COOKIE)).isNull();
+    }
+
+    // -------------------------------------------------------------------------
+    // Utilidad privada
+    // -------------------------------------------------------------------------
+
+    private MockHttpServletResponse post(FilterChain chain) throws Exception {
+        var request = new MockHttpServletRequest("POST", "/api/expedientes");
+        var response = new MockHttpServletResponse();
+        // En la aplicación lo hace RequestContextFilter, antes de este filtro
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        try {
+            filtro.doFilter(request, response, chain);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+        return response;
+    }
+
+    private static String base(TransactionTemplate transaccion) {
+        return transaccion.execute(status -> jdbcTemplate.queryForObject("SELECT current_database()", String.class));
+    }
+}
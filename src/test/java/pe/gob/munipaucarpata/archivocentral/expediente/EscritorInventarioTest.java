@@ -0,0 +1,85 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import pe.gob.munipaucarpata.archivocentral.expediente.EscritorInventario.Encabezado;
+import pe.gob.munipaucarpata.archivocentral.expediente.EscritorInventario.FilaInventario;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reporte XLSX: al llenarse una hoja continúa en otra con los títulos de
+ * columna, y los textos que Excel no admite se cortan.
+ */
+class EscritorInventarioTest {
+
+    @Test
+    void alLlenarseLaHojaContinuaEnOtraConLosTitulos() throws IOException {
+        var salida = new ByteArrayOutputStream();
+        try (var escritor = new EscritorInventario.Xlsx(salida, 5)) {
+            escritor.inicio(new Encabezado("INVENTARIO DE TRANSFERENCIA - AÑO 2024", "Sin filtros"));
+            escritor.grupo(TipoDocumento.OFICIO);
+            for (int i = 1; i <= 6; i++) {
+                escritor.fila(fila(i, "ASUNTO " + i));
+            }
+            escritor.subtotal(TipoDocumento.OFICIO, 6, 6);
+            escritor.fin(6, 6);
+        }
+
+        try (var libro = new XSSFWorkbook(new ByteArrayInputStream(salida.toByteArray()))) {
+            assertThat(libro.getNumberOfSheets()).isGreaterThan(1);
+            assertThat(libro.getSheetName(1)).isEqualTo("Inventario 2");
+
+            var items = new ArrayList<Integer>();
+            for (int h = 0; h < libro.getNumberOfSheets(); h++) {
+                var hoja = libro.getSheetAt(h);
+                assertThat(hoja.getLastRowNum()).isLessThan(5);
+                if (h > 0) {
+                    assertThat(hoja.getRow(0).getCell(1).getStringCellValue()).isEqualTo("N° Exp.");
+                }
+                for (Row fila : hoja) {
+                    var asunto = fila.getCell(6);
+                    if (asunto != null && asunto.getStringCellValue().startsWith("ASUNTO")) {
+                        items.add((int) fila.getCell(0).getNumericCellValue());
+                    }
+                }
+            }
+            assertThat(items).containsExactly(1, 2, 3, 4, 5, 6);
+
+            var ultima = libro.getSheetAt(libro.getNumberOfSheets() - 1);
+            assertThat(ultima.getRow(ultima.getLastRowNum()).getCell(4).getStringCellValue())
+                    .isEqualTo("TOTAL: 6 expedientes");
+        }
+    }
+
+    @Test
+    void losTextosDemasiadoLargosSeCortan() throws IOException {
+        int maximo = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+        var salida = new ByteArrayOutputStream();
+        try (var escritor = new EscritorInventario.Xlsx(salida)) {
+            escritor.inicio(new Encabezado("INVENTARIO", ""));
+            escritor.grupo(TipoDocumento.OFICIO);
+            escritor.fila(fila(1, "A".repeat(maximo + 10)));
+            escritor.subtotal(TipoDocumento.OFICIO, 1, 1);
+            escritor.fin(1, 1);
+        }
+
+        try (var libro = new XSSFWorkbook(new ByteArrayInputStream(salida.toByteArray()))) {
+            var asunto = libro.getSheetAt(0).getRow(5).getCell(6).getStringCellValue();
+            assertThat(asunto).hasSize(maximo).endsWith("…");
+        }
+    }
+
+    private static FilaInventario fila(int item, String asunto) {
+        return new FilaInventario(item, TipoDocumento.OFICIO, item, LocalDate.of(2024, 1, item),
+                "OF-" + item, "SOLICITANTE", "12345678", asunto, "GERENCIA", 1, null);
+    }
+}
@@ -0,0 +1,47 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteResumenResponse;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ETag de las páginas: depende de los (N°, version) cargados, el total, la
+ * paginación, la vista y el formato, no del resto del contenido.
+ */
+class EtagsListadoTest {
+
+    private static final PageRequest PAGINA = PageRequest.of(0, 20);
+
+    @Test
+    void mismasVersionesMismaEtag() {
+        var a = Etags.deListado(2, List.of(resumen(1, 0, "A"), resumen(2, 3, "B")), PAGINA, "completa", Etags.JSON);
+        var b = Etags.deListado(2, List.of(resumen(1, 0, "X"), resumen(2, 3, "Y")), PAGINA, "completa", Etags.JSON);
+        assertThat(a).isEqualTo(b).startsWith("W/\"");
+    }
+
+    @Test
+    void cambiaConLaVersionElTotalLaVistaYElFormato() {
+        var contenido = List.of(resumen(1, 0, "A"), resumen(2, 3, "B"));
+        var base = Etags.deListado(2, contenido, PAGINA, "completa", Etags.JSON);
+
+        assertThat(Etags.deListado(2, List.of(resumen(1, 0, "A"), resumen(2, 4, "B")), PAGINA, "completa", Etags.JSON))
+                .isNotEqualTo(base);
+        assertThat(Etags.deListado(3, contenido, PAGINA, "completa", Etags.JSON)).isNotEqualTo(base);
+        assertThat(Etags.deListado(2, contenido, PAGINA, "resumen", Etags.JSON)).isNotEqualTo(base);
+        assertThat(Etags.deListado(2, contenido, PAGINA, "completa", Etags.CBOR))
+                .isNotEqualTo(base)
+                .endsWith("-cbor\"");
+        assertThat(Etags.deListado(2, contenido, PageRequest.of(1, 20), "completa", Etags.JSON)).isNotEqualTo(base);
+    }
+
+    private static ExpedienteResumenResponse resumen(int id, int version, String nombre) {
+        return new ExpedienteResumenResponse(id, 2020, LocalDate.of(2020, 1, 1), TipoDocumento.OFICIO, nombre, 1,
+                Instant.parse("2024-01-01T10:00:00Z"), version);
+    }
+}
@@ -0,0 +1,123 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import pe.gob.munipaucarpata.archivocentral.BaseDatosPrueba;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.EstadisticaResponse;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mantenimiento del resumen por deltas y reconciliación sin bloquear la
+ * tabla.
+ */
+@DisabledIfSystemProperty(named = "user.name", matches = "root", disabledReason = "initdb no corre como root")
+class ExpedienteEstadisticaServiceTest {
+
+    private static final GrupoResumen OFICIO_GERENCIA = new GrupoResumen(2020, "OFICIO", "GERENCIA", 10);
+    private static final GrupoResumen INFORME_GERENCIA = new GrupoResumen(2020, "INFORME", "GERENCIA", 10);
+
+    private static DataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transaccion;
+    private static ExpedienteEstadisticaService estadisticas;
+
+    @BeforeAll
+    static void base() {
+        BaseDatosPrueba.url("estadisticas", BaseDatosPrueba.ESQUEMA);
+        dataSource = BaseDatosPrueba.dataSource("estadisticas");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transaccion = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        estadisticas = new ExpedienteEstadisticaService(jdbcTemplate);
+    }
+
+    @BeforeEach
+    void vaciar() {
+        jdbcTemplate.execute("TRUNCATE archivo.expedientes, archivo.expedientes_ids, archivo.resumen_expedientes");
+    }
+
+    @Test
+    void registrarYMoverAplicanDeltas() {
+        transaccion.executeWithoutResult(s -> {
+            estadisticas.registrar(OFICIO_GERENCIA);
+            estadisticas.registrar(OFICIO_GERENCIA);
+        });
+        // Cambio de tipo de un expediente y de folios (10 → 4) de otro
+        transaccion.executeWithoutResult(s -> {
+            estadisticas.mover(OFICIO_GERENCIA, INFORME_GERENCIA);
+            estadisticas.mover(OFICIO_GERENCIA, new GrupoResumen(2020, "OFICIO", "GERENCIA", 4));
+        });
+        assertThat(porTipo()).containsExactly(
+                new EstadisticaResponse("INFORME", 1, 10),
+                new EstadisticaResponse("OFICIO", 1, 4));
+
+        // El grupo que queda vacío se elimina
+        transaccion.executeWithoutResult(s -> estadisticas.moverTodos(List.<GrupoResumen[]>of(
+                new GrupoResumen[] { new GrupoResumen(2020, "OFICIO", "GERENCIA", 4), INFORME_GERENCIA })));
+        assertThat(porTipo()).containsExactly(new EstadisticaResponse("INFORME", 2, 20));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM archivo.resumen_expedientes", Integer.class))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void reconciliarCorrigeLosGruposDesviados() {
+        // Insertados sin la API: el resumen no los tiene
+        BaseDatosPrueba.insertar(jdbcTemplate, 1, 2020, "OFICIO", "GERENCIA", 3);
+        BaseDatosPrueba.insertar(jdbcTemplate, 2, 2020, "OFICIO", "GERENCIA", 5);
+        // Grupo sin expedientes
+        transaccion.executeWithoutResult(s -> estadisticas.registrar(INFORME_GERENCIA));
+
+        var resultado = estadisticas.reconciliar();
+
+        assertThat(resultado.gruposConDiferencia()).isEqualTo(2);
+        assertThat(resultado.grupos()).isEqualTo(1);
+        assertThat(porTipo()).containsExactly(new EstadisticaResponse("OFICIO", 2, 8));
+        assertThat(estadisticas.reconciliar().gruposConDiferencia()).isZero();
+    }
+
+    @Test
+    void reconciliarNoEsperaNiPisaUnRegistroEnCurso() throws Exception {
+        BaseDatosPrueba.insertar(jdbcTemplate, 1, 2020, "OFICIO", "GERENCIA", 3);
+        BaseDatosPrueba.insertar(jdbcTemplate, 2, 2020, "INFORME", "GERENCIA", 10);
+        transaccion.executeWithoutResult(s -> estadisticas.registrar(INFORME_GERENCIA));
+
+        // Registro sin confirmar: expediente y delta en la misma transacción
+        try (var conexion = dataSource.getConnection()) {
+            conexion.setAutoCommit(false);
+            var enCurso = new JdbcTemplate(new SingleConnectionDataSource(conexion, true));
+            BaseDatosPrueba.insertar(enCurso, 3, 2020, "INFORME", "GERENCIA", 7);
+            new ExpedienteEstadisticaService(enCurso).registrar(new GrupoResumen(2020, "INFORME", "GERENCIA", 7));
+
+            // Con LOCK TABLE esperaría al commit del registro
+            assertThat(estadisticas.reconciliar().gruposConDiferencia()).isEqualTo(1);
+            conexion.commit();
+        }
+
+        assertThat(porTipo()).containsExactly(
+                new EstadisticaResponse("INFORME", 2, 17),
+                new EstadisticaResponse("OFICIO", 1, 3));
+        assertThat(estadisticas.reconciliar().gruposConDiferencia()).isZero();
+    }
+
+    @Test
+    void losDatosDePruebaDejanElResumenAlDia() {
+        BaseDatosPrueba.ejecutar(dataSource, "db/02_insert_test_data.sql", "estadisticas");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT SUM(cantidad) FROM archivo.resumen_expedientes", Long.class))
+                .isEqualTo(5L);
+        assertThat(estadisticas.reconciliar().gruposConDiferencia()).isZero();
+    }
+
+    private static List<EstadisticaResponse> porTipo() {
+        return estadisticas.consultar(DimensionEstadistica.TIPO_DOCUMENTO, null);
+    }
+}
@@ -0,0 +1,68 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import pe.gob.munipaucarpata.archivocentral.BaseDatosPrueba;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ExpedienteResponse;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Paginación por cursor de GET /cambios: orden (updated_at, id) con
+ * empates de updated_at, sin repetir ni saltar, y sin pasar del margen.
+ */
+@SpringBootTest
+@DisabledIfSystemProperty(named = "user.name", matches = "root", disabledReason = "initdb no corre como root")
+class FlujoCambiosTest {
+
+    @DynamicPropertySource
+    static void base(DynamicPropertyRegistry registry) {
+        BaseDatosPrueba.registrar(registry, "flujo_cambios");
+    }
+
+    @Autowired
+    private ExpedienteService service;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void recorreTodosLosCambiosPorPaginasConEmpates() {
+        for (int id = 1; id <= 5; id++) {
+            BaseDatosPrueba.insertar(jdbcTemplate, id, 2020, "OFICIO", "GERENCIA", 1);
+        }
+        // 1..3 con el mismo updated_at; 5 antes que 4
+        jdbcTemplate.update("UPDATE archivo.expedientes SET updated_at = TIMESTAMPTZ '2024-01-01 10:00' WHERE id <= 3");
+        jdbcTemplate.update("UPDATE archivo.expedientes SET updated_at = TIMESTAMPTZ '2024-01-01 10:00:00.000002' WHERE id = 4");
+        jdbcTemplate.update("UPDATE archivo.expedientes SET updated_at = TIMESTAMPTZ '2024-01-01 10:00:00.000001' WHERE id = 5");
+        // Dentro del margen: todavía no se entrega
+        BaseDatosPrueba.insertar(jdbcTemplate, 6, 2020, "OFICIO", "GERENCIA", 1);
+
+        var vistos = new ArrayList<Integer>();
+        String cursor = null;
+        int paginas = 0;
+        boolean hayMas;
+        do {
+            var pagina = service.buscarCambios(cursor, 2);
+            pagina.contenido().stream().map(ExpedienteResponse::id).forEach(vistos::add);
+            cursor = pagina.siguienteCursor();
+            hayMas = pagina.hayMas();
+            paginas++;
+        } while (hayMas);
+
+        assertThat(vistos).containsExactly(1, 2, 3, 5, 4);
+        assertThat(paginas).isEqualTo(3);
+
+        // Desde el último cursor no hay nada nuevo y el cursor no cambia
+        var vacia = service.buscarCambios(cursor, 2);
+        assertThat(vacia.contenido()).isEmpty();
+        assertThat(vacia.siguienteCursor()).isEqualTo(cursor);
+    }
+}
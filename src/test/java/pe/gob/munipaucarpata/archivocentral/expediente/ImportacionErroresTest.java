@@ -0,0 +1,54 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import pe.gob.munipaucarpata.archivocentral.BaseDatosPrueba;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.ImportacionResponse.ErrorFila;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * El reporte de la importación detalla solo los primeros
+ * {@code archivo.importacion.max-errores} rechazos y cuenta el resto.
+ */
+@SpringBootTest(properties = "archivo.importacion.max-errores=2")
+@DisabledIfSystemProperty(named = "user.name", matches = "root", disabledReason = "initdb no corre como root")
+class ImportacionErroresTest {
+
+    @DynamicPropertySource
+    static void base(DynamicPropertyRegistry registry) {
+        BaseDatosPrueba.registrar(registry, "importacion_errores");
+    }
+
+    @Autowired
+    private ExpedienteImportacionService service;
+
+    @Test
+    void detallaLosPrimerosErroresYCuentaTodos() throws Exception {
+        var ndjson = new StringBuilder();
+        for (int id = 901; id <= 906; id++) {
+            // Las impares sin DNI: 3 rechazadas
+            var dni = id % 2 == 0 ? "12345678" : "";
+            ndjson.append("""
+                    {"id":%d,"anio":2020,"fechaRegistro":"2020-01-01","tipoDocumento":"OFICIO","nroDocumento":"OF-%d",\
+                    "nombreSolicitante":"SOLICITANTE","dni":"%s","asunto":"ASUNTO","dirigidoA":"GERENCIA","folios":1}
+                    """.formatted(id, id, dni));
+        }
+
+        var resultado = service.importar(
+                new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)), FormatoArchivo.NDJSON);
+
+        assertThat(resultado.totalFilas()).isEqualTo(6);
+        assertThat(resultado.insertadas()).isEqualTo(3);
+        assertThat(resultado.rechazadas()).isEqualTo(3);
+        assertThat(resultado.errores()).extracting(ErrorFila::id).containsExactly(901, 903);
+        assertThat(resultado.erroresOmitidos()).isEqualTo(1);
+    }
+}
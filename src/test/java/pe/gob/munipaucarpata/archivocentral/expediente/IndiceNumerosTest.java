@@ -0,0 +1,56 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import pe.gob.munipaucarpata.archivocentral.BaseDatosPrueba;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Índice de N°: carga completa al iniciar y, después, solo los cambios
+ * del flujo de cambios.
+ */
+@DisabledIfSystemProperty(named = "user.name", matches = "root", disabledReason = "initdb no corre como root")
+class IndiceNumerosTest {
+
+    private static DataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void base() {
+        BaseDatosPrueba.url("indice_numeros", BaseDatosPrueba.ESQUEMA);
+        dataSource = BaseDatosPrueba.dataSource("indice_numeros");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        BaseDatosPrueba.insertar(jdbcTemplate, 1, 2020, "OFICIO", "GERENCIA", 1);
+        BaseDatosPrueba.insertar(jdbcTemplate, 2, 2021, "OFICIO", "GERENCIA", 1);
+    }
+
+    @Test
+    void cargaCompletaYLuegoSoloLosCambios() {
+        var indice = new IndiceNumeros(dataSource, new DataSourceTransactionManager(dataSource),
+                new SimpleMeterRegistry(), Duration.ZERO);
+
+        indice.sincronizar();
+        assertThat(indice.registrado(1)).isTrue();
+        assertThat(indice.registrado(2)).isTrue();
+        assertThat(indice.registrado(3)).isFalse();
+
+        // Registrado por otra instancia: llega con la lectura incremental
+        BaseDatosPrueba.insertar(jdbcTemplate, 3, 2022, "OFICIO", "GERENCIA", 1);
+        // Con updated_at anterior a la carga: solo una recarga completa lo vería
+        BaseDatosPrueba.insertar(jdbcTemplate, 4, 2022, "OFICIO", "GERENCIA", 1);
+        jdbcTemplate.update("UPDATE archivo.expedientes SET updated_at = now() - interval '1 day' WHERE id = 4");
+
+        indice.sincronizar();
+        assertThat(indice.registrado(3)).isTrue();
+        assertThat(indice.registrado(4)).isFalse();
+        assertThat(indice.consultar(NumerosRegistrados::cantidad)).isEqualTo(3L);
+    }
+}
@@ -0,0 +1,83 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import pe.gob.munipaucarpata.archivocentral.BaseDatosPrueba;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET condicional de los listados: ETag y Last-Modified de la página,
+ * 304 con la misma ETag y 200 con otra después de una corrección.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DisabledIfSystemProperty(named = "user.name", matches = "root", disabledReason = "initdb no corre como root")
+class ListadoCondicionalTest {
+
+    @DynamicPropertySource
+    static void base(DynamicPropertyRegistry registry) {
+        BaseDatosPrueba.registrar(registry, "listado_condicional");
+    }
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void revalidaLaPaginaResumenPorVersion() throws Exception {
+        BaseDatosPrueba.insertar(jdbcTemplate, 801, 2021, "OFICIO", "GERENCIA", 1);
+        BaseDatosPrueba.insertar(jdbcTemplate, 802, 2021, "OFICIO", "GERENCIA", 1);
+        jdbcTemplate.update("UPDATE archivo.expedientes SET updated_at = TIMESTAMPTZ '2024-05-06 07:08:09Z'"
+                + " WHERE id = 802");
+
+        // Sin filtro por año: las primeras páginas por año vienen de ExpedienteCache
+        var primera = mvc.perform(get("/api/expedientes").param("vista", "resumen"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        var etag = primera.getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("W/\"");
+        assertThat(primera.getContentAsString()).contains("\"version\":0");
+        // La más reciente de la página (801 se insertó ahora)
+        var ultima = ZonedDateTime.parse(primera.getHeader(HttpHeaders.LAST_MODIFIED),
+                DateTimeFormatter.RFC_1123_DATE_TIME);
+        assertThat(ultima.getYear()).isGreaterThan(2024);
+
+        mvc.perform(get("/api/expedientes").param("vista", "resumen")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        jdbcTemplate.update("UPDATE archivo.expedientes SET version = version + 1 WHERE id = 802");
+        var despues = mvc.perform(get("/api/expedientes").param("vista", "resumen")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertThat(despues.getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+    }
+
+    @Test
+    void laBusquedaResumenIncluyeVersionYFecha() throws Exception {
+        BaseDatosPrueba.insertar(jdbcTemplate, 811, 2022, "OFICIO", "GERENCIA", 1);
+
+        var respuesta = mvc.perform(get("/api/expedientes/buscar").param("anio", "2022").param("vista", "resumen"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertThat(respuesta.getContentAsString()).contains("\"id\":811", "\"version\":0", "\"updatedAt\":");
+        assertThat(respuesta.getHeader(HttpHeaders.LAST_MODIFIED)).isNotNull();
+    }
+}
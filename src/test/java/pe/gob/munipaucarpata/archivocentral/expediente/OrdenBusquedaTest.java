@@ -0,0 +1,45 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ORDER BY de la búsqueda dinámica según el sort del Pageable.
+ */
+class OrdenBusquedaTest {
+
+    @Test
+    void sinSortOrdenaPorAnioDescendenteYNumero() {
+        assertThat(orden(Sort.unsorted())).isEqualTo(" ORDER BY e.anio DESC, e.id ASC");
+    }
+
+    @Test
+    void respetaElSortPedidoConDesempatePorNumero() {
+        assertThat(orden(Sort.by(Sort.Order.desc("folios"), Sort.Order.asc("nombreSolicitante"))))
+                .isEqualTo(" ORDER BY e.folios DESC, e.nombre_solicitante ASC, e.id ASC");
+    }
+
+    @Test
+    void noAgregaDesempateSiYaOrdenaPorNumero() {
+        assertThat(orden(Sort.by(Sort.Order.desc("id")))).isEqualTo(" ORDER BY e.id DESC");
+    }
+
+    @Test
+    void propiedadNoPermitidaResponde400() {
+        assertThatThrownBy(() -> orden(Sort.by("asunto")))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(ex -> assertThat(((ResponseStatusException) ex).getStatusCode())
+                        .isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    private static String orden(Sort sort) {
+        var sql = new StringBuilder();
+        ExpedienteRepositoryImpl.agregarOrden(sql, sort);
+        return sql.toString();
+    }
+}
@@ -0,0 +1,25 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import pe.gob.munipaucarpata.archivocentral.BaseDatosPrueba;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Ejecuta db/explain_busqueda_dinamica.sql: con plan genérico, cada
+ * combinación de filtros de la búsqueda dinámica usa su índice. El script
+ * falla con RAISE EXCEPTION (y la prueba con él) si un plan no lo usa.
+ */
+@DisabledIfSystemProperty(named = "user.name", matches = "root", disabledReason = "initdb no corre como root")
+class PlanesBusquedaDinamicaTest {
+
+    @Test
+    void cadaCombinacionDeFiltrosUsaSuIndice() {
+        BaseDatosPrueba.url("planes_busqueda", "db/01_setup_database.sql");
+        var dataSource = BaseDatosPrueba.dataSource("planes_busqueda");
+
+        assertThatCode(() -> BaseDatosPrueba.ejecutar(dataSource, "db/explain_busqueda_dinamica.sql", "planes_busqueda"))
+                .doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,161 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import pe.gob.munipaucarpata.archivocentral.BaseDatosPrueba;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.CreateExpedienteRequest;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Registro agrupado: un commit por grupo, 409 por N° y, si el grupo
+ * falla, reintento de a uno sin afectar a las demás solicitudes.
+ */
+@DisabledIfSystemProperty(named = "user.name", matches = "root", disabledReason = "initdb no corre como root")
+class RegistroAgrupadoTest {
+
+    private static DataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry registry;
+    private RegistroAgrupado agrupado;
+
+    @BeforeAll
+    static void base() {
+        BaseDatosPrueba.url("registro_agrupado", BaseDatosPrueba.ESQUEMA);
+        dataSource = BaseDatosPrueba.dataSource("registro_agrupado");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @BeforeEach
+    void iniciar() {
+        jdbcTemplate.execute("TRUNCATE archivo.expedientes, archivo.expedientes_ids, archivo.resumen_expedientes");
+        registry = new SimpleMeterRegistry();
+        var transacciones = new DataSourceTransactionManager(dataSource);
+        // Índice sin cargar: los N° repetidos los detecta la base
+        var numeros = new IndiceNumeros(dataSource, transacciones, registry, Duration.ZERO);
+        agrupado = new RegistroAgrupado(jdbcTemplate, transacciones, evento -> {
+        }, numeros, registry, Duration.ofMillis(500), 200, 100, Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void detener() {
+        agrupado.destroy();
+    }
+
+    @Test
+    void unCommitPorGrupo() {
+        var resultados = registrarALaVez(request(1, "OF-1"), request(2, "OF-2"), request(3, "OF-3"));
+
+        assertThat(resultados).allMatch(r -> r instanceof Creado);
+        var filas = registry.get("archivo.registro.agrupado.filas").summary();
+        assertThat(filas.count()).isEqualTo(1);
+        assertThat(filas.max()).isEqualTo(3);
+    }
+
+    @Test
+    void conflictosYFallaDelGrupoSeResuelvenPorSolicitud() {
+        BaseDatosPrueba.insertar(jdbcTemplate, 10, 2020, "OFICIO", "GERENCIA", 1);
+
+        var resultados = registrarALaVez(
+                request(11, "OF-11"),
+                request(12, "OF-12"),
+                request(10, "OF-10"),
+                request(12, "OF-12-BIS"),
+                // Excede VARCHAR(50): hace fallar el INSERT del grupo completo
+                request(13, "X".repeat(60)));
+
+        assertThat(resultados.subList(0, 2)).allMatch(r -> r instanceof Creado);
+        assertThat(resultados.get(2)).isEqualTo(new Duplicado(10));
+        assertThat(resultados.get(3)).isEqualTo(new Duplicado(12));
+        assertThat(resultados.get(4)).isInstanceOf(Fallido.class);
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM archivo.expedientes ORDER BY id", Integer.class))
+                .containsExactly(10, 11, 12);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT cantidad FROM archivo.resumen_expedientes WHERE anio = 2021", Long.class)).isEqualTo(2L);
+    }
+
+    // -------------------------------------------------------------------------
+    // Utilidad privada
+    // -------------------------------------------------------------------------
+
+    private sealed interface Resultado permits Creado, Duplicado, Fallido {
+    }
+
+    private record Creado(int id) implements Resultado {
+    }
+
+    private record Duplicado(int id) implements Resultado {
+    }
+
+    private record Fallido(String mensaje) implements Resultado {
+    }
+
+    /**
+     * Envía las solicitudes en el orden dado (dentro de la misma ventana)
+     * y devuelve el resultado de cada una.
+     */
+    private List<Resultado> registrarALaVez(CreateExpedienteRequest... requests) {
+        var futuros = new ArrayList<CompletableFuture<Resultado>>();
+        try (var hilos = Executors.newFixedThreadPool(requests.length)) {
+            for (var request : requests) {
+                var enviado = new CountDownLatch(1);
+                futuros.add(CompletableFuture.supplyAsync(() -> {
+                    enviado.countDown();
+                    return registrar(request);
+                }, hilos));
+                // Espera a que arranque para conservar el orden en la cola
+                esperar(enviado);
+                esperar(20);
+            }
+        }
+        return futuros.stream().map(CompletableFuture::join).toList();
+    }
+
+    private Resultado registrar(CreateExpedienteRequest request) {
+        try {
+            return new Creado(agrupado.registrar(request).id());
+        } catch (IllegalArgumentException ex) {
+            return new Duplicado(request.id());
+        } catch (RuntimeException ex) {
+            return new Fallido(ex.getMessage());
+        }
+    }
+
+    private static CreateExpedienteRequest request(int id, String nroDocumento) {
+        return new CreateExpedienteRequest(id, 2021, LocalDate.of(2021, 5, 1), TipoDocumento.OFICIO,
+                nroDocumento, "SOLICITANTE " + id, "12345678", "ASUNTO " + id, "GERENCIA", 1, null, null);
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void esperar(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package pe.gob.munipaucarpata.archivocentral.expediente;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import pe.gob.munipaucarpata.archivocentral.BaseDatosPrueba;
+import pe.gob.munipaucarpata.archivocentral.expediente.dto.CreateExpedienteRequest;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unicidad global del N° con la tabla particionada por año: el trigger
+ * trg_exp_id_unico descarta la fila repetida aunque vaya a otra partición,
+ * y el registro responde 409. Un año sin partición propia se registra en
+ * la partición por defecto.
+ */
+@SpringBootTest
+@DisabledIfSystemProperty(named = "user.name", matches = "root", disabledReason = "initdb no corre como root")
+class RegistroParticionadoTest {
+
+    @DynamicPropertySource
+    static void base(DynamicPropertyRegistry registry) {
+        BaseDatosPrueba.registrar(registry, "registro_particionado");
+    }
+
+    @Autowired
+    private ExpedienteService service;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void elTriggerDescartaElNumeroRepetidoEnOtraParticion() {
+        BaseDatosPrueba.insertar(jdbcTemplate, 700, 2020, "OFICIO", "GERENCIA", 1);
+
+        int filas = jdbcTemplate.update("""
+                INSERT INTO archivo.expedientes (id, anio, fecha_registro, tipo_documento, nro_documento,
+                    nombre_solicitante, dni, asunto, dirigido_a, folios)
+                VALUES (700, 2021, DATE '2021-01-01', 'OFICIO', 'DOC', 'SOLICITANTE', '12345678',
+                    'ASUNTO', 'GERENCIA', 1)""");
+
+        assertThat(filas).isZero();
+        assertThat(jdbcTemplate.queryForList("SELECT anio FROM archivo.expedientes WHERE id = 700", Integer.class))
+                .containsExactly(2020);
+    }
+
+    @Test
+    void registrarUnNumeroDeOtroAnioResponde409() {
+        // Sin pasar por la API: el índice de N° aún no lo conoce y decide el trigger
+        BaseDatosPrueba.insertar(jdbcTemplate, 701, 2020, "OFICIO", "GERENCIA", 1);
+
+        assertThatThrownBy(() -> service.registrar(request(701, 2022)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("701");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM archivo.resumen_expedientes WHERE anio = 2022", Integer.class)).isZero();
+
+        var registrado = service.registrar(request(702, 2022));
+        assertThat(registrado.id()).isEqualTo(702);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT anio FROM archivo.expedientes_ids WHERE id = 702", Integer.class)).isEqualTo(2022);
+    }
+
+    @Test
+    void unAnioSinParticionVaALaParticionPorDefectoHastaCrearla() {
+        var registrado = service.registrar(request(703, 2099));
+        assertThat(registrado.id()).isEqualTo(703);
+        assertThat(particion(703)).isEqualTo("expedientes_default");
+
+        jdbcTemplate.queryForObject("SELECT archivo.crear_particion_anio(2099)", String.class);
+
+        assertThat(particion(703)).isEqualTo("expedientes_2099");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM archivo.expedientes_ids WHERE id = 703", Integer.class)).isOne();
+        // El N° sigue siendo único después del traslado
+        BaseDatosPrueba.insertar(jdbcTemplate, 703, 2020, "OFICIO", "GERENCIA", 1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM archivo.expedientes WHERE id = 703", Integer.class)).isOne();
+    }
+
+    private String particion(int id) {
+        return jdbcTemplate.queryForObject("""
+                SELECT c.relname FROM archivo.expedientes e JOIN pg_class c ON c.oid = e.tableoid
+                WHERE e.id = ?""", String.class, id);
+    }
+
+    static CreateExpedienteRequest request(int id, int anio) {
+        return new CreateExpedienteRequest(id, anio, LocalDate.of(anio, 3, 1), TipoDocumento.OFICIO,
+                "OF-" + id, "SOLICITANTE " + id, "12345678", "ASUNTO " + id, "GERENCIA", 2, null, null);
+    }
+}
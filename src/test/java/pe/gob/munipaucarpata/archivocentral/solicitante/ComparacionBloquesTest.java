@@ -0,0 +1,94 @@
+package pe.gob.munipaucarpata.archivocentral.solicitante;
+
+import org.junit.jupiter.api.Test;
+import pe.gob.munipaucarpata.archivocentral.solicitante.ComparacionBloques.Bloque;
+import pe.gob.munipaucarpata.archivocentral.solicitante.ComparacionBloques.Criterio;
+import pe.gob.munipaucarpata.archivocentral.solicitante.ComparacionBloques.Par;
+import pe.gob.munipaucarpata.archivocentral.solicitante.ComparacionBloques.Solicitante;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Bloqueo de la detección de duplicados: cada par se compara una sola vez,
+ * en su primera clave común no omitida, y los bloques grandes se reparten
+ * por filas sin perder pares.
+ */
+class ComparacionBloquesTest {
+
+    private static final Criterio CRITERIO = new Criterio(0.93, 0.85);
+
+    private static final Solicitante JUAN = solicitante(1, "JUAN PEREZ QUISPE", "12345678", true,
+            "d:12345678", "w:PEREZ QUISPE");
+    private static final Solicitante JUAN_TIPEADO = solicitante(2, "JUAN PERES QUISPE", "12345678", true,
+            "d:12345678", "w:PEREZ QUISPE");
+
+    @Test
+    void unParConVariasClavesSeComparaUnaVez() {
+        var comparaciones = new LongAdder();
+        var pares = comparar(List.of(
+                new Bloque("d:12345678", List.of(JUAN, JUAN_TIPEADO)),
+                new Bloque("w:PEREZ QUISPE", List.of(JUAN, JUAN_TIPEADO))), Set.of(), comparaciones);
+
+        assertThat(pares).extracting(Par::a, Par::b).containsExactly(tuple(1L, 2L));
+        assertThat(comparaciones.sum()).isEqualTo(1);
+    }
+
+    @Test
+    void conLaPrimeraClaveOmitidaSeComparaEnLaSiguiente() {
+        assertThat(ComparacionBloques.primeraClaveComun(JUAN, JUAN_TIPEADO, Set.of("d:12345678")))
+                .isEqualTo("w:PEREZ QUISPE");
+        assertThat(ComparacionBloques.primeraClaveComun(JUAN, JUAN_TIPEADO,
+                Set.of("d:12345678", "w:PEREZ QUISPE"))).isNull();
+
+        // El bloque del DNI es demasiado grande y no se envía
+        var pares = comparar(List.of(new Bloque("w:PEREZ QUISPE", List.of(JUAN, JUAN_TIPEADO))),
+                Set.of("d:12345678"), new LongAdder());
+        assertThat(pares).hasSize(1);
+    }
+
+    @Test
+    void enLaIncrementalSeOmitenLosParesSinCambios() {
+        var antiguo = solicitante(3, "JUAN PEREZ QUISPE", "12345678", false, "d:12345678");
+        var antiguoTipeado = solicitante(4, "JUAN PERES QUISPE", "12345678", false, "d:12345678");
+        var comparaciones = new LongAdder();
+
+        var pares = comparar(List.of(new Bloque("d:12345678", List.of(antiguo, antiguoTipeado))),
+                Set.of(), comparaciones);
+
+        assertThat(pares).isEmpty();
+        assertThat(comparaciones.sum()).isZero();
+    }
+
+    @Test
+    void unBloqueGrandeSeRepartePorFilasSinPerderPares() {
+        int n = 400; // 79 800 pares: varias tareas
+        var miembros = new ArrayList<Solicitante>();
+        for (int i = 0; i < n; i++) {
+            miembros.add(solicitante(100 + i, "PERSONA " + i + " QUISPE", String.format("%08d", i * 37), true,
+                    "w:QUISPE"));
+        }
+        var comparaciones = new LongAdder();
+
+        comparar(List.of(new Bloque("w:QUISPE", miembros)), Set.of(), comparaciones);
+
+        assertThat(comparaciones.sum()).isEqualTo((long) n * (n - 1) / 2);
+    }
+
+    private static List<Par> comparar(List<Bloque> bloques, Set<String> omitidas, LongAdder comparaciones) {
+        return ForkJoinPool.commonPool().invoke(new ComparacionBloques(bloques, CRITERIO, omitidas, comparaciones));
+    }
+
+    private static Solicitante solicitante(long id, String nombre, String dni, boolean cambiado, String... claves) {
+        var palabras = nombre.split(" ");
+        var ordenado = Arrays.stream(palabras).sorted().reduce((a, b) -> a + " " + b).orElse("");
+        return new Solicitante(id, nombre, palabras, ordenado, dni, claves, cambiado);
+    }
+}
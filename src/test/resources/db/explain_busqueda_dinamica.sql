@@ -0,0 +1,86 @@
+-- ============================================================
+-- ARCHIVO CENTRAL MDP — Verificación de planes: búsqueda dinámica
+-- ============================================================
+-- Comprueba con EXPLAIN que cada combinación de filtros que genera
+-- FiltroExpediente.agregarPredicados usa su índice, incluso con plan
+-- genérico (el que reutiliza el prepared statement de pgjdbc). Con
+-- rango de fechas o subcadena la aplicación fuerza un plan a medida
+-- (ExpedienteRepositoryImpl.planSegunValores), y así se verifica.
+-- Falla con RAISE EXCEPTION si algún plan no usa el índice esperado.
+--
+-- Usa una copia (archivo.plan_expedientes) con 300.000 filas; no toca
+-- archivo.expedientes. Requiere 01_setup_database.sql.
+-- Lo ejecuta PlanesBusquedaDinamicaTest (mvn test); también con psql:
+--   psql -d archivo_central_mdp -f explain_busqueda_dinamica.sql
+-- ============================================================
+
+DROP TABLE IF EXISTS archivo.plan_expedientes;
+CREATE TABLE archivo.plan_expedientes (LIKE archivo.expedientes INCLUDING ALL);
+
+INSERT INTO archivo.plan_expedientes (
+    id, anio, fecha_registro, tipo_documento, nro_documento,
+    nombre_solicitante, dni, asunto, dirigido_a, folios)
+SELECT g,
+       1950 + (g % 75),
+       DATE '1950-01-01' + (g % 27000),
+       (ARRAY['OFICIO','MEMORANDO','INFORME','CARTA','SOLICITUD','RESOLUCION',
+              'EXPEDIENTE_ADMINISTRATIVO','CONTRATO','CONVENIO','OTRO'])[1 + (g % 10)],
+       'DOC-' || g,
+       'SOLICITANTE ' || md5(g::text),
+       lpad((g % 250000)::text, 8, '0'),
+       'ASUNTO DE PRUEBA ' || g,
+       'GERENCIA ' || (g % 40),
+       1 + (g % 50)
+FROM generate_series(1, 300000) AS g;
+
+ANALYZE archivo.plan_expedientes;
+
+SET plan_cache_mode = force_generic_plan;
+
+CREATE OR REPLACE FUNCTION pg_temp.verificar_plan(consulta TEXT, indice TEXT)
+    RETURNS VOID
+    LANGUAGE plpgsql
+AS $$
+DECLARE
+    linea TEXT;
+    plan  TEXT := '';
+BEGIN
+    FOR linea IN EXECUTE 'EXPLAIN (FORMAT TEXT) ' || consulta LOOP
+        plan := plan || linea || E'\n';
+    END LOOP;
+    IF position(indice IN plan) = 0 THEN
+        RAISE EXCEPTION 'El plan de "%" no usa %: %', consulta, indice, E'\n' || plan;
+    END IF;
+    RAISE NOTICE 'OK % → %', consulta, indice;
+END
+$$;
+
+-- Cada PREPARE reproduce el SQL que genera la aplicación para esa combinación
+PREPARE por_numero(INTEGER) AS
+    SELECT * FROM archivo.plan_expedientes e WHERE TRUE AND e.id = $1
+    ORDER BY e.anio DESC, e.id ASC LIMIT 20;
+PREPARE por_dni(VARCHAR) AS
+    SELECT * FROM archivo.plan_expedientes e WHERE TRUE AND e.dni = $1
+    ORDER BY e.anio DESC, e.id ASC LIMIT 20;
+PREPARE por_anio(INTEGER) AS
+    SELECT * FROM archivo.plan_expedientes e WHERE TRUE AND e.anio = $1
+    ORDER BY e.anio DESC, e.id ASC LIMIT 20;
+PREPARE por_fechas(DATE, DATE) AS
+    SELECT * FROM archivo.plan_expedientes e WHERE TRUE
+      AND e.fecha_registro >= $1 AND e.fecha_registro <= $2
+    ORDER BY e.anio DESC, e.id ASC LIMIT 20;
+PREPARE por_nombre(VARCHAR) AS
+    SELECT * FROM archivo.plan_expedientes e WHERE TRUE
+      AND archivo.f_normalizar(e.nombre_solicitante) LIKE '%' || archivo.f_normalizar($1) || '%'
+    ORDER BY e.anio DESC, e.id ASC LIMIT 20;
+
+SELECT pg_temp.verificar_plan('EXECUTE por_numero(4521)',                          'plan_expedientes_pkey');
+SELECT pg_temp.verificar_plan('EXECUTE por_dni(''00004521'')',                     'plan_expedientes_dni_idx');
+SELECT pg_temp.verificar_plan('EXECUTE por_anio(2000)',                            'plan_expedientes_anio');
+SET plan_cache_mode = force_custom_plan;
+SELECT pg_temp.verificar_plan('EXECUTE por_fechas(''2000-01-01'', ''2000-01-31'')', 'plan_expedientes_fecha_registro_idx');
+SELECT pg_temp.verificar_plan('EXECUTE por_nombre(''a1b2c3'')',                    'plan_expedientes_f_normalizar_idx');
+
+DEALLOCATE ALL;
+RESET plan_cache_mode;
+DROP TABLE archivo.plan_expedientes;